@@ -0,0 +1,326 @@
+package hr.fer.zemris.java.custom.collections.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * A set of benchmark results which later runs are compared with.
+ * <p>
+ * A baseline maps every benchmark, identified by its name and parameters, to its
+ * score, the error of the score and the number of bytes allocated per operation.
+ * It is stored as a flat JSON object, one benchmark per line, so baselines kept
+ * in version control give readable diffs:
+ *
+ * <pre>
+ * {
+ *   "IndexedCollectionBenchmark.getCustom:implementation=array,size=16": {"score": 2.5, "error": 0.1, "allocation": 0.0},
+ *   ...
+ * }
+ * </pre>
+ *
+ * All benchmarks in this module measure the average time of an operation, so a
+ * higher score is a worse score.
+ *
+ * @author Ivan Skorupan
+ */
+public class Baseline {
+
+	/**
+	 * Name of the secondary result in which the GC profiler reports allocated bytes per operation.
+	 */
+	private static final String ALLOCATION_RESULT = "gc.alloc.rate.norm";
+
+	/**
+	 * Pattern matching a single benchmark in a stored baseline.
+	 */
+	private static final Pattern ENTRY_PATTERN = Pattern.compile(
+			"\"([^\"]+)\"\\s*:\\s*\\{\\s*\"score\"\\s*:\\s*([^,\\s]+)\\s*,\\s*\"error\"\\s*:\\s*([^,\\s]+)\\s*,"
+			+ "\\s*\"allocation\"\\s*:\\s*([^}\\s]+)\\s*\\}");
+
+	/**
+	 * Models a measured result of a single benchmark.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	public static class Measurement {
+
+		/**
+		 * Score of the benchmark.
+		 */
+		private double score;
+
+		/**
+		 * Error of the score, <code>NaN</code> if unknown.
+		 */
+		private double error;
+
+		/**
+		 * Bytes allocated per operation, <code>NaN</code> if unknown.
+		 */
+		private double allocation;
+
+		/**
+		 * Constructs a new {@link Measurement} object.
+		 *
+		 * @param score - score of the benchmark
+		 * @param error - error of the score, <code>NaN</code> if unknown
+		 * @param allocation - bytes allocated per operation, <code>NaN</code> if unknown
+		 */
+		public Measurement(double score, double error, double allocation) {
+			this.score = score;
+			this.error = error;
+			this.allocation = allocation;
+		}
+
+		/**
+		 * Getter for the score of the benchmark.
+		 *
+		 * @return score of the benchmark
+		 */
+		public double getScore() {
+			return score;
+		}
+
+		/**
+		 * Getter for the error of the score.
+		 *
+		 * @return error of the score, <code>NaN</code> if unknown
+		 */
+		public double getError() {
+			return error;
+		}
+
+		/**
+		 * Getter for the number of bytes allocated per operation.
+		 *
+		 * @return bytes allocated per operation, <code>NaN</code> if unknown
+		 */
+		public double getAllocation() {
+			return allocation;
+		}
+
+	}
+
+	/**
+	 * Measurements mapped by benchmark names, sorted by the names.
+	 */
+	private Map<String, Measurement> measurements = new TreeMap<>();
+
+	/**
+	 * Creates a baseline from results of a benchmark run.
+	 *
+	 * @param results - results of a benchmark run
+	 * @return a new baseline
+	 */
+	public static Baseline of(Collection<RunResult> results) {
+		Baseline baseline = new Baseline();
+
+		for(RunResult result : results) {
+			Result<?> primary = result.getPrimaryResult();
+			double allocation = Double.NaN;
+
+			for(Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+				// older JMH versions prefix the names of profiler results with a middle dot
+				if(secondary.getKey().replace("\u00b7", "").equals(ALLOCATION_RESULT)) {
+					allocation = secondary.getValue().getScore();
+				}
+			}
+
+			baseline.measurements.put(nameOf(result.getParams()),
+					new Measurement(primary.getScore(), primary.getScoreError(), allocation));
+		}
+
+		return baseline;
+	}
+
+	/**
+	 * Reads a baseline stored by {@link #write(Path)}.
+	 *
+	 * @param file - file to read from
+	 * @return the read baseline
+	 * @throws IOException if the file could not be read
+	 * @throws IllegalArgumentException if the file contains an invalid number
+	 */
+	public static Baseline read(Path file) throws IOException {
+		Baseline baseline = new Baseline();
+		Matcher matcher = ENTRY_PATTERN.matcher(Files.readString(file, StandardCharsets.UTF_8));
+
+		while(matcher.find()) {
+			baseline.measurements.put(matcher.group(1), new Measurement(parseNumber(matcher.group(2)),
+					parseNumber(matcher.group(3)), parseNumber(matcher.group(4))));
+		}
+
+		return baseline;
+	}
+
+	/**
+	 * Writes this baseline to the given file.
+	 *
+	 * @param file - file to write to
+	 * @throws IOException if the file could not be written
+	 */
+	public void write(Path file) throws IOException {
+		StringBuilder sb = new StringBuilder("{\n");
+
+		int index = 0;
+		for(Map.Entry<String, Measurement> entry : measurements.entrySet()) {
+			Measurement measurement = entry.getValue();
+			sb.append("  \"").append(entry.getKey()).append("\": {")
+				.append("\"score\": ").append(formatNumber(measurement.score))
+				.append(", \"error\": ").append(formatNumber(measurement.error))
+				.append(", \"allocation\": ").append(formatNumber(measurement.allocation))
+				.append("}");
+			sb.append(++index < measurements.size() ? ",\n" : "\n");
+		}
+
+		sb.append("}\n");
+
+		Path parent = file.toAbsolutePath().getParent();
+		if(parent != null) {
+			Files.createDirectories(parent);
+		}
+		Files.writeString(file, sb, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the measurement of the benchmark with the given name.
+	 *
+	 * @param name - name of the benchmark, followed by its parameters
+	 * @return the measurement or <code>null</code> if there is none
+	 */
+	public Measurement get(String name) {
+		return measurements.get(name);
+	}
+
+	/**
+	 * Returns the number of benchmarks in this baseline.
+	 *
+	 * @return number of benchmarks
+	 */
+	public int size() {
+		return measurements.size();
+	}
+
+	/**
+	 * Compares this baseline with an older one and describes every benchmark whose
+	 * score or allocation got worse by more than the given percentage.
+	 * <p>
+	 * A slower score only counts as a regression if the difference is also larger
+	 * than the sum of errors of both scores.
+	 *
+	 * @param previous - the older baseline
+	 * @param threshold - allowed worsening in percent
+	 * @return descriptions of the regressions, an empty list if there are none
+	 */
+	public List<String> regressionsFrom(Baseline previous, double threshold) {
+		List<String> regressions = new ArrayList<>();
+		double factor = 1 + threshold / 100;
+
+		for(Map.Entry<String, Measurement> entry : measurements.entrySet()) {
+			Measurement current = entry.getValue();
+			Measurement old = previous.measurements.get(entry.getKey());
+			if(old == null) continue;
+
+			double noise = errorOrZero(current.error) + errorOrZero(old.error);
+			if(current.score > old.score * factor && current.score - old.score > noise) {
+				regressions.add(String.format(Locale.ROOT, "%s: score %.3f -> %.3f (%+.1f%%)",
+						entry.getKey(), old.score, current.score, percentChange(old.score, current.score)));
+			}
+
+			// allocations are deterministic, so a small absolute slack is enough
+			if(current.allocation > old.allocation * factor && current.allocation - old.allocation >= 1) {
+				regressions.add(String.format(Locale.ROOT, "%s: allocation %.1f B/op -> %.1f B/op (%+.1f%%)",
+						entry.getKey(), old.allocation, current.allocation,
+						percentChange(old.allocation, current.allocation)));
+			}
+		}
+
+		return regressions;
+	}
+
+	/**
+	 * Returns the name of the benchmark with the given parameters, which consists of
+	 * the simple name of its class, the name of its method and its parameters.
+	 *
+	 * @param params - parameters of a benchmark
+	 * @return name of the benchmark
+	 */
+	private static String nameOf(BenchmarkParams params) {
+		String benchmark = params.getBenchmark();
+		int classStart = benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1;
+
+		StringBuilder sb = new StringBuilder(benchmark.substring(classStart));
+		String separator = ":";
+		for(String key : params.getParamsKeys()) {
+			sb.append(separator).append(key).append('=').append(params.getParam(key));
+			separator = ",";
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the given error or zero if it is unknown.
+	 *
+	 * @param error - an error of a score
+	 * @return the error or zero
+	 */
+	private static double errorOrZero(double error) {
+		return Double.isNaN(error) ? 0 : error;
+	}
+
+	/**
+	 * Returns the change from <code>from</code> to <code>to</code> in percent.
+	 *
+	 * @param from - old value
+	 * @param to - new value
+	 * @return the change in percent
+	 */
+	private static double percentChange(double from, double to) {
+		return from == 0 ? Double.POSITIVE_INFINITY : (to - from) / from * 100;
+	}
+
+	/**
+	 * Formats a number as a JSON value. Unknown numbers are written as <code>null</code>.
+	 *
+	 * @param number - number to format
+	 * @return the formatted number
+	 */
+	private static String formatNumber(double number) {
+		return Double.isNaN(number) || Double.isInfinite(number) ? "null" : Double.toString(number);
+	}
+
+	/**
+	 * Parses a number formatted by {@link #formatNumber(double)}.
+	 *
+	 * @param text - text to parse
+	 * @return the parsed number, <code>NaN</code> for <code>null</code>
+	 * @throws IllegalArgumentException if the text is not a valid number
+	 */
+	private static double parseNumber(String text) {
+		if(text.equals("null")) {
+			return Double.NaN;
+		}
+
+		try {
+			return Double.parseDouble(text);
+		} catch(NumberFormatException ex) {
+			throw new IllegalArgumentException("Invalid number in baseline: " + text);
+		}
+	}
+
+}
@@ -0,0 +1,58 @@
+package hr.fer.zemris.java.custom.collections.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Utility methods that generate the data benchmarks work on.
+ * 
+ * @author Ivan Skorupan
+ */
+final class BenchmarkData {
+	
+	/**
+	 * Seed used for every random number generator, so every run works on the same data.
+	 */
+	static final long SEED = 42;
+	
+	/**
+	 * Number of lookups performed by a single invocation of lookup benchmarks.
+	 */
+	static final int LOOKUPS = 1024;
+	
+	/**
+	 * Private constructor, this class only has static methods.
+	 */
+	private BenchmarkData() {
+	}
+	
+	/**
+	 * Returns an array of integers from <code>0</code> to <code>size - 1</code>.
+	 * 
+	 * @param size - number of integers
+	 * @return an array of integers
+	 */
+	static Integer[] values(int size) {
+		Integer[] values = new Integer[size];
+		for(int i = 0; i < size; i++) {
+			values[i] = Integer.valueOf(i);
+		}
+		return values;
+	}
+	
+	/**
+	 * Returns an array of random indexes from <code>0</code> to <code>bound - 1</code>.
+	 * 
+	 * @param count - number of indexes
+	 * @param bound - upper bound (exclusive) of the indexes
+	 * @return an array of random indexes
+	 */
+	static int[] randomIndexes(int count, int bound) {
+		Random random = new Random(SEED);
+		int[] indexes = new int[count];
+		for(int i = 0; i < count; i++) {
+			indexes[i] = random.nextInt(bound);
+		}
+		return indexes;
+	}
+	
+}
@@ -0,0 +1,156 @@
+package hr.fer.zemris.java.custom.collections.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of the custom collections with allocation profiling and
+ * compares their results with a stored {@link Baseline}.
+ * <p>
+ * Every run writes two reports to the directory of the baseline: the full JMH
+ * report (<code>jmh-&lt;time&gt;.json</code>) and the results in the baseline
+ * format (<code>run-&lt;time&gt;.json</code>). If no baseline exists yet, or the
+ * <code>--update</code> option is given, the results also become the new baseline.
+ * <p>
+ * Supported arguments are:
+ * <ul>
+ * <li><code>--baseline FILE</code> - baseline to compare with, <code>baselines/baseline.json</code> by default</li>
+ * <li><code>--threshold PERCENT</code> - allowed worsening before a benchmark counts as a regression, 10 by default</li>
+ * <li><code>--update</code> - stores the results as the new baseline</li>
+ * <li><code>--quick</code> - runs fewer and shorter iterations in a single fork, for a rough check</li>
+ * </ul>
+ * Any other argument is a regular expression selecting benchmarks to run, all of them are run if there are none.
+ * <p>
+ * The program exits with status 1 if any benchmark regressed.
+ *
+ * @author Ivan Skorupan
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Default path of the baseline.
+	 */
+	private static final String DEFAULT_BASELINE = "baselines/baseline.json";
+
+	/**
+	 * Default allowed worsening in percent.
+	 */
+	private static final double DEFAULT_THRESHOLD = 10;
+
+	/**
+	 * Format of the times in names of the written reports.
+	 */
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+	/**
+	 * The method where program execution starts.
+	 *
+	 * @param args - command line arguments, described in the class documentation
+	 */
+	public static void main(String[] args) {
+		Path baselineFile = Paths.get(DEFAULT_BASELINE);
+		double threshold = DEFAULT_THRESHOLD;
+		boolean update = false;
+		boolean quick = false;
+		List<String> includes = new ArrayList<>();
+
+		try {
+			for(int i = 0; i < args.length; i++) {
+				switch(args[i]) {
+				case "--baseline":
+					baselineFile = Paths.get(argumentOf(args, ++i));
+					break;
+				case "--threshold":
+					threshold = Double.parseDouble(argumentOf(args, ++i));
+					break;
+				case "--update":
+					update = true;
+					break;
+				case "--quick":
+					quick = true;
+					break;
+				default:
+					includes.add(args[i]);
+				}
+			}
+		} catch(IllegalArgumentException ex) {
+			System.out.println("Invalid arguments: " + ex.getMessage());
+			System.exit(1);
+		}
+
+		String time = LocalDateTime.now().format(TIME_FORMAT);
+		Path directory = baselineFile.toAbsolutePath().getParent();
+
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result(directory.resolve("jmh-" + time + ".json").toString());
+
+		if(includes.isEmpty()) {
+			options.include(BenchmarkRunner.class.getPackageName() + ".*Benchmark");
+		} else {
+			includes.forEach(options::include);
+		}
+
+		if(quick) {
+			options.forks(1).warmupIterations(2).measurementIterations(3);
+		}
+
+		try {
+			Files.createDirectories(directory);
+			Collection<RunResult> results = new Runner(options.build()).run();
+			Baseline current = Baseline.of(results);
+			current.write(directory.resolve("run-" + time + ".json"));
+
+			if(Files.exists(baselineFile) && !update) {
+				List<String> regressions = current.regressionsFrom(Baseline.read(baselineFile), threshold);
+				if(!regressions.isEmpty()) {
+					System.out.println(regressions.size() + " regression(s) compared to " + baselineFile + ":");
+					regressions.forEach(System.out::println);
+					System.exit(1);
+				}
+				System.out.println("No regressions compared to " + baselineFile + ".");
+			} else {
+				current.write(baselineFile);
+				System.out.println("Stored " + current.size() + " result(s) as the baseline " + baselineFile + ".");
+			}
+		} catch(RunnerException ex) {
+			System.out.println("Benchmarks failed: " + ex.getMessage());
+			System.exit(1);
+		} catch(IOException | IllegalArgumentException ex) {
+			System.out.println("Baseline could not be processed: " + ex.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Returns the value of the option at the given index.
+	 *
+	 * @param args - command line arguments
+	 * @param index - index of the option's value
+	 * @return the option's value
+	 * @throws IllegalArgumentException if there is no value at the given index
+	 */
+	private static String argumentOf(String[] args, int index) {
+		if(index >= args.length) {
+			throw new IllegalArgumentException("option " + args[index - 1] + " requires a value.");
+		}
+		return args[index];
+	}
+
+}
@@ -0,0 +1,159 @@
+package hr.fer.zemris.java.custom.collections.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hr.fer.zemris.java.custom.collections.Dictionary;
+
+/**
+ * Benchmarks of {@link Dictionary} compared with {@link HashMap}.
+ * <p>
+ * Methods ending with <code>Custom</code> measure {@link Dictionary} and methods
+ * ending with <code>Jdk</code> measure {@link HashMap}.
+ *
+ * @author Ivan Skorupan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DictionaryBenchmark {
+
+	/**
+	 * Number of entries in the benchmarked dictionaries.
+	 */
+	@Param({"16", "1024", "16384"})
+	private int size;
+
+	/**
+	 * Distribution of the keys in the benchmarked dictionaries.
+	 */
+	@Param
+	private KeyDistribution distribution;
+
+	/**
+	 * Keys of the entries in the benchmarked dictionaries.
+	 */
+	private Object[] keys;
+
+	/**
+	 * Keys which are not in the benchmarked dictionaries.
+	 */
+	private Object[] missingKeys;
+
+	/**
+	 * Random indexes of keys used by lookup benchmarks.
+	 */
+	private int[] indexes;
+
+	/**
+	 * The benchmarked custom dictionary.
+	 */
+	private Dictionary<Object, Integer> custom;
+
+	/**
+	 * The benchmarked <code>java.util</code> dictionary.
+	 */
+	private Map<Object, Integer> jdk;
+
+	/**
+	 * Creates and fills the benchmarked dictionaries.
+	 */
+	@Setup
+	public void setup() {
+		keys = distribution.keys(0, size);
+		missingKeys = distribution.keys(size, BenchmarkData.LOOKUPS);
+		indexes = BenchmarkData.randomIndexes(BenchmarkData.LOOKUPS, size);
+
+		custom = new Dictionary<>();
+		jdk = new HashMap<>();
+		for(int i = 0; i < size; i++) {
+			custom.put(keys[i], i);
+			jdk.put(keys[i], i);
+		}
+	}
+
+	@Benchmark
+	public Dictionary<Object, Integer> putCustom() {
+		Dictionary<Object, Integer> dictionary = new Dictionary<>();
+		for(int i = 0; i < keys.length; i++) {
+			dictionary.put(keys[i], i);
+		}
+		return dictionary;
+	}
+
+	@Benchmark
+	public Map<Object, Integer> putJdk() {
+		Map<Object, Integer> dictionary = new HashMap<>();
+		for(int i = 0; i < keys.length; i++) {
+			dictionary.put(keys[i], i);
+		}
+		return dictionary;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void overwriteCustom() {
+		for(int index : indexes) {
+			custom.put(keys[index], index);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void overwriteJdk() {
+		for(int index : indexes) {
+			jdk.put(keys[index], index);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void getCustom(Blackhole blackhole) {
+		for(int index : indexes) {
+			blackhole.consume(custom.get(keys[index]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void getJdk(Blackhole blackhole) {
+		for(int index : indexes) {
+			blackhole.consume(jdk.get(keys[index]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void getMissingCustom(Blackhole blackhole) {
+		for(Object key : missingKeys) {
+			blackhole.consume(custom.get(key));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void getMissingJdk(Blackhole blackhole) {
+		for(Object key : missingKeys) {
+			blackhole.consume(jdk.get(key));
+		}
+	}
+
+}
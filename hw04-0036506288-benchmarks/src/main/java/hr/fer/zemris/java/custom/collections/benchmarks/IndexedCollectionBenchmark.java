@@ -0,0 +1,269 @@
+package hr.fer.zemris.java.custom.collections.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hr.fer.zemris.java.custom.collections.ArrayIndexedCollection;
+import hr.fer.zemris.java.custom.collections.ElementsGetter;
+import hr.fer.zemris.java.custom.collections.GapBufferIndexedCollection;
+import hr.fer.zemris.java.custom.collections.LinkedListIndexedCollection;
+import hr.fer.zemris.java.custom.collections.List;
+
+/**
+ * Benchmarks of {@link ArrayIndexedCollection}, {@link GapBufferIndexedCollection} and
+ * {@link LinkedListIndexedCollection} compared with {@link ArrayList} and {@link LinkedList}.
+ * <p>
+ * Methods ending with <code>Custom</code> measure the custom collection chosen by the
+ * <code>implementation</code> parameter and methods ending with <code>Jdk</code> measure
+ * its <code>java.util</code> equivalent. Benchmarks which modify a collection undo their
+ * modification, so the collection keeps its size and contents between invocations.
+ *
+ * @author Ivan Skorupan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class IndexedCollectionBenchmark {
+
+	/**
+	 * Benchmarked implementation, <code>array</code>, <code>gap</code> or <code>linked</code>.
+	 */
+	@Param({"array", "gap", "linked"})
+	private String implementation;
+
+	/**
+	 * Number of elements in the benchmarked collections.
+	 */
+	@Param({"16", "1024", "65536"})
+	private int size;
+
+	/**
+	 * Elements of the benchmarked collections.
+	 */
+	private Integer[] values;
+
+	/**
+	 * Random indexes used by lookup benchmarks.
+	 */
+	private int[] indexes;
+
+	/**
+	 * A value which is not an element of the benchmarked collections.
+	 */
+	private Integer missing;
+
+	/**
+	 * The benchmarked custom collection.
+	 */
+	private List<Integer> custom;
+
+	/**
+	 * The benchmarked <code>java.util</code> collection.
+	 */
+	private java.util.List<Integer> jdk;
+
+	/**
+	 * Creates and fills the benchmarked collections.
+	 */
+	@Setup
+	public void setup() {
+		values = BenchmarkData.values(size);
+		indexes = BenchmarkData.randomIndexes(BenchmarkData.LOOKUPS, size);
+		missing = Integer.valueOf(-1);
+
+		custom = newCustom();
+		jdk = newJdk();
+		for(Integer value : values) {
+			custom.add(value);
+			jdk.add(value);
+		}
+	}
+
+	/**
+	 * Creates a new empty custom collection of the benchmarked implementation.
+	 *
+	 * @return a new custom collection
+	 */
+	private List<Integer> newCustom() {
+		switch(implementation) {
+		case "array":
+			return new ArrayIndexedCollection<>();
+		case "gap":
+			return new GapBufferIndexedCollection<>();
+		default:
+			return new LinkedListIndexedCollection<>();
+		}
+	}
+
+	/**
+	 * Creates a new empty <code>java.util</code> collection equivalent to the benchmarked implementation.
+	 *
+	 * @return a new <code>java.util</code> collection
+	 */
+	private java.util.List<Integer> newJdk() {
+		return implementation.equals("linked") ? new LinkedList<>() : new ArrayList<>();
+	}
+
+	@Benchmark
+	public List<Integer> addCustom() {
+		List<Integer> collection = newCustom();
+		for(Integer value : values) {
+			collection.add(value);
+		}
+		return collection;
+	}
+
+	@Benchmark
+	public java.util.List<Integer> addJdk() {
+		java.util.List<Integer> collection = newJdk();
+		for(Integer value : values) {
+			collection.add(value);
+		}
+		return collection;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void getCustom(Blackhole blackhole) {
+		for(int index : indexes) {
+			blackhole.consume(custom.get(index));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void getJdk(Blackhole blackhole) {
+		for(int index : indexes) {
+			blackhole.consume(jdk.get(index));
+		}
+	}
+
+	@Benchmark
+	public void getSequentialCustom(Blackhole blackhole) {
+		for(int i = 0; i < size; i++) {
+			blackhole.consume(custom.get(i));
+		}
+	}
+
+	@Benchmark
+	public void getSequentialJdk(Blackhole blackhole) {
+		for(int i = 0; i < size; i++) {
+			blackhole.consume(jdk.get(i));
+		}
+	}
+
+	@Benchmark
+	public boolean containsMissingCustom() {
+		return custom.contains(missing);
+	}
+
+	@Benchmark
+	public boolean containsMissingJdk() {
+		return jdk.contains(missing);
+	}
+
+	@Benchmark
+	public void insertMiddleCustom() {
+		int position = size / 2;
+		custom.insert(missing, position);
+		custom.remove(position);
+	}
+
+	@Benchmark
+	public void insertMiddleJdk() {
+		int position = size / 2;
+		jdk.add(position, missing);
+		jdk.remove(position);
+	}
+
+	@Benchmark
+	public void insertFirstCustom() {
+		custom.insert(missing, 0);
+		custom.remove(0);
+	}
+
+	@Benchmark
+	public void insertFirstJdk() {
+		jdk.add(0, missing);
+		jdk.remove(0);
+	}
+
+	@Benchmark
+	public boolean removeValueCustom() {
+		int position = size / 2;
+		Integer value = values[position];
+		boolean removed = custom.remove(value);
+		custom.insert(value, position);
+		return removed;
+	}
+
+	@Benchmark
+	public boolean removeValueJdk() {
+		int position = size / 2;
+		Integer value = values[position];
+		boolean removed = jdk.remove(value);
+		jdk.add(position, value);
+		return removed;
+	}
+
+	@Benchmark
+	public void iterateCustom(Blackhole blackhole) {
+		ElementsGetter<Integer> getter = custom.createElementsGetter();
+		while(getter.hasNextElement()) {
+			blackhole.consume(getter.getNextElement());
+		}
+	}
+
+	@Benchmark
+	public void iterateJdk(Blackhole blackhole) {
+		Iterator<Integer> iterator = jdk.iterator();
+		while(iterator.hasNext()) {
+			blackhole.consume(iterator.next());
+		}
+	}
+
+	@Benchmark
+	public void processRemainingCustom(Blackhole blackhole) {
+		custom.createElementsGetter().processRemaining(blackhole::consume);
+	}
+
+	@Benchmark
+	public void forEachCustom(Blackhole blackhole) {
+		custom.forEach(blackhole::consume);
+	}
+
+	@Benchmark
+	public void forEachJdk(Blackhole blackhole) {
+		jdk.forEach(blackhole::consume);
+	}
+
+	@Benchmark
+	public Object[] toArrayCustom() {
+		return custom.toArray();
+	}
+
+	@Benchmark
+	public Object[] toArrayJdk() {
+		return jdk.toArray();
+	}
+
+}
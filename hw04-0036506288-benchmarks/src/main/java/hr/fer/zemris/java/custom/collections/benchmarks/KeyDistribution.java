@@ -0,0 +1,88 @@
+package hr.fer.zemris.java.custom.collections.benchmarks;
+
+/**
+ * Distributions of keys used when benchmarking hash-tables and dictionaries.
+ * <p>
+ * Every distribution generates distinct keys deterministically, so every run of a
+ * benchmark works on the same data.
+ * 
+ * @author Ivan Skorupan
+ */
+public enum KeyDistribution {
+	
+	/**
+	 * Consecutive integers, the best case for a table indexed by <code>hashCode() % capacity</code>.
+	 */
+	SEQUENTIAL {
+		@Override
+		public Object key(int index) {
+			return Integer.valueOf(index);
+		}
+	},
+	
+	/**
+	 * Integers scattered over the whole range of <code>int</code>.
+	 */
+	RANDOM {
+		@Override
+		public Object key(int index) {
+			return Integer.valueOf(scatter(index));
+		}
+	},
+	
+	/**
+	 * Short strings, whose hash codes have to be calculated and compared with <code>equals</code>.
+	 */
+	STRING {
+		@Override
+		public Object key(int index) {
+			return "key" + Integer.toHexString(scatter(index));
+		}
+	},
+	
+	/**
+	 * Multiples of 1024, which all share the same low bits and end up in a few slots
+	 * of a table whose capacity is a power of two.
+	 */
+	COLLIDING {
+		@Override
+		public Object key(int index) {
+			return Integer.valueOf(index << 10);
+		}
+	};
+	
+	/**
+	 * Returns the key with the given index. Different indexes always give different keys.
+	 * 
+	 * @param index - index of the key
+	 * @return the key
+	 */
+	public abstract Object key(int index);
+	
+	/**
+	 * Returns <code>count</code> consecutive keys starting from the key with index <code>from</code>.
+	 * 
+	 * @param from - index of the first key
+	 * @param count - number of keys
+	 * @return an array of keys
+	 */
+	public Object[] keys(int from, int count) {
+		Object[] keys = new Object[count];
+		for(int i = 0; i < count; i++) {
+			keys[i] = key(from + i);
+		}
+		return keys;
+	}
+	
+	/**
+	 * Maps the given integer to another one using a multiplicative hash. The mapping is a bijection,
+	 * so distinct arguments give distinct results.
+	 * 
+	 * @param value - integer to map
+	 * @return the mapped integer
+	 */
+	private static int scatter(int value) {
+		return value * 0x9E3779B9;
+	}
+	
+}
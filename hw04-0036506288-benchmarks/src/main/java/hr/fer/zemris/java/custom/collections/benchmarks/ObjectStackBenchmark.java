@@ -0,0 +1,117 @@
+package hr.fer.zemris.java.custom.collections.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hr.fer.zemris.java.custom.collections.ObjectStack;
+
+/**
+ * Benchmarks of {@link ObjectStack} compared with {@link ArrayDeque} used as a stack.
+ * <p>
+ * Methods ending with <code>Custom</code> measure {@link ObjectStack} and methods ending
+ * with <code>Jdk</code> measure {@link ArrayDeque}.
+ *
+ * @author Ivan Skorupan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ObjectStackBenchmark {
+
+	/**
+	 * Number of elements on the benchmarked stacks.
+	 */
+	@Param({"16", "1024", "65536"})
+	private int size;
+
+	/**
+	 * Elements of the benchmarked stacks.
+	 */
+	private Integer[] values;
+
+	/**
+	 * The benchmarked custom stack.
+	 */
+	private ObjectStack<Integer> custom;
+
+	/**
+	 * The benchmarked <code>java.util</code> stack.
+	 */
+	private ArrayDeque<Integer> jdk;
+
+	/**
+	 * Creates and fills the benchmarked stacks.
+	 */
+	@Setup
+	public void setup() {
+		values = BenchmarkData.values(size);
+
+		custom = new ObjectStack<>();
+		jdk = new ArrayDeque<>();
+		for(Integer value : values) {
+			custom.push(value);
+			jdk.push(value);
+		}
+	}
+
+	@Benchmark
+	public void fillAndDrainCustom(Blackhole blackhole) {
+		ObjectStack<Integer> stack = new ObjectStack<>();
+		for(Integer value : values) {
+			stack.push(value);
+		}
+		while(!stack.isEmpty()) {
+			blackhole.consume(stack.pop());
+		}
+	}
+
+	@Benchmark
+	public void fillAndDrainJdk(Blackhole blackhole) {
+		ArrayDeque<Integer> stack = new ArrayDeque<>();
+		for(Integer value : values) {
+			stack.push(value);
+		}
+		while(!stack.isEmpty()) {
+			blackhole.consume(stack.pop());
+		}
+	}
+
+	@Benchmark
+	public Integer pushPopCustom() {
+		custom.push(values[0]);
+		return custom.pop();
+	}
+
+	@Benchmark
+	public Integer pushPopJdk() {
+		jdk.push(values[0]);
+		return jdk.pop();
+	}
+
+	@Benchmark
+	public Integer peekCustom() {
+		return custom.peek();
+	}
+
+	@Benchmark
+	public Integer peekJdk() {
+		return jdk.peek();
+	}
+
+}
@@ -0,0 +1,180 @@
+package hr.fer.zemris.java.custom.collections.benchmarks;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hr.fer.zemris.java.custom.collections.SimpleHashtable;
+import hr.fer.zemris.java.custom.collections.SimpleHashtable.TableEntry;
+
+/**
+ * Benchmarks of {@link SimpleHashtable} compared with {@link HashMap}.
+ * <p>
+ * Methods ending with <code>Custom</code> measure {@link SimpleHashtable} and methods
+ * ending with <code>Jdk</code> measure {@link HashMap}. Benchmarks which modify a table
+ * undo their modification, so the table keeps its size and contents between invocations.
+ *
+ * @author Ivan Skorupan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SimpleHashtableBenchmark {
+
+	/**
+	 * Number of entries in the benchmarked tables.
+	 */
+	@Param({"16", "1024", "65536"})
+	private int size;
+
+	/**
+	 * Distribution of the keys in the benchmarked tables.
+	 */
+	@Param
+	private KeyDistribution distribution;
+
+	/**
+	 * Keys of the entries in the benchmarked tables.
+	 */
+	private Object[] keys;
+
+	/**
+	 * Keys which are not in the benchmarked tables.
+	 */
+	private Object[] missingKeys;
+
+	/**
+	 * Random indexes of keys used by lookup benchmarks.
+	 */
+	private int[] indexes;
+
+	/**
+	 * The benchmarked custom table.
+	 */
+	private SimpleHashtable<Object, Integer> custom;
+
+	/**
+	 * The benchmarked <code>java.util</code> table.
+	 */
+	private Map<Object, Integer> jdk;
+
+	/**
+	 * Creates and fills the benchmarked tables.
+	 */
+	@Setup
+	public void setup() {
+		keys = distribution.keys(0, size);
+		missingKeys = distribution.keys(size, BenchmarkData.LOOKUPS);
+		indexes = BenchmarkData.randomIndexes(BenchmarkData.LOOKUPS, size);
+
+		custom = new SimpleHashtable<>();
+		jdk = new HashMap<>();
+		for(int i = 0; i < size; i++) {
+			custom.put(keys[i], i);
+			jdk.put(keys[i], i);
+		}
+	}
+
+	@Benchmark
+	public SimpleHashtable<Object, Integer> putCustom() {
+		SimpleHashtable<Object, Integer> table = new SimpleHashtable<>();
+		for(int i = 0; i < keys.length; i++) {
+			table.put(keys[i], i);
+		}
+		return table;
+	}
+
+	@Benchmark
+	public Map<Object, Integer> putJdk() {
+		Map<Object, Integer> table = new HashMap<>();
+		for(int i = 0; i < keys.length; i++) {
+			table.put(keys[i], i);
+		}
+		return table;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void getCustom(Blackhole blackhole) {
+		for(int index : indexes) {
+			blackhole.consume(custom.get(keys[index]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void getJdk(Blackhole blackhole) {
+		for(int index : indexes) {
+			blackhole.consume(jdk.get(keys[index]));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void getMissingCustom(Blackhole blackhole) {
+		for(Object key : missingKeys) {
+			blackhole.consume(custom.get(key));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void getMissingJdk(Blackhole blackhole) {
+		for(Object key : missingKeys) {
+			blackhole.consume(jdk.get(key));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void removeCustom() {
+		for(int index : indexes) {
+			custom.remove(keys[index]);
+			custom.put(keys[index], index);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkData.LOOKUPS)
+	public void removeJdk() {
+		for(int index : indexes) {
+			jdk.remove(keys[index]);
+			jdk.put(keys[index], index);
+		}
+	}
+
+	@Benchmark
+	public void iterateCustom(Blackhole blackhole) {
+		Iterator<TableEntry<Object, Integer>> iterator = custom.iterator();
+		while(iterator.hasNext()) {
+			blackhole.consume(iterator.next().getValue());
+		}
+	}
+
+	@Benchmark
+	public void iterateJdk(Blackhole blackhole) {
+		Iterator<Map.Entry<Object, Integer>> iterator = jdk.entrySet().iterator();
+		while(iterator.hasNext()) {
+			blackhole.consume(iterator.next().getValue());
+		}
+	}
+
+}
@@ -0,0 +1,10 @@
+/**
+ * This package contains JMH benchmarks for the collection classes from the
+ * {@link hr.fer.zemris.java.custom.collections} package. Every benchmark measures
+ * an operation on one of the custom collections next to the same operation on its
+ * <code>java.util</code> equivalent.
+ * <p>
+ * The benchmarks are run through {@link hr.fer.zemris.java.custom.collections.benchmarks.BenchmarkRunner}
+ * which also profiles allocations and compares the results with a stored JSON baseline.
+ */
+package hr.fer.zemris.java.custom.collections.benchmarks;
@@ -101,6 +101,96 @@ public class ArrayIndexedCollection<T> implements List<T> {
 		
 	}
 	
+	/**
+	 * An implementation of {@link ElementsSplitter} that traverses a range of indexes
+	 * of an {@link ArrayIndexedCollection}.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	private static class ArrayElementsSplitter<T> implements ElementsSplitter<T> {
+		
+		/**
+		 * An outer {@link ArrayIndexedCollection} reference whose elements to traverse.
+		 */
+		private ArrayIndexedCollection<T> array;
+		
+		/**
+		 * Index of the next element.
+		 */
+		private int index;
+		
+		/**
+		 * Index after the last element.
+		 */
+		private int fence;
+		
+		/**
+		 * Number of structural modifications made to the outer collection
+		 * at the time of creation of this splitter.
+		 */
+		private long savedModificationCount;
+		
+		/**
+		 * Constructs an object of type {@link ArrayElementsSplitter}.
+		 * 
+		 * @param array - a reference to an {@link ArrayIndexedCollection} object to work with
+		 * @param index - index of the first element
+		 * @param fence - index after the last element
+		 */
+		public ArrayElementsSplitter(ArrayIndexedCollection<T> array, int index, int fence) {
+			this.array = array;
+			this.index = index;
+			this.fence = fence;
+			this.savedModificationCount = array.modificationCount;
+		}
+		
+		@Override
+		public boolean tryProcessNext(Processor<? super T> p) {
+			if(savedModificationCount != array.modificationCount) {
+				throw new ConcurrentModificationException();
+			}
+			
+			if(index >= fence) {
+				return false;
+			}
+			
+			p.process(array.elements[index++]);
+			return true;
+		}
+		
+		@Override
+		public void processRemaining(Processor<? super T> p) {
+			T[] elements = array.elements;
+			for(int i = index; i < fence; i++) {
+				p.process(elements[i]);
+			}
+			index = fence;
+			
+			if(savedModificationCount != array.modificationCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+		
+		@Override
+		public ElementsSplitter<T> trySplit() {
+			int middle = (index + fence) >>> 1;
+			if(middle <= index) {
+				return null;
+			}
+			
+			ArrayElementsSplitter<T> prefix = new ArrayElementsSplitter<>(array, index, middle);
+			prefix.savedModificationCount = savedModificationCount;
+			index = middle;
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+		
+	}
+	
 	/**
 	 * This is the default constructor for class {@link ArrayIndexedCollection}.
 	 * It initializes a new {@link ArrayIndexedCollection} object with initial
@@ -175,8 +265,49 @@ public class ArrayIndexedCollection<T> implements List<T> {
 	 */
 	private void reallocateArrayMemory() {
 		if(size >= elements.length) {
-			elements = Arrays.copyOf(elements, elements.length * CAPACITY_MULTIPLIER);
-			modificationCount++;
+			grow(size + 1);
+		}
+	}
+	
+	/**
+	 * Reallocates the backing array so it can hold at least <code>minCapacity</code> elements.
+	 * <p>
+	 * The new capacity is the old capacity multiplied by {@link #CAPACITY_MULTIPLIER}, or
+	 * <code>minCapacity</code> if that is not enough.
+	 * 
+	 * @param minCapacity - required capacity
+	 */
+	private void grow(int minCapacity) {
+		int newCapacity = elements.length * CAPACITY_MULTIPLIER;
+		if(newCapacity < minCapacity || newCapacity < 0) {
+			newCapacity = minCapacity;
+		}
+		
+		elements = Arrays.copyOf(elements, newCapacity);
+	}
+	
+	/**
+	 * Makes sure the backing array can hold at least <code>minCapacity</code> elements
+	 * without being reallocated.
+	 * <p>
+	 * Should be called before adding a large number of elements whose count is known.
+	 * 
+	 * @param minCapacity - required capacity
+	 */
+	public void ensureCapacity(int minCapacity) {
+		if(minCapacity > elements.length) {
+			grow(minCapacity);
+		}
+	}
+	
+	/**
+	 * Shrinks the backing array to the number of elements in this collection, releasing
+	 * the memory left unused after growing or removing elements.
+	 */
+	public void trimToSize() {
+		int capacity = Math.max(size, MINIMUM_CAPACITY);
+		if(capacity < elements.length) {
+			elements = Arrays.copyOf(elements, capacity);
 		}
 	}
 
@@ -257,9 +388,8 @@ public class ArrayIndexedCollection<T> implements List<T> {
 		
 		reallocateArrayMemory();
 		
-		for(int i = size++; i > position; i--) {
-			elements[i] = elements[i - 1];
-		}
+		System.arraycopy(elements, position, elements, position + 1, size - position);
+		size++;
 		
 		elements[position] = value;
 		modificationCount++;
@@ -296,15 +426,101 @@ public class ArrayIndexedCollection<T> implements List<T> {
 			throw new IndexOutOfBoundsException();
 		}
 		
-		for(int i = index; i < size - 1; i++) {
-			elements[i] = elements[i + 1];
-		}
+		System.arraycopy(elements, index + 1, elements, index, size - index - 1);
 		
 		elements[--size] = null;
 		modificationCount++;
 		return;
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * The elements are copied in one step instead of being added one by one.
+	 * 
+	 * @throws NullPointerException if <code>other</code> is <code>null</code> or contains a <code>null</code> element
+	 */
+	@Override
+	public void addAll(Collection<? extends T> other) {
+		insertAll(other, size);
+	}
+	
+	/**
+	 * Inserts all elements of the given collection at the given position in this collection,
+	 * in the order in which <code>other</code> returns them. Elements starting from this
+	 * position are shifted only once, by the number of inserted elements.
+	 * <p>
+	 * Valid positions are 0 to size (both are included).
+	 * <p>
+	 * The average complexity of this method is O(n + m), where m is the size of <code>other</code>.
+	 * 
+	 * @param other - collection whose elements to insert
+	 * @param position - index at which to insert the first element of <code>other</code>
+	 * @throws NullPointerException if <code>other</code> is <code>null</code> or contains a <code>null</code> element
+	 * @throws IndexOutOfBoundsException if <code>position</code> is invalid
+	 */
+	public void insertAll(Collection<? extends T> other, int position) {
+		Objects.requireNonNull(other);
+		
+		if(position < 0 || position > size) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		// other may be this collection, so its elements are taken before anything is shifted
+		Object[] added;
+		int count;
+		if(other instanceof ArrayIndexedCollection && other != this) {
+			ArrayIndexedCollection<? extends T> array = (ArrayIndexedCollection<? extends T>) other;
+			added = array.elements;
+			count = array.size;
+		} else {
+			added = other.toArray();
+			count = added.length;
+			for(int i = 0; i < count; i++) {
+				Objects.requireNonNull(added[i]);
+			}
+		}
+		
+		if(count == 0) {
+			return;
+		}
+		
+		ensureCapacity(size + count);
+		System.arraycopy(elements, position, elements, position + count, size - position);
+		System.arraycopy(added, 0, elements, position, count);
+		size += count;
+		modificationCount++;
+	}
+	
+	/**
+	 * Removes elements from index <code>fromIndex</code> (included) to index <code>toIndex</code>
+	 * (excluded). Elements after the removed ones are shifted only once.
+	 * <p>
+	 * The average complexity of this method is O(n).
+	 * 
+	 * @param fromIndex - index of the first element to remove
+	 * @param toIndex - index after the last element to remove
+	 * @throws IndexOutOfBoundsException if <code>fromIndex</code> is negative, <code>toIndex</code>
+	 *         is greater than size or <code>fromIndex</code> is greater than <code>toIndex</code>
+	 */
+	public void removeRange(int fromIndex, int toIndex) {
+		if(fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException();
+		}
+		
+		if(fromIndex == toIndex) {
+			return;
+		}
+		
+		System.arraycopy(elements, toIndex, elements, fromIndex, size - toIndex);
+		
+		int newSize = size - (toIndex - fromIndex);
+		Arrays.fill(elements, newSize, size, null);
+		size = newSize;
+		modificationCount++;
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -338,11 +554,20 @@ public class ArrayIndexedCollection<T> implements List<T> {
 		return new ArrayElementsGetter<>(this);
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * The returned splitter splits the remaining range of indexes in half.
+	 */
+	@Override
+	public ElementsSplitter<T> createElementsSplitter() {
+		return new ArrayElementsSplitter<>(this, 0, size);
+	}
+	
 	@Override
 	public void clear() {
-		for(int i = 0; i < size; i++) {
-			elements[i] = null;
-		}
+		Arrays.fill(elements, 0, size, null);
 		size = 0;
 		modificationCount++;
 		return;
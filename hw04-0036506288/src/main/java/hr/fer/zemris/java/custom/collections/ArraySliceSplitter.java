@@ -0,0 +1,76 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * An {@link ElementsSplitter} over a range of an array which nothing else modifies,
+ * such as a batch of elements copied out of a collection.
+ * 
+ * @author Ivan Skorupan
+ */
+class ArraySliceSplitter<T> implements ElementsSplitter<T> {
+	
+	/**
+	 * The array whose elements to traverse.
+	 */
+	private Object[] array;
+	
+	/**
+	 * Index of the next element.
+	 */
+	private int index;
+	
+	/**
+	 * Index after the last element.
+	 */
+	private int fence;
+	
+	/**
+	 * Constructs a new {@link ArraySliceSplitter} object.
+	 * 
+	 * @param array - the array whose elements to traverse
+	 * @param index - index of the first element
+	 * @param fence - index after the last element
+	 */
+	ArraySliceSplitter(Object[] array, int index, int fence) {
+		this.array = array;
+		this.index = index;
+		this.fence = fence;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean tryProcessNext(Processor<? super T> p) {
+		if(index >= fence) {
+			return false;
+		}
+		
+		p.process((T) array[index++]);
+		return true;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public void processRemaining(Processor<? super T> p) {
+		for(int i = index; i < fence; i++) {
+			p.process((T) array[i]);
+		}
+		index = fence;
+	}
+	
+	@Override
+	public ElementsSplitter<T> trySplit() {
+		int middle = (index + fence) >>> 1;
+		if(middle <= index) {
+			return null;
+		}
+		
+		ElementsSplitter<T> prefix = new ArraySliceSplitter<>(array, index, middle);
+		index = middle;
+		return prefix;
+	}
+	
+	@Override
+	public long estimateSize() {
+		return fence - index;
+	}
+	
+}
@@ -143,6 +143,19 @@ public interface Collection<T> {
 	 */
 	ElementsGetter<T> createElementsGetter();
 	
+	/**
+	 * Returns a new {@link ElementsSplitter} over this collection's elements, in the
+	 * same order as {@link #createElementsGetter()} returns them.
+	 * <p>
+	 * The default implementation splits off batches of elements copied from an
+	 * {@link ElementsGetter}. Collections with indexed storage should override it.
+	 * 
+	 * @return a new {@link ElementsSplitter} type object
+	 */
+	default ElementsSplitter<T> createElementsSplitter() {
+		return new GetterElementsSplitter<>(createElementsGetter(), size());
+	}
+	
 	/**
 	 * Removes all elements from this collection.
 	 */
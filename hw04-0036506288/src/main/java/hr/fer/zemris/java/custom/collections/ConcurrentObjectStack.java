@@ -0,0 +1,158 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A thread-safe, lock-free stack with the same API as {@link ObjectStack}.
+ * <p>
+ * This is a Treiber stack: the elements form a singly linked list whose head is
+ * the top of the stack, and pushing or popping replaces the head with a single
+ * compare-and-set. A thread whose compare-and-set fails because another thread
+ * changed the head in the meantime simply retries, so no thread ever blocks
+ * another one.
+ * <p>
+ * Since another thread can empty the stack between a call to {@link #isEmpty()}
+ * and a call to {@link #pop()}, concurrent users should prefer {@link #tryPop()}.
+ *
+ * @author Ivan Skorupan
+ */
+public class ConcurrentObjectStack<T> {
+
+	/**
+	 * Models one element of the stack. Nodes are never modified after they are pushed.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	private static class Node<T> {
+
+		/**
+		 * Value stored in this node.
+		 */
+		private final T value;
+
+		/**
+		 * The node below this one.
+		 */
+		private final Node<T> next;
+
+		/**
+		 * Constructs a new {@link Node} object.
+		 *
+		 * @param value - value stored in the node
+		 * @param next - the node below the new one
+		 */
+		private Node(T value, Node<T> next) {
+			this.value = value;
+			this.next = next;
+		}
+
+	}
+
+	/**
+	 * The node on top of the stack, <code>null</code> if the stack is empty.
+	 */
+	private AtomicReference<Node<T>> top = new AtomicReference<>();
+
+	/**
+	 * Tests if the stack has <b>no</b> elements.
+	 *
+	 * @return <code>true</code> if the stack is empty, <code>false</code> otherwise
+	 */
+	public boolean isEmpty() {
+		return top.get() == null;
+	}
+
+	/**
+	 * Returns the number of elements in this stack.
+	 * <p>
+	 * The elements are counted one by one, so this method takes O(n) time, and the
+	 * result may be out of date as soon as it is returned if other threads are using
+	 * the stack.
+	 *
+	 * @return number of elements in the stack
+	 */
+	public int size() {
+		int size = 0;
+		for(Node<T> node = top.get(); node != null; node = node.next) {
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * Pushes the given value on the stack.
+	 * <p>
+	 * Values equal to <code>null</code> are not allowed to be placed on the stack.
+	 *
+	 * @param value - an object to be pushed on the stack
+	 * @throws NullPointerException if <code>value</code> is <code>null</code>
+	 */
+	public void push(T value) {
+		Objects.requireNonNull(value);
+
+		Node<T> oldTop;
+		Node<T> newTop;
+		do {
+			oldTop = top.get();
+			newTop = new Node<>(value, oldTop);
+		} while(!top.compareAndSet(oldTop, newTop));
+	}
+
+	/**
+	 * Removes last value pushed on stack from stack and returns it.
+	 *
+	 * @return the removed value
+	 * @throws EmptyStackException if stack is empty
+	 */
+	public T pop() {
+		T value = tryPop();
+		if(value == null) {
+			throw new EmptyStackException("The stack is empty!");
+		}
+
+		return value;
+	}
+
+	/**
+	 * Removes last value pushed on stack from stack and returns it, or returns
+	 * <code>null</code> if the stack is empty.
+	 *
+	 * @return the removed value or <code>null</code> if the stack is empty
+	 */
+	public T tryPop() {
+		Node<T> oldTop;
+		do {
+			oldTop = top.get();
+			if(oldTop == null) {
+				return null;
+			}
+		} while(!top.compareAndSet(oldTop, oldTop.next));
+
+		return oldTop.value;
+	}
+
+	/**
+	 * Returns the last element placed on the stack but does not remove it from the stack.
+	 *
+	 * @return last element placed on the stack
+	 * @throws EmptyStackException if stack is empty
+	 */
+	public T peek() {
+		Node<T> node = top.get();
+		if(node == null) {
+			throw new EmptyStackException("The stack is empty!");
+		}
+
+		return node.value;
+	}
+
+	/**
+	 * Removes all elements from the stack. Elements pushed concurrently with this
+	 * call may or may not be removed.
+	 */
+	public void clear() {
+		top.set(null);
+	}
+
+}
@@ -0,0 +1,591 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Models a thread-safe hash-table that enables storage of ordered pairs
+ * (key, value) and has the same API as {@link SimpleHashtable}.
+ * <p>
+ * The table is split into segments, each of which is a small chained hash-table
+ * guarded by its own lock. Writers lock only the segment their key belongs to,
+ * so writers of different segments don't block each other, and readers don't
+ * lock at all.
+ * <p>
+ * Entries of a chain are never modified, except for their values. Removing an
+ * entry copies the entries in front of it, and extending a segment copies the
+ * whole segment, so a reader always sees a consistent chain.
+ * <p>
+ * Iterators of this table are weakly consistent: they never throw a
+ * {@link java.util.ConcurrentModificationException}, return every entry
+ * that existed when the iteration started and was not removed in the meantime
+ * at most once, and may or may not return entries added during the iteration.
+ * <p>
+ * <code>null</code> keys are not allowed, but values can be <code>null</code>.
+ * 
+ * @author Ivan Skorupan
+ * 
+ * @param <K> - type of key
+ * @param <V> - type of value
+ */
+public class ConcurrentSimpleHashtable<K, V> implements Iterable<SimpleHashtable.TableEntry<K, V>> {
+
+	/**
+	 * The default capacity for this hash-table is 16 slots.
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The default number of segments.
+	 */
+	private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+	/**
+	 * The minimum possible capacity allowed for this table.
+	 */
+	private static final int MINIMUM_CAPACITY = 1;
+
+	/**
+	 * The percentage of a segment's capacity that the number of its entries can reach before
+	 * the segment is extended.
+	 */
+	private static final double THRESHOLD = 0.75;
+
+	/**
+	 * Segments of this table.
+	 */
+	private Segment<K, V>[] segments;
+
+	/**
+	 * Number of bits the hash-code is shifted by to get the segment index.
+	 */
+	private int segmentShift;
+
+	/**
+	 * Constructs a new {@link ConcurrentSimpleHashtable} object with
+	 * {@link #DEFAULT_CAPACITY} slots and {@link #DEFAULT_CONCURRENCY_LEVEL} segments.
+	 */
+	public ConcurrentSimpleHashtable() {
+		this(DEFAULT_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	/**
+	 * Constructs a new {@link ConcurrentSimpleHashtable} object with
+	 * {@link #DEFAULT_CONCURRENCY_LEVEL} segments.
+	 * 
+	 * @param capacity - the initial number of slots for this hash-table
+	 * @throws IllegalArgumentException if <code>capacity</code> is less than {@link #MINIMUM_CAPACITY}
+	 */
+	public ConcurrentSimpleHashtable(int capacity) {
+		this(capacity, DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	/**
+	 * Constructs a new {@link ConcurrentSimpleHashtable} object.
+	 * <p>
+	 * The number of segments is the first power of two greater than or equal to
+	 * <code>concurrencyLevel</code>, and the slots are divided evenly among them.
+	 * 
+	 * @param capacity - the initial number of slots for this hash-table
+	 * @param concurrencyLevel - the expected number of threads that modify the table at the same time
+	 * @throws IllegalArgumentException if <code>capacity</code> is less than {@link #MINIMUM_CAPACITY}
+	 * or <code>concurrencyLevel</code> is less than 1
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentSimpleHashtable(int capacity, int concurrencyLevel) {
+		if(capacity < MINIMUM_CAPACITY || concurrencyLevel < 1) {
+			throw new IllegalArgumentException();
+		}
+
+		int segmentCount = 1;
+		int shift = 0;
+		while(segmentCount < concurrencyLevel && segmentCount < (1 << 16)) {
+			segmentCount *= 2;
+			shift++;
+		}
+		segmentShift = 32 - shift;
+
+		int segmentCapacity = 1;
+		while(segmentCapacity * segmentCount < capacity) {
+			segmentCapacity *= 2;
+		}
+
+		segments = (Segment<K, V>[]) new Segment[segmentCount];
+		for(int i = 0; i < segmentCount; i++) {
+			segments[i] = new Segment<>(segmentCapacity);
+		}
+	}
+
+	/**
+	 * Calculates the hash-code used by this table for the given <code>key</code>.
+	 * <p>
+	 * The upper bits select the segment and the lower bits select the slot in
+	 * the segment, so the key's hash-code is mixed so that both depend on all of its bits.
+	 * 
+	 * @param key - key to calculate the hash-code of
+	 * @return hash-code of <code>key</code>
+	 */
+	private static int hash(Object key) {
+		int h = key.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Returns the segment which holds the keys with the given hash-code.
+	 * 
+	 * @param hash - hash-code of a key
+	 * @return segment for the given hash-code
+	 */
+	private Segment<K, V> segmentFor(int hash) {
+		return (segmentShift == 32) ? segments[0] : segments[hash >>> segmentShift];
+	}
+
+	/**
+	 * Puts a new entry into the hash-table. If an entry with the same <code>key</code> already
+	 * exists within this table, its <code>value</code> is overwritten.
+	 * 
+	 * @param key - key of the new entry
+	 * @param value - value of the new entry
+	 * @throws NullPointerException if the <code>key</code> is <code>null</code>
+	 */
+	public void put(K key, V value) {
+		Objects.requireNonNull(key);
+
+		int hash = hash(key);
+		segmentFor(hash).put(key, hash, value);
+	}
+
+	/**
+	 * Returns the value stored under the given key.
+	 * <p>
+	 * If no such key is found or if <code>key</code> is <code>null</code>,
+	 * <code>null</code> is returned.
+	 * 
+	 * @param key - the key whose value to search for
+	 * @return the value stored within the given <code>key</code> or <code>null</code> if no such key exists
+	 */
+	public V get(Object key) {
+		if(key == null) {
+			return null;
+		}
+
+		int hash = hash(key);
+		Node<K, V> node = segmentFor(hash).find(key, hash);
+		return (node == null) ? null : node.value;
+	}
+
+	/**
+	 * Returns the number of entries in this table.
+	 * <p>
+	 * If the table is being modified concurrently, the result is only an estimate.
+	 * 
+	 * @return number of entries in this table
+	 */
+	public int size() {
+		int size = 0;
+		for(Segment<K, V> segment : segments) {
+			size += segment.count;
+		}
+
+		return size;
+	}
+
+	/**
+	 * Tests if this table contains the given <code>key</code>.
+	 * 
+	 * @param key - the key to search for
+	 * @return <code>true</code> if the given <code>key</code> was found, <code>false</code> otherwise
+	 */
+	public boolean containsKey(Object key) {
+		if(key == null) {
+			return false;
+		}
+
+		int hash = hash(key);
+		return segmentFor(hash).find(key, hash) != null;
+	}
+
+	/**
+	 * Tests if the given <code>value</code> is contained in this table.
+	 * 
+	 * @param value - the value to search for
+	 * @return <code>true</code> if the given <code>value</code> was found, <code>false</code> otherwise
+	 */
+	public boolean containsValue(Object value) {
+		for(Segment<K, V> segment : segments) {
+			AtomicReferenceArray<Node<K, V>> table = segment.table;
+
+			for(int i = 0; i < table.length(); i++) {
+				for(Node<K, V> node = table.get(i); node != null; node = node.next) {
+					if(Objects.equals(value, node.value)) {
+						return true;
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Removes the given <code>key</code> from this table.
+	 * <p>
+	 * If no such key was found, the method does nothing.
+	 * 
+	 * @param key - the key to remove from this table
+	 */
+	public void remove(Object key) {
+		if(key == null) {
+			return;
+		}
+
+		int hash = hash(key);
+		segmentFor(hash).remove(key, hash);
+	}
+
+	/**
+	 * Tests if this table is empty.
+	 * 
+	 * @return <code>true</code> if there are no entries in this table, <code>false</code> otherwise
+	 */
+	public boolean isEmpty() {
+		for(Segment<K, V> segment : segments) {
+			if(segment.count != 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Removes all entries from this table.
+	 * <p>
+	 * Segments are cleared one by one, so entries added concurrently may survive.
+	 * This method does not modify the table's capacity.
+	 */
+	public void clear() {
+		for(Segment<K, V> segment : segments) {
+			segment.clear();
+		}
+	}
+
+	@Override
+	public Iterator<SimpleHashtable.TableEntry<K, V>> iterator() {
+		return new IteratorImpl();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder tableAsText = new StringBuilder("[");
+
+		for(SimpleHashtable.TableEntry<K, V> entry : this) {
+			if(tableAsText.length() > 1) {
+				tableAsText.append(", ");
+			}
+			tableAsText.append(entry);
+		}
+
+		return tableAsText.append("]").toString();
+	}
+
+	/**
+	 * Models one entry in a chain of a segment.
+	 * 
+	 * @author Ivan Skorupan
+	 * 
+	 * @param <K> - type of key
+	 * @param <V> - type of value
+	 */
+	private static class Node<K, V> {
+
+		/**
+		 * The key of this entry.
+		 */
+		private final K key;
+
+		/**
+		 * Hash-code of the key.
+		 */
+		private final int hash;
+
+		/**
+		 * The value stored in this entry.
+		 */
+		private volatile V value;
+
+		/**
+		 * The next entry in the chain.
+		 */
+		private final Node<K, V> next;
+
+		/**
+		 * Constructs a new {@link Node} object.
+		 * 
+		 * @param key - this entry's key
+		 * @param hash - hash-code of the key
+		 * @param value - this entry's value
+		 * @param next - the next entry in the chain
+		 */
+		public Node(K key, int hash, V value, Node<K, V> next) {
+			this.key = key;
+			this.hash = hash;
+			this.value = value;
+			this.next = next;
+		}
+
+	}
+
+	/**
+	 * Models one segment of the table, a chained hash-table which is modified
+	 * only while holding its lock.
+	 * 
+	 * @author Ivan Skorupan
+	 * 
+	 * @param <K> - type of key
+	 * @param <V> - type of value
+	 */
+	private static class Segment<K, V> {
+
+		/**
+		 * Heads of the chains in each slot of this segment.
+		 */
+		private volatile AtomicReferenceArray<Node<K, V>> table;
+
+		/**
+		 * Number of entries in this segment.
+		 */
+		private volatile int count;
+
+		/**
+		 * Constructs a new {@link Segment} object.
+		 * 
+		 * @param capacity - initial number of slots, a power of two
+		 */
+		public Segment(int capacity) {
+			table = new AtomicReferenceArray<>(capacity);
+		}
+
+		/**
+		 * Finds the entry with the given key without locking.
+		 * 
+		 * @param key - key to search for
+		 * @param hash - hash-code of the key
+		 * @return entry with the given key or <code>null</code> if there is no such entry
+		 */
+		private Node<K, V> find(Object key, int hash) {
+			AtomicReferenceArray<Node<K, V>> table = this.table;
+
+			for(Node<K, V> node = table.get(hash & (table.length() - 1)); node != null; node = node.next) {
+				if(node.hash == hash && key.equals(node.key)) {
+					return node;
+				}
+			}
+
+			return null;
+		}
+
+		/**
+		 * Puts a new entry into this segment or overwrites the value of an existing one.
+		 * 
+		 * @param key - key of the entry
+		 * @param hash - hash-code of the key
+		 * @param value - value of the entry
+		 */
+		private synchronized void put(K key, int hash, V value) {
+			Node<K, V> existing = find(key, hash);
+			if(existing != null) {
+				existing.value = value;
+				return;
+			}
+
+			if(count + 1 > THRESHOLD * table.length()) {
+				extend();
+			}
+
+			AtomicReferenceArray<Node<K, V>> table = this.table;
+			int slot = hash & (table.length() - 1);
+			table.set(slot, new Node<>(key, hash, value, table.get(slot)));
+			count++;
+		}
+
+		/**
+		 * Removes the entry with the given key from this segment, if there is one.
+		 * The entries in front of the removed one are copied, so that concurrent
+		 * readers of the chain are not affected.
+		 * 
+		 * @param key - key of the entry to remove
+		 * @param hash - hash-code of the key
+		 */
+		private synchronized void remove(Object key, int hash) {
+			AtomicReferenceArray<Node<K, V>> table = this.table;
+			int slot = hash & (table.length() - 1);
+			Node<K, V> first = table.get(slot);
+
+			Node<K, V> removed = first;
+			while(removed != null && !(removed.hash == hash && key.equals(removed.key))) {
+				removed = removed.next;
+			}
+			if(removed == null) {
+				return;
+			}
+
+			Node<K, V> newFirst = removed.next;
+			for(Node<K, V> node = first; node != removed; node = node.next) {
+				newFirst = new Node<>(node.key, node.hash, node.value, newFirst);
+			}
+
+			table.set(slot, newFirst);
+			count--;
+		}
+
+		/**
+		 * Doubles the capacity of this segment by copying all of its entries
+		 * into a new table, which is then published to readers.
+		 */
+		private void extend() {
+			AtomicReferenceArray<Node<K, V>> oldTable = table;
+			AtomicReferenceArray<Node<K, V>> newTable = new AtomicReferenceArray<>(oldTable.length() * 2);
+			int mask = newTable.length() - 1;
+
+			for(int i = 0; i < oldTable.length(); i++) {
+				for(Node<K, V> node = oldTable.get(i); node != null; node = node.next) {
+					int slot = node.hash & mask;
+					newTable.set(slot, new Node<>(node.key, node.hash, node.value, newTable.get(slot)));
+				}
+			}
+
+			table = newTable;
+		}
+
+		/**
+		 * Removes all entries from this segment.
+		 */
+		private synchronized void clear() {
+			table = new AtomicReferenceArray<>(table.length());
+			count = 0;
+		}
+
+	}
+
+	/**
+	 * An entry returned by the iterator of this table. Setting its value
+	 * puts the value into the table.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	private class EntryView extends SimpleHashtable.TableEntry<K, V> {
+
+		/**
+		 * Constructs a new {@link EntryView} object.
+		 * 
+		 * @param node - entry this view is made of
+		 */
+		public EntryView(Node<K, V> node) {
+			super(node.key, node.value, null);
+		}
+
+		@Override
+		public void setValue(V value) {
+			super.setValue(value);
+			put(getKey(), value);
+		}
+
+	}
+
+	/**
+	 * Models a weakly consistent iterator that can be used to iterate through entries
+	 * of {@link ConcurrentSimpleHashtable}.
+	 * <p>
+	 * The iterator goes through segments one by one, each time taking the table of the
+	 * segment as it is at that moment.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	private class IteratorImpl implements Iterator<SimpleHashtable.TableEntry<K, V>> {
+
+		/**
+		 * Index of the segment that is being iterated through.
+		 */
+		private int segmentIndex = -1;
+
+		/**
+		 * Table of the segment that is being iterated through.
+		 */
+		private AtomicReferenceArray<Node<K, V>> table;
+
+		/**
+		 * Index of the next slot to visit in {@link #table}.
+		 */
+		private int slot;
+
+		/**
+		 * The next entry to return.
+		 */
+		private Node<K, V> next;
+
+		/**
+		 * Key of the last entry returned by {@link #next()}.
+		 */
+		private K lastReturned;
+
+		/**
+		 * Constructs a new {@link IteratorImpl} object.
+		 */
+		public IteratorImpl() {
+			advance();
+		}
+
+		/**
+		 * Finds the next entry to return, moving to the following slots and segments
+		 * if necessary.
+		 */
+		private void advance() {
+			if(next != null) {
+				next = next.next;
+			}
+
+			while(next == null) {
+				if(table != null && slot < table.length()) {
+					next = table.get(slot++);
+				} else if(segmentIndex + 1 < segments.length) {
+					table = segments[++segmentIndex].table;
+					slot = 0;
+				} else {
+					return;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public SimpleHashtable.TableEntry<K, V> next() {
+			if(next == null) {
+				throw new NoSuchElementException();
+			}
+
+			EntryView entry = new EntryView(next);
+			lastReturned = next.key;
+			advance();
+			return entry;
+		}
+
+		@Override
+		public void remove() {
+			if(lastReturned == null) {
+				throw new IllegalStateException();
+			}
+
+			ConcurrentSimpleHashtable.this.remove(lastReturned);
+			lastReturned = null;
+		}
+
+	}
+
+}
@@ -0,0 +1,72 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * Represents an {@link ElementsGetter} of a list which can also move backwards
+ * and modify the list at its current position.
+ * <p>
+ * The cursor is always positioned between two elements: {@link #getNextElement()}
+ * returns the element after it and {@link #getPreviousElement()} the element
+ * before it. {@link #set(Object)} and {@link #remove()} work on the element returned
+ * last, and {@link #add(Object)} inserts a new element right before the cursor.
+ * <p>
+ * Modifications made through the cursor do not invalidate it, but any other
+ * structural modification of the list does.
+ *
+ * @author Ivan Skorupan
+ */
+public interface ElementsCursor<T> extends ElementsGetter<T> {
+
+	/**
+	 * Checks if there are any elements before the cursor.
+	 *
+	 * @return <code>true</code> if there is an element before the cursor, <code>false</code> otherwise
+	 */
+	boolean hasPreviousElement();
+
+	/**
+	 * Returns the element before the cursor and moves the cursor back by one element.
+	 *
+	 * @return the element before the cursor
+	 */
+	T getPreviousElement();
+
+	/**
+	 * Returns the index of the element that {@link #getNextElement()} would return.
+	 *
+	 * @return index of the element after the cursor, or the size of the list if the cursor is at its end
+	 */
+	int nextIndex();
+
+	/**
+	 * Returns the index of the element that {@link #getPreviousElement()} would return.
+	 *
+	 * @return index of the element before the cursor, or -1 if the cursor is at the beginning of the list
+	 */
+	int previousIndex();
+
+	/**
+	 * Removes the element returned last by {@link #getNextElement()} or {@link #getPreviousElement()}.
+	 *
+	 * @throws IllegalStateException if no element has been returned since the last call
+	 *         of {@link #remove()} or {@link #add(Object)}
+	 */
+	void remove();
+
+	/**
+	 * Replaces the element returned last by {@link #getNextElement()} or {@link #getPreviousElement()}.
+	 *
+	 * @param value - the new element
+	 * @throws IllegalStateException if no element has been returned since the last call
+	 *         of {@link #remove()} or {@link #add(Object)}
+	 */
+	void set(T value);
+
+	/**
+	 * Inserts the given element right before the cursor, so it would be returned by
+	 * {@link #getPreviousElement()} but not by {@link #getNextElement()}.
+	 *
+	 * @param value - the element to insert
+	 */
+	void add(T value);
+
+}
@@ -0,0 +1,48 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * Represents a type of an object which traverses elements of a collection and
+ * can hand a part of the remaining elements over to a new splitter, so both
+ * parts can be processed in parallel.
+ * <p>
+ * A single splitter is not thread-safe. Different splitters created by splitting
+ * can be used from different threads, as long as the collection is not modified.
+ * 
+ * @author Ivan Skorupan
+ */
+public interface ElementsSplitter<T> {
+	
+	/**
+	 * Calls the {@link Processor#process(Object) process} method on the next element,
+	 * if there is one.
+	 * 
+	 * @param p - processor to call
+	 * @return <code>true</code> if an element was processed, <code>false</code> if there are no more elements
+	 */
+	boolean tryProcessNext(Processor<? super T> p);
+	
+	/**
+	 * Calls the {@link Processor#process(Object) process} method on all remaining elements.
+	 * 
+	 * @param p - processor to call
+	 */
+	default void processRemaining(Processor<? super T> p) {
+		while(tryProcessNext(p));
+	}
+	
+	/**
+	 * Splits off a part of the remaining elements into a new splitter. Elements taken
+	 * by the new splitter come before the elements left in this one.
+	 * 
+	 * @return a new splitter or <code>null</code> if the remaining elements can not be split
+	 */
+	ElementsSplitter<T> trySplit();
+	
+	/**
+	 * Returns an estimate of the number of remaining elements.
+	 * 
+	 * @return estimated number of remaining elements
+	 */
+	long estimateSize();
+	
+}
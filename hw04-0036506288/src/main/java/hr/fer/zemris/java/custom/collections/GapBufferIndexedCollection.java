@@ -0,0 +1,347 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * An implementation of {@link List} backed by a gap buffer.
+ * <p>
+ * The elements are stored in an array which has a gap of unused slots at the
+ * position of the last insertion or removal. Inserting or removing an element
+ * at the gap takes constant time, and moving the gap takes time proportional
+ * to the distance it is moved. This makes the collection suited to workloads
+ * that insert or remove many elements near one position in the middle of the
+ * list, like an editor's cursor, for which {@link ArrayIndexedCollection}
+ * would shift the whole tail of the list every time.
+ * <p>
+ * Adding to the end of the list moves the gap to the end, so mixing additions
+ * with insertions far from the end is slower than in {@link ArrayIndexedCollection}.
+ * Duplicate elements are allowed, but <code>null</code> references are not.
+ *
+ * @author Ivan Skorupan
+ */
+public class GapBufferIndexedCollection<T> implements List<T> {
+
+	/**
+	 * Default capacity for a new {@link GapBufferIndexedCollection} object.
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * Minimum backing array capacity allowed for this collection.
+	 */
+	private static final int MINIMUM_CAPACITY = 1;
+
+	/**
+	 * Capacity multiplier when reallocating memory (the gap gets closed).
+	 */
+	private static final int CAPACITY_MULTIPLIER = 2;
+
+	/**
+	 * An array containing this collection's elements and the gap.
+	 */
+	private T[] elements;
+
+	/**
+	 * Index of the first slot of the gap.
+	 */
+	private int gapStart;
+
+	/**
+	 * Index of the first slot after the gap.
+	 */
+	private int gapEnd;
+
+	/**
+	 * Number of structural modifications made by the user on this collection.
+	 */
+	private long modificationCount;
+
+	/**
+	 * An implementation of {@link ElementsGetter} that fetches elements from
+	 * {@link GapBufferIndexedCollection} type of objects.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	private static class GapBufferElementsGetter<T> implements ElementsGetter<T> {
+
+		/**
+		 * The collection whose elements to fetch.
+		 */
+		private GapBufferIndexedCollection<T> buffer;
+
+		/**
+		 * Number of elements already delivered.
+		 */
+		private int elementsDelivered;
+
+		/**
+		 * Number of structural modifications made to the collection
+		 * at the time of creation of this getter.
+		 */
+		private long savedModificationCount;
+
+		/**
+		 * Constructs a new {@link GapBufferElementsGetter} object.
+		 *
+		 * @param buffer - the collection whose elements to fetch
+		 */
+		private GapBufferElementsGetter(GapBufferIndexedCollection<T> buffer) {
+			this.buffer = buffer;
+			this.savedModificationCount = buffer.modificationCount;
+		}
+
+		@Override
+		public boolean hasNextElement() {
+			if(savedModificationCount != buffer.modificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			return elementsDelivered < buffer.size();
+		}
+
+		@Override
+		public T getNextElement() {
+			if(!hasNextElement()) {
+				throw new NoSuchElementException();
+			}
+
+			return buffer.get(elementsDelivered++);
+		}
+
+	}
+
+	/**
+	 * Initializes a new {@link GapBufferIndexedCollection} object with initial
+	 * capacity equal to {@link #DEFAULT_CAPACITY}.
+	 */
+	public GapBufferIndexedCollection() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Initializes a new {@link GapBufferIndexedCollection} object with initial
+	 * capacity equal to <code>initialCapacity</code>.
+	 *
+	 * @param initialCapacity - initial capacity of the backing array
+	 * @throws IllegalArgumentException if <code>initialCapacity</code> is below {@link #MINIMUM_CAPACITY}
+	 */
+	@SuppressWarnings("unchecked")
+	public GapBufferIndexedCollection(int initialCapacity) {
+		if(initialCapacity < MINIMUM_CAPACITY) {
+			throw new IllegalArgumentException();
+		}
+
+		this.elements = (T[]) new Object[initialCapacity];
+		this.gapEnd = initialCapacity;
+	}
+
+	/**
+	 * Initializes a new {@link GapBufferIndexedCollection} object containing the
+	 * elements of <code>other</code>.
+	 *
+	 * @param other - a collection whose elements to copy
+	 * @throws NullPointerException if <code>other</code> is <code>null</code>
+	 */
+	public GapBufferIndexedCollection(Collection<? extends T> other) {
+		this(Math.max(Objects.requireNonNull(other).size(), DEFAULT_CAPACITY));
+		addAll(other);
+	}
+
+	@Override
+	public int size() {
+		return elements.length - (gapEnd - gapStart);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Adding of <code>null</code> elements is not permitted.
+	 * <p>
+	 * The complexity of this method is O(1) if the previous modification was at
+	 * the end of the list and O(n) otherwise.
+	 *
+	 * @throws NullPointerException if <code>value</code> is <code>null</code>
+	 */
+	@Override
+	public void add(T value) {
+		insert(value, size());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * Valid indexes are 0 to <code>size</code> - 1.
+	 * <p>
+	 * The complexity of this method is O(1).
+	 *
+	 * @throws IndexOutOfBoundsException if <code>index</code> is invalid
+	 */
+	@Override
+	public T get(int index) {
+		if(index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		return elements[index < gapStart ? index : index + gapEnd - gapStart];
+	}
+
+	@Override
+	public boolean contains(Object value) {
+		return indexOf(value) != -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * Valid positions are 0 to size (both are included).
+	 * <p>
+	 * The complexity of this method is proportional to the distance between
+	 * <code>position</code> and the previously modified position.
+	 *
+	 * @throws NullPointerException if <code>value</code> is <code>null</code>
+	 * @throws IndexOutOfBoundsException if <code>position</code> is invalid
+	 */
+	@Override
+	public void insert(T value, int position) {
+		Objects.requireNonNull(value);
+
+		if(position < 0 || position > size()) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		moveGap(position);
+		if(gapStart == gapEnd) {
+			grow();
+		}
+
+		elements[gapStart++] = value;
+		modificationCount++;
+	}
+
+	@Override
+	public boolean remove(Object value) {
+		int index = indexOf(value);
+		if(index == -1) {
+			return false;
+		}
+
+		remove(index);
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * Valid indexes are 0 to size - 1.
+	 * <p>
+	 * The complexity of this method is proportional to the distance between
+	 * <code>index</code> and the previously modified position.
+	 *
+	 * @throws IndexOutOfBoundsException if <code>index</code> is invalid
+	 */
+	@Override
+	public void remove(int index) {
+		if(index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		moveGap(index);
+		elements[gapEnd++] = null;
+		modificationCount++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * The complexity of this method is O(n).
+	 */
+	@Override
+	public int indexOf(Object value) {
+		if(value == null) {
+			return -1;
+		}
+
+		for(int i = 0; i < gapStart; i++) {
+			if(elements[i].equals(value)) {
+				return i;
+			}
+		}
+
+		for(int i = gapEnd; i < elements.length; i++) {
+			if(elements[i].equals(value)) {
+				return i - (gapEnd - gapStart);
+			}
+		}
+
+		return -1;
+	}
+
+	@Override
+	public Object[] toArray() {
+		Object[] array = new Object[size()];
+		System.arraycopy(elements, 0, array, 0, gapStart);
+		System.arraycopy(elements, gapEnd, array, gapStart, elements.length - gapEnd);
+		return array;
+	}
+
+	@Override
+	public ElementsGetter<T> createElementsGetter() {
+		return new GapBufferElementsGetter<>(this);
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(elements, 0, gapStart, null);
+		Arrays.fill(elements, gapEnd, elements.length, null);
+		gapStart = 0;
+		gapEnd = elements.length;
+		modificationCount++;
+	}
+
+	/**
+	 * Moves the gap so it starts at the given index. Elements between the old and
+	 * the new position of the gap are moved to the other side of it.
+	 *
+	 * @param position - the new start of the gap
+	 */
+	private void moveGap(int position) {
+		int gapLength = gapEnd - gapStart;
+
+		if(position < gapStart) {
+			System.arraycopy(elements, position, elements, position + gapLength, gapStart - position);
+			// slots that now belong to the gap must not keep references to elements
+			Arrays.fill(elements, position, Math.min(gapStart, position + gapLength), null);
+		} else if(position > gapStart) {
+			System.arraycopy(elements, gapEnd, elements, gapStart, position - gapStart);
+			Arrays.fill(elements, Math.max(gapEnd, position), position + gapLength, null);
+		}
+
+		gapStart = position;
+		gapEnd = position + gapLength;
+	}
+
+	/**
+	 * Reallocates the backing array with its capacity multiplied by {@link #CAPACITY_MULTIPLIER},
+	 * adding the new slots to the gap.
+	 */
+	@SuppressWarnings("unchecked")
+	private void grow() {
+		int newCapacity = elements.length * CAPACITY_MULTIPLIER;
+		int tailLength = elements.length - gapEnd;
+
+		T[] newElements = (T[]) new Object[newCapacity];
+		System.arraycopy(elements, 0, newElements, 0, gapStart);
+		System.arraycopy(elements, gapEnd, newElements, newCapacity - tailLength, tailLength);
+
+		elements = newElements;
+		gapEnd = newCapacity - tailLength;
+	}
+
+}
@@ -0,0 +1,93 @@
+package hr.fer.zemris.java.custom.collections;
+
+/**
+ * An {@link ElementsSplitter} built on top of an {@link ElementsGetter}, used by
+ * collections which can only be traversed in sequence.
+ * <p>
+ * Splitting copies the next batch of elements into an array and returns a splitter
+ * over that array. Batches grow with every split, so splitting a large collection
+ * does not copy it in many tiny pieces, and the copied batches can be processed in
+ * parallel with the rest of the traversal.
+ * 
+ * @author Ivan Skorupan
+ */
+class GetterElementsSplitter<T> implements ElementsSplitter<T> {
+	
+	/**
+	 * Number of elements copied by the first split.
+	 */
+	private static final int INITIAL_BATCH = 1024;
+	
+	/**
+	 * Maximum number of elements copied by a single split.
+	 */
+	private static final int MAXIMUM_BATCH = 1 << 20;
+	
+	/**
+	 * Getter of the traversed elements.
+	 */
+	private ElementsGetter<? extends T> getter;
+	
+	/**
+	 * Number of elements not yet traversed or split off.
+	 */
+	private long remaining;
+	
+	/**
+	 * Number of elements the next split copies.
+	 */
+	private int batch = INITIAL_BATCH;
+	
+	/**
+	 * Constructs a new {@link GetterElementsSplitter} object.
+	 * 
+	 * @param getter - getter of the traversed elements
+	 * @param size - number of elements the getter returns
+	 */
+	GetterElementsSplitter(ElementsGetter<? extends T> getter, long size) {
+		this.getter = getter;
+		this.remaining = size;
+	}
+	
+	@Override
+	public boolean tryProcessNext(Processor<? super T> p) {
+		if(!getter.hasNextElement()) {
+			return false;
+		}
+		
+		remaining--;
+		p.process(getter.getNextElement());
+		return true;
+	}
+	
+	@Override
+	public void processRemaining(Processor<? super T> p) {
+		getter.processRemaining(p);
+		remaining = 0;
+	}
+	
+	@Override
+	public ElementsSplitter<T> trySplit() {
+		// splitting off the last elements would leave this splitter with nothing to do
+		if(remaining <= 1 || !getter.hasNextElement()) {
+			return null;
+		}
+		
+		int count = (int) Math.min(batch, remaining - remaining / 2);
+		Object[] elements = new Object[count];
+		int copied = 0;
+		while(copied < count && getter.hasNextElement()) {
+			elements[copied++] = getter.getNextElement();
+		}
+		
+		remaining -= copied;
+		batch = Math.min(batch * 2, MAXIMUM_BATCH);
+		return new ArraySliceSplitter<>(elements, 0, copied);
+	}
+	
+	@Override
+	public long estimateSize() {
+		return remaining;
+	}
+	
+}
@@ -1,5 +1,6 @@
 package hr.fer.zemris.java.custom.collections;
 
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
 import java.util.Objects;
@@ -7,67 +8,94 @@ import java.util.Objects;
 /**
  * This class is an implementation of a linked list-backed collection of objects.
  * <p>
- * This collection <b>allows</b> duplicate elements. Each of these elements will be
- * held in a separate list node.
+ * This collection <b>allows</b> duplicate elements. The list is unrolled: every
+ * list node holds a small array of up to {@link #NODE_CAPACITY} consecutive elements,
+ * which keeps neighbouring elements close in memory and needs far fewer nodes
+ * than one node per element.
+ * <p>
+ * The list remembers the node it accessed last, so accessing the same or an
+ * adjacent index again, as in a loop over all indexes, takes O(1) time instead
+ * of walking from one of the ends. Lists which are edited while being walked
+ * should use a cursor created by {@link #createCursor()}.
  * <p>
  * Storage of <code>null</code> references in this collection is <b>not</b> allowed.
- * 
+ *
  * @author Ivan Skorupan
  */
 public class LinkedListIndexedCollection<T> implements List<T> {
 
+	/**
+	 * Maximum number of elements stored in a single list node.
+	 */
+	private static final int NODE_CAPACITY = 16;
+
 	/**
 	 * An integer variable containing the current number of objects in this list.
 	 */
 	private int size;
-	
+
 	/**
 	 * A {@link ListNode} reference containing the first node in this list (the beginning of the list).
 	 */
 	private ListNode<T> first;
-	
+
 	/**
 	 * A {@link ListNode} reference containing the last node in this list (the end of the list).
 	 */
 	private ListNode<T> last;
-	
+
+	/**
+	 * The node accessed last, or <code>null</code> if there is none.
+	 */
+	private ListNode<T> cachedNode;
+
+	/**
+	 * Index of the first element of {@link #cachedNode}.
+	 */
+	private int cachedNodeStart;
+
 	/**
 	 * Number of structural modifications made by the user on this collection.
 	 */
 	private long modificationCount;
-	
+
 	/**
 	 * An implementation of {@link ElementsGetter} that fetches elements from
 	 * {@link LinkedListIndexedCollection} type of objects.
-	 * 
+	 *
 	 * @author Ivan Skorupan
 	 */
 	private static class LinkedListElementsGetter<T> implements ElementsGetter<T> {
-		
+
 		/**
 		 * An outer {@link LinkedListIndexedCollection} reference whose elements to fetch.
 		 */
 		private LinkedListIndexedCollection<T> list;
-		
+
+		/**
+		 * Node containing the next element which should be returned.
+		 */
+		private ListNode<T> nextNode;
+
 		/**
-		 * Next node in the list whose value should be returned.
+		 * Position of the next element which should be returned inside {@link #nextNode}.
 		 */
-		private ListNode<T> nextElement;
-		
+		private int nextOffset;
+
 		/**
 		 * Number of structural modifications made to the outer collection
 		 * at the time of creation of this {@link LinkedListElementsGetter} object.
 		 */
 		private long savedModificationCount;
-		
+
 		/**
 		 * Constructs an object of type {@link LinkedListElementsGetter}.
-		 * 
+		 *
 		 * @param list - a list whose elements we will be returning
 		 */
 		public LinkedListElementsGetter(LinkedListIndexedCollection<T> list) {
 			this.list = Objects.requireNonNull(list);
-			this.nextElement = list.first;
+			this.nextNode = list.first;
 			this.savedModificationCount = list.modificationCount;
 		}
 
@@ -76,29 +104,178 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 			if(savedModificationCount != list.modificationCount) {
 				throw new ConcurrentModificationException();
 			}
-			
-			return nextElement != null;
+
+			return nextNode != null;
 		}
 
 		@Override
+		@SuppressWarnings("unchecked")
 		public T getNextElement() {
 			if(hasNextElement()) {
-				T nextElementValue = nextElement.value;
-				nextElement = nextElement.next;
+				T nextElementValue = (T) nextNode.values[nextOffset++];
+				if(nextOffset == nextNode.count) {
+					nextNode = nextNode.next;
+					nextOffset = 0;
+				}
 				return nextElementValue;
 			} else {
 				throw new NoSuchElementException();
 			}
 		}
-		
+
+	}
+
+	/**
+	 * An implementation of {@link ElementsCursor} over {@link LinkedListIndexedCollection}
+	 * type of objects.
+	 * <p>
+	 * The cursor accesses the list by index. Since it only ever moves by one element,
+	 * every access hits the list's cached node or one of its neighbours and takes O(1) time.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	private static class LinkedListElementsCursor<T> implements ElementsCursor<T> {
+
+		/**
+		 * An outer {@link LinkedListIndexedCollection} reference whose elements to fetch.
+		 */
+		private LinkedListIndexedCollection<T> list;
+
+		/**
+		 * Index of the element after the cursor.
+		 */
+		private int nextIndex;
+
+		/**
+		 * Index of the element returned last, or -1 if it was removed or there is none.
+		 */
+		private int lastReturned = -1;
+
+		/**
+		 * Number of structural modifications made to the outer collection
+		 * at the time of the last modification made through this cursor.
+		 */
+		private long savedModificationCount;
+
+		/**
+		 * Constructs an object of type {@link LinkedListElementsCursor}.
+		 *
+		 * @param list - a list whose elements we will be returning
+		 * @param index - index of the first element to be returned
+		 */
+		public LinkedListElementsCursor(LinkedListIndexedCollection<T> list, int index) {
+			this.list = Objects.requireNonNull(list);
+			this.nextIndex = index;
+			this.savedModificationCount = list.modificationCount;
+		}
+
+		/**
+		 * Checks if the outer list was structurally modified by anyone but this cursor.
+		 *
+		 * @throws ConcurrentModificationException if it was
+		 */
+		private void checkForComodification() {
+			if(savedModificationCount != list.modificationCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public boolean hasNextElement() {
+			checkForComodification();
+			return nextIndex < list.size;
+		}
+
+		@Override
+		public T getNextElement() {
+			if(!hasNextElement()) {
+				throw new NoSuchElementException();
+			}
+
+			lastReturned = nextIndex++;
+			return list.get(lastReturned);
+		}
+
+		@Override
+		public boolean hasPreviousElement() {
+			checkForComodification();
+			return nextIndex > 0;
+		}
+
+		@Override
+		public T getPreviousElement() {
+			if(!hasPreviousElement()) {
+				throw new NoSuchElementException();
+			}
+
+			lastReturned = --nextIndex;
+			return list.get(lastReturned);
+		}
+
+		@Override
+		public int nextIndex() {
+			return nextIndex;
+		}
+
+		@Override
+		public int previousIndex() {
+			return nextIndex - 1;
+		}
+
+		@Override
+		public void remove() {
+			checkForComodification();
+			if(lastReturned < 0) {
+				throw new IllegalStateException("There is no element to remove!");
+			}
+
+			list.remove(lastReturned);
+			if(lastReturned < nextIndex) {
+				nextIndex--;
+			}
+			lastReturned = -1;
+			savedModificationCount = list.modificationCount;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @throws NullPointerException if <code>value</code> is <code>null</code>
+		 */
+		@Override
+		public void set(T value) {
+			checkForComodification();
+			if(lastReturned < 0) {
+				throw new IllegalStateException("There is no element to replace!");
+			}
+
+			list.set(lastReturned, value);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @throws NullPointerException if <code>value</code> is <code>null</code>
+		 */
+		@Override
+		public void add(T value) {
+			checkForComodification();
+
+			list.insert(value, nextIndex);
+			nextIndex++;
+			lastReturned = -1;
+			savedModificationCount = list.modificationCount;
+		}
+
 	}
 
 	/**
 	 * This class models a single list node.
 	 * <p>
 	 * One node contains references to its adjacent nodes (one for next node and one
-	 * for previous node) and a value object that is stored inside it.
-	 * 
+	 * for previous node) and an array of up to {@link LinkedListIndexedCollection#NODE_CAPACITY}
+	 * consecutive elements of the list. Nodes in the list are never empty.
+	 *
 	 * @author Ivan Skorupan
 	 */
 	private static class ListNode<T> {
@@ -106,33 +283,21 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 		 * A reference to the next node in the list.
 		 */
 		ListNode<T> next;
-		
+
 		/**
 		 * A reference to the previous node in the list.
 		 */
 		ListNode<T> previous;
-		
+
 		/**
-		 * An {@link Object} reference containing the data stored in this node.
+		 * Elements stored in this node, in slots 0 to <code>count - 1</code>.
 		 */
-		T value;
+		Object[] values = new Object[NODE_CAPACITY];
 
 		/**
-		 * Initializes a new {@link ListNode} object.
-		 * <p>
-		 * Does <b>not</b> allow a <code>null</code> reference to be passed
-		 * for <code>value</code>.
-		 * 
-		 * @param next - reference to the next node in the list
-		 * @param previous - reference to the previous node in the list
-		 * @param value - an object to be stored in this node
-		 * @throws NullPointerException if <code>value</code> is <code>null</code>
+		 * Number of elements stored in this node.
 		 */
-		public ListNode(ListNode<T> next, ListNode<T> previous, T value) {
-			this.next = next;
-			this.previous = previous;
-			this.value = Objects.requireNonNull(value);
-		}
+		int count;
 	}
 
 	/**
@@ -153,7 +318,7 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 	 * Copies all objects from <code>other</code> into this new list.
 	 * <p>
 	 * Collection <code>other</code> must be different from <code>null</code>.
-	 * 
+	 *
 	 * @param other - a {@link Collection} object to use for initialization of this list.
 	 * @throws NullPointerException if <code>other</code> is <code>null</code>
 	 */
@@ -169,7 +334,7 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 
 	/**
 	 * {@inheritDoc}
-	 * 
+	 *
 	 * The average complexity of this method is O(1).
 	 * @throws NullPointerException if value is <code>null</code>
 	 */
@@ -177,14 +342,11 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 	public void add(T value) {
 		Objects.requireNonNull(value);
 
-		if(size == 0) {
-			first = new ListNode<>(null, null, value);
-			last = first;
-		} else {
-			last.next = new ListNode<>(null, last, value);
-			last = last.next;
+		if(last == null || last.count == NODE_CAPACITY) {
+			linkAfter(last, new ListNode<>());
 		}
 
+		last.values[last.count++] = value;
 		size++;
 		modificationCount++;
 		return;
@@ -192,79 +354,104 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 
 	@Override
 	public boolean contains(Object value) {
-		if(value == null) {
-			return false;
-		}
-
-		ListNode<T> current = first;
-		while(current != null) {
-			if(current.value.equals(value)) {
-				return true;
-			}
-			current = current.next;
-		}
-
-		return false;
+		return indexOf(value) != -1;
 	}
 
 	/**
-	 * Returns a list node object from the given position.
+	 * Finds the node containing the element on the given position and caches it.
+	 * The position of the element inside the node is <code>index - cachedNodeStart</code>.
 	 * <p>
-	 * Implemented with complexity never greater than O(n/2 + 1).
-	 * 
-	 * @param index - position of the node to get
-	 * @return a {@link ListNode} object on position <code>index</code>
+	 * The walk starts from the cached node or from the nearer end of the list, whichever
+	 * is closer, so this method takes O(1) time if <code>index</code> is close to the
+	 * index accessed last and never more than O(n/2) otherwise.
+	 *
+	 * @param index - position of the element, which must be valid
+	 * @return the {@link ListNode} object containing the element on position <code>index</code>
 	 */
 	private ListNode<T> getNode(int index) {
-		if((index < 0) || (index > size - 1)) {
-			throw new IndexOutOfBoundsException();
-		}
-		
-		ListNode<T> current = null;
-		int currentIndex = 0;
+		ListNode<T> current;
+		int currentStart;
 
-		if((index <= size - index)) {
+		if(cachedNode != null && Math.abs(index - cachedNodeStart) < Math.min(index, size - index)) {
+			current = cachedNode;
+			currentStart = cachedNodeStart;
+		} else if(index <= size - index) {
 			current = first;
+			currentStart = 0;
 		} else {
 			current = last;
-			currentIndex = size - 1;
+			currentStart = size - last.count;
 		}
 
-		while(currentIndex != index) {
-			if(currentIndex < index) {
-				current = current.next;
-				currentIndex++;
-			} else {
-				current = current.previous;
-				currentIndex--;
-			}
+		while(index < currentStart) {
+			current = current.previous;
+			currentStart -= current.count;
+		}
+		while(index >= currentStart + current.count) {
+			currentStart += current.count;
+			current = current.next;
 		}
 
+		cachedNode = current;
+		cachedNodeStart = currentStart;
 		return current;
 	}
-	
+
 	/**
 	 * {@inheritDoc}
-	 * 
+	 *
 	 * <p>
 	 * Valid indexes are 0 to size - 1.
 	 * <p>
-	 * This method never has a complexity greater than O(n/2 + 1).
-	 * 
+	 * This method takes O(1) time if <code>index</code> is close to the index accessed last
+	 * and never more than O(n/2) otherwise.
+	 *
 	 * @throws IndexOutOfBoundsException if index is invalid.
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	public T get(int index) {
 		if((index < 0) || (index > size - 1)) {
 			throw new IndexOutOfBoundsException();
 		}
 
-		return this.getNode(index).value;
+		ListNode<T> node = this.getNode(index);
+		return (T) node.values[index - cachedNodeStart];
+	}
+
+	/**
+	 * Replaces the element on the given position with <code>value</code>.
+	 * <p>
+	 * Valid indexes are 0 to size - 1. Replacing an element is not a structural
+	 * modification of the list.
+	 * <p>
+	 * This method takes O(1) time if <code>index</code> is close to the index accessed last
+	 * and never more than O(n/2) otherwise.
+	 *
+	 * @param index - position of the element to replace
+	 * @param value - the new element
+	 * @return the replaced element
+	 * @throws NullPointerException if <code>value</code> is <code>null</code>
+	 * @throws IndexOutOfBoundsException if <code>index</code> is invalid
+	 */
+	@SuppressWarnings("unchecked")
+	public T set(int index, T value) {
+		Objects.requireNonNull(value);
+
+		if((index < 0) || (index > size - 1)) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		ListNode<T> node = this.getNode(index);
+		int offset = index - cachedNodeStart;
+		T oldValue = (T) node.values[offset];
+		node.values[offset] = value;
+		return oldValue;
 	}
 
 	/**
 	 * {@inheritDoc}
-	 * 
+	 *
 	 * <p>
 	 * The average complexity of this method is O(n).
 	 */
@@ -276,15 +463,15 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 			return INDEX_NOT_FOUND;
 		}
 
-		ListNode<T> current = first;
-		int index = 0;
-		while(current != null) {
-			if(current.value.equals(value)) {
-				return index;
+		int start = 0;
+		for(ListNode<T> current = first; current != null; current = current.next) {
+			for(int i = 0; i < current.count; i++) {
+				if(current.values[i].equals(value)) {
+					return start + i;
+				}
 			}
 
-			current = current.next;
-			index++;
+			start += current.count;
 		}
 
 		return INDEX_NOT_FOUND;
@@ -292,12 +479,13 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 
 	/**
 	 * {@inheritDoc}
-	 * 
+	 *
 	 * <p>
 	 * Valid positions are 0 to size.
 	 * <p>
-	 * The average complexity of this method is O(n/2 + 1).
-	 * 
+	 * This method takes O(1) time if <code>position</code> is close to the index accessed last
+	 * and never more than O(n/2) otherwise.
+	 *
 	 * @throws NullPointerException if <code>value</code> is <code>null</code>
 	 * @throws IndexOutOfBoundsException if <code>position</code> is invalid
 	 */
@@ -309,70 +497,136 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 			throw new IndexOutOfBoundsException();
 		}
 
-		if(size == 0 || position == size) {
+		if(position == size) {
 			this.add(value);
 			return;
 		}
 
 		ListNode<T> insertionPoint = this.getNode(position);
-		insertElementAndLinkNodes(insertionPoint, value);
+		insertElement(insertionPoint, position - cachedNodeStart, value);
 		modificationCount++;
 		return;
 	}
 
 	/**
-	 * This method creates a new {@link ListNode} object containing <code>value</code> and
-	 * properly inserts it into this list by correctly linking the nodes before and after the new node
-	 * to maintain list integrity and structure.
-	 * 
-	 * @param insertionPoint - list node at whose position to insert a new element
+	 * This method inserts <code>value</code> into the given node at the given offset.
+	 * <p>
+	 * If the node is full, it is split in two halves first and <code>value</code> goes
+	 * into the half containing the offset. The cache is updated to the node the value
+	 * ends up in.
+	 *
+	 * @param insertionPoint - the cached list node into which to insert a new element
+	 * @param offset - position inside the node at which to insert the new element
 	 * @param value - an object to be inserted
 	 */
-	private void insertElementAndLinkNodes(ListNode<T> insertionPoint, T value) {
-		/* Create a new node to insert */
-		ListNode<T> newNode = new ListNode<>(insertionPoint, insertionPoint.previous, value);
-
-		/* Link nodes correctly */
-		if(insertionPoint != first) {
-			/* We are inserting a middle element in the list */
-			insertionPoint.previous.next = newNode;
-		} else {
-			/* We are inserting the first element in the list */
-			first = newNode;
+	private void insertElement(ListNode<T> insertionPoint, int offset, T value) {
+		if(insertionPoint.count == NODE_CAPACITY) {
+			/* Move the upper half of the elements into a new node */
+			final int half = NODE_CAPACITY / 2;
+			ListNode<T> newNode = new ListNode<>();
+			System.arraycopy(insertionPoint.values, half, newNode.values, 0, NODE_CAPACITY - half);
+			Arrays.fill(insertionPoint.values, half, NODE_CAPACITY, null);
+			newNode.count = NODE_CAPACITY - half;
+			insertionPoint.count = half;
+			linkAfter(insertionPoint, newNode);
+
+			if(offset > half) {
+				insertionPoint = newNode;
+				offset -= half;
+				cachedNode = newNode;
+				cachedNodeStart += half;
+			}
 		}
 
-		insertionPoint.previous = newNode;
+		System.arraycopy(insertionPoint.values, offset, insertionPoint.values, offset + 1, insertionPoint.count - offset);
+		insertionPoint.values[offset] = value;
+		insertionPoint.count++;
 		size++;
 	}
 
 	/**
-	 * This method removes the given {@link ListNode} object from this list
-	 * and properly links the nodes before and after the removal point to maintain
-	 * list integrity and structure.
-	 * 
-	 * @param removalPoint - list node to remove from this list
+	 * This method removes the element at the given offset of the given cached node.
+	 * <p>
+	 * A node left empty is unlinked from the list, and a node left less than a
+	 * quarter full is merged with the next node if they fit into one, so the nodes
+	 * stay reasonably full. The cache is updated to a node which is still in the list.
+	 *
+	 * @param removalPoint - the cached list node from which to remove an element
+	 * @param offset - position of the element to remove inside the node
 	 */
-	private void removeElementAndLinkNodes(ListNode<T> removalPoint) {
-		/* Link nodes correctly */
-		if(removalPoint != first && removalPoint != last) {
-			/* We are removing a middle element in the list */
-			removalPoint.previous.next = removalPoint.next;
-			removalPoint.next.previous = removalPoint.previous;
-		} else if(removalPoint == first && removalPoint != last) {
-			/* We are removing the first element in the list */
-			removalPoint.next.previous = null;
-			first = removalPoint.next;
-		} else if(removalPoint != first && removalPoint == last) {
-			/* We are removing the last element in the list */
-			removalPoint.previous.next = null;
-			last = removalPoint.previous;
-		}
-
-		/* We always set the node we are removing to null so resources can be correctly released by garbage collector. */
-		removalPoint = null;
+	private void removeElement(ListNode<T> removalPoint, int offset) {
+		System.arraycopy(removalPoint.values, offset + 1, removalPoint.values, offset, removalPoint.count - offset - 1);
+		removalPoint.values[--removalPoint.count] = null;
 		size--;
 		modificationCount++;
-		return;
+
+		ListNode<T> next = removalPoint.next;
+		if(removalPoint.count == 0) {
+			ListNode<T> previous = removalPoint.previous;
+			unlink(removalPoint);
+
+			/* The next node now starts where the removed one did */
+			if(next != null) {
+				cachedNode = next;
+			} else if(previous != null) {
+				cachedNode = previous;
+				cachedNodeStart -= previous.count;
+			} else {
+				cachedNode = null;
+			}
+		} else if(removalPoint.count < NODE_CAPACITY / 4 && next != null
+				&& removalPoint.count + next.count <= NODE_CAPACITY) {
+			System.arraycopy(next.values, 0, removalPoint.values, removalPoint.count, next.count);
+			removalPoint.count += next.count;
+			unlink(next);
+		}
+	}
+
+	/**
+	 * Links <code>newNode</code> into this list right after <code>node</code>, or as the
+	 * first node if <code>node</code> is <code>null</code> and the list is empty.
+	 *
+	 * @param node - node after which to link the new node
+	 * @param newNode - node to link
+	 */
+	private void linkAfter(ListNode<T> node, ListNode<T> newNode) {
+		newNode.previous = node;
+
+		if(node == null) {
+			first = newNode;
+		} else {
+			newNode.next = node.next;
+			node.next = newNode;
+		}
+
+		if(newNode.next == null) {
+			last = newNode;
+		} else {
+			newNode.next.previous = newNode;
+		}
+	}
+
+	/**
+	 * Unlinks the given node from this list and properly links the nodes before and after
+	 * it to maintain list integrity and structure.
+	 *
+	 * @param node - list node to unlink
+	 */
+	private void unlink(ListNode<T> node) {
+		if(node.previous == null) {
+			first = node.next;
+		} else {
+			node.previous.next = node.next;
+		}
+
+		if(node.next == null) {
+			last = node.previous;
+		} else {
+			node.next.previous = node.previous;
+		}
+
+		node.next = null;
+		node.previous = null;
 	}
 
 	@Override
@@ -382,13 +636,18 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 			return false;
 		}
 
-		ListNode<T> current = first; // initially set the current node we are at as the first element in the list
-		while(current != null) { // loop until we reach the end of the list
-			if(current.value.equals(value)) { // test if the node containing the corresponding value has been found
-				removeElementAndLinkNodes(current);
-				return true;
+		int start = 0;
+		for(ListNode<T> current = first; current != null; current = current.next) {
+			for(int i = 0; i < current.count; i++) {
+				if(current.values[i].equals(value)) {
+					cachedNode = current;
+					cachedNodeStart = start;
+					removeElement(current, i);
+					return true;
+				}
 			}
-			current = current.next;
+
+			start += current.count;
 		}
 
 		return false;
@@ -396,10 +655,13 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 
 	/**
 	 * {@inheritDoc}
-	 * 
+	 *
 	 * <p>
 	 * Valid indexes are 0 to size - 1.
-	 * 
+	 * <p>
+	 * This method takes O(1) time if <code>index</code> is close to the index accessed last
+	 * and never more than O(n/2) otherwise.
+	 *
 	 * @throws IndexOutOfBoundsException if <code>index</code> is invalid
 	 */
 	@Override
@@ -409,31 +671,60 @@ public class LinkedListIndexedCollection<T> implements List<T> {
 		}
 
 		ListNode<T> removalPoint = this.getNode(index);
-		removeElementAndLinkNodes(removalPoint);
+		removeElement(removalPoint, index - cachedNodeStart);
 		return;
 	}
 
 	@Override
 	public Object[] toArray() {
 		Object[] arrayFromList = new Object[size];
-		ListNode<T> current = first;
 
-		for(int i = 0; i < size; i++, current = current.next) {
-			arrayFromList[i] = current.value;
+		int start = 0;
+		for(ListNode<T> current = first; current != null; current = current.next) {
+			System.arraycopy(current.values, 0, arrayFromList, start, current.count);
+			start += current.count;
 		}
 
 		return arrayFromList;
 	}
-	
+
 	@Override
 	public ElementsGetter<T> createElementsGetter() {
 		return new LinkedListElementsGetter<>(this);
 	}
-	
+
+	/**
+	 * Creates a new cursor positioned at the beginning of this list.
+	 *
+	 * @return a new {@link ElementsCursor} over this list
+	 */
+	public ElementsCursor<T> createCursor() {
+		return createCursor(0);
+	}
+
+	/**
+	 * Creates a new cursor positioned right before the element on the given position,
+	 * so that its first {@link ElementsCursor#getNextElement()} returns that element.
+	 * <p>
+	 * Valid positions are 0 to size.
+	 *
+	 * @param index - position of the element the cursor is placed before
+	 * @return a new {@link ElementsCursor} over this list
+	 * @throws IndexOutOfBoundsException if <code>index</code> is invalid
+	 */
+	public ElementsCursor<T> createCursor(int index) {
+		if((index < 0) || (index > size)) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		return new LinkedListElementsCursor<>(this, index);
+	}
+
 	@Override
 	public void clear() {
 		first = null;
 		last = null;
+		cachedNode = null;
 		size = 0;
 		modificationCount++;
 		return;
@@ -0,0 +1,261 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.Objects;
+
+/**
+ * Models a hash-table whose keys are primitive <code>long</code> values.
+ * <p>
+ * Keys are stored in a <code>long</code> array and values in a parallel
+ * array, so neither the keys are boxed nor an entry object is allocated
+ * for any stored pair. Collisions are resolved by linear probing.
+ * <p>
+ * Key 0 marks an empty slot, so an entry with key 0 is kept outside of the
+ * arrays. Values can be <code>null</code>.
+ * <p>
+ * Apart from the type of the key and the hash function, this class is identical
+ * to {@link IntHashtable}. The parts which don't depend on the type of the key
+ * are shared in {@link PrimitiveKeyHashtable}.
+ * 
+ * @author Ivan Skorupan
+ * 
+ * @param <V> - type of value
+ */
+public class LongHashtable<V> extends PrimitiveKeyHashtable<V> {
+
+	/**
+	 * Keys stored in this table. An empty slot contains key 0.
+	 */
+	private long[] keys;
+
+	/**
+	 * Models an object capable of performing an operation on a single
+	 * entry of a {@link LongHashtable}.
+	 * 
+	 * @author Ivan Skorupan
+	 * 
+	 * @param <V> - type of value
+	 */
+	public interface EntryProcessor<V> {
+
+		/**
+		 * Performs an action on the given entry.
+		 * 
+		 * @param key - key of the entry
+		 * @param value - value of the entry
+		 */
+		void process(long key, V value);
+
+	}
+
+	/**
+	 * Constructs a new {@link LongHashtable} object.
+	 * <p>
+	 * Since no initial capacity is provided, it is set to {@link #DEFAULT_CAPACITY}.
+	 */
+	public LongHashtable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new {@link LongHashtable} object.
+	 * <p>
+	 * Takes initial capacity as a parameter, but the actual capacity of this
+	 * new table will be the first power of two greater than or equal to
+	 * <code>capacity</code> (and at least 2, so that there is always an empty slot).
+	 * 
+	 * @param capacity - the initial number of slots for this hash-table
+	 * @throws IllegalArgumentException if <code>capacity</code> is less than {@link #MINIMUM_CAPACITY}
+	 */
+	public LongHashtable(int capacity) {
+		int slots = slotCount(capacity);
+		keys = new long[slots];
+		values = new Object[slots];
+	}
+
+	/**
+	 * Calculates the home slot of the given <code>key</code>.
+	 * 
+	 * @param key - key to calculate the home slot of
+	 * @return home slot of <code>key</code>
+	 */
+	private int homeSlot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & (keys.length - 1);
+	}
+
+	/**
+	 * Finds the slot which contains the given non-zero <code>key</code>.
+	 * 
+	 * @param key - key to search for
+	 * @return slot of <code>key</code> or -1 if there is no such key
+	 */
+	private int findSlot(long key) {
+		int mask = keys.length - 1;
+
+		for(int slot = homeSlot(key); keys[slot] != 0; slot = (slot + 1) & mask) {
+			if(keys[slot] == key) {
+				return slot;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Puts a new entry into the hash-table. If an entry with the same <code>key</code> already
+	 * exists within this table, its <code>value</code> is overwritten.
+	 * 
+	 * @param key - key of the new entry
+	 * @param value - value of the new entry
+	 */
+	public void put(long key, V value) {
+		if(key == 0) {
+			putZero(value);
+			return;
+		}
+
+		int slot = findSlot(key);
+		if(slot >= 0) {
+			values[slot] = value;
+			return;
+		}
+
+		if(isFull()) {
+			resize(keys.length * 2);
+		}
+
+		insert(key, value);
+		size++;
+	}
+
+	/**
+	 * Inserts an entry whose non-zero key is known not to be in the table.
+	 * 
+	 * @param key - key of the entry
+	 * @param value - value of the entry
+	 */
+	private void insert(long key, Object value) {
+		int mask = keys.length - 1;
+		int slot = homeSlot(key);
+
+		while(keys[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+	}
+
+	/**
+	 * Changes this table's capacity and reinserts all entries.
+	 * 
+	 * @param newCapacity - new number of slots
+	 */
+	private void resize(int newCapacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+
+		keys = new long[newCapacity];
+		values = new Object[newCapacity];
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != 0) {
+				insert(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns the value stored under the given key.
+	 * <p>
+	 * If no such key is found, <code>null</code> is returned.
+	 * 
+	 * @param key - the key whose value to search for
+	 * @return the value stored within the given <code>key</code> or <code>null</code> if no such key exists
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		if(key == 0) {
+			return zeroValue;
+		}
+
+		int slot = findSlot(key);
+		return (slot < 0) ? null : (V) values[slot];
+	}
+
+	/**
+	 * Tests if this table contains the given <code>key</code>.
+	 * 
+	 * @param key - the key to search for
+	 * @return <code>true</code> if the given <code>key</code> was found, <code>false</code> otherwise
+	 */
+	public boolean containsKey(long key) {
+		return (key == 0) ? hasZeroKey : findSlot(key) >= 0;
+	}
+
+	/**
+	 * Removes the given <code>key</code> from this table.
+	 * <p>
+	 * If no such key was found, the method does nothing.
+	 * 
+	 * @param key - the key to remove from this table
+	 */
+	public void remove(long key) {
+		if(key == 0) {
+			removeZero();
+			return;
+		}
+
+		int slot = findSlot(key);
+		if(slot >= 0) {
+			removeSlot(slot);
+		}
+	}
+
+	/**
+	 * Calls the {@link EntryProcessor#process(long, Object) process} method on every
+	 * entry of this table. The table must not be modified by the processor.
+	 * 
+	 * @param processor - processor to call for every entry
+	 * @throws NullPointerException if <code>processor</code> is <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(EntryProcessor<? super V> processor) {
+		Objects.requireNonNull(processor);
+
+		if(hasZeroKey) {
+			processor.process(0, zeroValue);
+		}
+
+		for(int i = 0; i < keys.length; i++) {
+			if(keys[i] != 0) {
+				processor.process(keys[i], (V) values[i]);
+			}
+		}
+	}
+
+	@Override
+	boolean isOccupied(int slot) {
+		return keys[slot] != 0;
+	}
+
+	@Override
+	int homeSlotOf(int slot) {
+		return homeSlot(keys[slot]);
+	}
+
+	@Override
+	void moveKey(int from, int to) {
+		keys[to] = keys[from];
+	}
+
+	@Override
+	void clearKey(int slot) {
+		keys[slot] = 0;
+	}
+
+	@Override
+	String keyToString(int slot) {
+		return Long.toString(keys[slot]);
+	}
+
+}
@@ -0,0 +1,533 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Models a hash-table that enables storage of ordered pairs
+ * (key, value) and has the same API as {@link SimpleHashtable}.
+ * <p>
+ * Unlike {@link SimpleHashtable}, this table doesn't allocate an entry object
+ * for every stored pair. Keys, values and hash-codes are kept in parallel arrays
+ * and collisions are resolved by linear probing, using the Robin Hood strategy:
+ * an entry that is further away from its home slot takes the slot of an entry
+ * that is closer to its own home slot. This keeps probe sequences short and
+ * allows lookups of missing keys to stop early.
+ * <p>
+ * Removal shifts the following entries of the probe sequence one slot back,
+ * so the table never contains deleted markers.
+ * <p>
+ * <code>null</code> keys are not allowed, but values can be <code>null</code>.
+ * 
+ * @author Ivan Skorupan
+ * 
+ * @param <K> - type of key
+ * @param <V> - type of value
+ */
+public class OpenAddressingHashtable<K, V> implements Iterable<SimpleHashtable.TableEntry<K, V>> {
+
+	/**
+	 * The default capacity for this hash-table is 16 slots.
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The minimum possible capacity allowed for this table.
+	 */
+	private static final int MINIMUM_CAPACITY = 1;
+
+	/**
+	 * The percentage of this table's capacity that the number of entries can reach before
+	 * the table is extended.
+	 */
+	private static final double THRESHOLD = 0.75;
+
+	/**
+	 * Keys stored in this table. An empty slot has a <code>null</code> key.
+	 */
+	private Object[] keys;
+
+	/**
+	 * Values stored in this table.
+	 */
+	private Object[] values;
+
+	/**
+	 * Hash-codes of the stored keys.
+	 */
+	private int[] hashes;
+
+	/**
+	 * Number of pairs stored in this table.
+	 */
+	private int size;
+
+	/**
+	 * Number of times this table has been modified since its instantiation.
+	 */
+	private int modificationCount;
+
+	/**
+	 * Constructs a new {@link OpenAddressingHashtable} object.
+	 * <p>
+	 * Since no initial capacity is provided, it is set to {@link #DEFAULT_CAPACITY}.
+	 */
+	public OpenAddressingHashtable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new {@link OpenAddressingHashtable} object.
+	 * <p>
+	 * Takes initial capacity as a parameter, but the actual capacity of this
+	 * new table will be the first power of two greater than or equal to
+	 * <code>capacity</code> (and at least 2, so that there is always an empty slot).
+	 * 
+	 * @param capacity - the initial number of slots for this hash-table
+	 * @throws IllegalArgumentException if <code>capacity</code> is less than {@link #MINIMUM_CAPACITY}
+	 */
+	public OpenAddressingHashtable(int capacity) {
+		if(capacity < MINIMUM_CAPACITY) {
+			throw new IllegalArgumentException();
+		}
+
+		allocate(findPowerOfTwoCapacity(Math.max(capacity, 2)));
+	}
+
+	/**
+	 * Finds the first power of two greater than or equal to the given integer parameter.
+	 * 
+	 * @param capacity - given initial capacity for the table
+	 * @return actual capacity for the table as the first power of two greater than or equal to <code>capacity</code>
+	 */
+	private static int findPowerOfTwoCapacity(int capacity) {
+		int powerOfTwoCapacity = 1;
+
+		while(powerOfTwoCapacity < capacity) {
+			powerOfTwoCapacity *= 2;
+		}
+
+		return powerOfTwoCapacity;
+	}
+
+	/**
+	 * Allocates empty internal arrays of the given capacity.
+	 * 
+	 * @param capacity - number of slots to allocate
+	 */
+	private void allocate(int capacity) {
+		keys = new Object[capacity];
+		values = new Object[capacity];
+		hashes = new int[capacity];
+	}
+
+	/**
+	 * Calculates the hash-code used by this table for the given <code>key</code>.
+	 * <p>
+	 * The higher bits of the key's hash-code are mixed into the lower ones
+	 * since only the lower bits determine the slot.
+	 * 
+	 * @param key - key to calculate the hash-code of
+	 * @return hash-code of <code>key</code>
+	 */
+	private static int hash(Object key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Calculates how far the entry in the given slot is from its home slot.
+	 * 
+	 * @param slot - slot of the entry
+	 * @return distance of the entry from its home slot
+	 */
+	private int probeDistance(int slot) {
+		int mask = keys.length - 1;
+		return (slot - (hashes[slot] & mask)) & mask;
+	}
+
+	/**
+	 * Finds the slot which contains the given <code>key</code>.
+	 * 
+	 * @param key - key to search for
+	 * @return slot of <code>key</code> or -1 if there is no such key
+	 */
+	private int findSlot(Object key) {
+		int mask = keys.length - 1;
+		int h = hash(key);
+		int slot = h & mask;
+
+		for(int distance = 0; keys[slot] != null; distance++) {
+			// an entry closer to its home than we are to ours means the key is not in the table
+			if(probeDistance(slot) < distance) {
+				return -1;
+			}
+			if(hashes[slot] == h && key.equals(keys[slot])) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Puts a new entry into the hash-table. If an entry with the same <code>key</code> already
+	 * exists within this table, its <code>value</code> is overwritten.
+	 * 
+	 * @param key - key of the new entry
+	 * @param value - value of the new entry
+	 * @throws NullPointerException if the <code>key</code> is <code>null</code>
+	 */
+	public void put(K key, V value) {
+		Objects.requireNonNull(key);
+
+		int slot = findSlot(key);
+		if(slot >= 0) {
+			values[slot] = value;
+			return;
+		}
+
+		if(size + 1 > THRESHOLD * keys.length) {
+			resize(keys.length * 2);
+		}
+
+		insert(key, value, hash(key));
+		size++;
+		modificationCount++;
+	}
+
+	/**
+	 * Inserts an entry whose key is known not to be in the table.
+	 * 
+	 * @param key - key of the entry
+	 * @param value - value of the entry
+	 * @param h - hash-code of the key
+	 */
+	private void insert(Object key, Object value, int h) {
+		int mask = keys.length - 1;
+		int slot = h & mask;
+		int distance = 0;
+
+		while(keys[slot] != null) {
+			int existingDistance = probeDistance(slot);
+			if(existingDistance < distance) {
+				// Robin Hood: take the slot and carry on with the displaced entry
+				Object displacedKey = keys[slot];
+				Object displacedValue = values[slot];
+				int displacedHash = hashes[slot];
+
+				keys[slot] = key;
+				values[slot] = value;
+				hashes[slot] = h;
+
+				key = displacedKey;
+				value = displacedValue;
+				h = displacedHash;
+				distance = existingDistance;
+			}
+
+			slot = (slot + 1) & mask;
+			distance++;
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+		hashes[slot] = h;
+	}
+
+	/**
+	 * Changes this table's capacity and reinserts all entries.
+	 * 
+	 * @param newCapacity - new number of slots
+	 */
+	private void resize(int newCapacity) {
+		Object[] oldKeys = keys;
+		Object[] oldValues = values;
+		int[] oldHashes = hashes;
+
+		allocate(newCapacity);
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != null) {
+				insert(oldKeys[i], oldValues[i], oldHashes[i]);
+			}
+		}
+
+		modificationCount++;
+	}
+
+	/**
+	 * Returns the value stored under the given key.
+	 * <p>
+	 * If no such key is found or if <code>key</code> is <code>null</code>,
+	 * <code>null</code> is returned.
+	 * 
+	 * @param key - the key whose value to search for
+	 * @return the value stored within the given <code>key</code> or <code>null</code> if no such key exists
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		if(key == null) {
+			return null;
+		}
+
+		int slot = findSlot(key);
+		return (slot < 0) ? null : (V) values[slot];
+	}
+
+	/**
+	 * Returns the number of entries in this table.
+	 * 
+	 * @return number of entries in this table
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Tests if this table contains the given <code>key</code>.
+	 * 
+	 * @param key - the key to search for
+	 * @return <code>true</code> if the given <code>key</code> was found, <code>false</code> otherwise
+	 */
+	public boolean containsKey(Object key) {
+		return key != null && findSlot(key) >= 0;
+	}
+
+	/**
+	 * Tests if the given <code>value</code> is contained in this table.
+	 * 
+	 * @param value - the value to search for
+	 * @return <code>true</code> if the given <code>value</code> was found, <code>false</code> otherwise
+	 */
+	public boolean containsValue(Object value) {
+		for(int i = 0; i < keys.length; i++) {
+			if(keys[i] != null && Objects.equals(value, values[i])) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Removes the given <code>key</code> from this table.
+	 * <p>
+	 * If no such key was found, the method does nothing.
+	 * 
+	 * @param key - the key to remove from this table
+	 */
+	public void remove(Object key) {
+		if(key == null) {
+			return;
+		}
+
+		int slot = findSlot(key);
+		if(slot >= 0) {
+			removeSlot(slot);
+		}
+	}
+
+	/**
+	 * Removes the entry in the given slot and shifts the following entries
+	 * of its probe sequence one slot back.
+	 * 
+	 * @param slot - slot of the entry to remove
+	 */
+	private void removeSlot(int slot) {
+		int mask = keys.length - 1;
+		int next = (slot + 1) & mask;
+
+		while(keys[next] != null && probeDistance(next) > 0) {
+			keys[slot] = keys[next];
+			values[slot] = values[next];
+			hashes[slot] = hashes[next];
+			slot = next;
+			next = (next + 1) & mask;
+		}
+
+		keys[slot] = null;
+		values[slot] = null;
+		size--;
+		modificationCount++;
+	}
+
+	/**
+	 * Tests if this table is empty.
+	 * 
+	 * @return <code>true</code> if there are no entries in this table, <code>false</code> otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all entries from this table.
+	 * <p>
+	 * This method does not modify the table's capacity.
+	 */
+	public void clear() {
+		for(int i = 0; i < keys.length; i++) {
+			keys[i] = null;
+			values[i] = null;
+		}
+
+		size = 0;
+		modificationCount++;
+	}
+
+	@Override
+	public Iterator<SimpleHashtable.TableEntry<K, V>> iterator() {
+		return new IteratorImpl();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder tableAsText = new StringBuilder("[");
+
+		for(int i = 0; i < keys.length; i++) {
+			if(keys[i] == null) continue;
+
+			if(tableAsText.length() > 1) {
+				tableAsText.append(", ");
+			}
+			tableAsText.append(keys[i] + "=" + values[i]);
+		}
+
+		return tableAsText.append("]").toString();
+	}
+
+	/**
+	 * An entry returned by the iterator of this table. Setting its value
+	 * writes the value through to the table.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	private class SlotEntry extends SimpleHashtable.TableEntry<K, V> {
+
+		/**
+		 * Slot of this entry at the time it was returned.
+		 */
+		private int slot;
+
+		/**
+		 * Number of modifications made to the table at the time this entry was returned.
+		 */
+		private int modificationCountSnapshot;
+
+		/**
+		 * Constructs a new {@link SlotEntry} object.
+		 * 
+		 * @param slot - slot of this entry
+		 */
+		@SuppressWarnings("unchecked")
+		public SlotEntry(int slot) {
+			super((K) keys[slot], (V) values[slot], null);
+			this.slot = slot;
+			this.modificationCountSnapshot = modificationCount;
+		}
+
+		@Override
+		public void setValue(V value) {
+			super.setValue(value);
+			if(modificationCountSnapshot == modificationCount) {
+				values[slot] = value;
+			} else {
+				put(getKey(), value);
+			}
+		}
+
+	}
+
+	/**
+	 * Models an iterator that can be used to iterate through entries of {@link OpenAddressingHashtable}.
+	 * <p>
+	 * The iteration starts right after an empty slot and goes around the whole table.
+	 * Since a probe sequence never contains an empty slot, removing an entry through
+	 * the iterator can only shift entries that haven't been visited yet.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	private class IteratorImpl implements Iterator<SimpleHashtable.TableEntry<K, V>> {
+
+		/**
+		 * An empty slot at which the iteration starts and ends.
+		 */
+		private int start;
+
+		/**
+		 * Number of slots visited so far.
+		 */
+		private int visited;
+
+		/**
+		 * Slot of the last entry returned by {@link #next()}, or -1 if there is none.
+		 */
+		private int lastReturned = -1;
+
+		/**
+		 * Number of modifications made to the table at the time of this iterator's instantiation.
+		 */
+		private int modificationCountSnapshot;
+
+		/**
+		 * Constructs a new {@link IteratorImpl} object.
+		 */
+		public IteratorImpl() {
+			modificationCountSnapshot = modificationCount;
+			while(keys[start] != null) {
+				start++;
+			}
+		}
+
+		/**
+		 * Skips empty slots until the next entry.
+		 */
+		private void advance() {
+			int mask = keys.length - 1;
+			while(visited < keys.length && keys[(start + visited) & mask] == null) {
+				visited++;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if(modificationCountSnapshot != modificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			advance();
+			return visited < keys.length;
+		}
+
+		@Override
+		public SimpleHashtable.TableEntry<K, V> next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			lastReturned = (start + visited) & (keys.length - 1);
+			visited++;
+			return new SlotEntry(lastReturned);
+		}
+
+		@Override
+		public void remove() {
+			if(lastReturned < 0) {
+				throw new IllegalStateException();
+			} else if(modificationCountSnapshot != modificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			removeSlot(lastReturned);
+			// the next entry may have been shifted into the removed slot
+			visited--;
+			lastReturned = -1;
+			modificationCountSnapshot = modificationCount;
+		}
+
+	}
+
+}
@@ -0,0 +1,356 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Models a pipeline of operations on elements of a collection, evaluated in
+ * parallel on a {@link ForkJoinPool}.
+ * <p>
+ * A pipeline is created from an {@link ElementsSplitter}, usually through one of the
+ * <code>of</code> methods, and then extended with intermediate operations
+ * ({@link #filter(Tester)}, {@link #map(Function)}), each of which returns a new
+ * pipeline. Nothing is computed until a terminal operation ({@link #forEach(Processor)},
+ * {@link #count()}, {@link #reduce(Object, BinaryOperator)}, {@link #toCollection()})
+ * is called. The terminal operation splits the source into parts of at most
+ * {@link #withSplitThreshold(long) split threshold} elements, runs all operations on
+ * every part in a separate task and combines the results in the source's order.
+ * <p>
+ * A pipeline, together with every pipeline derived from it, can be evaluated only
+ * once. The source collection must not be modified during the evaluation, and the
+ * given testers and functions must not depend on the order or the thread in which
+ * they are called.
+ *
+ * @author Ivan Skorupan
+ *
+ * @param <T> - type of elements at this stage of the pipeline
+ */
+public class ParallelPipeline<T> {
+
+	/**
+	 * Default maximum number of elements processed by a single task.
+	 */
+	private static final long DEFAULT_SPLIT_THRESHOLD = 1024;
+
+	/**
+	 * Source of the elements, shared by all pipelines derived from the same source and
+	 * set to <code>null</code> when one of them is evaluated.
+	 */
+	private AtomicReference<ElementsSplitter<?>> source;
+
+	/**
+	 * Turns a processor of this stage's elements into a processor of the source's elements
+	 * which applies all operations of the pipeline before passing them on.
+	 */
+	private Function<Processor<? super T>, Processor<Object>> chain;
+
+	/**
+	 * Pool on which the pipeline is evaluated.
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Maximum number of elements processed by a single task.
+	 */
+	private long splitThreshold;
+
+	/**
+	 * Models a task that evaluates the pipeline on a part of the source's elements,
+	 * splitting the part further if it is larger than the split threshold.
+	 *
+	 * @author Ivan Skorupan
+	 *
+	 * @param <A> - type of the task's result
+	 */
+	private class EvaluationTask<A> extends RecursiveTask<A> {
+
+		private static final long serialVersionUID = 6420718405873623165L;
+
+		/**
+		 * Splitter of the elements this task processes.
+		 */
+		private ElementsSplitter<?> splitter;
+
+		/**
+		 * Creates an empty result.
+		 */
+		private Supplier<A> supplier;
+
+		/**
+		 * Adds an element to a result.
+		 */
+		private BiConsumer<A, ? super T> accumulator;
+
+		/**
+		 * Combines the results of two consecutive parts.
+		 */
+		private BinaryOperator<A> combiner;
+
+		/**
+		 * Constructs a new {@link EvaluationTask} object.
+		 *
+		 * @param splitter - splitter of the elements the task processes
+		 * @param supplier - creates an empty result
+		 * @param accumulator - adds an element to a result
+		 * @param combiner - combines the results of two consecutive parts
+		 */
+		public EvaluationTask(ElementsSplitter<?> splitter, Supplier<A> supplier,
+				BiConsumer<A, ? super T> accumulator, BinaryOperator<A> combiner) {
+			this.splitter = splitter;
+			this.supplier = supplier;
+			this.accumulator = accumulator;
+			this.combiner = combiner;
+		}
+
+		@Override
+		protected A compute() {
+			if(splitter.estimateSize() > splitThreshold) {
+				ElementsSplitter<?> prefix = splitter.trySplit();
+
+				if(prefix != null) {
+					EvaluationTask<A> left = new EvaluationTask<>(prefix, supplier, accumulator, combiner);
+					left.fork();
+					A right = new EvaluationTask<>(splitter, supplier, accumulator, combiner).compute();
+					return combiner.apply(left.join(), right);
+				}
+			}
+
+			A result = supplier.get();
+			splitter.processRemaining(chain.apply(value -> accumulator.accept(result, value)));
+			return result;
+		}
+
+	}
+
+	/**
+	 * Constructs a new {@link ParallelPipeline} object.
+	 *
+	 * @param source - shared source of the elements
+	 * @param chain - turns a processor of this stage's elements into a processor of the source's elements
+	 * @param pool - pool on which the pipeline is evaluated
+	 * @param splitThreshold - maximum number of elements processed by a single task
+	 */
+	private ParallelPipeline(AtomicReference<ElementsSplitter<?>> source,
+			Function<Processor<? super T>, Processor<Object>> chain, ForkJoinPool pool, long splitThreshold) {
+		this.source = source;
+		this.chain = chain;
+		this.pool = pool;
+		this.splitThreshold = splitThreshold;
+	}
+
+	/**
+	 * Creates a new pipeline over the elements of the given splitter.
+	 *
+	 * @param <T> - type of the elements
+	 * @param splitter - splitter of the elements
+	 * @return a new pipeline
+	 * @throws NullPointerException if <code>splitter</code> is <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> ParallelPipeline<T> of(ElementsSplitter<? extends T> splitter) {
+		Objects.requireNonNull(splitter);
+
+		// the source's elements are exactly this stage's elements, so its processors accept them
+		return new ParallelPipeline<T>(new AtomicReference<>(splitter), downstream -> (Processor<Object>) downstream,
+				ForkJoinPool.commonPool(), DEFAULT_SPLIT_THRESHOLD);
+	}
+
+	/**
+	 * Creates a new pipeline over the elements of the given collection.
+	 *
+	 * @param <T> - type of the elements
+	 * @param collection - collection whose elements to process
+	 * @return a new pipeline
+	 * @throws NullPointerException if <code>collection</code> is <code>null</code>
+	 */
+	public static <T> ParallelPipeline<T> of(Collection<? extends T> collection) {
+		return of(collection.createElementsSplitter());
+	}
+
+	/**
+	 * Creates a new pipeline over the entries of the given hash-table.
+	 *
+	 * @param <K> - type of the keys
+	 * @param <V> - type of the values
+	 * @param table - hash-table whose entries to process
+	 * @return a new pipeline
+	 * @throws NullPointerException if <code>table</code> is <code>null</code>
+	 */
+	public static <K, V> ParallelPipeline<SimpleHashtable.TableEntry<K, V>> of(SimpleHashtable<K, V> table) {
+		return of(table.createElementsSplitter());
+	}
+
+	/**
+	 * Returns a pipeline evaluated on the given pool instead of the common pool.
+	 *
+	 * @param pool - pool on which to evaluate the pipeline
+	 * @return a new pipeline
+	 * @throws NullPointerException if <code>pool</code> is <code>null</code>
+	 */
+	public ParallelPipeline<T> withPool(ForkJoinPool pool) {
+		return new ParallelPipeline<>(source, chain, Objects.requireNonNull(pool), splitThreshold);
+	}
+
+	/**
+	 * Returns a pipeline whose tasks process at most about <code>splitThreshold</code>
+	 * elements each. Smaller thresholds give better load balancing, larger ones less
+	 * overhead per element.
+	 *
+	 * @param splitThreshold - maximum number of elements processed by a single task
+	 * @return a new pipeline
+	 * @throws IllegalArgumentException if <code>splitThreshold</code> is less than 1
+	 */
+	public ParallelPipeline<T> withSplitThreshold(long splitThreshold) {
+		if(splitThreshold < 1) {
+			throw new IllegalArgumentException("Split threshold must be at least 1!");
+		}
+
+		return new ParallelPipeline<>(source, chain, pool, splitThreshold);
+	}
+
+	/**
+	 * Returns a pipeline which keeps only the elements accepted by the given tester.
+	 *
+	 * @param tester - tester the elements have to pass
+	 * @return a new pipeline
+	 * @throws NullPointerException if <code>tester</code> is <code>null</code>
+	 */
+	public ParallelPipeline<T> filter(Tester<? super T> tester) {
+		Objects.requireNonNull(tester);
+
+		return new ParallelPipeline<T>(source, downstream -> chain.apply(value -> {
+			if(tester.test(value)) {
+				downstream.process(value);
+			}
+		}), pool, splitThreshold);
+	}
+
+	/**
+	 * Returns a pipeline which replaces every element with the result of the given function.
+	 *
+	 * @param <R> - type of the new elements
+	 * @param mapper - function to apply to every element
+	 * @return a new pipeline
+	 * @throws NullPointerException if <code>mapper</code> is <code>null</code>
+	 */
+	public <R> ParallelPipeline<R> map(Function<? super T, ? extends R> mapper) {
+		Objects.requireNonNull(mapper);
+
+		return new ParallelPipeline<R>(source, downstream -> chain.apply(value -> downstream.process(mapper.apply(value))),
+				pool, splitThreshold);
+	}
+
+	/**
+	 * Calls the given processor on every element. The processor is called from several
+	 * threads at once and in no particular order, so it has to be thread-safe.
+	 *
+	 * @param processor - processor to call
+	 * @throws NullPointerException if <code>processor</code> is <code>null</code>
+	 * @throws IllegalStateException if the pipeline has already been evaluated
+	 */
+	public void forEach(Processor<? super T> processor) {
+		Objects.requireNonNull(processor);
+
+		evaluate(() -> null, (ignored, value) -> processor.process(value), (left, right) -> null);
+	}
+
+	/**
+	 * Counts the elements.
+	 *
+	 * @return number of elements
+	 * @throws IllegalStateException if the pipeline has already been evaluated
+	 */
+	public long count() {
+		return evaluate(() -> new long[1], (count, value) -> count[0]++, (left, right) -> {
+			left[0] += right[0];
+			return left;
+		})[0];
+	}
+
+	/**
+	 * Combines all elements using the given operator, which has to be associative.
+	 *
+	 * @param identity - value of the result if there are no elements, which has to be the
+	 *        operator's identity element
+	 * @param operator - associative operator combining two values
+	 * @return the combined value
+	 * @throws NullPointerException if <code>operator</code> is <code>null</code>
+	 * @throws IllegalStateException if the pipeline has already been evaluated
+	 */
+	public T reduce(T identity, BinaryOperator<T> operator) {
+		Objects.requireNonNull(operator);
+
+		return evaluate(() -> new Reduction<T>(identity), (reduction, value) -> {
+			reduction.value = operator.apply(reduction.value, value);
+		}, (left, right) -> {
+			left.value = operator.apply(left.value, right.value);
+			return left;
+		}).value;
+	}
+
+	/**
+	 * Collects the elements into a new {@link ArrayIndexedCollection}, in the order of the source.
+	 *
+	 * @return a new collection of the elements
+	 * @throws NullPointerException if an element is <code>null</code>
+	 * @throws IllegalStateException if the pipeline has already been evaluated
+	 */
+	public ArrayIndexedCollection<T> toCollection() {
+		return evaluate(ArrayIndexedCollection<T>::new, ArrayIndexedCollection::add, (left, right) -> {
+			left.addAll(right);
+			return left;
+		});
+	}
+
+	/**
+	 * Evaluates the pipeline by splitting the source, accumulating the elements of every
+	 * part into a separate result and combining the results in the source's order.
+	 *
+	 * @param <A> - type of the result
+	 * @param supplier - creates an empty result
+	 * @param accumulator - adds an element to a result
+	 * @param combiner - combines the results of two consecutive parts
+	 * @return the combined result
+	 * @throws IllegalStateException if the pipeline has already been evaluated
+	 */
+	private <A> A evaluate(Supplier<A> supplier, BiConsumer<A, ? super T> accumulator, BinaryOperator<A> combiner) {
+		ElementsSplitter<?> splitter = source.getAndSet(null);
+		if(splitter == null) {
+			throw new IllegalStateException("This pipeline has already been evaluated!");
+		}
+
+		return pool.invoke(new EvaluationTask<>(splitter, supplier, accumulator, combiner));
+	}
+
+	/**
+	 * A mutable holder of a partial result of {@link ParallelPipeline#reduce(Object, BinaryOperator)}.
+	 *
+	 * @author Ivan Skorupan
+	 *
+	 * @param <T> - type of the result
+	 */
+	private static class Reduction<T> {
+
+		/**
+		 * The partial result.
+		 */
+		private T value;
+
+		/**
+		 * Constructs a new {@link Reduction} object.
+		 *
+		 * @param value - the initial result
+		 */
+		public Reduction(T value) {
+			this.value = value;
+		}
+
+	}
+
+}
@@ -0,0 +1,254 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.Objects;
+
+/**
+ * The common part of {@link IntHashtable} and {@link LongHashtable}.
+ * <p>
+ * Subclasses keep the keys in a primitive array parallel to {@link #values},
+ * in which key 0 marks an empty slot, and resolve collisions by linear probing.
+ * They look keys up and insert them on their own, so the lookups work directly
+ * with the primitive array. Everything that does not depend on the type of the
+ * key, including the removal of an entry from its slot, is implemented here.
+ * 
+ * @author Ivan Skorupan
+ * 
+ * @param <V> - type of value
+ */
+abstract class PrimitiveKeyHashtable<V> {
+
+	/**
+	 * The default capacity for this hash-table is 16 slots.
+	 */
+	static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The minimum possible capacity allowed for this table.
+	 */
+	static final int MINIMUM_CAPACITY = 1;
+
+	/**
+	 * The percentage of this table's capacity that the number of entries can reach before
+	 * the table is extended.
+	 */
+	static final double THRESHOLD = 0.75;
+
+	/**
+	 * Values stored in this table.
+	 */
+	Object[] values;
+
+	/**
+	 * Flag that indicates if this table contains key 0.
+	 */
+	boolean hasZeroKey;
+
+	/**
+	 * Value stored under key 0.
+	 */
+	V zeroValue;
+
+	/**
+	 * Number of pairs stored in this table.
+	 */
+	int size;
+
+	/**
+	 * Calculates the number of slots of a new table, which is the first power
+	 * of two greater than or equal to <code>capacity</code> (and at least 2, so
+	 * that there is always an empty slot).
+	 * 
+	 * @param capacity - the requested number of slots
+	 * @return the actual number of slots
+	 * @throws IllegalArgumentException if <code>capacity</code> is less than {@link #MINIMUM_CAPACITY}
+	 */
+	static int slotCount(int capacity) {
+		if(capacity < MINIMUM_CAPACITY) {
+			throw new IllegalArgumentException();
+		}
+
+		int powerOfTwoCapacity = 2;
+		while(powerOfTwoCapacity < capacity) {
+			powerOfTwoCapacity *= 2;
+		}
+
+		return powerOfTwoCapacity;
+	}
+
+	/**
+	 * Tests if the given slot contains an entry.
+	 * 
+	 * @param slot - slot to test
+	 * @return <code>true</code> if the slot's key is not 0, <code>false</code> otherwise
+	 */
+	abstract boolean isOccupied(int slot);
+
+	/**
+	 * Calculates the home slot of the key stored in the given occupied slot.
+	 * 
+	 * @param slot - an occupied slot
+	 * @return home slot of the slot's key
+	 */
+	abstract int homeSlotOf(int slot);
+
+	/**
+	 * Moves the key of slot <code>from</code> into slot <code>to</code>.
+	 * 
+	 * @param from - slot whose key to move
+	 * @param to - slot into which to move the key
+	 */
+	abstract void moveKey(int from, int to);
+
+	/**
+	 * Sets the key of the given slot to 0.
+	 * 
+	 * @param slot - slot to clear
+	 */
+	abstract void clearKey(int slot);
+
+	/**
+	 * Returns the key of the given occupied slot as text.
+	 * 
+	 * @param slot - an occupied slot
+	 * @return the slot's key as text
+	 */
+	abstract String keyToString(int slot);
+
+	/**
+	 * Tests if one more entry can be inserted without exceeding the {@link #THRESHOLD}.
+	 * 
+	 * @return <code>true</code> if the table has to be extended first, <code>false</code> otherwise
+	 */
+	boolean isFull() {
+		return size + 1 > THRESHOLD * values.length;
+	}
+
+	/**
+	 * Puts the given value under key 0.
+	 * 
+	 * @param value - the value to store
+	 */
+	void putZero(V value) {
+		if(!hasZeroKey) {
+			hasZeroKey = true;
+			size++;
+		}
+		zeroValue = value;
+	}
+
+	/**
+	 * Removes key 0 from this table if it is there.
+	 */
+	void removeZero() {
+		if(hasZeroKey) {
+			hasZeroKey = false;
+			zeroValue = null;
+			size--;
+		}
+	}
+
+	/**
+	 * Removes the entry in the given slot.
+	 * <p>
+	 * Every following entry of the same cluster whose home slot is not between
+	 * the emptied slot and its current slot is moved back into the hole, so that
+	 * linear probing keeps finding all keys without tombstones.
+	 * 
+	 * @param slot - an occupied slot
+	 */
+	void removeSlot(int slot) {
+		int mask = values.length - 1;
+		int next = slot;
+		while(true) {
+			next = (next + 1) & mask;
+			if(!isOccupied(next)) break;
+
+			int home = homeSlotOf(next);
+			boolean reachable = (slot <= next) ? (slot < home && home <= next) : (slot < home || home <= next);
+			if(!reachable) {
+				moveKey(next, slot);
+				values[slot] = values[next];
+				slot = next;
+			}
+		}
+
+		clearKey(slot);
+		values[slot] = null;
+		size--;
+	}
+
+	/**
+	 * Returns the number of entries in this table.
+	 * 
+	 * @return number of entries in this table
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Tests if this table is empty.
+	 * 
+	 * @return <code>true</code> if there are no entries in this table, <code>false</code> otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Tests if the given <code>value</code> is contained in this table.
+	 * 
+	 * @param value - the value to search for
+	 * @return <code>true</code> if the given <code>value</code> was found, <code>false</code> otherwise
+	 */
+	public boolean containsValue(Object value) {
+		if(hasZeroKey && Objects.equals(value, zeroValue)) {
+			return true;
+		}
+
+		for(int i = 0; i < values.length; i++) {
+			if(isOccupied(i) && Objects.equals(value, values[i])) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Removes all entries from this table.
+	 * <p>
+	 * This method does not modify the table's capacity.
+	 */
+	public void clear() {
+		for(int i = 0; i < values.length; i++) {
+			clearKey(i);
+			values[i] = null;
+		}
+
+		hasZeroKey = false;
+		zeroValue = null;
+		size = 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder tableAsText = new StringBuilder("[");
+
+		if(hasZeroKey) {
+			tableAsText.append("0=" + zeroValue);
+		}
+
+		for(int i = 0; i < values.length; i++) {
+			if(isOccupied(i)) {
+				if(tableAsText.length() > 1) {
+					tableAsText.append(", ");
+				}
+				tableAsText.append(keyToString(i) + "=" + values[i]);
+			}
+		}
+
+		return tableAsText.append("]").toString();
+	}
+
+}
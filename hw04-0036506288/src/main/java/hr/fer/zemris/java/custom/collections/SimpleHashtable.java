@@ -229,6 +229,110 @@ public class SimpleHashtable<K, V> implements Iterable<SimpleHashtable.TableEntr
 		}
 	}
 
+	/**
+	 * Models an {@link ElementsSplitter} that traverses entries in a range of slots
+	 * of {@link SimpleHashtable}.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	private class TableSplitter implements ElementsSplitter<TableEntry<K, V>> {
+
+		/**
+		 * Index of the slot whose entries are traversed next.
+		 */
+		private int slotIndex;
+
+		/**
+		 * Index after the last slot this splitter traverses.
+		 */
+		private int slotFence;
+
+		/**
+		 * The next entry in the current slot, <code>null</code> if the slot has not been entered yet.
+		 */
+		private TableEntry<K, V> entry;
+
+		/**
+		 * Number of modifications made to the table at the time of this splitter's instantiation.
+		 */
+		private int modificationCountSnapshot;
+
+		/**
+		 * Constructs a new {@link TableSplitter} object.
+		 * 
+		 * @param slotIndex - index of the first slot
+		 * @param slotFence - index after the last slot
+		 * @param modificationCountSnapshot - number of modifications made to the table
+		 */
+		public TableSplitter(int slotIndex, int slotFence, int modificationCountSnapshot) {
+			this.slotIndex = slotIndex;
+			this.slotFence = slotFence;
+			this.modificationCountSnapshot = modificationCountSnapshot;
+		}
+
+		@Override
+		public boolean tryProcessNext(Processor<? super TableEntry<K, V>> p) {
+			if(modificationCountSnapshot != modificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			while(entry == null && slotIndex < slotFence) {
+				entry = table[slotIndex++];
+			}
+
+			if(entry == null) {
+				return false;
+			}
+
+			TableEntry<K, V> current = entry;
+			entry = current.next;
+			p.process(current);
+			return true;
+		}
+
+		@Override
+		public void processRemaining(Processor<? super TableEntry<K, V>> p) {
+			TableEntry<K, V>[] slots = table;
+
+			for(TableEntry<K, V> e = entry; e != null; e = e.next) {
+				p.process(e);
+			}
+			for(int i = slotIndex; i < slotFence; i++) {
+				for(TableEntry<K, V> e = slots[i]; e != null; e = e.next) {
+					p.process(e);
+				}
+			}
+
+			entry = null;
+			slotIndex = slotFence;
+
+			if(modificationCountSnapshot != modificationCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public ElementsSplitter<TableEntry<K, V>> trySplit() {
+			int middle = (slotIndex + slotFence) >>> 1;
+			if(middle <= slotIndex && (entry == null || slotIndex == slotFence)) {
+				return null;
+			}
+
+			// the rest of a partly traversed slot goes to the split off part, which comes first
+			TableSplitter prefix = new TableSplitter(slotIndex, middle, modificationCountSnapshot);
+			prefix.entry = entry;
+			entry = null;
+			slotIndex = middle;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return (long) size * (slotFence - slotIndex) / table.length;
+		}
+
+	}
+
 	/**
 	 * Constructs a new {@link SimpleHashtable} object.
 	 * <p>
@@ -544,6 +648,17 @@ public class SimpleHashtable<K, V> implements Iterable<SimpleHashtable.TableEntr
 		modificationCount++;
 	}
 
+	/**
+	 * Returns a new {@link ElementsSplitter} over this table's entries, in the same
+	 * order as {@link #iterator()} returns them. Splitting divides the remaining
+	 * slots of the table in half.
+	 * 
+	 * @return a new splitter of this table's entries
+	 */
+	public ElementsSplitter<TableEntry<K, V>> createElementsSplitter() {
+		return new TableSplitter(0, table.length, modificationCount);
+	}
+
 	@Override
 	public Iterator<TableEntry<K, V>> iterator() {
 		return new IteratorImpl();
@@ -0,0 +1,206 @@
+package hr.fer.zemris.java.custom.collections;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free work-stealing deque, as described by Chase and Lev in
+ * "Dynamic Circular Work-Stealing Deque".
+ * <p>
+ * The deque has one owner thread, which pushes and pops elements at the bottom
+ * end like a stack, and any number of thief threads, which steal elements from
+ * the top end. The owner only competes with thieves for the last element, so its
+ * operations are almost always as cheap as those of an unsynchronized stack. A
+ * typical use is a job scheduler in which every worker splits its jobs onto its
+ * own deque and idle workers steal the oldest, and therefore largest, jobs of others.
+ * <p>
+ * The elements are kept in a circular array which the owner doubles when it gets
+ * full. The array never shrinks.
+ * <p>
+ * {@link #push(Object)} and {@link #pop()} may only be called by the owner thread,
+ * {@link #steal()}, {@link #size()} and {@link #isEmpty()} by any thread.
+ * <code>null</code> elements are not allowed.
+ *
+ * @author Ivan Skorupan
+ */
+public class WorkStealingDeque<T> {
+
+	/**
+	 * Default capacity of the circular array, a power of two.
+	 */
+	private static final int DEFAULT_CAPACITY = 32;
+
+	/**
+	 * Index of the top element, the next one to be stolen. Only ever increases.
+	 */
+	private AtomicLong top = new AtomicLong();
+
+	/**
+	 * Index after the bottom element, where the owner pushes next.
+	 * <p>
+	 * Writing this field publishes the elements the owner stored before it to thieves.
+	 */
+	private volatile long bottom;
+
+	/**
+	 * The circular array of elements. Element with index <code>i</code> is stored in
+	 * slot <code>i &amp; (elements.length - 1)</code>.
+	 */
+	private volatile Object[] elements;
+
+	/**
+	 * Constructs a new empty {@link WorkStealingDeque} object with
+	 * {@link #DEFAULT_CAPACITY} slots.
+	 */
+	public WorkStealingDeque() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new empty {@link WorkStealingDeque} object whose array has the
+	 * first power of two greater than or equal to <code>initialCapacity</code> slots.
+	 *
+	 * @param initialCapacity - the initial number of slots
+	 * @throws IllegalArgumentException if <code>initialCapacity</code> is less than 1
+	 */
+	public WorkStealingDeque(int initialCapacity) {
+		if(initialCapacity < 1) {
+			throw new IllegalArgumentException("Initial capacity must be at least 1!");
+		}
+
+		int capacity = 1;
+		while(capacity < initialCapacity) {
+			capacity *= 2;
+		}
+
+		elements = new Object[capacity];
+	}
+
+	/**
+	 * Pushes the given element at the bottom of the deque. May only be called by the owner.
+	 *
+	 * @param value - element to push
+	 * @throws NullPointerException if <code>value</code> is <code>null</code>
+	 */
+	public void push(T value) {
+		Objects.requireNonNull(value);
+
+		long b = bottom;
+		long t = top.get();
+		Object[] array = elements;
+
+		if(b - t >= array.length) {
+			array = grow(array, t, b);
+		}
+
+		array[(int) b & (array.length - 1)] = value;
+		bottom = b + 1;
+	}
+
+	/**
+	 * Removes the bottom element, the one pushed last. May only be called by the owner.
+	 *
+	 * @return the removed element or <code>null</code> if the deque is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public T pop() {
+		long b = bottom - 1;
+		Object[] array = elements;
+		// claims the bottom element before looking at top, so a thief either sees
+		// it claimed or the owner sees the thief's steal
+		bottom = b;
+		long t = top.get();
+
+		if(b < t) {
+			bottom = t;
+			return null;
+		}
+
+		int slot = (int) b & (array.length - 1);
+		T value = (T) array[slot];
+
+		if(b > t) {
+			array[slot] = null;
+			return value;
+		}
+
+		// the last element, which a thief may be stealing at the same time
+		if(top.compareAndSet(t, t + 1)) {
+			array[slot] = null;
+		} else {
+			value = null;
+		}
+		bottom = t + 1;
+		return value;
+	}
+
+	/**
+	 * Removes the top element, the one pushed first. May be called by any thread.
+	 * <p>
+	 * If another thief steals the same element first, this method tries again with
+	 * the next one.
+	 *
+	 * @return the removed element or <code>null</code> if the deque is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public T steal() {
+		while(true) {
+			long t = top.get();
+			long b = bottom;
+			if(t >= b) {
+				return null;
+			}
+
+			Object[] array = elements;
+			T value = (T) array[(int) t & (array.length - 1)];
+
+			// the slot is not cleared, the owner may already be reusing it
+			if(top.compareAndSet(t, t + 1)) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of elements in the deque. The result may be out of date
+	 * as soon as it is returned if other threads are using the deque.
+	 *
+	 * @return number of elements
+	 */
+	public int size() {
+		long size = bottom - top.get();
+		return size < 0 ? 0 : (int) size;
+	}
+
+	/**
+	 * Tests if the deque has <b>no</b> elements. The result may be out of date
+	 * as soon as it is returned if other threads are using the deque.
+	 *
+	 * @return <code>true</code> if the deque is empty, <code>false</code> otherwise
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Copies the elements from <code>t</code> to <code>b</code> into an array twice the
+	 * size of the given one and publishes it. The old array is left intact, so thieves
+	 * still reading it find the same elements.
+	 *
+	 * @param array - the current array
+	 * @param t - index of the top element
+	 * @param b - index after the bottom element
+	 * @return the new array
+	 */
+	private Object[] grow(Object[] array, long t, long b) {
+		Object[] newArray = new Object[array.length * 2];
+
+		for(long i = t; i < b; i++) {
+			newArray[(int) i & (newArray.length - 1)] = array[(int) i & (array.length - 1)];
+		}
+
+		elements = newArray;
+		return newArray;
+	}
+
+}
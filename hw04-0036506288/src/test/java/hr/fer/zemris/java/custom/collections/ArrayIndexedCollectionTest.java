@@ -3,6 +3,7 @@ package hr.fer.zemris.java.custom.collections;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 
 import org.junit.jupiter.api.Test;
 
@@ -251,4 +252,131 @@ class ArrayIndexedCollectionTest {
 		assertEquals(0, items.size());
 	}
 
+	@Test
+	void testAddAll() {
+		ArrayIndexedCollection<String> items = new ArrayIndexedCollection<String>(1);
+		items.add("Hey now!");
+
+		LinkedListIndexedCollection<String> other = new LinkedListIndexedCollection<>();
+		other.add("thenewboston");
+		other.add("hee");
+
+		items.addAll(other);
+		items.addAll(new ArrayIndexedCollection<>(other));
+		items.addAll(items);
+
+		Object[] expected = new Object[] {"Hey now!", "thenewboston", "hee", "thenewboston", "hee",
+				"Hey now!", "thenewboston", "hee", "thenewboston", "hee"};
+		assertArrayEquals(expected, items.toArray());
+
+		assertThrows(NullPointerException.class, () -> items.addAll(null));
+	}
+
+	@Test
+	void testInsertAll() {
+		ArrayIndexedCollection<Integer> items = new ArrayIndexedCollection<>(2);
+		items.add(1);
+		items.add(5);
+
+		ArrayIndexedCollection<Integer> other = new ArrayIndexedCollection<>();
+		other.add(2);
+		other.add(3);
+		other.add(4);
+
+		items.insertAll(other, 1);
+		assertArrayEquals(new Object[] {1, 2, 3, 4, 5}, items.toArray());
+
+		items.insertAll(other, 0);
+		items.insertAll(other, items.size());
+		items.insertAll(new ArrayIndexedCollection<>(), 3);
+		assertArrayEquals(new Object[] {2, 3, 4, 1, 2, 3, 4, 5, 2, 3, 4}, items.toArray());
+
+		assertThrows(IndexOutOfBoundsException.class, () -> items.insertAll(other, -1));
+		assertThrows(IndexOutOfBoundsException.class, () -> items.insertAll(other, items.size() + 1));
+		assertThrows(NullPointerException.class, () -> items.insertAll(null, 0));
+	}
+
+	@Test
+	void testRemoveRange() {
+		ArrayIndexedCollection<Integer> items = new ArrayIndexedCollection<>();
+		for(int i = 0; i < 10; i++) {
+			items.add(i);
+		}
+
+		items.removeRange(2, 5);
+		assertArrayEquals(new Object[] {0, 1, 5, 6, 7, 8, 9}, items.toArray());
+
+		items.removeRange(3, 3);
+		items.removeRange(5, 7);
+		assertArrayEquals(new Object[] {0, 1, 5, 6, 7}, items.toArray());
+
+		items.removeRange(0, items.size());
+		assertEquals(0, items.size());
+
+		assertThrows(IndexOutOfBoundsException.class, () -> items.removeRange(-1, 0));
+		assertThrows(IndexOutOfBoundsException.class, () -> items.removeRange(0, 1));
+		assertThrows(IndexOutOfBoundsException.class, () -> items.removeRange(1, 0));
+	}
+
+	@Test
+	void testBulkOperationsInvalidateGetter() {
+		ArrayIndexedCollection<Integer> items = new ArrayIndexedCollection<>();
+		items.add(1);
+		items.add(2);
+
+		ElementsGetter<Integer> getter = items.createElementsGetter();
+		items.removeRange(0, 1);
+
+		assertThrows(ConcurrentModificationException.class, () -> getter.hasNextElement());
+	}
+
+	@Test
+	void testEnsureCapacityAndTrimToSize() {
+		ArrayIndexedCollection<Integer> items = new ArrayIndexedCollection<>(1);
+
+		items.ensureCapacity(100);
+		for(int i = 0; i < 50; i++) {
+			items.add(i);
+		}
+
+		items.trimToSize();
+		assertEquals(50, items.size());
+		assertEquals(49, items.get(49));
+
+		items.add(50);
+		assertEquals(50, items.get(50));
+
+		items.clear();
+		items.trimToSize();
+		items.add(7);
+		assertEquals(7, items.get(0));
+	}
+
+	@Test
+	void testCreateElementsSplitter() {
+		ArrayIndexedCollection<Integer> items = new ArrayIndexedCollection<>();
+		for(int i = 0; i < 10; i++) {
+			items.add(i);
+		}
+
+		ElementsSplitter<Integer> splitter = items.createElementsSplitter();
+		assertEquals(10, splitter.estimateSize());
+
+		ElementsSplitter<Integer> prefix = splitter.trySplit();
+		assertEquals(5, prefix.estimateSize());
+		assertEquals(5, splitter.estimateSize());
+
+		StringBuilder sb = new StringBuilder();
+		assertTrue(prefix.tryProcessNext(sb::append));
+		prefix.processRemaining(sb::append);
+		assertFalse(prefix.tryProcessNext(sb::append));
+		splitter.processRemaining(sb::append);
+
+		assertEquals("0123456789", sb.toString());
+
+		ElementsSplitter<Integer> other = items.createElementsSplitter();
+		items.add(10);
+		assertThrows(ConcurrentModificationException.class, () -> other.tryProcessNext(sb::append));
+	}
+
 }
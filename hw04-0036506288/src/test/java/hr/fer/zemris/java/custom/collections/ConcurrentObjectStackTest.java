@@ -0,0 +1,160 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentObjectStackTest {
+
+	private static final int THREADS = 8;
+
+	private static final int VALUES_PER_THREAD = 20000;
+
+	@Test
+	void testPushPopPeek() {
+		ConcurrentObjectStack<Integer> stack = new ConcurrentObjectStack<>();
+
+		assertTrue(stack.isEmpty());
+		stack.push(1);
+		stack.push(2);
+		stack.push(3);
+
+		assertEquals(3, stack.size());
+		assertEquals(3, stack.peek());
+		assertEquals(3, stack.pop());
+		assertEquals(2, stack.tryPop());
+		assertEquals(1, stack.pop());
+
+		assertTrue(stack.isEmpty());
+		assertNull(stack.tryPop());
+		assertThrows(EmptyStackException.class, () -> stack.pop());
+		assertThrows(EmptyStackException.class, () -> stack.peek());
+		assertThrows(NullPointerException.class, () -> stack.push(null));
+	}
+
+	@Test
+	void testClear() {
+		ConcurrentObjectStack<Integer> stack = new ConcurrentObjectStack<>();
+
+		stack.push(1);
+		stack.push(2);
+		stack.clear();
+
+		assertEquals(0, stack.size());
+		assertNull(stack.tryPop());
+	}
+
+	@Test
+	void testConcurrentPushesThenPops() throws Exception {
+		ConcurrentObjectStack<Integer> stack = new ConcurrentObjectStack<>();
+
+		runInParallel(t -> {
+			for(int i = 0; i < VALUES_PER_THREAD; i++) {
+				stack.push(t * VALUES_PER_THREAD + i);
+			}
+		});
+		assertEquals(THREADS * VALUES_PER_THREAD, stack.size());
+
+		AtomicIntegerArray popped = new AtomicIntegerArray(THREADS * VALUES_PER_THREAD);
+		runInParallel(t -> {
+			Integer value;
+			while((value = stack.tryPop()) != null) {
+				popped.incrementAndGet(value);
+			}
+		});
+
+		assertTrue(stack.isEmpty());
+		assertEachTakenOnce(popped);
+	}
+
+	@Test
+	void testConcurrentMixedOperations() throws Exception {
+		ConcurrentObjectStack<Integer> stack = new ConcurrentObjectStack<>();
+		AtomicIntegerArray popped = new AtomicIntegerArray(THREADS * VALUES_PER_THREAD);
+
+		runInParallel(t -> {
+			for(int i = 0; i < VALUES_PER_THREAD; i++) {
+				stack.push(t * VALUES_PER_THREAD + i);
+
+				// every thread pops roughly every other value, whoever pushed it
+				if(i % 2 == 0) {
+					Integer value = stack.tryPop();
+					if(value != null) {
+						popped.incrementAndGet(value);
+					}
+				}
+			}
+		});
+
+		Integer value;
+		while((value = stack.tryPop()) != null) {
+			popped.incrementAndGet(value);
+		}
+
+		assertEachTakenOnce(popped);
+	}
+
+	@Test
+	void testPerThreadOrderIsKept() throws Exception {
+		ConcurrentObjectStack<Integer> stack = new ConcurrentObjectStack<>();
+
+		runInParallel(t -> {
+			for(int i = 0; i < VALUES_PER_THREAD; i++) {
+				stack.push(t * VALUES_PER_THREAD + i);
+			}
+		});
+
+		// values pushed by one thread have to come off the stack in reverse order
+		int[] lastSeen = new int[THREADS];
+		Arrays.fill(lastSeen, Integer.MAX_VALUE);
+		Integer value;
+		while((value = stack.tryPop()) != null) {
+			int thread = value / VALUES_PER_THREAD;
+			assertTrue(value < lastSeen[thread]);
+			lastSeen[thread] = value;
+		}
+	}
+
+	private static void assertEachTakenOnce(AtomicIntegerArray taken) {
+		for(int i = 0; i < taken.length(); i++) {
+			assertEquals(1, taken.get(i), "value " + i);
+		}
+	}
+
+	private interface ThreadBody {
+		void run(int thread) throws Exception;
+	}
+
+	private static void runInParallel(ThreadBody body) throws Exception {
+		CyclicBarrier start = new CyclicBarrier(THREADS);
+		Throwable[] failures = new Throwable[THREADS];
+		Thread[] threads = new Thread[THREADS];
+
+		for(int t = 0; t < THREADS; t++) {
+			int index = t;
+			threads[t] = new Thread(() -> {
+				try {
+					start.await();
+					body.run(index);
+				} catch(Throwable ex) {
+					failures[index] = ex;
+				}
+			});
+			threads[t].start();
+		}
+
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		for(Throwable failure : failures) {
+			if(failure != null) {
+				throw new AssertionError(failure);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Iterator;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentSimpleHashtableTest {
+
+	@Test
+	void testConcurrentSimpleHashtable() {
+		ConcurrentSimpleHashtable<String, Number> table = new ConcurrentSimpleHashtable<>();
+
+		assertEquals(0, table.size());
+		assertTrue(table.isEmpty());
+
+		assertThrows(IllegalArgumentException.class, () -> new ConcurrentSimpleHashtable<String, String>(0));
+		assertThrows(IllegalArgumentException.class, () -> new ConcurrentSimpleHashtable<String, String>(16, 0));
+		assertDoesNotThrow(() -> new ConcurrentSimpleHashtable<String, String>(1, 1));
+	}
+
+	@Test
+	void testPutGetRemove() {
+		ConcurrentSimpleHashtable<String, Number> table = new ConcurrentSimpleHashtable<>(1, 1);
+
+		table.put("Prvi", 1.);
+		table.put("Wow!", -3);
+		table.put("Osam", 8.1);
+		table.put("...", 3.14);
+		table.put("87000", 0);
+		table.put("Prvi", 2.);
+
+		assertEquals(5, table.size());
+		assertEquals(2., table.get("Prvi"));
+		assertNull(table.get("Wow"));
+		assertNull(table.get(null));
+		assertTrue(table.containsKey("Osam"));
+		assertTrue(table.containsValue(3.14));
+		assertThrows(NullPointerException.class, () -> table.put(null, 7));
+
+		table.remove("Osam");
+		table.remove("Nema me...");
+
+		assertFalse(table.containsKey("Osam"));
+		assertEquals(4, table.size());
+	}
+
+	@Test
+	void testClear() {
+		ConcurrentSimpleHashtable<Integer, Integer> table = new ConcurrentSimpleHashtable<>();
+		for(int i = 0; i < 100; i++) {
+			table.put(i, i);
+		}
+
+		table.clear();
+
+		assertTrue(table.isEmpty());
+		assertFalse(table.containsKey(1));
+		assertEquals("[]", table.toString());
+	}
+
+	@Test
+	void testIterator() {
+		ConcurrentSimpleHashtable<Integer, Integer> table = new ConcurrentSimpleHashtable<>();
+		for(int i = 0; i < 100; i++) {
+			table.put(i, i);
+		}
+
+		int sum = 0;
+		Iterator<SimpleHashtable.TableEntry<Integer, Integer>> it = table.iterator();
+		while(it.hasNext()) {
+			SimpleHashtable.TableEntry<Integer, Integer> entry = it.next();
+			sum += entry.getValue();
+			if(entry.getKey() % 2 == 0) {
+				it.remove();
+			} else {
+				entry.setValue(-entry.getValue());
+			}
+			// modifications while iterating are allowed
+			table.put(1000 + entry.getKey(), 0);
+		}
+
+		assertEquals(4950, sum);
+		assertFalse(table.containsKey(2));
+		assertEquals(-3, table.get(3));
+		assertThrows(IllegalStateException.class, () -> it.remove());
+	}
+
+	@Test
+	void testConcurrentPuts() throws InterruptedException {
+		ConcurrentSimpleHashtable<Integer, Integer> table = new ConcurrentSimpleHashtable<>(1, 4);
+		Thread[] threads = new Thread[8];
+
+		for(int t = 0; t < threads.length; t++) {
+			int offset = t * 10000;
+			threads[t] = new Thread(() -> {
+				for(int i = 0; i < 10000; i++) {
+					table.put(offset + i, i);
+					assertEquals(Integer.valueOf(i), table.get(offset + i));
+				}
+				for(int i = 0; i < 10000; i += 2) {
+					table.remove(offset + i);
+				}
+			});
+			threads[t].start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(40000, table.size());
+		for(int key = 0; key < 80000; key++) {
+			assertEquals(key % 2 == 1, table.containsKey(key));
+		}
+	}
+}
@@ -2,6 +2,9 @@ package hr.fer.zemris.java.custom.collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
 import org.junit.jupiter.api.Test;
 
 class DictionaryTest {
@@ -85,4 +88,167 @@ class DictionaryTest {
 		assertThrows(NullPointerException.class, () -> dictionary.get(null));
 	}
 
+	@Test
+	void testDictionaryInt() {
+		assertDoesNotThrow(() -> new Dictionary<String, Integer>(1));
+		assertDoesNotThrow(() -> new Dictionary<String, Integer>(100));
+
+		assertThrows(IllegalArgumentException.class, () -> new Dictionary<String, Integer>(0));
+	}
+
+	@Test
+	void testContainsKey() {
+		Dictionary<Integer, String> dictionary = new Dictionary<>();
+
+		dictionary.put(1, "Frle");
+		dictionary.put(5, null);
+
+		assertTrue(dictionary.containsKey(1));
+		assertTrue(dictionary.containsKey(5));
+		assertFalse(dictionary.containsKey(2));
+		assertFalse(dictionary.containsKey("1"));
+
+		assertThrows(NullPointerException.class, () -> dictionary.containsKey(null));
+	}
+
+	@Test
+	void testRemove() {
+		Dictionary<Integer, String> dictionary = new Dictionary<>();
+
+		dictionary.put(1, "Frle");
+		dictionary.put(5, "Ivan");
+		dictionary.put(3, "Marko");
+
+		assertEquals("Ivan", dictionary.remove(5));
+		assertEquals(2, dictionary.size());
+		assertNull(dictionary.get(5));
+		assertFalse(dictionary.containsKey(5));
+
+		assertNull(dictionary.remove(5));
+		assertNull(dictionary.remove(7));
+		assertEquals(2, dictionary.size());
+
+		assertEquals("Frle", dictionary.remove(1));
+		assertEquals("Marko", dictionary.remove(3));
+		assertTrue(dictionary.isEmpty());
+
+		dictionary.put(5, "Skorupan");
+		assertEquals("Skorupan", dictionary.get(5));
+
+		assertThrows(NullPointerException.class, () -> dictionary.remove(null));
+	}
+
+	@Test
+	void testManyEntries() {
+		Dictionary<String, Integer> dictionary = new Dictionary<>(1);
+
+		for(int i = 0; i < 10000; i++) {
+			dictionary.put("key" + i, i);
+		}
+		assertEquals(10000, dictionary.size());
+
+		for(int i = 0; i < 10000; i += 2) {
+			assertEquals(i, dictionary.remove("key" + i));
+		}
+		assertEquals(5000, dictionary.size());
+
+		for(int i = 0; i < 10000; i++) {
+			assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), dictionary.get("key" + i));
+		}
+	}
+
+	@Test
+	void testCollidingKeys() {
+		Dictionary<String, Integer> dictionary = new Dictionary<>();
+
+		// "Aa" and "BB" have the same hash code, so all these keys collide
+		String[] keys = {"AaAa", "AaBB", "BBAa", "BBBB"};
+		for(int i = 0; i < keys.length; i++) {
+			dictionary.put(keys[i], i);
+		}
+
+		assertEquals(2, dictionary.get("BBAa"));
+		assertEquals(1, dictionary.remove("AaBB"));
+		assertEquals(0, dictionary.get("AaAa"));
+		assertEquals(2, dictionary.get("BBAa"));
+		assertEquals(3, dictionary.get("BBBB"));
+		assertNull(dictionary.get("AaBB"));
+	}
+
+	@Test
+	void testElementsGetterOrder() {
+		Dictionary<Integer, String> dictionary = new Dictionary<>();
+
+		dictionary.put(8, "LOL");
+		dictionary.put(1, "Frle");
+		dictionary.put(5, "Ivan");
+		dictionary.put(3, "Marko");
+		dictionary.put(1, "Skorupan");
+		dictionary.remove(5);
+		dictionary.put(5, "Ivan");
+
+		ElementsGetter<Dictionary.Entry<Integer, String>> getter = dictionary.createElementsGetter();
+
+		StringBuilder sb = new StringBuilder();
+		while(getter.hasNextElement()) {
+			Dictionary.Entry<Integer, String> entry = getter.getNextElement();
+			sb.append(entry.getKey()).append('=').append(entry.getValue()).append(' ');
+		}
+
+		assertEquals("8=LOL 1=Skorupan 3=Marko 5=Ivan ", sb.toString());
+		assertThrows(NoSuchElementException.class, () -> getter.getNextElement());
+	}
+
+	@Test
+	void testElementsGetterProcessRemaining() {
+		Dictionary<Integer, String> dictionary = new Dictionary<>();
+
+		dictionary.put(1, "Frle");
+		dictionary.put(5, "Ivan");
+		dictionary.put(3, "Marko");
+
+		ElementsGetter<Dictionary.Entry<Integer, String>> getter = dictionary.createElementsGetter();
+		assertEquals(1, getter.getNextElement().getKey());
+
+		StringBuilder sb = new StringBuilder();
+		getter.processRemaining(entry -> sb.append(entry.getKey()));
+
+		assertEquals("53", sb.toString());
+		assertFalse(getter.hasNextElement());
+	}
+
+	@Test
+	void testElementsGetterConcurrentModification() {
+		Dictionary<Integer, String> dictionary = new Dictionary<>();
+
+		dictionary.put(1, "Frle");
+		dictionary.put(5, "Ivan");
+
+		ElementsGetter<Dictionary.Entry<Integer, String>> getter = dictionary.createElementsGetter();
+		getter.getNextElement();
+
+		dictionary.put(1, "Skorupan");
+		assertTrue(getter.hasNextElement());
+
+		dictionary.remove(1);
+		assertThrows(ConcurrentModificationException.class, () -> getter.hasNextElement());
+		assertThrows(ConcurrentModificationException.class, () -> getter.getNextElement());
+	}
+
+	@Test
+	void testClearKeepsWorking() {
+		Dictionary<Integer, String> dictionary = new Dictionary<>();
+
+		dictionary.put(1, "Frle");
+		dictionary.put(5, "Ivan");
+		dictionary.clear();
+
+		assertNull(dictionary.get(1));
+		assertFalse(dictionary.createElementsGetter().hasNextElement());
+
+		dictionary.put(5, "Skorupan");
+		assertEquals(1, dictionary.size());
+		assertEquals("Skorupan", dictionary.get(5));
+	}
+
 }
@@ -0,0 +1,168 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class GapBufferIndexedCollectionTest {
+
+	@Test
+	void testGapBufferIndexedCollectionInt() {
+		assertNotNull(new GapBufferIndexedCollection<String>(1));
+
+		assertThrows(IllegalArgumentException.class, () -> new GapBufferIndexedCollection<String>(0));
+	}
+
+	@Test
+	void testGapBufferIndexedCollectionCollection() {
+		ArrayIndexedCollection<String> other = new ArrayIndexedCollection<>();
+		other.add("Hey now!");
+		other.add("hee");
+
+		GapBufferIndexedCollection<String> items = new GapBufferIndexedCollection<>(other);
+
+		assertArrayEquals(new Object[] {"Hey now!", "hee"}, items.toArray());
+		assertThrows(NullPointerException.class, () -> new GapBufferIndexedCollection<String>(null));
+	}
+
+	@Test
+	void testAddAndGet() {
+		GapBufferIndexedCollection<Integer> items = new GapBufferIndexedCollection<>(1);
+
+		for(int i = 0; i < 100; i++) {
+			items.add(i);
+		}
+
+		assertEquals(100, items.size());
+		for(int i = 0; i < 100; i++) {
+			assertEquals(i, items.get(i));
+		}
+
+		assertThrows(NullPointerException.class, () -> items.add(null));
+		assertThrows(IndexOutOfBoundsException.class, () -> items.get(-1));
+		assertThrows(IndexOutOfBoundsException.class, () -> items.get(100));
+	}
+
+	@Test
+	void testInsert() {
+		GapBufferIndexedCollection<String> items = new GapBufferIndexedCollection<>(2);
+
+		items.add("a");
+		items.add("e");
+		items.insert("b", 1);
+		items.insert("c", 2);
+		items.insert("d", 3);
+		items.insert("start", 0);
+		items.insert("end", items.size());
+
+		assertArrayEquals(new Object[] {"start", "a", "b", "c", "d", "e", "end"}, items.toArray());
+
+		assertThrows(NullPointerException.class, () -> items.insert(null, 0));
+		assertThrows(IndexOutOfBoundsException.class, () -> items.insert("x", -1));
+		assertThrows(IndexOutOfBoundsException.class, () -> items.insert("x", 8));
+	}
+
+	@Test
+	void testRemove() {
+		GapBufferIndexedCollection<String> items = new GapBufferIndexedCollection<>();
+
+		items.add("a");
+		items.add("b");
+		items.add("c");
+		items.add("b");
+
+		assertTrue(items.remove("b"));
+		assertArrayEquals(new Object[] {"a", "c", "b"}, items.toArray());
+
+		items.remove(2);
+		items.remove(0);
+		assertArrayEquals(new Object[] {"c"}, items.toArray());
+
+		assertFalse(items.remove("b"));
+		assertFalse(items.remove(null));
+		assertThrows(IndexOutOfBoundsException.class, () -> items.remove(1));
+	}
+
+	@Test
+	void testIndexOfAndContains() {
+		GapBufferIndexedCollection<String> items = new GapBufferIndexedCollection<>();
+
+		items.add("a");
+		items.add("c");
+		items.insert("b", 1);
+
+		assertEquals(0, items.indexOf("a"));
+		assertEquals(1, items.indexOf("b"));
+		assertEquals(2, items.indexOf("c"));
+		assertEquals(-1, items.indexOf("d"));
+		assertEquals(-1, items.indexOf(null));
+		assertTrue(items.contains("c"));
+		assertFalse(items.contains("d"));
+	}
+
+	@Test
+	void testRandomOperations() {
+		GapBufferIndexedCollection<Integer> items = new GapBufferIndexedCollection<>(1);
+		ArrayList<Integer> expected = new ArrayList<>();
+		Random random = new Random(42);
+
+		for(int i = 0; i < 5000; i++) {
+			if(expected.isEmpty() || random.nextInt(3) != 0) {
+				int position = random.nextInt(expected.size() + 1);
+				items.insert(i, position);
+				expected.add(position, i);
+			} else {
+				int index = random.nextInt(expected.size());
+				items.remove(index);
+				expected.remove(index);
+			}
+		}
+
+		assertArrayEquals(expected.toArray(), items.toArray());
+		for(int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i), items.get(i));
+		}
+	}
+
+	@Test
+	void testClear() {
+		GapBufferIndexedCollection<String> items = new GapBufferIndexedCollection<>();
+
+		items.add("a");
+		items.add("b");
+		items.insert("c", 1);
+		items.clear();
+
+		assertEquals(0, items.size());
+		assertTrue(items.isEmpty());
+
+		items.add("d");
+		assertArrayEquals(new Object[] {"d"}, items.toArray());
+	}
+
+	@Test
+	void testElementsGetter() {
+		GapBufferIndexedCollection<String> items = new GapBufferIndexedCollection<>();
+
+		items.add("a");
+		items.add("c");
+		items.insert("b", 1);
+
+		ElementsGetter<String> getter = items.createElementsGetter();
+		StringBuilder sb = new StringBuilder();
+		getter.processRemaining(sb::append);
+
+		assertEquals("abc", sb.toString());
+		assertThrows(NoSuchElementException.class, () -> getter.getNextElement());
+
+		ElementsGetter<String> other = items.createElementsGetter();
+		items.insert("d", 0);
+		assertThrows(ConcurrentModificationException.class, () -> other.getNextElement());
+	}
+
+}
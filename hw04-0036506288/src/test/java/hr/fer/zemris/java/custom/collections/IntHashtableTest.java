@@ -0,0 +1,62 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class IntHashtableTest extends PrimitiveKeyHashtableTest {
+
+	@Override
+	<V> Table<V> newTable(int capacity) {
+		IntHashtable<V> table = new IntHashtable<>(capacity);
+
+		return new Table<V>() {
+
+			@Override
+			public PrimitiveKeyHashtable<V> table() {
+				return table;
+			}
+
+			@Override
+			public void put(long key, V value) {
+				table.put((int) key, value);
+			}
+
+			@Override
+			public V get(long key) {
+				return table.get((int) key);
+			}
+
+			@Override
+			public boolean containsKey(long key) {
+				return table.containsKey((int) key);
+			}
+
+			@Override
+			public void remove(long key) {
+				table.remove((int) key);
+			}
+
+			@Override
+			public void forEach(LongHashtable.EntryProcessor<? super V> processor) {
+				table.forEach((key, value) -> processor.process(key, value));
+			}
+
+		};
+	}
+
+	@Test
+	void testExtremeKeys() {
+		IntHashtable<String> table = new IntHashtable<>();
+
+		table.put(Integer.MIN_VALUE, "min");
+		table.put(Integer.MAX_VALUE, "max");
+		table.put(-1, "minus jedan");
+
+		assertEquals(3, table.size());
+		assertEquals("min", table.get(Integer.MIN_VALUE));
+		assertEquals("max", table.get(Integer.MAX_VALUE));
+		assertEquals("minus jedan", table.get(-1));
+	}
+
+}
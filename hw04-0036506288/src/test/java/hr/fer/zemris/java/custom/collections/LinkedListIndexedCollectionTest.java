@@ -2,7 +2,11 @@ package hr.fer.zemris.java.custom.collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
@@ -220,4 +224,215 @@ class LinkedListIndexedCollectionTest {
 		assertEquals(0, items.size());
 	}
 
+	@Test
+	void testCreateElementsSplitter() {
+		LinkedListIndexedCollection<Integer> items = new LinkedListIndexedCollection<>();
+		for(int i = 0; i < 5000; i++) {
+			items.add(i);
+		}
+
+		ElementsSplitter<Integer> splitter = items.createElementsSplitter();
+		assertEquals(5000, splitter.estimateSize());
+
+		ElementsSplitter<Integer> first = splitter.trySplit();
+		ElementsSplitter<Integer> second = splitter.trySplit();
+		assertEquals(5000, first.estimateSize() + second.estimateSize() + splitter.estimateSize());
+
+		int[] next = {0};
+		Processor<Integer> checker = value -> assertEquals(next[0]++, value);
+		first.processRemaining(checker);
+		second.processRemaining(checker);
+		splitter.processRemaining(checker);
+
+		assertEquals(5000, next[0]);
+	}
+
+	@Test
+	void testRemoveOnlyElement() {
+		LinkedListIndexedCollection<String> items = new LinkedListIndexedCollection<>();
+		items.add("only");
+		items.remove(0);
+
+		assertEquals(0, items.size());
+		assertFalse(items.createElementsGetter().hasNextElement());
+
+		items.add("again");
+		assertArrayEquals(new Object[] {"again"}, items.toArray());
+	}
+
+	@Test
+	void testSet() {
+		LinkedListIndexedCollection<String> items = new LinkedListIndexedCollection<>();
+		items.add("a");
+		items.add("b");
+
+		assertEquals("b", items.set(1, "c"));
+		assertArrayEquals(new Object[] {"a", "c"}, items.toArray());
+
+		assertThrows(NullPointerException.class, () -> items.set(0, null));
+		assertThrows(IndexOutOfBoundsException.class, () -> items.set(2, "d"));
+	}
+
+	@Test
+	void testRandomOperationsMatchArrayList() {
+		Random random = new Random(42);
+		LinkedListIndexedCollection<Integer> items = new LinkedListIndexedCollection<>();
+		java.util.List<Integer> expected = new ArrayList<>();
+
+		for(int i = 0; i < 20000; i++) {
+			int operation = random.nextInt(10);
+			if(operation < 4 || expected.isEmpty()) {
+				int position = random.nextInt(expected.size() + 1);
+				items.insert(i, position);
+				expected.add(position, i);
+			} else if(operation < 7) {
+				int index = random.nextInt(expected.size());
+				items.remove(index);
+				expected.remove(index);
+			} else if(operation < 8) {
+				Integer value = expected.get(random.nextInt(expected.size()));
+				assertTrue(items.remove(value));
+				expected.remove(value);
+			} else {
+				int index = random.nextInt(expected.size());
+				assertEquals(expected.get(index), items.get(index));
+			}
+
+			assertEquals(expected.size(), items.size());
+		}
+
+		assertArrayEquals(expected.toArray(), items.toArray());
+		for(int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i), items.get(i));
+			assertEquals(i, items.indexOf(expected.get(i)));
+		}
+
+		int[] next = {0};
+		items.forEach(value -> assertEquals(expected.get(next[0]++), value));
+		assertEquals(expected.size(), next[0]);
+	}
+
+	@Test
+	void testCursorTraversal() {
+		LinkedListIndexedCollection<Integer> items = new LinkedListIndexedCollection<>();
+		for(int i = 0; i < 100; i++) {
+			items.add(i);
+		}
+
+		ElementsCursor<Integer> cursor = items.createCursor();
+		assertFalse(cursor.hasPreviousElement());
+		assertEquals(-1, cursor.previousIndex());
+		for(int i = 0; i < 100; i++) {
+			assertEquals(i, cursor.nextIndex());
+			assertEquals(i, cursor.getNextElement());
+		}
+		assertFalse(cursor.hasNextElement());
+		assertThrows(NoSuchElementException.class, () -> cursor.getNextElement());
+
+		for(int i = 99; i >= 0; i--) {
+			assertEquals(i, cursor.previousIndex());
+			assertEquals(i, cursor.getPreviousElement());
+		}
+		assertThrows(NoSuchElementException.class, () -> cursor.getPreviousElement());
+
+		ElementsCursor<Integer> middle = items.createCursor(50);
+		assertEquals(50, middle.getNextElement());
+		assertEquals(50, middle.getPreviousElement());
+		assertEquals(49, middle.getPreviousElement());
+
+		assertThrows(IndexOutOfBoundsException.class, () -> items.createCursor(101));
+		assertThrows(IndexOutOfBoundsException.class, () -> items.createCursor(-1));
+	}
+
+	@Test
+	void testCursorEditsWhileWalking() {
+		LinkedListIndexedCollection<Integer> items = new LinkedListIndexedCollection<>();
+		for(int i = 0; i < 1000; i++) {
+			items.add(i);
+		}
+
+		/* Removes even numbers, negates multiples of three and puts a zero after every multiple of five */
+		ElementsCursor<Integer> cursor = items.createCursor();
+		while(cursor.hasNextElement()) {
+			int value = cursor.getNextElement();
+			if(value % 2 == 0) {
+				cursor.remove();
+			} else {
+				if(value % 3 == 0) {
+					cursor.set(-value);
+				}
+				if(value % 5 == 0) {
+					cursor.add(0);
+				}
+			}
+		}
+
+		java.util.List<Integer> expected = new ArrayList<>();
+		for(int i = 1; i < 1000; i += 2) {
+			expected.add(i % 3 == 0 ? -i : i);
+			if(i % 5 == 0) {
+				expected.add(0);
+			}
+		}
+
+		assertArrayEquals(expected.toArray(), items.toArray());
+		assertEquals(expected.size(), cursor.nextIndex());
+	}
+
+	@Test
+	void testCursorRemoveBackwards() {
+		LinkedListIndexedCollection<Integer> items = new LinkedListIndexedCollection<>();
+		for(int i = 0; i < 50; i++) {
+			items.add(i);
+		}
+
+		ElementsCursor<Integer> cursor = items.createCursor(items.size());
+		while(cursor.hasPreviousElement()) {
+			if(cursor.getPreviousElement() >= 10) {
+				cursor.remove();
+			}
+		}
+
+		assertEquals(10, items.size());
+		assertArrayEquals(new Object[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, items.toArray());
+	}
+
+	@Test
+	void testCursorIllegalState() {
+		LinkedListIndexedCollection<String> items = new LinkedListIndexedCollection<>();
+		items.add("a");
+
+		ElementsCursor<String> cursor = items.createCursor();
+		assertThrows(IllegalStateException.class, () -> cursor.remove());
+		assertThrows(IllegalStateException.class, () -> cursor.set("b"));
+
+		cursor.getNextElement();
+		cursor.remove();
+		assertThrows(IllegalStateException.class, () -> cursor.remove());
+
+		cursor.add("c");
+		assertThrows(IllegalStateException.class, () -> cursor.set("d"));
+		assertThrows(NullPointerException.class, () -> cursor.add(null));
+		assertArrayEquals(new Object[] {"c"}, items.toArray());
+		assertEquals(1, cursor.nextIndex());
+	}
+
+	@Test
+	void testCursorConcurrentModification() {
+		LinkedListIndexedCollection<String> items = new LinkedListIndexedCollection<>();
+		items.add("a");
+		items.add("b");
+
+		ElementsCursor<String> cursor = items.createCursor();
+		ElementsCursor<String> other = items.createCursor();
+		cursor.getNextElement();
+		cursor.add("x");
+
+		assertThrows(ConcurrentModificationException.class, () -> other.hasNextElement());
+		assertEquals("b", cursor.getNextElement());
+
+		items.add("c");
+		assertThrows(ConcurrentModificationException.class, () -> cursor.getPreviousElement());
+	}
+
 }
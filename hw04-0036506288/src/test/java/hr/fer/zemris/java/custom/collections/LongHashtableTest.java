@@ -0,0 +1,69 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LongHashtableTest extends PrimitiveKeyHashtableTest {
+
+	@Override
+	<V> Table<V> newTable(int capacity) {
+		LongHashtable<V> table = new LongHashtable<>(capacity);
+
+		return new Table<V>() {
+
+			@Override
+			public PrimitiveKeyHashtable<V> table() {
+				return table;
+			}
+
+			@Override
+			public void put(long key, V value) {
+				table.put(key, value);
+			}
+
+			@Override
+			public V get(long key) {
+				return table.get(key);
+			}
+
+			@Override
+			public boolean containsKey(long key) {
+				return table.containsKey(key);
+			}
+
+			@Override
+			public void remove(long key) {
+				table.remove(key);
+			}
+
+			@Override
+			public void forEach(LongHashtable.EntryProcessor<? super V> processor) {
+				table.forEach(processor);
+			}
+
+		};
+	}
+
+	@Test
+	void testKeysDifferingInUpperBits() {
+		LongHashtable<Long> table = new LongHashtable<>();
+		for(long i = 1; i <= 1000; i++) {
+			table.put(i << 32, i);
+		}
+
+		assertEquals(1000, table.size());
+		for(long i = 1; i <= 1000; i++) {
+			assertEquals(i, table.get(i << 32));
+		}
+		assertNull(table.get(1));
+
+		for(long i = 1; i <= 1000; i += 2) {
+			table.remove(i << 32);
+		}
+		assertEquals(500, table.size());
+		assertFalse(table.containsKey(1L << 32));
+		assertTrue(table.containsKey(2L << 32));
+	}
+
+}
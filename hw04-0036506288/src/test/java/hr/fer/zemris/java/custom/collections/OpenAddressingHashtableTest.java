@@ -0,0 +1,211 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class OpenAddressingHashtableTest {
+
+	@Test
+	void testOpenAddressingHashtable() {
+		OpenAddressingHashtable<String, Number> table = new OpenAddressingHashtable<>();
+
+		assertEquals(0, table.size());
+		assertTrue(table.isEmpty());
+
+		assertThrows(IllegalArgumentException.class, () -> new OpenAddressingHashtable<String, String>(0));
+		assertDoesNotThrow(() -> new OpenAddressingHashtable<String, String>(1));
+	}
+
+	@Test
+	void testPutAndGet() {
+		OpenAddressingHashtable<String, Number> table = new OpenAddressingHashtable<>(1);
+
+		table.put("Prvi", 1.);
+		table.put("Wow!", -3);
+		table.put("Osam", 8.1);
+		table.put("...", 3.14);
+		table.put("87000", 0);
+		table.put("Prvi", 2.);
+
+		assertEquals(5, table.size());
+		assertEquals(2., table.get("Prvi"));
+		assertEquals(-3, table.get("Wow!"));
+		assertNull(table.get("Wow"));
+		assertNull(table.get(null));
+		assertThrows(NullPointerException.class, () -> table.put(null, 7));
+	}
+
+	@Test
+	void testNullValue() {
+		OpenAddressingHashtable<String, Number> table = new OpenAddressingHashtable<>();
+
+		table.put("Prvi", null);
+
+		assertTrue(table.containsKey("Prvi"));
+		assertTrue(table.containsValue(null));
+		assertNull(table.get("Prvi"));
+	}
+
+	@Test
+	void testContains() {
+		OpenAddressingHashtable<String, Number> table = new OpenAddressingHashtable<>();
+
+		table.put("Prvi", 1.);
+		table.put("Wow!", -3);
+
+		assertTrue(table.containsKey("Prvi"));
+		assertFalse(table.containsKey("Nema me..."));
+		assertFalse(table.containsKey(null));
+		assertTrue(table.containsValue(-3));
+		assertFalse(table.containsValue(3.14));
+	}
+
+	@Test
+	void testRemove() {
+		OpenAddressingHashtable<String, Number> table = new OpenAddressingHashtable<>();
+
+		table.put("Prvi", 1.);
+		table.put("Wow!", -3);
+		table.put("Osam", 8.1);
+
+		table.remove("Osam");
+		table.remove("Nema me...");
+		table.remove(null);
+
+		assertFalse(table.containsKey("Osam"));
+		assertEquals(2, table.size());
+	}
+
+	@Test
+	void testCollidingKeys() {
+		// all keys have the same hash-code
+		OpenAddressingHashtable<CollidingKey, Integer> table = new OpenAddressingHashtable<>();
+
+		for(int i = 0; i < 50; i++) {
+			table.put(new CollidingKey(i), i);
+		}
+		for(int i = 0; i < 50; i += 2) {
+			table.remove(new CollidingKey(i));
+		}
+
+		assertEquals(25, table.size());
+		for(int i = 0; i < 50; i++) {
+			assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), table.get(new CollidingKey(i)));
+		}
+	}
+
+	@Test
+	void testAgainstHashMap() {
+		OpenAddressingHashtable<Integer, Integer> table = new OpenAddressingHashtable<>();
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+
+		for(int i = 0; i < 20000; i++) {
+			int key = random.nextInt(500);
+			if(random.nextBoolean()) {
+				table.put(key, i);
+				expected.put(key, i);
+			} else {
+				table.remove(key);
+				expected.remove(key);
+			}
+		}
+
+		assertEquals(expected.size(), table.size());
+		for(int key = 0; key < 500; key++) {
+			assertEquals(expected.get(key), table.get(key));
+		}
+	}
+
+	@Test
+	void testClear() {
+		OpenAddressingHashtable<String, Number> table = new OpenAddressingHashtable<>();
+
+		table.put("Prvi", 1.);
+		table.put("Wow!", -3);
+		table.clear();
+
+		assertTrue(table.isEmpty());
+		assertFalse(table.containsKey("Prvi"));
+		assertEquals("[]", table.toString());
+	}
+
+	@Test
+	void testIterator() {
+		OpenAddressingHashtable<Integer, Integer> table = new OpenAddressingHashtable<>();
+		for(int i = 0; i < 100; i++) {
+			table.put(i, i);
+		}
+
+		int sum = 0;
+		for(SimpleHashtable.TableEntry<Integer, Integer> entry : table) {
+			sum += entry.getValue();
+			entry.setValue(-entry.getValue());
+		}
+
+		assertEquals(4950, sum);
+		assertEquals(-7, table.get(7));
+	}
+
+	@Test
+	void testIteratorRemove() {
+		OpenAddressingHashtable<CollidingKey, Integer> table = new OpenAddressingHashtable<>();
+		for(int i = 0; i < 20; i++) {
+			table.put(new CollidingKey(i), i);
+		}
+
+		int visited = 0;
+		Iterator<SimpleHashtable.TableEntry<CollidingKey, Integer>> it = table.iterator();
+		while(it.hasNext()) {
+			if(it.next().getValue() % 2 == 0) {
+				it.remove();
+			}
+			visited++;
+		}
+
+		assertEquals(20, visited);
+		assertEquals(10, table.size());
+		assertThrows(IllegalStateException.class, () -> table.iterator().remove());
+	}
+
+	@Test
+	void testIteratorConcurrentModification() {
+		OpenAddressingHashtable<String, Number> table = new OpenAddressingHashtable<>();
+		table.put("Prvi", 1.);
+
+		Iterator<SimpleHashtable.TableEntry<String, Number>> it = table.iterator();
+		table.put("Drugi", 2.);
+
+		assertThrows(ConcurrentModificationException.class, () -> it.hasNext());
+	}
+
+	/**
+	 * A key whose every instance has the same hash-code.
+	 */
+	private static class CollidingKey {
+
+		private int id;
+
+		public CollidingKey(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public int hashCode() {
+			return 7;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof CollidingKey && ((CollidingKey) obj).id == id;
+		}
+
+	}
+}
@@ -0,0 +1,123 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class ParallelPipelineTest {
+
+	private static ArrayIndexedCollection<Integer> numbers(int count) {
+		ArrayIndexedCollection<Integer> numbers = new ArrayIndexedCollection<>();
+		for(int i = 0; i < count; i++) {
+			numbers.add(i);
+		}
+		return numbers;
+	}
+
+	@Test
+	void testCount() {
+		assertEquals(100000, ParallelPipeline.of(numbers(100000)).count());
+		assertEquals(0, ParallelPipeline.of(new ArrayIndexedCollection<Integer>()).count());
+	}
+
+	@Test
+	void testFilterMapReduce() {
+		long sum = ParallelPipeline.of(numbers(100000))
+				.withSplitThreshold(100)
+				.filter(value -> value % 2 == 0)
+				.map(value -> (long) value * value)
+				.reduce(0L, Long::sum);
+
+		long expected = 0;
+		for(long i = 0; i < 100000; i += 2) {
+			expected += i * i;
+		}
+
+		assertEquals(expected, sum);
+	}
+
+	@Test
+	void testToCollectionKeepsOrder() {
+		LinkedListIndexedCollection<Integer> source = new LinkedListIndexedCollection<>(numbers(20000));
+
+		ArrayIndexedCollection<String> result = ParallelPipeline.of(source)
+				.withSplitThreshold(10)
+				.filter(value -> value % 3 == 0)
+				.map(value -> "#" + value)
+				.toCollection();
+
+		assertEquals(6667, result.size());
+		for(int i = 0; i < result.size(); i++) {
+			assertEquals("#" + (i * 3), result.get(i));
+		}
+	}
+
+	@Test
+	void testReduceKeepsOrder() {
+		String text = ParallelPipeline.of(numbers(500))
+				.withSplitThreshold(7)
+				.map(value -> value + ",")
+				.reduce("", String::concat);
+
+		StringBuilder expected = new StringBuilder();
+		for(int i = 0; i < 500; i++) {
+			expected.append(i).append(',');
+		}
+
+		assertEquals(expected.toString(), text);
+	}
+
+	@Test
+	void testForEachOnHashtable() {
+		SimpleHashtable<Integer, Integer> table = new SimpleHashtable<>();
+		for(int i = 0; i < 10000; i++) {
+			table.put(i, i * 2);
+		}
+
+		ConcurrentHashMap<Integer, Integer> seen = new ConcurrentHashMap<>();
+		ParallelPipeline.of(table).withSplitThreshold(16).forEach(entry -> seen.put(entry.getKey(), entry.getValue()));
+
+		assertEquals(10000, seen.size());
+		for(int i = 0; i < 10000; i++) {
+			assertEquals(i * 2, seen.get(i));
+		}
+	}
+
+	@Test
+	void testWithPool() {
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			AtomicLong count = new AtomicLong();
+			ParallelPipeline.of(numbers(5000)).withPool(pool).withSplitThreshold(50).forEach(value -> count.incrementAndGet());
+
+			assertEquals(5000, count.get());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void testEvaluatedOnlyOnce() {
+		ParallelPipeline<Integer> pipeline = ParallelPipeline.of(numbers(10));
+		ParallelPipeline<Integer> filtered = pipeline.filter(value -> value > 5);
+
+		assertEquals(4, filtered.count());
+		assertThrows(IllegalStateException.class, () -> pipeline.count());
+	}
+
+	@Test
+	void testInvalidArguments() {
+		ParallelPipeline<Integer> pipeline = ParallelPipeline.of(numbers(10));
+
+		assertThrows(NullPointerException.class, () -> ParallelPipeline.of((Collection<Integer>) null));
+		assertThrows(NullPointerException.class, () -> pipeline.filter(null));
+		assertThrows(NullPointerException.class, () -> pipeline.map(null));
+		assertThrows(NullPointerException.class, () -> pipeline.withPool(null));
+		assertThrows(IllegalArgumentException.class, () -> pipeline.withSplitThreshold(0));
+	}
+
+}
@@ -0,0 +1,143 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases shared by {@link IntHashtableTest} and {@link LongHashtableTest}.
+ * Keys used by these tests fit into an <code>int</code>.
+ * 
+ * @author Ivan Skorupan
+ */
+abstract class PrimitiveKeyHashtableTest {
+
+	/**
+	 * The tested table with its keys widened to <code>long</code>.
+	 * 
+	 * @author Ivan Skorupan
+	 * 
+	 * @param <V> - type of value
+	 */
+	interface Table<V> {
+
+		PrimitiveKeyHashtable<V> table();
+
+		void put(long key, V value);
+
+		V get(long key);
+
+		boolean containsKey(long key);
+
+		void remove(long key);
+
+		void forEach(LongHashtable.EntryProcessor<? super V> processor);
+
+	}
+
+	/**
+	 * Creates a new table of the tested type.
+	 * 
+	 * @param <V> - type of value
+	 * @param capacity - the initial number of slots
+	 * @return the new table
+	 */
+	abstract <V> Table<V> newTable(int capacity);
+
+	@Test
+	void testConstructor() {
+		Table<String> table = newTable(16);
+
+		assertEquals(0, table.table().size());
+		assertTrue(table.table().isEmpty());
+
+		assertThrows(IllegalArgumentException.class, () -> newTable(0));
+	}
+
+	@Test
+	void testPutAndGet() {
+		Table<String> table = newTable(1);
+
+		table.put(1, "jedan");
+		table.put(-3, "minus tri");
+		table.put(0, "nula");
+		table.put(1, "one");
+
+		assertEquals(3, table.table().size());
+		assertEquals("one", table.get(1));
+		assertEquals("nula", table.get(0));
+		assertNull(table.get(2));
+		assertTrue(table.containsKey(0));
+		assertTrue(table.table().containsValue("minus tri"));
+		assertFalse(table.table().containsValue("two"));
+	}
+
+	@Test
+	void testRemove() {
+		Table<String> table = newTable(16);
+
+		table.put(0, "nula");
+		table.put(5, "pet");
+		table.remove(0);
+		table.remove(5);
+		table.remove(6);
+
+		assertTrue(table.table().isEmpty());
+		assertFalse(table.containsKey(0));
+		assertFalse(table.containsKey(5));
+	}
+
+	@Test
+	void testAgainstHashMap() {
+		Table<Integer> table = newTable(16);
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+
+		for(int i = 0; i < 20000; i++) {
+			long key = random.nextInt(300) * 1024L;
+			if(random.nextBoolean()) {
+				table.put(key, i);
+				expected.put(key, i);
+			} else {
+				table.remove(key);
+				expected.remove(key);
+			}
+		}
+
+		assertEquals(expected.size(), table.table().size());
+		for(long key = 0; key < 300 * 1024; key += 1024) {
+			assertEquals(expected.get(key), table.get(key));
+			assertEquals(expected.containsKey(key), table.containsKey(key));
+		}
+	}
+
+	@Test
+	void testForEachAndClear() {
+		Table<Integer> table = newTable(16);
+		for(int i = 0; i < 100; i++) {
+			table.put(i, i);
+		}
+
+		int[] sum = new int[1];
+		table.forEach((key, value) -> sum[0] += value);
+		assertEquals(4950, sum[0]);
+
+		table.table().clear();
+		assertTrue(table.table().isEmpty());
+		assertEquals("[]", table.table().toString());
+	}
+
+	@Test
+	void testToString() {
+		Table<String> table = newTable(16);
+		table.put(7, "sedam");
+		table.put(0, "nula");
+
+		assertEquals("[0=nula, 7=sedam]", table.table().toString());
+	}
+
+}
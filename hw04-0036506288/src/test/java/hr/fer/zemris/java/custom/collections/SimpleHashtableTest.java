@@ -2,6 +2,8 @@ package hr.fer.zemris.java.custom.collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ConcurrentModificationException;
+
 import org.junit.jupiter.api.Test;
 
 class SimpleHashtableTest {
@@ -156,4 +158,34 @@ class SimpleHashtableTest {
 		
 		assertNotNull(table.iterator());
 	}
+
+	@Test
+	void testCreateElementsSplitter() {
+		SimpleHashtable<Integer, String> table = new SimpleHashtable<>(4);
+		for(int i = 0; i < 100; i++) {
+			table.put(i, Integer.toString(i));
+		}
+
+		StringBuilder expected = new StringBuilder();
+		for(SimpleHashtable.TableEntry<Integer, String> entry : table) {
+			expected.append(entry.getKey()).append(' ');
+		}
+
+		ElementsSplitter<SimpleHashtable.TableEntry<Integer, String>> splitter = table.createElementsSplitter();
+		StringBuilder actual = new StringBuilder();
+		splitter.tryProcessNext(entry -> actual.append(entry.getKey()).append(' '));
+
+		ElementsSplitter<SimpleHashtable.TableEntry<Integer, String>> prefix = splitter.trySplit();
+		ElementsSplitter<SimpleHashtable.TableEntry<Integer, String>> prefixOfRest = splitter.trySplit();
+		prefix.processRemaining(entry -> actual.append(entry.getKey()).append(' '));
+		prefixOfRest.processRemaining(entry -> actual.append(entry.getKey()).append(' '));
+		splitter.processRemaining(entry -> actual.append(entry.getKey()).append(' '));
+
+		assertEquals(expected.toString(), actual.toString());
+
+		ElementsSplitter<SimpleHashtable.TableEntry<Integer, String>> other = table.createElementsSplitter();
+		table.remove(5);
+		assertThrows(ConcurrentModificationException.class, () -> other.processRemaining(entry -> {}));
+	}
+
 }
@@ -0,0 +1,131 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class WorkStealingDequeTest {
+
+	@Test
+	void testWorkStealingDeque() {
+		assertDoesNotThrow(() -> new WorkStealingDeque<String>(1));
+
+		assertThrows(IllegalArgumentException.class, () -> new WorkStealingDeque<String>(0));
+	}
+
+	@Test
+	void testPushPopSteal() {
+		WorkStealingDeque<Integer> deque = new WorkStealingDeque<>(2);
+
+		assertTrue(deque.isEmpty());
+		assertNull(deque.pop());
+		assertNull(deque.steal());
+
+		for(int i = 0; i < 10; i++) {
+			deque.push(i);
+		}
+		assertEquals(10, deque.size());
+
+		assertEquals(9, deque.pop());
+		assertEquals(0, deque.steal());
+		assertEquals(1, deque.steal());
+		assertEquals(8, deque.pop());
+		assertEquals(6, deque.size());
+
+		for(int i = 7; i >= 2; i--) {
+			assertEquals(i, deque.pop());
+		}
+
+		assertTrue(deque.isEmpty());
+		assertNull(deque.pop());
+		assertNull(deque.steal());
+		assertThrows(NullPointerException.class, () -> deque.push(null));
+	}
+
+	@Test
+	void testReuseAfterEmptying() {
+		WorkStealingDeque<Integer> deque = new WorkStealingDeque<>(4);
+
+		for(int round = 0; round < 100; round++) {
+			deque.push(round);
+			deque.push(round + 1000);
+			assertEquals(round, deque.steal());
+			assertEquals(round + 1000, deque.pop());
+			assertNull(deque.pop());
+		}
+	}
+
+	@Test
+	void testConcurrentStealing() throws Exception {
+		for(int round = 0; round < 20; round++) {
+			stressTest(20000, 4, 3);
+		}
+	}
+
+	@Test
+	void testContendedLastElement() throws Exception {
+		// the owner keeps the deque almost empty, so it competes with thieves for the last element
+		for(int round = 0; round < 20; round++) {
+			stressTest(20000, 4, 1);
+		}
+	}
+
+	private static void stressTest(int values, int thieves, int popEvery) throws Exception {
+		WorkStealingDeque<Integer> deque = new WorkStealingDeque<>(1);
+		AtomicIntegerArray taken = new AtomicIntegerArray(values);
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		CountDownLatch start = new CountDownLatch(1);
+
+		Thread[] threads = new Thread[thieves];
+		for(int i = 0; i < thieves; i++) {
+			threads[i] = new Thread(() -> {
+				try {
+					start.await();
+					while(!done.get() || !deque.isEmpty()) {
+						Integer value = deque.steal();
+						if(value != null) {
+							taken.incrementAndGet(value);
+						}
+					}
+				} catch(Throwable ex) {
+					failure.set(ex);
+				}
+			});
+			threads[i].start();
+		}
+
+		start.countDown();
+		for(int i = 0; i < values; i++) {
+			deque.push(i);
+
+			if(i % popEvery == 0) {
+				Integer value = deque.pop();
+				if(value != null) {
+					taken.incrementAndGet(value);
+				}
+			}
+		}
+		done.set(true);
+
+		for(Thread thread : threads) {
+			thread.join();
+		}
+
+		Integer value;
+		while((value = deque.pop()) != null) {
+			taken.incrementAndGet(value);
+		}
+
+		assertNull(failure.get());
+		for(int i = 0; i < values; i++) {
+			assertEquals(1, taken.get(i), "value " + i);
+		}
+	}
+
+}
@@ -1,5 +1,7 @@
 package hr.fer.zemris.java.custom.collections;
 
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 
 /**
@@ -7,132 +9,458 @@ import java.util.Objects;
  * <p>
  * This model is also known as a map, associative field and dictionary
  * depending on the programming language.
- * 
+ * <p>
+ * Entries are kept in a hash-table, so putting, getting and removing an entry
+ * takes constant time on average. Entries are also linked in the order in which
+ * they were put, so {@link #createElementsGetter()} returns them in that order.
+ * Overwriting the value of an existing key does not change the order.
+ *
  * @author Ivan Skorupan
  *
  * @param <K> - type of key
  * @param <V> - type of value
  */
 public class Dictionary<K, V> {
-	
+
+	/**
+	 * Default number of slots in a new dictionary's table.
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * Minimum allowed initial capacity.
+	 */
+	private static final int MINIMUM_CAPACITY = 1;
+
+	/**
+	 * Fraction of slots that may be used before the table grows.
+	 */
+	private static final double LOAD_FACTOR = 0.75;
+
+	/**
+	 * Slots of the hash-table, each one holding a chain of entries.
+	 */
+	private Entry<K, V>[] table;
+
+	/**
+	 * The first entry in insertion order.
+	 */
+	private Entry<K, V> head;
+
+	/**
+	 * The last entry in insertion order.
+	 */
+	private Entry<K, V> tail;
+
+	/**
+	 * Number of entries in this dictionary.
+	 */
+	private int size;
+
+	/**
+	 * Number of entries after which the table grows.
+	 */
+	private int threshold;
+
 	/**
-	 * An array containing this dictionary's entries.
+	 * Number of structural modifications made on this dictionary.
 	 */
-	private ArrayIndexedCollection<Entry<K, V>> entries = new ArrayIndexedCollection<>();
-	
+	private long modificationCount;
+
 	/**
 	 * Nested static class that models one entry in {@link Dictionary}.
-	 * 
+	 *
 	 * @author Ivan Skorupan
 	 *
 	 * @param <K> - type of key
 	 * @param <V> - type of value
 	 */
-	private static class Entry<K, V> {
+	public static class Entry<K, V> {
 		/**
 		 * The key of this entry.
 		 */
 		private K key;
-		
+
 		/**
 		 * The value stored under this entry.
 		 */
 		private V value;
-		
+
+		/**
+		 * Spread hash code of the key.
+		 */
+		private int hash;
+
+		/**
+		 * The next entry in the same slot of the table.
+		 */
+		private Entry<K, V> next;
+
+		/**
+		 * The entry put before this one.
+		 */
+		private Entry<K, V> before;
+
+		/**
+		 * The entry put after this one.
+		 */
+		private Entry<K, V> after;
+
 		/**
 		 * Constructs a new {@link Entry} object with given <code>key</code>
 		 * and <code>value</code>.
 		 * <p>
 		 * The <code>key</code> cannot be <code>null</code>, but <code>value</code>
 		 * can.
-		 * 
+		 *
 		 * @param key - this entrie's key
 		 * @param value - this entrie's value
+		 * @param hash - spread hash code of the key
 		 * @throws NullPointerException if <code>key</code> is <code>null</code>
 		 */
-		public Entry(K key, V value) {
+		private Entry(K key, V value, int hash) {
 			this.key = Objects.requireNonNull(key);
 			this.value = value;
+			this.hash = hash;
+		}
+
+		/**
+		 * Getter for the key of this entry.
+		 *
+		 * @return the key
+		 */
+		public K getKey() {
+			return key;
+		}
+
+		/**
+		 * Getter for the value stored under this entry.
+		 *
+		 * @return the value
+		 */
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + value;
 		}
 	}
-	
+
+	/**
+	 * An implementation of {@link ElementsGetter} that fetches entries of a
+	 * {@link Dictionary} in insertion order.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	private static class DictionaryElementsGetter<K, V> implements ElementsGetter<Entry<K, V>> {
+
+		/**
+		 * The dictionary whose entries to fetch.
+		 */
+		private Dictionary<K, V> dictionary;
+
+		/**
+		 * The entry to deliver next.
+		 */
+		private Entry<K, V> nextEntry;
+
+		/**
+		 * Number of structural modifications made to the dictionary
+		 * at the time of creation of this getter.
+		 */
+		private long savedModificationCount;
+
+		/**
+		 * Constructs a new {@link DictionaryElementsGetter} object.
+		 *
+		 * @param dictionary - the dictionary whose entries to fetch
+		 */
+		private DictionaryElementsGetter(Dictionary<K, V> dictionary) {
+			this.dictionary = dictionary;
+			this.nextEntry = dictionary.head;
+			this.savedModificationCount = dictionary.modificationCount;
+		}
+
+		@Override
+		public boolean hasNextElement() {
+			if(savedModificationCount != dictionary.modificationCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			return nextEntry != null;
+		}
+
+		@Override
+		public Entry<K, V> getNextElement() {
+			if(!hasNextElement()) {
+				throw new NoSuchElementException();
+			}
+
+			Entry<K, V> entry = nextEntry;
+			nextEntry = entry.after;
+			return entry;
+		}
+
+		@Override
+		public void processRemaining(Processor<? super Entry<K, V>> p) {
+			for(Entry<K, V> entry = nextEntry; entry != null; entry = entry.after) {
+				// the processor must not modify the dictionary either
+				if(savedModificationCount != dictionary.modificationCount) {
+					throw new ConcurrentModificationException();
+				}
+				nextEntry = entry.after;
+				p.process(entry);
+			}
+		}
+
+	}
+
+	/**
+	 * Constructs a new empty {@link Dictionary} object with
+	 * {@link #DEFAULT_CAPACITY} slots.
+	 */
+	public Dictionary() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new empty {@link Dictionary} object whose table has the first
+	 * power of two greater than or equal to <code>initialCapacity</code> slots.
+	 *
+	 * @param initialCapacity - the initial number of slots
+	 * @throws IllegalArgumentException if <code>initialCapacity</code> is less than {@link #MINIMUM_CAPACITY}
+	 */
+	public Dictionary(int initialCapacity) {
+		if(initialCapacity < MINIMUM_CAPACITY) {
+			throw new IllegalArgumentException("Initial capacity must be at least " + MINIMUM_CAPACITY + "!");
+		}
+
+		int capacity = 1;
+		while(capacity < initialCapacity) {
+			capacity *= 2;
+		}
+
+		allocateTable(capacity);
+	}
+
 	/**
 	 * Tests if the dictionary is empty.
-	 * 
+	 *
 	 * @return <code>true</code> if this dictionary is empty, <code>false</code> otherwise
 	 */
 	public boolean isEmpty() {
-		return entries.size() == 0;
+		return size == 0;
 	}
-	
+
 	/**
 	 * Returns the number of entries in this dictionary.
-	 * 
+	 *
 	 * @return number of entries in the dictionary
 	 */
 	public int size() {
-		return entries.size();
+		return size;
 	}
-	
+
 	/**
 	 * Removes all entries from this dictionary.
+	 * <p>
+	 * The table keeps its capacity.
 	 */
 	public void clear() {
-		entries.clear();
+		for(int i = 0; i < table.length; i++) {
+			table[i] = null;
+		}
+
+		head = tail = null;
+		size = 0;
+		modificationCount++;
 	}
-	
+
 	/**
 	 * Puts a new entry in this dictionary.
 	 * <p>
 	 * If an entry with the same <code>key</code> already exists, this new one
 	 * overwrites it.
-	 * 
+	 *
 	 * @param key - new entry's key
 	 * @param value - new entry's value
 	 * @throws NullPointerException if <code>key</code> is <code>null</code>
 	 */
 	public void put(K key, V value) {
 		Objects.requireNonNull(key);
-		
-		int index = 0;
-		
-		while(index < entries.size()) {
-			Entry<K, V> currentEntry = entries.get(index++);
-			
-			if(key.equals(currentEntry.key)) {
-				currentEntry.value = value;
+
+		int hash = hash(key);
+		int slot = hash & (table.length - 1);
+
+		for(Entry<K, V> entry = table[slot]; entry != null; entry = entry.next) {
+			if(entry.hash == hash && key.equals(entry.key)) {
+				entry.value = value;
 				return;
 			}
 		}
-		
-		entries.add(new Entry<K, V>(key, value));
+
+		Entry<K, V> entry = new Entry<>(key, value, hash);
+		entry.next = table[slot];
+		table[slot] = entry;
+
+		entry.before = tail;
+		if(tail == null) {
+			head = entry;
+		} else {
+			tail.after = entry;
+		}
+		tail = entry;
+
+		size++;
+		modificationCount++;
+
+		if(size > threshold) {
+			resize();
+		}
 	}
-	
+
 	/**
 	 * Returns the value stored under the given key.
 	 * <p>
 	 * If no such value exists, it returns <code>null</code> (either
 	 * the <code>key</code> exists, but the value is <code>null</code>
 	 * or the key does not exist at all).
-	 * 
+	 *
 	 * @param key - the key whose value to search for
 	 * @return the value under the given <code>key</code>
 	 * @throws NullPointerException if <code>key</code> is <code>null</code>
 	 */
 	public V get(Object key) {
+		Entry<K, V> entry = findEntry(key);
+		return entry == null ? null : entry.value;
+	}
+
+	/**
+	 * Tests if this dictionary contains an entry with the given key.
+	 *
+	 * @param key - the key to search for
+	 * @return <code>true</code> if the key exists, <code>false</code> otherwise
+	 * @throws NullPointerException if <code>key</code> is <code>null</code>
+	 */
+	public boolean containsKey(Object key) {
+		return findEntry(key) != null;
+	}
+
+	/**
+	 * Removes the entry with the given key from this dictionary.
+	 * <p>
+	 * The order of the remaining entries does not change.
+	 *
+	 * @param key - key of the entry to remove
+	 * @return the value that was stored under the <code>key</code> or <code>null</code>
+	 *         if the key did not exist
+	 * @throws NullPointerException if <code>key</code> is <code>null</code>
+	 */
+	public V remove(Object key) {
 		Objects.requireNonNull(key);
-		
-		int index = 0;
-		
-		while(index < entries.size()) {
-			Entry<K, V> currentEntry = entries.get(index++);
-			
-			if(key.equals(currentEntry.key)) {
-				return currentEntry.value;
+
+		int hash = hash(key);
+		int slot = hash & (table.length - 1);
+
+		Entry<K, V> previous = null;
+		for(Entry<K, V> entry = table[slot]; entry != null; previous = entry, entry = entry.next) {
+			if(entry.hash != hash || !key.equals(entry.key)) continue;
+
+			if(previous == null) {
+				table[slot] = entry.next;
+			} else {
+				previous.next = entry.next;
+			}
+
+			if(entry.before == null) {
+				head = entry.after;
+			} else {
+				entry.before.after = entry.after;
+			}
+			if(entry.after == null) {
+				tail = entry.before;
+			} else {
+				entry.after.before = entry.before;
 			}
+
+			size--;
+			modificationCount++;
+			return entry.value;
 		}
-		
+
 		return null;
 	}
-	
-}
\ No newline at end of file
+
+	/**
+	 * Creates a new {@link ElementsGetter} that fetches this dictionary's entries
+	 * in the order in which they were put.
+	 * <p>
+	 * The getter throws {@link ConcurrentModificationException} if an entry is
+	 * put or removed after it was created. Overwriting a value is allowed.
+	 *
+	 * @return a new getter of this dictionary's entries
+	 */
+	public ElementsGetter<Entry<K, V>> createElementsGetter() {
+		return new DictionaryElementsGetter<>(this);
+	}
+
+	/**
+	 * Finds the entry with the given key.
+	 *
+	 * @param key - the key to search for
+	 * @return the entry or <code>null</code> if there is none
+	 * @throws NullPointerException if <code>key</code> is <code>null</code>
+	 */
+	private Entry<K, V> findEntry(Object key) {
+		Objects.requireNonNull(key);
+
+		int hash = hash(key);
+		for(Entry<K, V> entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+			if(entry.hash == hash && key.equals(entry.key)) {
+				return entry;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Doubles the number of slots and moves every entry to its new slot.
+	 * The order of entries does not change.
+	 */
+	private void resize() {
+		allocateTable(table.length * 2);
+
+		for(Entry<K, V> entry = head; entry != null; entry = entry.after) {
+			int slot = entry.hash & (table.length - 1);
+			entry.next = table[slot];
+			table[slot] = entry;
+		}
+	}
+
+	/**
+	 * Replaces the table with an empty one with the given number of slots.
+	 *
+	 * @param capacity - number of slots, a power of two
+	 */
+	@SuppressWarnings("unchecked")
+	private void allocateTable(int capacity) {
+		table = (Entry<K, V>[]) new Entry[capacity];
+		threshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	/**
+	 * Returns the hash code of the given key with its high bits mixed into the low
+	 * ones, since only the low bits choose a slot.
+	 *
+	 * @param key - the key
+	 * @return the spread hash code
+	 */
+	private static int hash(Object key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -80,7 +80,7 @@ public class ComparisonOperators {
 				String[] prefixAndSuffix = value2.split("\\*");
 				
 				if(value2.startsWith(String.valueOf(WILDCARD))) {
-					if(value1.endsWith(prefixAndSuffix[0])) {
+					if(value1.endsWith(value2.substring(1))) {
 						return true;
 					}
 				} else if(value2.endsWith(String.valueOf(WILDCARD))) {
@@ -0,0 +1,324 @@
+package hr.fer.zemris.java.hw05.db;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Models a sorted index over one attribute of the records stored in a {@link StudentDatabase}.
+ * <p>
+ * The index keeps positions of all records sorted by the attribute's value and, separately,
+ * sorted by the attribute's value written backwards. The first ordering answers equality, range
+ * and prefix (<code>"abc*"</code>) queries using binary search, while the second one answers
+ * suffix (<code>"*abc"</code>) queries the same way.
+ *
+ * @author Ivan Skorupan
+ */
+public class FieldIndex {
+
+	/**
+	 * A wild-card character.
+	 */
+	private static final char WILDCARD = '*';
+
+	/**
+	 * The field value getter whose values this index is sorted by.
+	 */
+	private IFieldValueGetter fieldGetter;
+
+	/**
+	 * Attribute values in ascending order.
+	 */
+	private String[] values;
+
+	/**
+	 * Positions of records in the database, sorted the same way as {@link #values}.
+	 */
+	private int[] positions;
+
+	/**
+	 * Reversed attribute values in ascending order.
+	 */
+	private String[] reversedValues;
+
+	/**
+	 * Positions of records in the database, sorted the same way as {@link #reversedValues}.
+	 */
+	private int[] reversedPositions;
+
+	/**
+	 * Models a contiguous range of an index's positions array. All records whose positions
+	 * are in the range are candidates for satisfying the expression the range was looked up for.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	public static class Range {
+
+		/**
+		 * Positions array this range is a part of.
+		 */
+		private int[] positions;
+
+		/**
+		 * Index of the first position in the range (inclusive).
+		 */
+		private int from;
+
+		/**
+		 * Index of the last position in the range (exclusive).
+		 */
+		private int to;
+
+		/**
+		 * Constructs a new {@link Range} object.
+		 *
+		 * @param positions - positions array this range is a part of
+		 * @param from - index of the first position in the range (inclusive)
+		 * @param to - index of the last position in the range (exclusive)
+		 */
+		private Range(int[] positions, int from, int to) {
+			this.positions = positions;
+			this.from = from;
+			this.to = Math.max(from, to);
+		}
+
+		/**
+		 * Returns the number of records in this range.
+		 *
+		 * @return number of records in this range
+		 */
+		public int size() {
+			return to - from;
+		}
+
+		/**
+		 * Returns the database positions of records in this range, in ascending order.
+		 *
+		 * @return positions of records in this range
+		 */
+		public int[] positions() {
+			int[] rangePositions = Arrays.copyOfRange(positions, from, to);
+			Arrays.sort(rangePositions);
+			return rangePositions;
+		}
+
+	}
+
+	/**
+	 * Constructs a new {@link FieldIndex} object.
+	 *
+	 * @param records - records to build the index for
+	 * @param fieldGetter - getter of the attribute to index
+	 * @throws NullPointerException if any of the arguments is <code>null</code>
+	 */
+	public FieldIndex(List<StudentRecord> records, IFieldValueGetter fieldGetter) {
+		Objects.requireNonNull(records);
+		this.fieldGetter = Objects.requireNonNull(fieldGetter);
+
+		String[] recordValues = new String[records.size()];
+		String[] recordReversedValues = new String[records.size()];
+		for(int i = 0; i < recordValues.length; i++) {
+			recordValues[i] = fieldGetter.get(records.get(i));
+			recordReversedValues[i] = new StringBuilder(recordValues[i]).reverse().toString();
+		}
+
+		this.positions = sortedPositions(recordValues);
+		this.values = permute(recordValues, positions);
+		this.reversedPositions = sortedPositions(recordReversedValues);
+		this.reversedValues = permute(recordReversedValues, reversedPositions);
+	}
+
+	/**
+	 * Returns the field value getter whose values this index is sorted by.
+	 *
+	 * @return field value getter of this index
+	 */
+	public IFieldValueGetter getFieldGetter() {
+		return fieldGetter;
+	}
+
+	/**
+	 * Looks up the range of records that can satisfy the given conditional expression.
+	 * <p>
+	 * Every record satisfying <code>expression</code> is guaranteed to be in the returned
+	 * range, but the caller still has to test the records from the range because a
+	 * <code>"prefix*suffix"</code> pattern is looked up using only one of its parts.
+	 *
+	 * @param expression - expression to look up the records for
+	 * @return range of candidate records or <code>null</code> if the expression can not
+	 *         be answered using this index
+	 * @throws NullPointerException if <code>expression</code> is <code>null</code>
+	 */
+	public Range lookup(ConditionalExpression expression) {
+		Objects.requireNonNull(expression);
+
+		if(expression.getFieldGetter() != fieldGetter) {
+			return null;
+		}
+
+		IComparisonOperator operator = expression.getComparisonOperator();
+		String literal = expression.getStringLiteral();
+
+		if(operator == ComparisonOperators.EQUALS) {
+			return new Range(positions, lowerBound(values, literal), upperBound(values, literal));
+		} else if(operator == ComparisonOperators.LESS) {
+			return new Range(positions, 0, lowerBound(values, literal));
+		} else if(operator == ComparisonOperators.LESS_OR_EQUALS) {
+			return new Range(positions, 0, upperBound(values, literal));
+		} else if(operator == ComparisonOperators.GREATER) {
+			return new Range(positions, upperBound(values, literal), values.length);
+		} else if(operator == ComparisonOperators.GREATER_OR_EQUALS) {
+			return new Range(positions, lowerBound(values, literal), values.length);
+		} else if(operator == ComparisonOperators.LIKE) {
+			return lookupLike(literal);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Looks up the range of records whose values can be "like" the given pattern.
+	 *
+	 * @param pattern - pattern with at most one wild-card character
+	 * @return range of candidate records or <code>null</code> if the pattern matches everything
+	 *         or is not a valid pattern
+	 */
+	private Range lookupLike(String pattern) {
+		int wildcardIndex = pattern.indexOf(WILDCARD);
+
+		if(wildcardIndex < 0) {
+			return new Range(positions, lowerBound(values, pattern), upperBound(values, pattern));
+		}
+
+		// invalid patterns and a lone wild-card are left to a full scan
+		if(pattern.indexOf(WILDCARD, wildcardIndex + 1) >= 0 || pattern.length() == 1) {
+			return null;
+		}
+
+		String prefix = pattern.substring(0, wildcardIndex);
+		String suffix = new StringBuilder(pattern.substring(wildcardIndex + 1)).reverse().toString();
+
+		Range prefixRange = prefix.isEmpty() ? null : prefixRange(values, positions, prefix);
+		Range suffixRange = suffix.isEmpty() ? null : prefixRange(reversedValues, reversedPositions, suffix);
+
+		if(prefixRange == null) {
+			return suffixRange;
+		} else if(suffixRange == null) {
+			return prefixRange;
+		}
+
+		return prefixRange.size() <= suffixRange.size() ? prefixRange : suffixRange;
+	}
+
+	/**
+	 * Finds the range of the given sorted array whose values start with <code>prefix</code>.
+	 *
+	 * @param sortedValues - sorted array of values
+	 * @param sortedPositions - positions array matching <code>sortedValues</code>
+	 * @param prefix - the prefix to search for
+	 * @return range of values starting with <code>prefix</code>
+	 */
+	private static Range prefixRange(String[] sortedValues, int[] sortedPositions, String prefix) {
+		int from = lowerBound(sortedValues, prefix);
+
+		// values starting with the prefix are contiguous and come right after the lower bound
+		int low = from;
+		int high = sortedValues.length;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(sortedValues[middle].startsWith(prefix)) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return new Range(sortedPositions, from, low);
+	}
+
+	/**
+	 * Finds the index of the first value in the sorted array which is not less than <code>key</code>.
+	 *
+	 * @param sortedValues - sorted array of values
+	 * @param key - key to search for
+	 * @return index of the first value greater than or equal to <code>key</code>
+	 */
+	private static int lowerBound(String[] sortedValues, String key) {
+		int low = 0;
+		int high = sortedValues.length;
+
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(sortedValues[middle].compareTo(key) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Finds the index of the first value in the sorted array which is greater than <code>key</code>.
+	 *
+	 * @param sortedValues - sorted array of values
+	 * @param key - key to search for
+	 * @return index of the first value greater than <code>key</code>
+	 */
+	private static int upperBound(String[] sortedValues, String key) {
+		int low = 0;
+		int high = sortedValues.length;
+
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(sortedValues[middle].compareTo(key) <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Returns positions of the given values in the order which sorts the values.
+	 *
+	 * @param unsortedValues - values to sort
+	 * @return positions of values in sorted order
+	 */
+	private static int[] sortedPositions(String[] unsortedValues) {
+		Integer[] order = new Integer[unsortedValues.length];
+		for(int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+
+		Arrays.sort(order, Comparator.comparing(i -> unsortedValues[i]));
+
+		int[] result = new int[order.length];
+		for(int i = 0; i < order.length; i++) {
+			result[i] = order[i];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Rearranges the given values in the order given by <code>order</code>.
+	 *
+	 * @param unsortedValues - values to rearrange
+	 * @param order - positions of values in the wanted order
+	 * @return rearranged values
+	 */
+	private static String[] permute(String[] unsortedValues, int[] order) {
+		String[] result = new String[order.length];
+		for(int i = 0; i < order.length; i++) {
+			result[i] = unsortedValues[order[i]];
+		}
+
+		return result;
+	}
+
+}
@@ -6,6 +6,10 @@ import java.util.Objects;
 /**
  * Models a simple database query filter that checks if all conditional expressions
  * are satisfied in order to determine if a record should be included or not.
+ * <p>
+ * Since all expressions have to be satisfied, a query filter can also choose which
+ * of the database's indexes to use: every expression answerable by an index limits
+ * the candidate records to a range of that index, and the smallest such range is used.
  * 
  * @author Ivan Skorupan
  */
@@ -37,4 +41,39 @@ public class QueryFilter implements IFilter {
 		return true;
 	}
 	
+	/**
+	 * Chooses the most selective index range of the given database for this filter's
+	 * conditional expressions.
+	 * <p>
+	 * Only records from the returned range can be accepted by this filter, so they are
+	 * the only ones that have to be tested.
+	 * 
+	 * @param database - database whose indexes to use
+	 * @return the smallest range of candidate records or <code>null</code> if none of the
+	 *         expressions can be answered using an index
+	 * @throws NullPointerException if <code>database</code> is <code>null</code>
+	 */
+	public FieldIndex.Range selectIndexRange(StudentDatabase database) {
+		Objects.requireNonNull(database);
+		FieldIndex.Range bestRange = null;
+		
+		for(ConditionalExpression condExpr : conditionalExpressions) {
+			FieldIndex index = database.getIndex(condExpr.getFieldGetter());
+			if(index == null) {
+				continue;
+			}
+			
+			FieldIndex.Range range = index.lookup(condExpr);
+			if(range != null && (bestRange == null || range.size() < bestRange.size())) {
+				bestRange = range;
+				
+				if(bestRange.size() == 0) {
+					break;
+				}
+			}
+		}
+		
+		return bestRange;
+	}
+	
 }
@@ -120,24 +120,7 @@ public class StudentDB {
 	 * @return a list of student records that satisfy given conditional expressions
 	 */
 	private static List<StudentRecord> selectFromDatabaseWithFiltering(StudentDatabase database, List<ConditionalExpression> conditionalExpressions) {
-		return database.filter(new IFilter() {
-
-			@Override
-			public boolean accepts(StudentRecord record) {
-				for(ConditionalExpression condExpr : conditionalExpressions) {
-					IFieldValueGetter fieldGetter = condExpr.getFieldGetter();
-					String literal = condExpr.getStringLiteral();
-					IComparisonOperator compOper = condExpr.getComparisonOperator();
-
-					if(!compOper.satisfied(fieldGetter.get(record), literal)) {
-						return false;
-					}
-				}
-
-				return true;
-			}
-
-		});
+		return database.filter(new QueryFilter(conditionalExpressions));
 	}
 
 }
@@ -10,7 +10,9 @@ import java.util.Objects;
  * Models a database of students by utilizing an internal list of student records
  * (basically table cells containing student info).
  * <p>
- * It also implements an index for fast retrieval of student records in O(1).
+ * It also implements an index for fast retrieval of student records in O(1) and
+ * sorted {@link FieldIndex indexes} on jmbag, last name and first name which are used
+ * when filtering with a {@link QueryFilter}.
  * <p>
  * Duplicate entries in this database are <b>not</b> allowed.
  * 
@@ -28,6 +30,11 @@ public class StudentDatabase {
 	 * collection used for fast retrieval of records.
 	 */
 	private Map<String, StudentRecord> jmbagMap;
+	
+	/**
+	 * Sorted indexes mapped under the field value getters they were built for.
+	 */
+	private Map<IFieldValueGetter, FieldIndex> indexes;
 
 	/**
 	 * Constructs a new {@link StudentDatabase} object.
@@ -50,6 +57,11 @@ public class StudentDatabase {
 				throw new IllegalArgumentException("Duplicate JMBAGs are not allowed!");
 			}
 		}
+		
+		this.indexes = new HashMap<>();
+		for(IFieldValueGetter fieldGetter : List.of(FieldValueGetters.JMBAG, FieldValueGetters.LAST_NAME, FieldValueGetters.FIRST_NAME)) {
+			this.indexes.put(fieldGetter, new FieldIndex(this.studentRecords, fieldGetter));
+		}
 	}
 	
 	/**
@@ -65,11 +77,25 @@ public class StudentDatabase {
 		return jmbagMap.get(jmbag);
 	}
 	
+	/**
+	 * Returns the sorted index built for the given field value getter.
+	 * 
+	 * @param fieldGetter - field value getter whose index to return
+	 * @return index for <code>fieldGetter</code> or <code>null</code> if there is no such index
+	 */
+	public FieldIndex getIndex(IFieldValueGetter fieldGetter) {
+		return indexes.get(fieldGetter);
+	}
+	
 	/**
 	 * Loops through all student records in the internal list and calls the
 	 * {@link IFilter#accepts(StudentRecord) accepts()} method on given filter object
 	 * with current record.
 	 * <p>
+	 * If the filter is a {@link QueryFilter}, only the records from the most selective
+	 * index range it chooses are tested. The records are returned in the same order as
+	 * they would be by the full scan.
+	 * <p>
 	 * All records for whom the aforementioned method returns <code>true</code> are added to
 	 * a temporary list that is being returned at the end.
 	 * 
@@ -81,6 +107,21 @@ public class StudentDatabase {
 		Objects.requireNonNull(filter);
 		List<StudentRecord> temporaryList = new ArrayList<>();
 		
+		if(filter instanceof QueryFilter) {
+			FieldIndex.Range range = ((QueryFilter) filter).selectIndexRange(this);
+			
+			if(range != null) {
+				for(int position : range.positions()) {
+					StudentRecord record = studentRecords.get(position);
+					if(filter.accepts(record)) {
+						temporaryList.add(record);
+					}
+				}
+				
+				return temporaryList;
+			}
+		}
+		
 		for(StudentRecord record : studentRecords) {
 			if(filter.accepts(record)) {
 				temporaryList.add(record);
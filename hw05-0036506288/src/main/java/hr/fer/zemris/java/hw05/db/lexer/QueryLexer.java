@@ -131,7 +131,7 @@ public class QueryLexer {
 		
 		if(data[c] == firstCharacter) {
 			if(c + 1 < data.length && data[c + 1] == secondCharacter) {
-				token = new QueryToken(QueryTokenType.OPERATOR, String.valueOf(firstCharacter + secondCharacter));
+				token = new QueryToken(QueryTokenType.OPERATOR, new String(new char[] {firstCharacter, secondCharacter}));
 				currentIndex += 2;
 				return true;
 			}
@@ -0,0 +1,89 @@
+package hr.fer.zemris.lsystems.impl;
+
+import java.awt.Color;
+
+import hr.fer.zemris.lsystems.Painter;
+
+/**
+ * A painter that draws nothing and only remembers the smallest axis aligned
+ * rectangle containing all lines it was asked to draw.
+ * <p>
+ * Drawing an L-system with this painter is a cheap pre-pass that tells how
+ * large the fractal of some level is, which is used for auto-scaling.
+ *
+ * @author Ivan Skorupan
+ */
+public class BoundingBoxPainter implements Painter {
+
+	/**
+	 * The smallest x coordinate seen so far.
+	 */
+	private double minX = Double.POSITIVE_INFINITY;
+
+	/**
+	 * The smallest y coordinate seen so far.
+	 */
+	private double minY = Double.POSITIVE_INFINITY;
+
+	/**
+	 * The largest x coordinate seen so far.
+	 */
+	private double maxX = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * The largest y coordinate seen so far.
+	 */
+	private double maxY = Double.NEGATIVE_INFINITY;
+
+	@Override
+	public void drawLine(double x0, double y0, double x1, double y1, Color color, float size) {
+		minX = Math.min(minX, Math.min(x0, x1));
+		minY = Math.min(minY, Math.min(y0, y1));
+		maxX = Math.max(maxX, Math.max(x0, x1));
+		maxY = Math.max(maxY, Math.max(y0, y1));
+	}
+
+	/**
+	 * Checks if any line was drawn with this painter.
+	 *
+	 * @return <code>true</code> if no lines were drawn, <code>false</code> otherwise
+	 */
+	public boolean isEmpty() {
+		return minX > maxX;
+	}
+
+	public double getMinX() {
+		return minX;
+	}
+
+	public double getMinY() {
+		return minY;
+	}
+
+	public double getMaxX() {
+		return maxX;
+	}
+
+	public double getMaxY() {
+		return maxY;
+	}
+
+	/**
+	 * Returns the width of the bounding box.
+	 *
+	 * @return width of the bounding box or 0 if no lines were drawn
+	 */
+	public double getWidth() {
+		return isEmpty() ? 0 : maxX - minX;
+	}
+
+	/**
+	 * Returns the height of the bounding box.
+	 *
+	 * @return height of the bounding box or 0 if no lines were drawn
+	 */
+	public double getHeight() {
+		return isEmpty() ? 0 : maxY - minY;
+	}
+
+}
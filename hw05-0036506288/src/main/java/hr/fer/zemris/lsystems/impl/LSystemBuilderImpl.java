@@ -1,10 +1,10 @@
 package hr.fer.zemris.lsystems.impl;
 
 import java.awt.Color;
+import java.util.Arrays;
 
 import static java.lang.Math.*;
 
-import hr.fer.zemris.java.custom.collections.Dictionary;
 import hr.fer.zemris.lsystems.LSystem;
 import hr.fer.zemris.lsystems.LSystemBuilder;
 import hr.fer.zemris.lsystems.Painter;
@@ -20,22 +20,39 @@ import hr.fer.zemris.math.Vector2D;
 /**
  * This class is a concrete implementation of <code>LSystemBuilder</code>.
  * <p>
- * It uses two internal dictionaries to store registered turtle commands and
- * also registered productions.
+ * Registered productions and turtle commands are stored in tables indexed
+ * directly by the symbol's character code, so looking up a symbol while
+ * drawing costs a single array access.
+ * <p>
+ * Built systems never materialize the whole string of a level. Instead, the
+ * production tree is walked depth-first with an explicit stack and every
+ * terminal symbol is handed over to the turtle as soon as it is reached, so
+ * drawing needs memory proportional to the level, not to the length of the
+ * generated string.
  * 
  * @author Ivan Skorupan
  */
 public class LSystemBuilderImpl implements LSystemBuilder {
 
 	/**
-	 * A dictionary containing registered productions.
+	 * Initial size of symbol indexed tables, enough for all ASCII symbols.
+	 */
+	private static final int INITIAL_TABLE_SIZE = 128;
+
+	/**
+	 * Fraction of the drawing area left empty on each side when auto-scaling.
+	 */
+	private static final double AUTO_SCALE_MARGIN = 0.05;
+
+	/**
+	 * Registered productions indexed by the symbol they replace.
 	 */
-	private Dictionary<Character, String> registeredProductions = new Dictionary<>();
+	private char[][] registeredProductions = new char[INITIAL_TABLE_SIZE][];
 
 	/**
-	 * A dictionary containing registered commands.
+	 * Registered commands indexed by the symbol they are bound to.
 	 */
-	private Dictionary<Character, Command> registeredCommands = new Dictionary<>();
+	private Command[] registeredCommands = new Command[INITIAL_TABLE_SIZE];
 
 	/**
 	 * Length of turtle's unit displacement.
@@ -64,6 +81,27 @@ public class LSystemBuilderImpl implements LSystemBuilder {
 	 */
 	private String axiom = "";
 
+	/**
+	 * Whether drawings are scaled and moved to fill the drawing area.
+	 */
+	private boolean autoScale;
+
+	/**
+	 * Models an action performed on every terminal symbol of an expanded level.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	private interface SymbolAction {
+
+		/**
+		 * Performs this action on the given symbol.
+		 * 
+		 * @param symbol - a terminal symbol of the expanded level
+		 */
+		void accept(char symbol);
+
+	}
+
 	/**
 	 * A concrete implementation of <code>LSystem</code>.
 	 * 
@@ -73,43 +111,108 @@ public class LSystemBuilderImpl implements LSystemBuilder {
 
 		@Override
 		public void draw(int level, Painter painter) {
+			if(autoScale) {
+				BoundingBoxPainter boundingBox = new BoundingBoxPainter();
+				drawUnscaled(level, boundingBox);
+				painter = fitToUnitSquare(boundingBox, painter);
+			}
+
+			drawUnscaled(level, painter);
+		}
+
+		@Override
+		public String generate(int level) {
+			StringBuilder finalCharArray = new StringBuilder();
+			expand(level, finalCharArray::append);
+			return finalCharArray.toString();
+		}
+
+		/**
+		 * Draws the given level of this system without any auto-scaling.
+		 * 
+		 * @param level - level to draw
+		 * @param painter - painter that draws the lines
+		 */
+		private void drawUnscaled(int level, Painter painter) {
 			Context context = new Context();
 			TurtleState state = new TurtleState(origin.copy(), new Vector2D(1, 0).rotated(angleInRadians()), Color.BLACK, unitLength * pow(unitLengthDegreeScaler, level));
 			context.pushState(state);
-			
-			char[] finalCharArray = generate(level).toCharArray();
-			for(char symbol : finalCharArray) {
-				Command command = registeredCommands.get(symbol);
+
+			expand(level, symbol -> {
+				Command command = getCommand(symbol);
 
 				if(command != null) {
 					command.execute(context, painter);
 				}
-			}
+			});
 		}
 
-		@Override
-		public String generate(int level) {
-			StringBuilder finalCharArray = new StringBuilder();
-			finalCharArray.append(axiom);
+		/**
+		 * Walks the production tree of the given level depth-first and performs
+		 * the given action on every terminal symbol, in order.
+		 * <p>
+		 * A symbol is terminal if it has no production or if it is already at the
+		 * deepest level. The walk keeps one stack frame per level, so its memory
+		 * does not depend on the length of the generated string.
+		 * 
+		 * @param level - level to expand
+		 * @param action - action performed on every terminal symbol
+		 * @throws IllegalArgumentException if <code>level</code> is negative
+		 */
+		private void expand(int level, SymbolAction action) {
+			if(level < 0) {
+				throw new IllegalArgumentException("Level can not be negative!");
+			}
 
-			for(int i = 0; i < level; i++) {
-				char[] finalCharArrayCopy = finalCharArray.toString().toCharArray();
-				StringBuilder finalLevelString = new StringBuilder();
-				
-				for(int j = 0; j < finalCharArrayCopy.length; j++) {
-					String replacement = registeredProductions.get(finalCharArrayCopy[j]);
+			char[][] sequences = new char[level + 1][];
+			int[] positions = new int[level + 1];
+			int top = 0;
+			sequences[0] = axiom.toCharArray();
 
-					if(replacement != null) {
-						finalLevelString.append(replacement);
-					} else {
-						finalLevelString.append(finalCharArrayCopy[j]);
-					}
+			while(top >= 0) {
+				if(positions[top] == sequences[top].length) {
+					top--;
+					continue;
+				}
+
+				char symbol = sequences[top][positions[top]++];
+				char[] production = top < level ? getProduction(symbol) : null;
+
+				if(production != null) {
+					top++;
+					sequences[top] = production;
+					positions[top] = 0;
+				} else {
+					action.accept(symbol);
 				}
-				
-				finalCharArray = finalLevelString;
 			}
-			
-			return finalCharArray.toString();
+		}
+
+		/**
+		 * Returns a painter which maps the given bounding box into the unit
+		 * square, keeping the aspect ratio, and forwards lines to <code>painter</code>.
+		 * 
+		 * @param boundingBox - bounding box of the drawing
+		 * @param painter - painter to forward transformed lines to
+		 * @return painter transforming lines before drawing them
+		 */
+		private Painter fitToUnitSquare(BoundingBoxPainter boundingBox, Painter painter) {
+			double size = Math.max(boundingBox.getWidth(), boundingBox.getHeight());
+			if(size == 0) {
+				return painter;
+			}
+
+			double scale = (1 - 2 * AUTO_SCALE_MARGIN) / size;
+			double offsetX = 0.5 - scale * (boundingBox.getMinX() + boundingBox.getWidth() / 2);
+			double offsetY = 0.5 - scale * (boundingBox.getMinY() + boundingBox.getHeight() / 2);
+
+			return new Painter() {
+				@Override
+				public void drawLine(double x0, double y0, double x1, double y1, Color color, float lineSize) {
+					painter.drawLine(offsetX + scale * x0, offsetY + scale * y0,
+							offsetX + scale * x1, offsetY + scale * y1, color, lineSize);
+				}
+			};
 		}
 		
 		/**
@@ -155,7 +258,7 @@ public class LSystemBuilderImpl implements LSystemBuilder {
 
 	@Override
 	public LSystemBuilder registerProduction(char symbol, String production) {
-		this.registeredProductions.put(symbol, production);
+		putProduction(symbol, production);
 		return this;
 	}
 
@@ -189,6 +292,67 @@ public class LSystemBuilderImpl implements LSystemBuilder {
 		return this;
 	}
 
+	/**
+	 * Sets whether drawings of built systems are scaled and moved so that they
+	 * fill the unit square. The size of a drawing is found by a pre-pass over
+	 * the same level, so drawing with auto-scaling takes twice as long.
+	 * 
+	 * @param autoScale - <code>true</code> if drawings should be auto-scaled
+	 * @return this builder
+	 */
+	public LSystemBuilderImpl setAutoScale(boolean autoScale) {
+		this.autoScale = autoScale;
+		return this;
+	}
+
+	/**
+	 * Returns the production registered for the given symbol.
+	 * 
+	 * @param symbol - symbol whose production is wanted
+	 * @return production of the symbol or <code>null</code> if there is none
+	 */
+	private char[] getProduction(char symbol) {
+		return symbol < registeredProductions.length ? registeredProductions[symbol] : null;
+	}
+
+	/**
+	 * Registers a production for the given symbol, growing the table if needed.
+	 * 
+	 * @param symbol - symbol to replace
+	 * @param production - replacement of the symbol
+	 */
+	private void putProduction(char symbol, String production) {
+		if(symbol >= registeredProductions.length) {
+			registeredProductions = Arrays.copyOf(registeredProductions, Math.max(symbol + 1, 2 * registeredProductions.length));
+		}
+
+		registeredProductions[symbol] = production.toCharArray();
+	}
+
+	/**
+	 * Returns the command registered for the given symbol.
+	 * 
+	 * @param symbol - symbol whose command is wanted
+	 * @return command of the symbol or <code>null</code> if there is none
+	 */
+	private Command getCommand(char symbol) {
+		return symbol < registeredCommands.length ? registeredCommands[symbol] : null;
+	}
+
+	/**
+	 * Registers a command for the given symbol, growing the table if needed.
+	 * 
+	 * @param symbol - symbol to bind the command to
+	 * @param command - command to register
+	 */
+	private void putCommand(char symbol, Command command) {
+		if(symbol >= registeredCommands.length) {
+			registeredCommands = Arrays.copyOf(registeredCommands, Math.max(symbol + 1, 2 * registeredCommands.length));
+		}
+
+		registeredCommands[symbol] = command;
+	}
+
 	/**
 	 * Parses a directive from a string array containing this
 	 * directive's tokens.
@@ -251,8 +415,8 @@ public class LSystemBuilderImpl implements LSystemBuilder {
 			char symbol = symbolToken.charAt(0);
 			String replacement = tokens[2];
 
-			if(registeredProductions.get(symbol) == null) {
-				registeredProductions.put(symbol, replacement);
+			if(getProduction(symbol) == null) {
+				putProduction(symbol, replacement);
 			}
 
 			return true;
@@ -319,10 +483,10 @@ public class LSystemBuilderImpl implements LSystemBuilder {
 
 			if(tokens.length == COMMAND_DIRECTIVE_LENGTH_WITHOUT_ARGUMENT) {
 				if(action.equals("push")) {
-					registeredCommands.put(symbol, new PushCommand());
+					putCommand(symbol, new PushCommand());
 					return true;
 				} else if(action.equals("pop")) {
-					registeredCommands.put(symbol, new PopCommand());
+					putCommand(symbol, new PopCommand());
 					return true;
 				}
 			}
@@ -335,7 +499,7 @@ public class LSystemBuilderImpl implements LSystemBuilder {
 						throw new IllegalArgumentException("The color argument is invalid!");
 					}
 
-					registeredCommands.put(symbol, new ColorCommand(Color.decode("#" + argument)));
+					putCommand(symbol, new ColorCommand(Color.decode("#" + argument)));
 					return true;
 				}
 
@@ -346,16 +510,16 @@ public class LSystemBuilderImpl implements LSystemBuilder {
 				double argumentAsDouble = Double.parseDouble(argument);
 				
 				if(action.equals("draw")) {
-					registeredCommands.put(symbol, new DrawCommand(argumentAsDouble));
+					putCommand(symbol, new DrawCommand(argumentAsDouble));
 					return true;
 				} else if(action.equals("skip")) {
-					registeredCommands.put(symbol, new SkipCommand(argumentAsDouble));
+					putCommand(symbol, new SkipCommand(argumentAsDouble));
 					return true;
 				} else if(action.equals("scale")) {
-					registeredCommands.put(symbol, new ScaleCommand(argumentAsDouble));
+					putCommand(symbol, new ScaleCommand(argumentAsDouble));
 					return true;
 				} else if(action.equals("rotate")) {
-					registeredCommands.put(symbol, new RotateCommand(argumentAsDouble));
+					putCommand(symbol, new RotateCommand(argumentAsDouble));
 					return true;
 				}
 			}
@@ -372,7 +536,7 @@ public class LSystemBuilderImpl implements LSystemBuilder {
 	 * @throws IllegalArgumentException if command directive is invalid
 	 */
 	private boolean isCommandRegistered(char symbol) {
-		return (registeredCommands.get(symbol) == null) ? false : true;
+		return getCommand(symbol) != null;
 	}
 
 	private boolean checkColorArgument(String argument) {
@@ -0,0 +1,59 @@
+package hr.fer.zemris.java.hw05.db;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class FieldIndexTest {
+
+	private static final List<StudentRecord> RECORDS = List.of(
+			new StudentRecord("001", "Ivkić", "Ivo", 5),
+			new StudentRecord("003", "Merkić", "Marta", 2),
+			new StudentRecord("123", "Lukić", "Luka", 1),
+			new StudentRecord("124", "Malonjić", "Menonja", 3),
+			new StudentRecord("125", "Markić", "Marko", 4),
+			new StudentRecord("126", "Lukić", "Ana", 5));
+
+	private static int[] lookup(String literal, IComparisonOperator operator) {
+		FieldIndex index = new FieldIndex(RECORDS, FieldValueGetters.LAST_NAME);
+		return index.lookup(new ConditionalExpression(FieldValueGetters.LAST_NAME, literal, operator)).positions();
+	}
+
+	@Test
+	void testFieldIndex() {
+		assertThrows(NullPointerException.class, () -> new FieldIndex(null, FieldValueGetters.JMBAG));
+		assertThrows(NullPointerException.class, () -> new FieldIndex(RECORDS, null));
+	}
+
+	@Test
+	void testComparisons() {
+		assertArrayEquals(new int[] {2, 5}, lookup("Lukić", ComparisonOperators.EQUALS));
+		assertArrayEquals(new int[] {0}, lookup("Lukić", ComparisonOperators.LESS));
+		assertArrayEquals(new int[] {0, 2, 5}, lookup("Lukić", ComparisonOperators.LESS_OR_EQUALS));
+		assertArrayEquals(new int[] {1, 3, 4}, lookup("Lukić", ComparisonOperators.GREATER));
+		assertArrayEquals(new int[] {1, 2, 3, 4, 5}, lookup("Lukić", ComparisonOperators.GREATER_OR_EQUALS));
+		assertArrayEquals(new int[] {}, lookup("Zec", ComparisonOperators.EQUALS));
+	}
+
+	@Test
+	void testLike() {
+		assertArrayEquals(new int[] {1, 3, 4}, lookup("M*", ComparisonOperators.LIKE));
+		assertArrayEquals(new int[] {0, 1, 2, 4, 5}, lookup("*kić", ComparisonOperators.LIKE));
+		assertArrayEquals(new int[] {3}, lookup("*njić", ComparisonOperators.LIKE));
+		assertArrayEquals(new int[] {2, 5}, lookup("Lukić", ComparisonOperators.LIKE));
+		assertArrayEquals(new int[] {3, 4}, lookup("Ma*ić", ComparisonOperators.LIKE));
+	}
+
+	@Test
+	void testNotIndexable() {
+		FieldIndex index = new FieldIndex(RECORDS, FieldValueGetters.LAST_NAME);
+
+		assertNull(index.lookup(new ConditionalExpression(FieldValueGetters.LAST_NAME, "Lukić", ComparisonOperators.NOT_EQUALS)));
+		assertNull(index.lookup(new ConditionalExpression(FieldValueGetters.LAST_NAME, "*", ComparisonOperators.LIKE)));
+		assertNull(index.lookup(new ConditionalExpression(FieldValueGetters.LAST_NAME, "*a*", ComparisonOperators.LIKE)));
+		assertNull(index.lookup(new ConditionalExpression(FieldValueGetters.FIRST_NAME, "Ivo", ComparisonOperators.EQUALS)));
+	}
+
+}
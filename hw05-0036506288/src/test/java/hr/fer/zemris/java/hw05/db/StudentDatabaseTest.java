@@ -57,5 +57,55 @@ class StudentDatabaseTest {
 		
 		assertEquals(0, acceptedRecords.size());
 	}
-	
+
+	@Test
+	void testFilterWithIndexes() {
+		String table = "001 Ivkić Ivo 5\n"
+				+ "003 Merkić    Marta 2\n"
+				+ "123 Lukić Luka 1\n"
+				+ "124 Malonjić Menonja 3\n"
+				+ "125 Markić Marko 4\n";
+
+		List<String> records = table.lines().collect(Collectors.toList());
+
+		StudentDatabase database = new StudentDatabase(records);
+
+		String[] queries = {
+				"lastName LIKE \"M*\"",
+				"lastName LIKE \"*kić\"",
+				"lastName LIKE \"M*kić\"",
+				"firstName >= \"Luka\" and lastName < \"Merkić\"",
+				"firstName = \"Marko\"",
+				"jmbag > \"003\" and firstName LIKE \"*\"",
+				"lastName != \"Lukić\""
+		};
+
+		for(String query : queries) {
+			QueryFilter filter = new QueryFilter(new QueryParser(query).getQuery());
+
+			List<StudentRecord> expectedRecords = database.filter(r -> filter.accepts(r));
+
+			assertEquals(expectedRecords, database.filter(filter));
+		}
+	}
+
+	@Test
+	void testSelectIndexRange() {
+		String table = "001 Ivkić Ivo 5\n"
+				+ "003 Merkić    Marta 2\n"
+				+ "123 Lukić Luka 1\n"
+				+ "124 Malonjić Menonja 3\n"
+				+ "125 Markić Marko 4\n";
+
+		List<String> records = table.lines().collect(Collectors.toList());
+
+		StudentDatabase database = new StudentDatabase(records);
+
+		QueryFilter filter = new QueryFilter(new QueryParser("lastName LIKE \"M*\" and firstName = \"Luka\"").getQuery());
+		assertEquals(1, filter.selectIndexRange(database).size());
+
+		QueryFilter scanFilter = new QueryFilter(new QueryParser("lastName != \"Lukić\"").getQuery());
+		assertNull(scanFilter.selectIndexRange(database));
+	}
+
 }
@@ -2,10 +2,13 @@ package hr.fer.zemris.lsystems.impl;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.awt.Color;
+
 import org.junit.jupiter.api.Test;
 
 import hr.fer.zemris.lsystems.LSystem;
 import hr.fer.zemris.lsystems.LSystemBuilder;
+import hr.fer.zemris.lsystems.Painter;
 
 class LSystemBuilderImplTest {
 
@@ -26,4 +29,70 @@ class LSystemBuilderImplTest {
 		assertEquals(levelTwoExpected, system.generate(2));
 	}
 
+	@Test
+	void testGenerateSymbolsWithoutProductions() {
+		LSystem system = new LSystemBuilderImpl()
+				.setAxiom("A[B]")
+				.registerProduction('A', "AB")
+				.registerProduction('B', "A")
+				.build();
+
+		assertEquals("A[B]", system.generate(0));
+		assertEquals("AB[A]", system.generate(1));
+		assertEquals("ABA[AB]", system.generate(2));
+		assertEquals("ABAAB[ABA]", system.generate(3));
+		assertThrows(IllegalArgumentException.class, () -> system.generate(-1));
+	}
+
+	@Test
+	void testDrawKochCurve() {
+		LSystem system = new LSystemBuilderImpl()
+				.setAxiom("F")
+				.setUnitLength(0.9)
+				.setUnitLengthDegreeScaler(1.0 / 3.0)
+				.registerCommand('F', "draw 1")
+				.registerCommand('+', "rotate 60")
+				.registerCommand('-', "rotate -60")
+				.registerProduction('F', "F+F--F+F")
+				.build();
+
+		int[] lines = new int[1];
+		double[] length = new double[1];
+		system.draw(2, new Painter() {
+			@Override
+			public void drawLine(double x0, double y0, double x1, double y1, Color color, float size) {
+				lines[0]++;
+				length[0] += Math.hypot(x1 - x0, y1 - y0);
+			}
+		});
+
+		assertEquals(16, lines[0]);
+		assertEquals(0.9 * 16 / 9, length[0], 1e-9);
+	}
+
+	@Test
+	void testBoundingBoxAndAutoScale() {
+		LSystemBuilderImpl builder = new LSystemBuilderImpl();
+		builder.setAxiom("F-F")
+				.setUnitLength(3)
+				.registerCommand('F', "draw 1")
+				.registerCommand('-', "rotate 90");
+
+		BoundingBoxPainter boundingBox = new BoundingBoxPainter();
+		builder.build().draw(0, boundingBox);
+
+		assertEquals(0, boundingBox.getMinX(), 1e-9);
+		assertEquals(3, boundingBox.getMaxX(), 1e-9);
+		assertEquals(3, boundingBox.getWidth(), 1e-9);
+		assertEquals(3, boundingBox.getHeight(), 1e-9);
+
+		BoundingBoxPainter scaledBox = new BoundingBoxPainter();
+		builder.setAutoScale(true).build().draw(0, scaledBox);
+
+		assertEquals(0.05, scaledBox.getMinX(), 1e-9);
+		assertEquals(0.95, scaledBox.getMaxX(), 1e-9);
+		assertEquals(0.05, scaledBox.getMinY(), 1e-9);
+		assertEquals(0.95, scaledBox.getMaxY(), 1e-9);
+	}
+
 }
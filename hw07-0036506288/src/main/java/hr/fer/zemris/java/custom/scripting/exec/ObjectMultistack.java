@@ -1,5 +1,6 @@
 package hr.fer.zemris.java.custom.scripting.exec;
 
+import java.util.Arrays;
 import java.util.EmptyStackException;
 import java.util.HashMap;
 import java.util.Map;
@@ -18,6 +19,12 @@ import java.util.Objects;
  * Informally, we can imagine that for every distinct string key, there is a
  * independent stack behind it. Stacks that belong to different keys are
  * completely isolated from each other.
+ * <p>
+ * Every stack is backed by an array which grows as needed, so all stack
+ * operations take constant time regardless of the stack's depth. Arrays
+ * of emptied stacks are kept, so a key which is repeatedly pushed and popped
+ * (like a loop variable) doesn't allocate anything after its first push. The
+ * depth of each stack can optionally be limited.
  * 
  * @author Ivan Skorupan
  * @see ValueWrapper
@@ -25,18 +32,58 @@ import java.util.Objects;
 public class ObjectMultistack {
 	
 	/**
-	 * Internal map that maps each key string to a head of its stack.
+	 * Initial capacity of each virtual stack.
+	 */
+	private static final int INITIAL_CAPACITY = 4;
+	
+	/**
+	 * Internal map that maps each key string to its stack.
 	 */
 	private Map<String, MultistackEntry> virtualStacks;
 	
 	/**
-	 * Constructs a new {@link ObjectMultistack} object.
+	 * Maximum number of values in a single virtual stack.
+	 */
+	private int maxDepth;
+	
+	/**
+	 * Key of the most recently used virtual stack.
+	 */
+	private String lastKeyName;
+	
+	/**
+	 * Most recently used virtual stack.
+	 */
+	private MultistackEntry lastEntry;
+	
+	/**
+	 * Constructs a new {@link ObjectMultistack} object whose stacks
+	 * are not limited in depth.
 	 * <p>
 	 * This constructor initializes the internal (key, value) map to
 	 * an empty {@link HashMap}.
 	 */
 	public ObjectMultistack() {
+		this(Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Constructs a new {@link ObjectMultistack} object whose stacks can
+	 * contain at most <code>maxDepth</code> values each.
+	 * <p>
+	 * This constructor initializes the internal (key, value) map to
+	 * an empty {@link HashMap}.
+	 * 
+	 * @param maxDepth - maximum number of values in a single virtual stack
+	 * @throws IllegalArgumentException if <code>maxDepth</code> is less than 1
+	 */
+	public ObjectMultistack(int maxDepth) {
+		if(maxDepth < 1) {
+			throw new IllegalArgumentException("Maximum depth of a stack must be at least 1!");
+		}
+		
 		this.virtualStacks = new HashMap<>();
+		this.maxDepth = maxDepth;
 	}
 	
 	/**
@@ -48,23 +95,32 @@ public class ObjectMultistack {
 	 * @param keyName - the key to whose stack to push the value
 	 * @param valueWrapper - value to be pushed to a virtual stack mapped under <code>keyName</code>
 	 * @throws NullPointerException if <code>keyName</code> or <code>valueWrapper</code> is <code>null</code>
+	 * @throws IllegalStateException if the stack under <code>keyName</code> already contains the maximum
+	 * number of values
 	 */
 	public void push(String keyName, ValueWrapper valueWrapper) {
 		Objects.requireNonNull(keyName);
 		Objects.requireNonNull(valueWrapper);
 		
-		MultistackEntry virtualStackHead = virtualStacks.get(keyName);
+		MultistackEntry virtualStack = getStack(keyName);
 		
-		if(virtualStackHead == null) {
-			virtualStacks.put(keyName, new MultistackEntry(valueWrapper, null));
-			return;
+		if(virtualStack == null) {
+			virtualStack = new MultistackEntry();
+			virtualStacks.put(keyName, virtualStack);
+			lastKeyName = keyName;
+			lastEntry = virtualStack;
 		}
 		
-		while(virtualStackHead.next != null) {
-			virtualStackHead = virtualStackHead.next;
+		if(virtualStack.size == maxDepth) {
+			throw new IllegalStateException("Stack under key " + keyName + " exceeded the maximum depth of " + maxDepth + "!");
 		}
 		
-		virtualStackHead.next = new MultistackEntry(valueWrapper, null);
+		if(virtualStack.size == virtualStack.values.length) {
+			int newCapacity = (int) Math.min((long) maxDepth, 2L * virtualStack.values.length);
+			virtualStack.values = Arrays.copyOf(virtualStack.values, newCapacity);
+		}
+		
+		virtualStack.values[virtualStack.size++] = valueWrapper;
 	}
 	
 	/**
@@ -79,25 +135,10 @@ public class ObjectMultistack {
 	 * @throws EmptyStackException if the stack under <code>keyName</code> is empty
 	 */
 	public ValueWrapper pop(String keyName) {
-		Objects.requireNonNull(keyName);
-		
-		MultistackEntry virtualStackHead = virtualStacks.get(keyName);
-		ValueWrapper poppedValue = null;
-		
-		if(virtualStackHead == null) {
-			throw new EmptyStackException();
-		}
+		MultistackEntry virtualStack = getNonEmptyStack(keyName);
 		
-		if(virtualStackHead.next == null) {
-			return virtualStacks.remove(keyName).value;
-		}
-		
-		while(virtualStackHead.next.next != null) {
-			virtualStackHead = virtualStackHead.next;
-		}
-		
-		poppedValue = virtualStackHead.next.value;
-		virtualStackHead.next = null;
+		ValueWrapper poppedValue = virtualStack.values[--virtualStack.size];
+		virtualStack.values[virtualStack.size] = null;
 		return poppedValue;
 	}
 	
@@ -111,69 +152,102 @@ public class ObjectMultistack {
 	 * @throws EmptyStackException if stack under <code>keyName</code> is empty
 	 */
 	public ValueWrapper peek(String keyName) {
+		MultistackEntry virtualStack = getNonEmptyStack(keyName);
+		return virtualStack.values[virtualStack.size - 1];
+	}
+	
+	/**
+	 * Tests if a virtual stack under given <code>keyName</code>
+	 * is empty.
+	 * 
+	 * @param keyName - key whose stack to test for emptiness
+	 * @return <code>true</code> if the stack under <code>keyName</code> is empty, <code>false</code> otherwise
+	 * @throws NullPointerException if <code>keyName</code> is <code>null</code>
+	 */
+	public boolean isEmpty(String keyName) {
 		Objects.requireNonNull(keyName);
 		
-		MultistackEntry virtualStackHead = virtualStacks.get(keyName);
+		MultistackEntry virtualStack = getStack(keyName);
+		return virtualStack == null || virtualStack.size == 0;
+	}
+	
+	/**
+	 * Returns the number of values in the virtual stack under given
+	 * <code>keyName</code>.
+	 * 
+	 * @param keyName - key whose stack's depth to return
+	 * @return number of values in the stack under <code>keyName</code>
+	 * @throws NullPointerException if <code>keyName</code> is <code>null</code>
+	 */
+	public int depth(String keyName) {
+		Objects.requireNonNull(keyName);
 		
-		if(virtualStackHead == null) {
-			throw new EmptyStackException();
+		MultistackEntry virtualStack = getStack(keyName);
+		return virtualStack == null ? 0 : virtualStack.size;
+	}
+	
+	/**
+	 * Returns the virtual stack under given <code>keyName</code>.
+	 * <p>
+	 * Callers usually use the same string instances as keys (for example
+	 * variable names of a parsed script), so the most recently used stack is
+	 * remembered and found by comparing references before the map is searched.
+	 * 
+	 * @param keyName - key whose stack to return
+	 * @return stack under <code>keyName</code> or <code>null</code> if it was never created
+	 */
+	private MultistackEntry getStack(String keyName) {
+		if(keyName == lastKeyName) {
+			return lastEntry;
 		}
 		
-		while(virtualStackHead.next != null) {
-			virtualStackHead = virtualStackHead.next;
+		MultistackEntry virtualStack = virtualStacks.get(keyName);
+		if(virtualStack != null) {
+			lastKeyName = keyName;
+			lastEntry = virtualStack;
 		}
-		
-		return virtualStackHead.value;
+		return virtualStack;
 	}
 	
 	/**
-	 * Tests if a virtual stack under given <code>keyName</code>
-	 * is empty.
+	 * Returns the virtual stack under given <code>keyName</code>, which
+	 * must not be empty.
 	 * 
-	 * @param keyName - key whose stack to test for emptiness
-	 * @return <code>true</code> if the stack under <code>keyName</code> is empty, <code>false</code> otherwise
+	 * @param keyName - key whose stack to return
+	 * @return stack under <code>keyName</code>
 	 * @throws NullPointerException if <code>keyName</code> is <code>null</code>
+	 * @throws EmptyStackException if the stack under <code>keyName</code> is empty
 	 */
-	public boolean isEmpty(String keyName) {
+	private MultistackEntry getNonEmptyStack(String keyName) {
 		Objects.requireNonNull(keyName);
-		return virtualStacks.get(keyName) == null;
+		
+		MultistackEntry virtualStack = getStack(keyName);
+		if(virtualStack == null || virtualStack.size == 0) {
+			throw new EmptyStackException();
+		}
+		return virtualStack;
 	}
 	
 	/**
 	 * Models values (entries) for internal map of {@link ObjectMultistack}.
 	 * <p>
-	 * This entry model acts as a single-linked list whose nodes contain a value
-	 * and a reference to the next node in the list.
-	 * <p>
-	 * That kind of implementation enables the use of {@link MultistackEntry} as
-	 * a virtual stack and {@link ObjectMultistack} as a map of virtual stacks.
+	 * Each entry is a single virtual stack whose values are stored in an array,
+	 * from the bottom of the stack to its top.
 	 * 
 	 * @author Ivan Skorupan
 	 */
 	private static class MultistackEntry {
 		
 		/**
-		 * Value of this node.
+		 * Values of this stack.
 		 */
-		private ValueWrapper value;
+		private ValueWrapper[] values = new ValueWrapper[INITIAL_CAPACITY];
 		
 		/**
-		 * Reference to the next entry in the list.
+		 * Number of values in this stack.
 		 */
-		private MultistackEntry next;
+		private int size;
 		
-		/**
-		 * Constructs a new {@link MultistackEntry} object.
-		 * <p>
-		 * Both <code>value</code> and <code>next</code> can be <code>null</code>.
-		 * 
-		 * @param value - this node's value
-		 * @param next - reference to the next node after this one
-		 */
-		public MultistackEntry(ValueWrapper value, MultistackEntry next) {
-			this.value = value;
-			this.next = next;
-		}
 	}
 	
 }
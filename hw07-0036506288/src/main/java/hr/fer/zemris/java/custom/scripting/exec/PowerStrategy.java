@@ -0,0 +1,55 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import java.util.function.BiFunction;
+
+/**
+ * An implementation of {@link BiFunction} that can raise a number to
+ * the power of another number and return the result.
+ * <p>
+ * What's special about it is that this strategy can work with two arguments of type
+ * {@link Object} because it is aware of the rules described in documentation
+ * of {@link ValueWrapper}. Raising an integer to a negative power results
+ * in a {@link Double}.
+ * 
+ * @author Ivan Skorupan
+ */
+public class PowerStrategy extends ArithmeticStrategy {
+
+	/**
+	 * A shared instance of this strategy.
+	 */
+	public static final PowerStrategy INSTANCE = new PowerStrategy();
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The power is calculated by repeated squaring.
+	 * 
+	 * @throws ArithmeticException if the result can not be represented as
+	 * a <code>long</code> or if <code>u</code> is negative
+	 */
+	@Override
+	public long applyLong(long t, long u) {
+		if(u < 0) {
+			throw new ArithmeticException("negative exponent");
+		}
+
+		long result = 1;
+		while(u > 0) {
+			if((u & 1) != 0) {
+				result = Math.multiplyExact(result, t);
+			}
+			u >>= 1;
+			if(u > 0) {
+				t = Math.multiplyExact(t, t);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public double applyDouble(double t, double u) {
+		return Math.pow(t, u);
+	}
+	
+}
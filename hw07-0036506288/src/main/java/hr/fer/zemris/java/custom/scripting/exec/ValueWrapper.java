@@ -1,6 +1,8 @@
 package hr.fer.zemris.java.custom.scripting.exec;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Models objects that can wrap any kind of object as
@@ -18,13 +20,16 @@ import java.util.Objects;
  * <ol>
  * 	<li>If either current value or argument is <code>null</code>, that value is treated as being
  * equal to {@link Integer} with value 0.</li>
- * 	<li> If current value and argument are not null, they can be instances of {@link Integer}, {@link Double} or {@link String}.
+ * 	<li> If current value and argument are not null, they can be instances of {@link Integer}, {@link Long}, {@link Double},
+ * {@link String} or {@link ValueWrapper} (in which case its value is used).
  * For each value that is a {@link String}, it is checked if string literal is a decimal value (i.e. if somewhere
- * it has a symbol '.' or 'E'). If it is a decimal value, it is treated as such; otherwise, it is treated as an Integer.
+ * it has a symbol '.' or 'E'). If it is a decimal value, it is treated as such; otherwise, it is treated as an integer.
  * </li>
  * 	<li>If either current value or argument is {@link Double}, operation is performed on Doubles, and
- * the result is stored as an instance of {@link Double}. If not, both arguments must be Integers so the
- * operation is performed on Integers and the result stored as an {@link Integer}.</li>
+ * the result is stored as an instance of {@link Double}. If not, both arguments must be integers so the
+ * operation is performed on integers and the result stored as an {@link Integer}, or as a {@link Long}
+ * if it doesn't fit into an {@link Integer}. If the result doesn't fit into a {@link Long} either, the
+ * operation is performed on Doubles instead.</li>
  * </ol>
  * Additional rules for comparison operation is:
  * <ul>
@@ -32,23 +37,74 @@ import java.util.Objects;
  * 	<li>If one is <code>null</code> and the other is not, the null-value is treated as being equal to an integer with value 0.</li>
  * 	<li>Otherwise, both values are promoted to the same type as described for arithmetic methods and then the comparison is performed.</li>
  * </ul>
+ * <p>
+ * Internally, the numeric value of the wrapped object is kept as a primitive
+ * <code>long</code> or <code>double</code> once it is known, so a chain of
+ * operations on the same wrapper neither parses nor boxes intermediate values.
+ * Results are boxed only when they are fetched using {@link #getValue()}.
  * 
  * @author Ivan Skorupan
  */
 public class ValueWrapper {
 
+	/**
+	 * Numeric type of the wrapped value which is not known yet.
+	 */
+	private static final int UNKNOWN = 0;
+
+	/**
+	 * Numeric type of wrapped integers, stored in {@link #longValue}.
+	 */
+	private static final int LONG = 1;
+
+	/**
+	 * Numeric type of wrapped decimal numbers, stored in {@link #doubleValue}.
+	 */
+	private static final int DOUBLE = 2;
+
+	/**
+	 * Maximum number of parsed strings that are remembered.
+	 */
+	private static final int PARSED_STRINGS_CAPACITY = 1024;
+
+	/**
+	 * Numeric values of already parsed strings mapped by those strings.
+	 */
+	private static final Map<String, Number> PARSED_STRINGS = new ConcurrentHashMap<>();
+
 	/**
 	 * Internally stored wrapped object.
 	 */
 	private Object value;
 
+	/**
+	 * Flag that indicates if {@link #value} has to be created from the
+	 * numeric value because it was changed by an operation.
+	 */
+	private boolean valueStale;
+
+	/**
+	 * Numeric type of the wrapped value.
+	 */
+	private int type;
+
+	/**
+	 * Wrapped value if it is an integer.
+	 */
+	private long longValue;
+
+	/**
+	 * Wrapped value if it is a decimal number.
+	 */
+	private double doubleValue;
+
 	/**
 	 * Constructs a new {@link ValueWrapper} object.
 	 * <p>
 	 * The argument to the constructor is the value to be
 	 * wrapped by this wrapper. That value can be <code>null</code>.
 	 * 
-	 * @param value
+	 * @param value - value to be wrapped
 	 */
 	public ValueWrapper(Object value) {
 		this.value = value;
@@ -60,6 +116,16 @@ public class ValueWrapper {
 	 * @return internally stored object reference
 	 */
 	public Object getValue() {
+		if(valueStale) {
+			if(type == DOUBLE) {
+				value = Double.valueOf(doubleValue);
+			} else if((int) longValue == longValue) {
+				value = Integer.valueOf((int) longValue);
+			} else {
+				value = Long.valueOf(longValue);
+			}
+			valueStale = false;
+		}
 		return value;
 	}
 
@@ -70,6 +136,8 @@ public class ValueWrapper {
 	 */
 	public void setValue(Object value) {
 		this.value = value;
+		this.valueStale = false;
+		this.type = UNKNOWN;
 	}
 
 	/**
@@ -88,11 +156,7 @@ public class ValueWrapper {
 	 * operands are not valid
 	 */
 	public void add(Object incValue) {
-		value = checkAndPrepareInstance(value);
-		incValue = checkAndPrepareInstance(incValue);
-
-		AdditionStrategy as = new AdditionStrategy();
-		value = as.apply(value, incValue);
+		operate(AdditionStrategy.INSTANCE, incValue);
 	}
 
 	/**
@@ -111,11 +175,7 @@ public class ValueWrapper {
 	 * operands are not valid
 	 */
 	public void subtract(Object decValue) {
-		value = checkAndPrepareInstance(value);
-		decValue = checkAndPrepareInstance(decValue);
-
-		SubtractionStrategy ss = new SubtractionStrategy();
-		value = ss.apply(value, decValue);
+		operate(SubtractionStrategy.INSTANCE, decValue);
 	}
 
 	/**
@@ -134,11 +194,7 @@ public class ValueWrapper {
 	 * operands are not valid
 	 */
 	public void multiply(Object mulValue) {
-		value = checkAndPrepareInstance(value);
-		mulValue = checkAndPrepareInstance(mulValue);
-
-		MultiplicationStrategy ms = new MultiplicationStrategy();
-		value = ms.apply(value, mulValue);
+		operate(MultiplicationStrategy.INSTANCE, mulValue);
 	}
 
 	/**
@@ -157,11 +213,41 @@ public class ValueWrapper {
 	 * operands are not valid
 	 */
 	public void divide(Object divValue) {
-		value = checkAndPrepareInstance(value);
-		divValue = checkAndPrepareInstance(divValue);
+		operate(DivisionStrategy.INSTANCE, divValue);
+	}
 
-		DivisionStrategy ds = new DivisionStrategy();
-		value = ds.apply(value, divValue);
+	/**
+	 * Sets the current value to the remainder of its division with
+	 * provided argument value.
+	 * <p>
+	 * This method modifies the current wrapped value.
+	 * <p>
+	 * The rules are described in documentation of
+	 * {@link ValueWrapper}.
+	 * 
+	 * @param divValue - value to divide the current wrapped value by
+	 * @throws RuntimeException if it is established that one of the
+	 * operands are not valid
+	 */
+	public void modulo(Object divValue) {
+		operate(ModuloStrategy.INSTANCE, divValue);
+	}
+
+	/**
+	 * Raises the current value to the power of provided argument value.
+	 * <p>
+	 * This method modifies the current wrapped value.
+	 * <p>
+	 * The rules are described in documentation of
+	 * {@link ValueWrapper}. Additionally, an integer raised to a
+	 * negative power results in a {@link Double}.
+	 * 
+	 * @param expValue - exponent to raise the current wrapped value to
+	 * @throws RuntimeException if it is established that one of the
+	 * operands are not valid
+	 */
+	public void power(Object expValue) {
+		operate(PowerStrategy.INSTANCE, expValue);
 	}
 
 	/**
@@ -174,15 +260,96 @@ public class ValueWrapper {
 	 * {@link ValueWrapper}.
 	 * 
 	 * @param withValue - value to compare the current wrapped value with
+	 * @return a negative integer, zero, or a positive integer as the current value
+	 * is less than, equal to, or greater than the argument value
 	 * @throws RuntimeException if it is established that one of the comparison
 	 * operands are not valid
 	 */
 	public int numCompare(Object withValue) {
-		value = checkAndPrepareInstance(value);
-		withValue = checkAndPrepareInstance(withValue);
+		resolve();
+		// just like arithmetic operations, comparison stores the parsed number instead of the original object
+		if(!(value instanceof Number)) {
+			valueStale = true;
+		}
+		ValueWrapper other = toWrapper(withValue);
+
+		if(type == LONG && other.type == LONG) {
+			return Long.compare(longValue, other.longValue);
+		}
+		return Double.compare(asDouble(), other.asDouble());
+	}
+
+	/**
+	 * Applies the given arithmetic operation to the current value and
+	 * provided argument value and stores the result as the current value.
+	 * 
+	 * @param strategy - operation to apply
+	 * @param argument - second operand of the operation
+	 * @throws RuntimeException if it is established that one of the
+	 * operands are not valid
+	 */
+	void operate(ArithmeticStrategy strategy, Object argument) {
+		resolve();
+		ValueWrapper other = toWrapper(argument);
+
+		if(type == LONG && other.type == LONG) {
+			try {
+				longValue = strategy.applyLong(longValue, other.longValue);
+				valueStale = true;
+				return;
+			} catch(ArithmeticException overflow) {
+				// the result doesn't fit into a long, so the operation is repeated on doubles
+			}
+		}
 
-		ComparisonStrategy cs = new ComparisonStrategy();
-		return cs.compare(value, withValue);
+		doubleValue = strategy.applyDouble(asDouble(), other.asDouble());
+		type = DOUBLE;
+		valueStale = true;
+	}
+
+	/**
+	 * Returns the current numeric value as a <code>double</code>. The
+	 * numeric type of the value must already be resolved.
+	 * 
+	 * @return current numeric value
+	 */
+	private double asDouble() {
+		return type == DOUBLE ? doubleValue : longValue;
+	}
+
+	/**
+	 * Resolves the numeric type and value of the wrapped object, unless
+	 * it was already resolved.
+	 * 
+	 * @throws RuntimeException if the wrapped object is not of valid type for
+	 * mathematical and comparison operations or if it is a {@link String} which
+	 * doesn't contain a valid number
+	 */
+	private void resolve() {
+		if(type != UNKNOWN) return;
+
+		Number number = checkAndPrepareInstance(value);
+		if(number instanceof Double) {
+			doubleValue = number.doubleValue();
+			type = DOUBLE;
+		} else {
+			longValue = number.longValue();
+			type = LONG;
+		}
+	}
+
+	/**
+	 * Returns a wrapper with resolved numeric value of given operation argument.
+	 * If the argument is a wrapper itself, no new wrapper is created.
+	 * 
+	 * @param o - argument of an operation
+	 * @return wrapper of the argument's numeric value
+	 * @throws RuntimeException if the argument is not valid
+	 */
+	private static ValueWrapper toWrapper(Object o) {
+		ValueWrapper wrapper = (o instanceof ValueWrapper) ? (ValueWrapper) o : new ValueWrapper(o);
+		wrapper.resolve();
+		return wrapper;
 	}
 	
 	/**
@@ -190,7 +357,7 @@ public class ValueWrapper {
 	 * in order to perform an arithmetic or comparison operation
 	 * with it.
 	 * <p>
-	 * Returns a reference to an object using following rules:
+	 * Returns a reference to a number using following rules:
 	 * <ul>
 	 * 	<li>If <code>o</code> is <code>null</code>, it returns an {@link Integer} of value 0.</li>
 	 * 	<li>If <code>o</code> is a {@link String}, it tries to parse a numeric value from it and returns it.</li>
@@ -198,18 +365,18 @@ public class ValueWrapper {
 	 * </ul>
 	 * 
 	 * @param o - object to check and prepare
-	 * @return object reference based on above-mentioned rules
+	 * @return number based on above-mentioned rules
 	 * @throws RuntimeException if <code>o</code> is not of valid type for mathematical and comparison operations
 	 * or if there was an error parsing the numerical value from <code>o</code> in case it is a {@link String}.
 	 */
-	private Object checkAndPrepareInstance(Object o) {
+	private static Number checkAndPrepareInstance(Object o) {
 		if(!isOfValidInstance(o)) {
 			throw new RuntimeException("One of the operands is not of appropriate type for this operation to be performed!");
 		}
 
 		if(o == null) return Integer.valueOf(0);
 		if(o instanceof String) return parseString((String) o);
-		return o;
+		return (Number) o;
 	}
 
 	/**
@@ -220,36 +387,49 @@ public class ValueWrapper {
 	 * @return <code>true</code> if <code>o</code> is of valid type for mathematical and conparison operations,
 	 * <code>false</code> otherwise
 	 */
-	private boolean isOfValidInstance(Object o) {
-		return !(o != null && !(o instanceof Integer) && !(o instanceof Double) && !(o instanceof String));
+	private static boolean isOfValidInstance(Object o) {
+		return o == null || o instanceof Integer || o instanceof Double || o instanceof String || o instanceof Long;
 	}
 
 	/**
-	 * Parses a numeric value ({@link Double}, {@link Integer}) from the passed string.
+	 * Parses a numeric value ({@link Double}, {@link Integer}, {@link Long}) from the passed string.
 	 * <p>
-	 * If no numeric value could be parsed, an exception is thrown.
+	 * Parsed values are remembered, so parsing the same string again doesn't
+	 * have to be done. If no numeric value could be parsed, an exception is thrown.
 	 * 
 	 * @param o - string to parse the numeric value from
 	 * @return parsed numeric value of the given string
 	 * @throws RuntimeException if parsing resulted in failure because the string is not a valid number
 	 * @throws NullPointerException if <code>o</code> is <code>null</code>
 	 */
-	private Number parseString(String o) {
+	private static Number parseString(String o) {
 		Objects.requireNonNull(o);
+
+		Number number = PARSED_STRINGS.get(o);
+		if(number != null) {
+			return number;
+		}
 		
-		if(o.contains(".") || o.toUpperCase().contains("E")) {
+		if(o.indexOf('.') >= 0 || o.indexOf('E') >= 0 || o.indexOf('e') >= 0) {
 			try {
-				return Double.parseDouble(o);
+				number = Double.parseDouble(o);
 			} catch(NumberFormatException ex) {
 				throw new RuntimeException("Cannot parse a double value from an operand because the string is not a valid floating point number!");
 			}
 		} else {
 			try {
-				return Integer.parseInt(o);
+				long parsed = Long.parseLong(o);
+				number = ((int) parsed == parsed) ? (Number) Integer.valueOf((int) parsed) : (Number) Long.valueOf(parsed);
 			} catch(NumberFormatException ex) {
 				throw new RuntimeException("Cannot parse an integer value from an operand because the string is not a valid integer!");
 			}
 		}
+
+		if(PARSED_STRINGS.size() >= PARSED_STRINGS_CAPACITY) {
+			PARSED_STRINGS.clear();
+		}
+		PARSED_STRINGS.put(o, number);
+		return number;
 	}
 
 }
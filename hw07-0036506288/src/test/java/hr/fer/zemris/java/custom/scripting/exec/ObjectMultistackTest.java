@@ -85,4 +85,59 @@ class ObjectMultistackTest {
 		assertThrows(NullPointerException.class, () -> multistack.isEmpty(null));
 	}
 
+
+	@Test
+	void testDeepStack() {
+		ObjectMultistack multistack = new ObjectMultistack();
+		
+		for(int i = 0; i < 100_000; i++) {
+			multistack.push("deep", new ValueWrapper(i));
+			multistack.push("other", new ValueWrapper(-i));
+		}
+		assertEquals(100_000, multistack.depth("deep"));
+		
+		for(int i = 99_999; i >= 0; i--) {
+			assertEquals(i, multistack.peek("deep").getValue());
+			assertEquals(i, multistack.pop("deep").getValue());
+			assertEquals(-i, multistack.pop("other").getValue());
+		}
+		
+		assertEquals(true, multistack.isEmpty("deep"));
+		assertThrows(EmptyStackException.class, () -> multistack.pop("deep"));
+		
+		multistack.push("deep", new ValueWrapper(5));
+		assertEquals(5, multistack.peek("deep").getValue());
+	}
+
+	@Test
+	void testMaxDepth() {
+		ObjectMultistack multistack = new ObjectMultistack(2);
+		
+		multistack.push("key", new ValueWrapper(1));
+		multistack.push("key", new ValueWrapper(2));
+		multistack.push("another", new ValueWrapper(3));
+		assertThrows(IllegalStateException.class, () -> multistack.push("key", new ValueWrapper(3)));
+		assertEquals(2, multistack.depth("key"));
+		
+		multistack.pop("key");
+		multistack.push("key", new ValueWrapper(4));
+		assertEquals(4, multistack.peek("key").getValue());
+		
+		assertThrows(IllegalArgumentException.class, () -> new ObjectMultistack(0));
+	}
+
+	@Test
+	void testDepth() {
+		ObjectMultistack multistack = new ObjectMultistack();
+		assertEquals(0, multistack.depth("key"));
+		
+		multistack.push(new String("key"), new ValueWrapper(1));
+		multistack.push(new String("key"), new ValueWrapper(2));
+		assertEquals(2, multistack.depth("key"));
+		assertEquals(0, multistack.depth("another"));
+		assertEquals(2, multistack.depth(new String("key")));
+		
+		assertThrows(NullPointerException.class, () -> multistack.depth(null));
+	}
+
 }
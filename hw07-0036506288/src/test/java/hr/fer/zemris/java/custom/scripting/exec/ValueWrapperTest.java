@@ -154,6 +154,110 @@ class ValueWrapperTest {
 		assertThrows(RuntimeException.class, () -> vw.divide(null));
 	}
 
+	@Test
+	void testModulo() {
+		ValueWrapper vw = new ValueWrapper(17);
+		vw.modulo(5);
+		assertEquals(2, vw.getValue());
+		
+		vw.setValue("7.5");
+		vw.modulo(2);
+		assertEquals(1.5, (Double) vw.getValue(), DELTA);
+		
+		vw.setValue(-7);
+		vw.modulo("3");
+		assertEquals(-1, vw.getValue());
+		
+		vw.setValue(5);
+		assertThrows(RuntimeException.class, () -> vw.modulo(null));
+	}
+
+	@Test
+	void testPower() {
+		ValueWrapper vw = new ValueWrapper(2);
+		vw.power(10);
+		assertEquals(1024, vw.getValue());
+		
+		vw.setValue(2);
+		vw.power(-1);
+		assertEquals(0.5, (Double) vw.getValue(), DELTA);
+		
+		vw.setValue("9");
+		vw.power(0.5);
+		assertEquals(3.0, (Double) vw.getValue(), DELTA);
+		
+		vw.setValue(null);
+		vw.power(0);
+		assertEquals(1, vw.getValue());
+		
+		vw.setValue(2);
+		vw.power(62);
+		assertEquals(1L << 62, vw.getValue());
+		
+		vw.power(2);
+		assertEquals(Math.pow(2, 124), (Double) vw.getValue(), DELTA);
+	}
+
+	@Test
+	void testOverflowPromotion() {
+		ValueWrapper vw = new ValueWrapper(Integer.MAX_VALUE);
+		vw.add(1);
+		assertEquals(Integer.MAX_VALUE + 1L, vw.getValue());
+		
+		vw.subtract(1);
+		assertEquals(Integer.MAX_VALUE, vw.getValue());
+		
+		vw.setValue(Long.MAX_VALUE);
+		vw.add(1);
+		assertEquals(Long.MAX_VALUE + 1.0, (Double) vw.getValue(), DELTA);
+		
+		vw.setValue(Long.MIN_VALUE);
+		vw.divide(-1);
+		assertEquals(-(double) Long.MIN_VALUE, (Double) vw.getValue(), DELTA);
+		
+		vw.setValue("10000000000");
+		vw.multiply("10000000000");
+		assertEquals(1e20, (Double) vw.getValue(), DELTA);
+	}
+
+	@Test
+	void testWrapperArgument() {
+		ValueWrapper counter = new ValueWrapper("1");
+		ValueWrapper step = new ValueWrapper("2.5");
+		
+		counter.add(step);
+		counter.add(step);
+		assertEquals(6.0, (Double) counter.getValue(), DELTA);
+		assertEquals("2.5", step.getValue());
+		assertEquals(true, counter.numCompare(step) > 0);
+		
+		counter.setValue(3);
+		counter.multiply(counter);
+		assertEquals(9, counter.getValue());
+		
+		assertThrows(RuntimeException.class, () -> counter.add(new ValueWrapper(new Object())));
+	}
+
+	@Test
+	void testChainedOperations() {
+		ValueWrapper vw = new ValueWrapper(0);
+		for(int i = 1; i <= 100; i++) {
+			vw.add(i);
+		}
+		assertEquals(5050, vw.getValue());
+		
+		vw.add(1);
+		assertEquals(true, vw.numCompare(5051) == 0);
+		assertEquals(5051, vw.getValue());
+		
+		vw.setValue(1);
+		for(int i = 0; i < 20; i++) {
+			vw.multiply(3);
+			vw.modulo(1000);
+		}
+		assertEquals(401, vw.getValue());
+	}
+
 	@Test
 	void testNumCompare() {
 		ValueWrapper vw = new ValueWrapper(3.14);
@@ -1,16 +1,16 @@
 package hr.fer.zemris.java.fractals;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 import hr.fer.zemris.java.fractals.viewer.FractalViewer;
 import hr.fer.zemris.java.fractals.viewer.IFractalProducer;
@@ -87,12 +87,16 @@ public class Newton {
 	}
 	
 	/**
-	 * Models objects that know how to perform a Newton-Rhapson iteration method
-	 * on given polynomial for a given set of pixels.
+	 * Models the Newton-Raphson iteration for one polynomial.
+	 * <p>
+	 * Coefficients of the polynomial, coefficients of its derivative and its roots
+	 * are converted to primitive <code>double</code> arrays once, so that iterating
+	 * for a single point evaluates both polynomials using Horner's method and does
+	 * not allocate any objects.
 	 * 
 	 * @author Ivan Skorupan
 	 */
-	public static class NewtonRhapsonCalculation implements Callable<Void> {
+	public static class NewtonKernel {
 		
 		/**
 		 * Maximum difference between current iteration value and last
@@ -107,6 +111,179 @@ public class Newton {
 		 */
 		private static final double ROOT_THRESHOLD = 2e-3;
 		
+		/**
+		 * Real parts of polynomial coefficients, starting with the highest power.
+		 */
+		private final double[] factorsRe;
+		
+		/**
+		 * Imaginary parts of polynomial coefficients, starting with the highest power.
+		 */
+		private final double[] factorsIm;
+		
+		/**
+		 * Real parts of derivative coefficients, starting with the highest power.
+		 */
+		private final double[] derivedRe;
+		
+		/**
+		 * Imaginary parts of derivative coefficients, starting with the highest power.
+		 */
+		private final double[] derivedIm;
+		
+		/**
+		 * Real parts of polynomial roots.
+		 */
+		private final double[] rootsRe;
+		
+		/**
+		 * Imaginary parts of polynomial roots.
+		 */
+		private final double[] rootsIm;
+		
+		/**
+		 * Maximum number of iterations to perform.
+		 */
+		private final int maxIterations;
+		
+		/**
+		 * Constructs a new {@link NewtonKernel} object.
+		 * 
+		 * @param rootedPolynomial - polynomial on which the Newton-Rhapson iterations are performed
+		 * @param maxIterations - maximum number of iterations to perform
+		 * @throws NullPointerException if <code>rootedPolynomial</code> is <code>null</code>
+		 */
+		public NewtonKernel(ComplexRootedPolynomial rootedPolynomial, int maxIterations) {
+			Objects.requireNonNull(rootedPolynomial);
+			ComplexPolynomial polynomial = rootedPolynomial.toComplexPolynom();
+			
+			Complex[] factors = polynomial.getFactors();
+			Complex[] derived = polynomial.derive().getFactors();
+			Complex[] roots = rootedPolynomial.getRoots();
+			
+			factorsRe = realParts(factors);
+			factorsIm = imaginaryParts(factors);
+			derivedRe = realParts(derived);
+			derivedIm = imaginaryParts(derived);
+			rootsRe = realParts(roots);
+			rootsIm = imaginaryParts(roots);
+			this.maxIterations = maxIterations;
+		}
+		
+		/**
+		 * Performs the Newton-Raphson iteration starting at the given point and
+		 * returns the resulting pixel value.
+		 * 
+		 * @param re - real part of the starting point
+		 * @param im - imaginary part of the starting point
+		 * @return index of the closest root (starting from 1) to which the iteration
+		 *         converged or 0 if there is no root close enough
+		 */
+		public short iterate(double re, double im) {
+			double zRe = re;
+			double zIm = im;
+			double module = 0;
+			int iter = 0;
+			
+			do {
+				// Horner's method for f(z) and f'(z)
+				double fRe = factorsRe[0];
+				double fIm = factorsIm[0];
+				for(int i = 1; i < factorsRe.length; i++) {
+					double temp = fRe * zRe - fIm * zIm + factorsRe[i];
+					fIm = fRe * zIm + fIm * zRe + factorsIm[i];
+					fRe = temp;
+				}
+				
+				double dRe = derivedRe[0];
+				double dIm = derivedIm[0];
+				for(int i = 1; i < derivedRe.length; i++) {
+					double temp = dRe * zRe - dIm * zIm + derivedRe[i];
+					dIm = dRe * zIm + dIm * zRe + derivedIm[i];
+					dRe = temp;
+				}
+				
+				// step = f(z) / f'(z)
+				double denominator = dRe * dRe + dIm * dIm;
+				double stepRe = (fRe * dRe + fIm * dIm) / denominator;
+				double stepIm = (fIm * dRe - fRe * dIm) / denominator;
+				
+				zRe -= stepRe;
+				zIm -= stepIm;
+				module = Math.sqrt(stepRe * stepRe + stepIm * stepIm);
+				iter++;
+			} while(module > CONVERGENCE_THRESHOLD && iter < maxIterations);
+			
+			return (short) (indexOfClosestRoot(zRe, zIm) + 1);
+		}
+		
+		/**
+		 * Finds index of the closest root to the given point that is within {@link #ROOT_THRESHOLD}.
+		 * 
+		 * @param re - real part of the point
+		 * @param im - imaginary part of the point
+		 * @return index of the closest root or -1 if there is no root close enough
+		 */
+		private int indexOfClosestRoot(double re, double im) {
+			int closestIndex = -1;
+			double closest = ROOT_THRESHOLD;
+			
+			for(int i = 0; i < rootsRe.length; i++) {
+				double distance = Math.hypot(re - rootsRe[i], im - rootsIm[i]);
+				if(distance <= closest && (closestIndex == -1 || distance < closest)) {
+					closest = distance;
+					closestIndex = i;
+				}
+			}
+			
+			return closestIndex;
+		}
+		
+		/**
+		 * Returns real parts of the given complex numbers.
+		 * 
+		 * @param numbers - complex numbers
+		 * @return array of real parts
+		 */
+		private static double[] realParts(Complex[] numbers) {
+			double[] parts = new double[numbers.length];
+			for(int i = 0; i < parts.length; i++) {
+				parts[i] = numbers[i].getReal();
+			}
+			return parts;
+		}
+		
+		/**
+		 * Returns imaginary parts of the given complex numbers.
+		 * 
+		 * @param numbers - complex numbers
+		 * @return array of imaginary parts
+		 */
+		private static double[] imaginaryParts(Complex[] numbers) {
+			double[] parts = new double[numbers.length];
+			for(int i = 0; i < parts.length; i++) {
+				parts[i] = numbers[i].getImaginary();
+			}
+			return parts;
+		}
+		
+	}
+	
+	/**
+	 * Models objects that know how to perform a Newton-Rhapson iteration method
+	 * on given polynomial for one rectangular tile of pixels.
+	 * <p>
+	 * A tile can be calculated coarsely, by iterating only for the top left pixel
+	 * of each <code>block x block</code> square and filling the whole square with
+	 * the result, or finely, by iterating for every pixel which was not already
+	 * calculated by the coarse pass.
+	 * <p>
+	 * The job stops early once its frame becomes stale.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	public static class NewtonRhapsonCalculation implements Callable<Void> {
+		
 		/**
 		 * Minimum real part of complex plane for pixels to be mapped to.
 		 */
@@ -137,6 +314,16 @@ public class Newton {
 		 */
 		int height;
 		
+		/**
+		 * Minimum x coordinate this job should work on.
+		 */
+		int xMin;
+		
+		/**
+		 * Maximum x coordinate this job should work on.
+		 */
+		int xMax;
+		
 		/**
 		 * Minimum y coordinate this job should work on.
 		 */
@@ -148,29 +335,29 @@ public class Newton {
 		int yMax;
 		
 		/**
-		 * Maximum number of iterations to perform.
+		 * Size of the coarse pass block.
 		 */
-		int m;
+		int block;
 		
 		/**
-		 * An array containing the resulting data for each pixel (width * height elements).
+		 * Flag that tells if this job performs the coarse pass.
 		 */
-		short[] data;
+		boolean coarse;
 		
 		/**
-		 * Object used to cancel rendering of image.
+		 * An array containing the resulting data for each pixel (width * height elements).
 		 */
-		AtomicBoolean cancel;
+		short[] data;
 		
 		/**
-		 * Polynomial on which the Newton-Rhapson iterations are performed in rooted form.
+		 * Object which tells if this job's frame is stale and should not be calculated anymore.
 		 */
-		ComplexRootedPolynomial rootedPolynomial;
+		BooleanSupplier cancel;
 		
 		/**
-		 * Polynomial on which the Newton-Rhapson iterations are performed in standard form.
+		 * Kernel which performs the iteration for a single pixel.
 		 */
-		ComplexPolynomial polynomial;
+		NewtonKernel kernel;
 		
 		/**
 		 * Constructs a new {@link NewtonRhapsonCalculation} object and takes
@@ -183,52 +370,69 @@ public class Newton {
 		 * @param imMax - maximum imaginary part of complex plane for pixels to be mapped to
 		 * @param width - GUI window width
 		 * @param height - GUI window height
+		 * @param xMin - minimum x coordinate this job should work on
+		 * @param xMax - maximum x coordinate this job should work on
 		 * @param yMin - minimum y coordinate this job should work on
 		 * @param yMax - maximum y coordinate this job should work on
-		 * @param m - maximum number of iterations to perform
+		 * @param block - size of the coarse pass block
+		 * @param coarse - <code>true</code> for the coarse pass, <code>false</code> for the fine pass
 		 * @param data - an array containing the resulting data for each pixel
-		 * @param rootedPolynomial - polynomial on which the Newton-Rhapson iterations are performed in rooted form
-		 * @throws NullPointerException if any of: <code>data, cancel, rootedPolynomial</code>
+		 * @param cancel - object which tells if the frame is stale
+		 * @param kernel - kernel which performs the iteration for a single pixel
+		 * @throws NullPointerException if any of: <code>data, cancel, kernel</code>
 		 * arguments are <code>null</code>
 		 */
 		public NewtonRhapsonCalculation(double reMin, double reMax, double imMin,
-				double imMax, int width, int height, int yMin, int yMax, 
-				int m, short[] data, ComplexRootedPolynomial rootedPolynomial) {
+				double imMax, int width, int height, int xMin, int xMax, int yMin, int yMax,
+				int block, boolean coarse, short[] data, BooleanSupplier cancel, NewtonKernel kernel) {
 			this.reMin = reMin;
 			this.reMax = reMax;
 			this.imMin = imMin;
 			this.imMax = imMax;
 			this.width = width;
 			this.height = height;
+			this.xMin = xMin;
+			this.xMax = xMax;
 			this.yMin = yMin;
 			this.yMax = yMax;
-			this.m = m;
+			this.block = block;
+			this.coarse = coarse;
 			this.data = Objects.requireNonNull(data);
 			this.cancel = Objects.requireNonNull(cancel);
-			this.rootedPolynomial = Objects.requireNonNull(rootedPolynomial);
-			this.polynomial = rootedPolynomial.toComplexPolynom();
+			this.kernel = Objects.requireNonNull(kernel);
 		}
 		
 		@Override
 		public Void call() {
-			int offset = yMin * width;
-			for(int i = yMin; i <= yMax; i++) {
-				for(int j = 0; j < width; j++) {
-					Complex c = mapToComplexPlain(j, i, 0, width - 1, 0, height - 1, reMin, reMax, imMin, imMax);
-					Complex zn = c;
-					Complex znOld = null;
-					double module = 0;
-					int iter = 0;
+			double reStep = (reMax - reMin) / Math.max(width - 1, 1);
+			double imStep = (imMax - imMin) / Math.max(height - 1, 1);
+			
+			for(int y = yMin; y <= yMax; y++) {
+				if(cancel.getAsBoolean()) {
+					return null;
+				}
+				
+				boolean blockRow = y % block == 0;
+				if(coarse && !blockRow) {
+					continue;
+				}
+				
+				double imaginary = imMax - y * imStep;
+				int offset = y * width;
+				
+				for(int x = xMin; x <= xMax; x++) {
+					boolean blockColumn = x % block == 0;
+					if(coarse != (blockRow && blockColumn)) {
+						continue;
+					}
 					
-					do {
-						znOld = zn;
-						zn = zn.sub(polynomial.apply(zn).divide(polynomial.derive().apply(zn)));
-						module = znOld.sub(zn).module();
-						iter++;
-					} while(module > CONVERGENCE_THRESHOLD && iter < m);
+					short value = kernel.iterate(x * reStep + reMin, imaginary);
 					
-					int index = rootedPolynomial.indexOfClosestRootFor(zn, ROOT_THRESHOLD);
-					data[offset++] = (short) (index + 1);
+					if(coarse) {
+						fillBlock(x, y, value);
+					} else {
+						data[offset + x] = value;
+					}
 				}
 			}
 			
@@ -236,27 +440,19 @@ public class Newton {
 		}
 		
 		/**
-		 * Maps the given pixel defined by its coordinates on the screen to the area
-		 * of complex plane defined by <code>reMin, reMax, imMin, imMax</code>.
+		 * Fills the coarse pass block whose top left pixel is (<code>x</code>, <code>y</code>).
 		 * 
-		 * @param x - x coordinate of current pixel
-		 * @param y - y coordinate of current pixel
-		 * @param xMin
-		 * @param xMax
-		 * @param yMin
-		 * @param yMax
-		 * @param reMin - lowest x-axis value of the complex plane
-		 * @param reMax - highest x-axis value of the complex plane
-		 * @param imMin - lowest y-axis value of the complex plane
-		 * @param imMax - highest y-axis value of the complex plane
-		 * @return a complex number mapped to the defined complex plane area from the given pixel
-		 */
-		private Complex mapToComplexPlain(int x, int y, int xMin, int xMax, int yMin, int yMax, double reMin,
-				double reMax, double imMin, double imMax) {
-			double real = (x * (reMax - reMin) / (xMax - xMin)) + reMin;
-			double imaginary = imMax - (y * (imMax - imMin) / (yMax - yMin));
+		 * @param x - x coordinate of the block's top left pixel
+		 * @param y - y coordinate of the block's top left pixel
+		 * @param value - value to fill the block with
+		 */
+		private void fillBlock(int x, int y, short value) {
+			int xEnd = Math.min(x + block - 1, xMax);
+			int yEnd = Math.min(y + block - 1, yMax);
 			
-			return new Complex(real, imaginary);
+			for(int i = y; i <= yEnd; i++) {
+				Arrays.fill(data, i * width + x, i * width + xEnd + 1, value);
+			}
 		}
 		
 	}
@@ -264,6 +460,11 @@ public class Newton {
 	/**
 	 * This class is an implementation of {@link IFractalProducer} that
 	 * produces fractals using the Newton-Raphson iteration method.
+	 * <p>
+	 * All frames are calculated on one long-lived work-stealing pool, split into
+	 * square tiles. A coarse preview of each frame is published first and then
+	 * refined to full resolution. Once a newer frame is requested, the tiles of
+	 * the older one stop and its results are never published.
 	 * 
 	 * @author Ivan Skorupan
 	 */
@@ -275,9 +476,34 @@ public class Newton {
 		private static final int MAX_ITER = 4096;
 		
 		/**
-		 * Polynomial used for fractal generation.
+		 * Width and height of a tile in pixels.
+		 */
+		private static final int TILE_SIZE = 64;
+		
+		/**
+		 * Size of the block calculated as one pixel in the preview pass.
 		 */
-		private ComplexRootedPolynomial polynomial;
+		private static final int PREVIEW_BLOCK = 4;
+		
+		/**
+		 * Pool on which all frames are calculated. Its threads are daemonic.
+		 */
+		private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		
+		/**
+		 * Number of the newest requested frame.
+		 */
+		private final AtomicLong latestRequest = new AtomicLong(Long.MIN_VALUE);
+		
+		/**
+		 * Kernel used for fractal generation.
+		 */
+		private NewtonKernel kernel;
+		
+		/**
+		 * Number of colors the result uses.
+		 */
+		private short numberOfColors;
 
 		/**
 		 * Constructs a new {@link NewtonFractalProducer} object
@@ -288,60 +514,45 @@ public class Newton {
 		 * @throws NullPointerException if <code>polynomial</code> is <code>null</code>
 		 */
 		public NewtonFractalProducer(ComplexRootedPolynomial polynomial) {
-			this.polynomial = Objects.requireNonNull(polynomial);
+			Objects.requireNonNull(polynomial);
+			this.kernel = new NewtonKernel(polynomial, MAX_ITER);
+			this.numberOfColors = (short) (polynomial.toComplexPolynom().order() + 1);
 		}
 
 		@Override
 		public void produce(double reMin, double reMax, double imMin, double imMax,
 				int width, int height, long requestNo, IFractalResultObserver observer) {
+			latestRequest.accumulateAndGet(requestNo, Math::max);
+			BooleanSupplier cancel = () -> latestRequest.get() != requestNo;
 			short[] data = new short[width * height];
 			
-			final int numberOfTracks = height / (8 * Runtime.getRuntime().availableProcessors());
-			int numberOfRowsPerTrack = height / numberOfTracks;
-			
-			ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new DaemonicThreadFactory());
-			List<Future<Void>> results = new ArrayList<>();
-			
-			for(int i = 0; i < numberOfTracks; i++) {
-				int minY = i * numberOfRowsPerTrack;
-				int maxY = (i + 1) * numberOfRowsPerTrack - 1;
+			for(boolean coarse : new boolean[] {true, false}) {
+				List<Callable<Void>> jobs = new ArrayList<>();
 				
-				if(i == numberOfTracks - 1) {
-					maxY = height - 1;
+				for(int yMin = 0; yMin < height; yMin += TILE_SIZE) {
+					for(int xMin = 0; xMin < width; xMin += TILE_SIZE) {
+						int xMax = Math.min(xMin + TILE_SIZE, width) - 1;
+						int yMax = Math.min(yMin + TILE_SIZE, height) - 1;
+						jobs.add(new NewtonRhapsonCalculation(reMin, reMax, imMin, imMax, width, height,
+								xMin, xMax, yMin, yMax, PREVIEW_BLOCK, coarse, data, cancel, kernel));
+					}
 				}
 				
-				NewtonRhapsonCalculation job = new NewtonRhapsonCalculation(reMin, reMax, imMin, imMax, width, height, minY, maxY, MAX_ITER, data, polynomial);
-				results.add(pool.submit(job));
-			}
-			
-			for(Future<Void> posao : results) {
-				try {
-					posao.get();
-				} catch (InterruptedException | ExecutionException e) {
-					
+				for(Future<Void> job : pool.invokeAll(jobs)) {
+					try {
+						job.get();
+					} catch (InterruptedException | ExecutionException e) {
+						return;
+					}
+				}
+				
+				if(cancel.getAsBoolean()) {
+					return;
 				}
+				
+				// the preview is published as a copy since the fine pass keeps writing into data
+				observer.acceptResult(coarse ? data.clone() : data, numberOfColors, requestNo);
 			}
-			
-			pool.shutdown();
-			observer.acceptResult(data, (short) (polynomial.toComplexPolynom().order() + 1), requestNo);
-		}
-		
-	}
-	
-	/**
-	 * This class is an implementation of {@link ThreadFactory} which
-	 * produces threads with daemonic flag set to <code>true</code>.
-	 * 
-	 * @author Ivan Skorupan
-	 */
-	public static class DaemonicThreadFactory implements ThreadFactory {
-
-		@Override
-		public Thread newThread(Runnable r) {
-			Objects.requireNonNull(r);
-			Thread thread = new Thread(r);
-			thread.setDaemon(true);
-			return thread;
 		}
 		
 	}
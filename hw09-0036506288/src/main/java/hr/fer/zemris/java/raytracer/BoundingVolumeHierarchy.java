@@ -0,0 +1,577 @@
+package hr.fer.zemris.java.raytracer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import hr.fer.zemris.java.raytracer.model.GraphicalObject;
+import hr.fer.zemris.java.raytracer.model.Point3D;
+import hr.fer.zemris.java.raytracer.model.Ray;
+import hr.fer.zemris.java.raytracer.model.RayIntersection;
+import hr.fer.zemris.java.raytracer.model.Sphere;
+
+/**
+ * This class models a bounding volume hierarchy (BVH) over objects of a scene.
+ * <p>
+ * Each node of the hierarchy is an axis-aligned box containing all objects
+ * below it, so a ray is tested only against objects whose boxes it passes
+ * through. The hierarchy is built top-down and every node is split where the
+ * surface area heuristic (SAH) estimates the lowest cost of tracing a ray.
+ * <p>
+ * Nodes are stored in flat arrays. The left child of an inner node directly
+ * follows it, while the index of the right child is stored in the node.
+ * <p>
+ * Only objects whose extent is known ({@link Sphere spheres}) are put into
+ * the hierarchy, all other objects are always tested.
+ *
+ * @author Ivan Skorupan
+ */
+public class BoundingVolumeHierarchy {
+
+	/**
+	 * Maximum tolerated difference between two doubles for them to be considered equal.
+	 */
+	private static final double DELTA = 1e-6;
+
+	/**
+	 * Maximum number of objects in a leaf which is not split any further.
+	 */
+	private static final int MAX_LEAF_SIZE = 2;
+
+	/**
+	 * Number of bins along an axis in which the split positions are evaluated.
+	 */
+	private static final int NUMBER_OF_BINS = 12;
+
+	/**
+	 * Estimated cost of visiting a node, relative to the cost of intersecting an object.
+	 */
+	private static final double TRAVERSAL_COST = 0.5;
+
+	/**
+	 * Objects in the hierarchy, ordered so that every leaf contains a contiguous range of them.
+	 */
+	private GraphicalObject[] objects;
+
+	/**
+	 * Objects whose extent is not known and which are tested against every ray.
+	 */
+	private List<GraphicalObject> unbounded = new ArrayList<>();
+
+	/**
+	 * Bounds of every node as six consecutive values: minimum x, y and z followed by maximum x, y and z.
+	 */
+	private double[] bounds;
+
+	/**
+	 * Index of the first object of a leaf or index of the right child of an inner node.
+	 */
+	private int[] offsets;
+
+	/**
+	 * Number of objects in a leaf or 0 for an inner node.
+	 */
+	private int[] counts;
+
+	/**
+	 * Axis along which an inner node is split (0 for x, 1 for y and 2 for z).
+	 */
+	private byte[] axes;
+
+	/**
+	 * Number of nodes in the hierarchy.
+	 */
+	private int numberOfNodes;
+
+	/**
+	 * Bounds of objects during the construction, six values per object.
+	 */
+	private double[] objectBounds;
+
+	/**
+	 * Centers of object bounds during the construction, three values per object.
+	 */
+	private double[] centroids;
+
+	/**
+	 * Constructs a new {@link BoundingVolumeHierarchy} object over the given objects.
+	 *
+	 * @param sceneObjects - objects to build the hierarchy over
+	 * @throws NullPointerException if <code>sceneObjects</code> is <code>null</code>
+	 */
+	public BoundingVolumeHierarchy(List<GraphicalObject> sceneObjects) {
+		Objects.requireNonNull(sceneObjects);
+
+		List<Sphere> spheres = new ArrayList<>();
+		for(GraphicalObject object : sceneObjects) {
+			if(object instanceof Sphere) {
+				spheres.add((Sphere) object);
+			} else {
+				unbounded.add(object);
+			}
+		}
+
+		int n = spheres.size();
+		objectBounds = new double[6 * n];
+		centroids = new double[3 * n];
+		for(int i = 0; i < n; i++) {
+			Point3D center = spheres.get(i).getCenter();
+			double radius = Math.abs(spheres.get(i).getRadius());
+			double[] c = {center.x, center.y, center.z};
+
+			for(int axis = 0; axis < 3; axis++) {
+				objectBounds[6 * i + axis] = c[axis] - radius;
+				objectBounds[6 * i + 3 + axis] = c[axis] + radius;
+				centroids[3 * i + axis] = c[axis];
+			}
+		}
+
+		int capacity = Math.max(1, 2 * n - 1);
+		bounds = new double[6 * capacity];
+		offsets = new int[capacity];
+		counts = new int[capacity];
+		axes = new byte[capacity];
+
+		int[] order = new int[n];
+		for(int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+
+		if(n > 0) {
+			build(order, 0, n);
+		}
+
+		objects = new GraphicalObject[n];
+		for(int i = 0; i < n; i++) {
+			objects[i] = spheres.get(order[i]);
+		}
+
+		objectBounds = null;
+		centroids = null;
+	}
+
+	/**
+	 * Builds the subtree over objects <code>order[start]</code> to <code>order[end - 1]</code>.
+	 *
+	 * @param order - permutation of object indexes which is rearranged during the construction
+	 * @param start - first position in <code>order</code> (inclusive)
+	 * @param end - last position in <code>order</code> (exclusive)
+	 * @return index of the subtree's root node
+	 */
+	private int build(int[] order, int start, int end) {
+		int node = numberOfNodes++;
+
+		double[] centroidBounds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+				Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		Arrays.fill(bounds, 6 * node, 6 * node + 3, Double.POSITIVE_INFINITY);
+		Arrays.fill(bounds, 6 * node + 3, 6 * node + 6, Double.NEGATIVE_INFINITY);
+
+		for(int i = start; i < end; i++) {
+			int object = order[i];
+			for(int axis = 0; axis < 3; axis++) {
+				bounds[6 * node + axis] = Math.min(bounds[6 * node + axis], objectBounds[6 * object + axis]);
+				bounds[6 * node + 3 + axis] = Math.max(bounds[6 * node + 3 + axis], objectBounds[6 * object + 3 + axis]);
+				centroidBounds[axis] = Math.min(centroidBounds[axis], centroids[3 * object + axis]);
+				centroidBounds[3 + axis] = Math.max(centroidBounds[3 + axis], centroids[3 * object + axis]);
+			}
+		}
+
+		int size = end - start;
+		offsets[node] = start;
+		counts[node] = size;
+		if(size <= MAX_LEAF_SIZE) {
+			return node;
+		}
+
+		// evaluate the surface area heuristic for every bin boundary along every axis
+		double bestCost = size;
+		int bestAxis = -1;
+		int bestSplit = 0;
+
+		for(int axis = 0; axis < 3; axis++) {
+			double extent = centroidBounds[3 + axis] - centroidBounds[axis];
+			if(extent <= 0) {
+				continue;
+			}
+
+			int[] binCounts = new int[NUMBER_OF_BINS];
+			double[] binBounds = new double[6 * NUMBER_OF_BINS];
+			for(int bin = 0; bin < NUMBER_OF_BINS; bin++) {
+				emptyBox(binBounds, bin);
+			}
+
+			for(int i = start; i < end; i++) {
+				int bin = binOf(order[i], axis, centroidBounds, extent);
+				binCounts[bin]++;
+				growBox(binBounds, bin, objectBounds, order[i]);
+			}
+
+			// areas and counts of everything right of each boundary, swept from the right
+			double[] rightAreas = new double[NUMBER_OF_BINS];
+			int[] rightCounts = new int[NUMBER_OF_BINS];
+			double[] box = new double[6];
+			emptyBox(box, 0);
+			int count = 0;
+			for(int bin = NUMBER_OF_BINS - 1; bin > 0; bin--) {
+				growBox(box, 0, binBounds, bin);
+				count += binCounts[bin];
+				rightAreas[bin] = surfaceArea(box, 0);
+				rightCounts[bin] = count;
+			}
+
+			emptyBox(box, 0);
+			count = 0;
+			for(int split = 1; split < NUMBER_OF_BINS; split++) {
+				growBox(box, 0, binBounds, split - 1);
+				count += binCounts[split - 1];
+				if(count == 0 || rightCounts[split] == 0) {
+					continue;
+				}
+
+				double cost = TRAVERSAL_COST + (surfaceArea(box, 0) * count + rightAreas[split] * rightCounts[split])
+						/ surfaceArea(bounds, node);
+				if(cost < bestCost) {
+					bestCost = cost;
+					bestAxis = axis;
+					bestSplit = split;
+				}
+			}
+		}
+
+		if(bestAxis == -1) {
+			return node;
+		}
+
+		// partition the objects so that those left of the split come first
+		double extent = centroidBounds[3 + bestAxis] - centroidBounds[bestAxis];
+		int middle = start;
+		for(int i = start; i < end; i++) {
+			if(binOf(order[i], bestAxis, centroidBounds, extent) < bestSplit) {
+				int temp = order[i];
+				order[i] = order[middle];
+				order[middle] = temp;
+				middle++;
+			}
+		}
+
+		build(order, start, middle);
+		offsets[node] = build(order, middle, end);
+		counts[node] = 0;
+		axes[node] = (byte) bestAxis;
+
+		return node;
+	}
+
+	/**
+	 * Finds the bin of the given object's centroid along the given axis.
+	 *
+	 * @param object - index of the object
+	 * @param axis - axis along which the bins are placed
+	 * @param centroidBounds - bounds of centroids of all objects being split
+	 * @param extent - extent of <code>centroidBounds</code> along <code>axis</code>
+	 * @return bin of the object
+	 */
+	private int binOf(int object, int axis, double[] centroidBounds, double extent) {
+		int bin = (int) (NUMBER_OF_BINS * (centroids[3 * object + axis] - centroidBounds[axis]) / extent);
+		return Math.min(bin, NUMBER_OF_BINS - 1);
+	}
+
+	/**
+	 * Sets the box at the given index to an empty box.
+	 *
+	 * @param boxes - array of boxes, six values per box
+	 * @param index - index of the box
+	 */
+	private static void emptyBox(double[] boxes, int index) {
+		Arrays.fill(boxes, 6 * index, 6 * index + 3, Double.POSITIVE_INFINITY);
+		Arrays.fill(boxes, 6 * index + 3, 6 * index + 6, Double.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Grows a box so that it also contains another box.
+	 *
+	 * @param boxes - array of the box to grow
+	 * @param index - index of the box to grow
+	 * @param other - array of the box to contain
+	 * @param otherIndex - index of the box to contain
+	 */
+	private static void growBox(double[] boxes, int index, double[] other, int otherIndex) {
+		for(int axis = 0; axis < 3; axis++) {
+			boxes[6 * index + axis] = Math.min(boxes[6 * index + axis], other[6 * otherIndex + axis]);
+			boxes[6 * index + 3 + axis] = Math.max(boxes[6 * index + 3 + axis], other[6 * otherIndex + 3 + axis]);
+		}
+	}
+
+	/**
+	 * Calculates the surface area of a box.
+	 *
+	 * @param boxes - array of boxes, six values per box
+	 * @param index - index of the box
+	 * @return surface area of the box
+	 */
+	private static double surfaceArea(double[] boxes, int index) {
+		double dx = boxes[6 * index + 3] - boxes[6 * index];
+		double dy = boxes[6 * index + 4] - boxes[6 * index + 1];
+		double dz = boxes[6 * index + 5] - boxes[6 * index + 2];
+
+		return 2 * (dx * dy + dy * dz + dz * dx);
+	}
+
+	/**
+	 * Tests if a ray passes through a node's box closer than <code>maxDistance</code>.
+	 *
+	 * @param node - index of the node
+	 * @param origin - ray origin as x, y and z
+	 * @param inverseDirection - reciprocal values of ray direction components
+	 * @param maxDistance - maximum distance along the ray
+	 * @return <code>true</code> if the ray passes through the box, <code>false</code> otherwise
+	 */
+	private boolean hitsBox(int node, double[] origin, double[] inverseDirection, double maxDistance) {
+		double tMin = 0;
+		double tMax = maxDistance;
+
+		for(int axis = 0; axis < 3; axis++) {
+			double t1 = (bounds[6 * node + axis] - origin[axis]) * inverseDirection[axis];
+			double t2 = (bounds[6 * node + 3 + axis] - origin[axis]) * inverseDirection[axis];
+
+			tMin = Math.max(tMin, Math.min(t1, t2));
+			tMax = Math.min(tMax, Math.max(t1, t2));
+		}
+
+		return tMin <= tMax;
+	}
+
+	/**
+	 * Finds the intersection of <code>ray</code> and any object in the hierarchy that's
+	 * closest to the starting point of <code>ray</code>.
+	 *
+	 * @param ray - a ray that defines the position of the observer and its looking direction
+	 * @return closest intersection or <code>null</code> if no such intersection exists
+	 * @throws NullPointerException if <code>ray</code> is <code>null</code>
+	 */
+	public RayIntersection findClosestIntersection(Ray ray) {
+		Objects.requireNonNull(ray);
+		RayIntersection closest = null;
+
+		for(GraphicalObject object : unbounded) {
+			closest = closer(closest, object.findClosestRayIntersection(ray));
+		}
+
+		if(numberOfNodes == 0) {
+			return closest;
+		}
+
+		double[] origin = {ray.start.x, ray.start.y, ray.start.z};
+		double[] direction = {ray.direction.x, ray.direction.y, ray.direction.z};
+		double[] inverseDirection = {1 / direction[0], 1 / direction[1], 1 / direction[2]};
+
+		int[] stack = new int[32];
+		int top = 0;
+		stack[top++] = 0;
+
+		while(top > 0) {
+			int node = stack[--top];
+			double maxDistance = (closest == null) ? Double.POSITIVE_INFINITY : closest.getDistance() + DELTA;
+
+			if(!hitsBox(node, origin, inverseDirection, maxDistance)) {
+				continue;
+			}
+
+			if(counts[node] > 0) {
+				for(int i = offsets[node], end = offsets[node] + counts[node]; i < end; i++) {
+					closest = closer(closest, objects[i].findClosestRayIntersection(ray));
+				}
+				continue;
+			}
+
+			if(top + 2 > stack.length) {
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			}
+
+			// the nearer child is pushed last so it is visited first
+			if(direction[axes[node]] < 0) {
+				stack[top++] = node + 1;
+				stack[top++] = offsets[node];
+			} else {
+				stack[top++] = offsets[node];
+				stack[top++] = node + 1;
+			}
+		}
+
+		return closest;
+	}
+
+	/**
+	 * Finds the closest intersections for a packet of rays at once.
+	 * <p>
+	 * The packet visits each node of the hierarchy at most once and a node is
+	 * entered if at least one ray of the packet passes through it, which pays off
+	 * for coherent rays such as primary rays of neighbouring pixels.
+	 *
+	 * @param rays - rays of the packet
+	 * @param results - array into which the closest intersection (or <code>null</code>)
+	 *        is written for each ray
+	 * @throws NullPointerException if any of the arguments is <code>null</code>
+	 * @throws IllegalArgumentException if <code>results</code> is shorter than <code>rays</code>
+	 */
+	public void findClosestIntersections(Ray[] rays, RayIntersection[] results) {
+		Objects.requireNonNull(rays);
+		Objects.requireNonNull(results);
+		if(results.length < rays.length) {
+			throw new IllegalArgumentException("There must be a result slot for every ray!");
+		}
+
+		int n = rays.length;
+		double[][] origins = new double[n][];
+		double[][] inverseDirections = new double[n][];
+		for(int r = 0; r < n; r++) {
+			results[r] = null;
+			for(GraphicalObject object : unbounded) {
+				results[r] = closer(results[r], object.findClosestRayIntersection(rays[r]));
+			}
+
+			origins[r] = new double[] {rays[r].start.x, rays[r].start.y, rays[r].start.z};
+			inverseDirections[r] = new double[] {1 / rays[r].direction.x, 1 / rays[r].direction.y, 1 / rays[r].direction.z};
+		}
+
+		if(numberOfNodes == 0 || n == 0) {
+			return;
+		}
+
+		double[] direction = {rays[0].direction.x, rays[0].direction.y, rays[0].direction.z};
+		boolean[] active = new boolean[n];
+		int[] stack = new int[32];
+		int top = 0;
+		stack[top++] = 0;
+
+		while(top > 0) {
+			int node = stack[--top];
+			boolean anyActive = false;
+
+			for(int r = 0; r < n; r++) {
+				double maxDistance = (results[r] == null) ? Double.POSITIVE_INFINITY : results[r].getDistance() + DELTA;
+				active[r] = hitsBox(node, origins[r], inverseDirections[r], maxDistance);
+				anyActive |= active[r];
+			}
+
+			if(!anyActive) {
+				continue;
+			}
+
+			if(counts[node] > 0) {
+				for(int i = offsets[node], end = offsets[node] + counts[node]; i < end; i++) {
+					for(int r = 0; r < n; r++) {
+						if(active[r]) {
+							results[r] = closer(results[r], objects[i].findClosestRayIntersection(rays[r]));
+						}
+					}
+				}
+				continue;
+			}
+
+			if(top + 2 > stack.length) {
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			}
+
+			if(direction[axes[node]] < 0) {
+				stack[top++] = node + 1;
+				stack[top++] = offsets[node];
+			} else {
+				stack[top++] = offsets[node];
+				stack[top++] = node + 1;
+			}
+		}
+	}
+
+	/**
+	 * Tests if <code>ray</code> intersects any object closer than <code>maxDistance</code>
+	 * to its starting point.
+	 * <p>
+	 * Unlike {@link #findClosestIntersection(Ray)}, the search stops at the first
+	 * such intersection, which is all that a shadow ray needs.
+	 *
+	 * @param ray - ray to test
+	 * @param maxDistance - distance along the ray up to which the intersections are considered
+	 * @return <code>true</code> if there is an intersection closer than <code>maxDistance</code>,
+	 *         <code>false</code> otherwise
+	 * @throws NullPointerException if <code>ray</code> is <code>null</code>
+	 */
+	public boolean hasIntersectionCloserThan(Ray ray, double maxDistance) {
+		Objects.requireNonNull(ray);
+
+		for(GraphicalObject object : unbounded) {
+			if(isCloserThan(object.findClosestRayIntersection(ray), maxDistance)) {
+				return true;
+			}
+		}
+
+		if(numberOfNodes == 0) {
+			return false;
+		}
+
+		double[] origin = {ray.start.x, ray.start.y, ray.start.z};
+		double[] inverseDirection = {1 / ray.direction.x, 1 / ray.direction.y, 1 / ray.direction.z};
+
+		int[] stack = new int[32];
+		int top = 0;
+		stack[top++] = 0;
+
+		while(top > 0) {
+			int node = stack[--top];
+
+			if(!hitsBox(node, origin, inverseDirection, maxDistance)) {
+				continue;
+			}
+
+			if(counts[node] > 0) {
+				for(int i = offsets[node], end = offsets[node] + counts[node]; i < end; i++) {
+					if(isCloserThan(objects[i].findClosestRayIntersection(ray), maxDistance)) {
+						return true;
+					}
+				}
+				continue;
+			}
+
+			if(top + 2 > stack.length) {
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			}
+			stack[top++] = offsets[node];
+			stack[top++] = node + 1;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Tests if an intersection exists and is closer than <code>maxDistance</code>.
+	 *
+	 * @param intersection - intersection to test, can be <code>null</code>
+	 * @param maxDistance - maximum distance
+	 * @return <code>true</code> if the intersection is closer than <code>maxDistance</code>
+	 */
+	private static boolean isCloserThan(RayIntersection intersection, double maxDistance) {
+		return intersection != null && intersection.getDistance() < maxDistance;
+	}
+
+	/**
+	 * Returns the closer of two intersections. An intersection replaces the current one
+	 * only if it is closer by more than {@link #DELTA}.
+	 *
+	 * @param current - the closest intersection so far, can be <code>null</code>
+	 * @param candidate - a new intersection, can be <code>null</code>
+	 * @return the closer intersection
+	 */
+	private static RayIntersection closer(RayIntersection current, RayIntersection candidate) {
+		if(candidate == null) {
+			return current;
+		}
+
+		if(current == null || candidate.getDistance() + DELTA < current.getDistance()) {
+			return candidate;
+		}
+
+		return current;
+	}
+
+}
@@ -2,12 +2,10 @@ package hr.fer.zemris.java.raytracer;
 
 import static java.lang.Math.*;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import hr.fer.zemris.java.raytracer.model.GraphicalObject;
 import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
 import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
 import hr.fer.zemris.java.raytracer.model.LightSource;
@@ -59,6 +57,16 @@ public class RayCaster {
 			 */
 			private static final double DELTA = 1e-6;
 			
+			/**
+			 * The 3D scene we're working with.
+			 */
+			private final Scene scene = RayTracerViewer.createPredefinedScene();
+			
+			/**
+			 * Bounding volume hierarchy over the scene's objects, built once for all frames.
+			 */
+			private final BoundingVolumeHierarchy bvh = new BoundingVolumeHierarchy(scene.getObjects());
+			
 			@Override
 			public void produce(Point3D eye, Point3D view, Point3D viewUp,
 					double horizontal, double vertical, int width, int height,
@@ -80,11 +88,13 @@ public class RayCaster {
 				Point3D screenCorner = view.sub(xAxis.scalarMultiply(horizontal / 2))
 						.add(yAxis.scalarMultiply(vertical / 2));
 
-				Scene scene = RayTracerViewer.createPredefinedScene();
-
 				short[] rgb = new short[3];
 				int offset = 0;
 				for(int y = 0; y < height; y++) {
+					if(cancel.get()) {
+						return;
+					}
+					
 					for(int x = 0; x < width; x++) {
 						Point3D screenPoint = screenCorner.add(xAxis.scalarMultiply(horizontal * x / (width - 1)))
 								.sub(yAxis.scalarMultiply(vertical * y / (height - 1)));
@@ -123,7 +133,7 @@ public class RayCaster {
 				rgb[1] = 0;
 				rgb[2] = 0;
 
-				RayIntersection closest = findClosestIntersection(scene, ray);
+				RayIntersection closest = bvh.findClosestIntersection(ray);
 
 				if(closest == null) {
 					return;
@@ -144,25 +154,21 @@ public class RayCaster {
 				List<LightSource> lightSources = scene.getLights();
 				for(LightSource lightSource : lightSources) {
 					Ray lightToObject = Ray.fromPoints(lightSource.getPoint(), closest.getPoint());
-					RayIntersection closestLitObject = findClosestIntersection(scene, lightToObject);
-
-					if(closestLitObject != null) {
-						double distanceToClosestLitObject = closestLitObject.getDistance();
-						double distanceToObject = lightSource.getPoint().sub(closest.getPoint()).norm();
+					double distanceToObject = lightSource.getPoint().sub(closest.getPoint()).norm();
 
-						if(distanceToClosestLitObject + DELTA < distanceToObject) {
-							continue;
-						}
-					} else continue;
+					// any object between the light source and the point casts a shadow, so the first one found is enough
+					if(bvh.hasIntersectionCloserThan(lightToObject, distanceToObject - DELTA)) {
+						continue;
+					}
 
-					rgb[0] += calculateDiffuseComponent(lightSource.getR(), closestLitObject.getKdr(), closestLitObject, lightToObject)
-							+ calculateReflectiveComponent(lightSource.getR(), closestLitObject.getKrr(), closestLitObject.getKrn(), closestLitObject, lightToObject, ray);
+					rgb[0] += calculateDiffuseComponent(lightSource.getR(), closest.getKdr(), closest, lightToObject)
+							+ calculateReflectiveComponent(lightSource.getR(), closest.getKrr(), closest.getKrn(), closest, lightToObject, ray);
 
-					rgb[1] += calculateDiffuseComponent(lightSource.getG(), closestLitObject.getKdg(), closestLitObject, lightToObject)
-							+ calculateReflectiveComponent(lightSource.getG(), closestLitObject.getKrg(), closestLitObject.getKrn(), closestLitObject, lightToObject, ray);
+					rgb[1] += calculateDiffuseComponent(lightSource.getG(), closest.getKdg(), closest, lightToObject)
+							+ calculateReflectiveComponent(lightSource.getG(), closest.getKrg(), closest.getKrn(), closest, lightToObject, ray);
 
-					rgb[2] += calculateDiffuseComponent(lightSource.getB(), closestLitObject.getKdb(), closestLitObject, lightToObject)
-							+ calculateReflectiveComponent(lightSource.getB(), closestLitObject.getKrb(), closestLitObject.getKrn(), closestLitObject, lightToObject, ray);
+					rgb[2] += calculateDiffuseComponent(lightSource.getB(), closest.getKdb(), closest, lightToObject)
+							+ calculateReflectiveComponent(lightSource.getB(), closest.getKrb(), closest.getKrn(), closest, lightToObject, ray);
 				}
 			}
 			
@@ -221,50 +227,6 @@ public class RayCaster {
 				return (int) Math.round(Is);
 			}
 			
-			/**
-			 * Calculates intersections of <code>ray</code> and every object in
-			 * the <code>scene</code> and then returns the intersection that's
-			 * closest to the starting point of <code>ray</code>.
-			 * <p>
-			 * If <code>ray</code> does not intersect with any object in the scene
-			 * or if all intersections are behind the observer defined by <code>ray</code>
-			 * (which means they are not considered since they cannot be seen in the scene),
-			 * <code>null</code> is returned.
-			 * 
-			 * @param scene - 3D scene we're working with
-			 * @param ray - a ray that defines the position of the observer and its looking direction
-			 * @return closest intersection of <code>ray</code> with any object in the <code>scene</code> or
-			 * <code>null</code> if no such intersection exists
-			 * @throws NullPointerException if any of the arguments are <code>null</code>
-			 */
-			private RayIntersection findClosestIntersection(Scene scene, Ray ray) {
-				Objects.requireNonNull(scene);
-				Objects.requireNonNull(ray);
-				
-				List<GraphicalObject> graphicalObjects = scene.getObjects();
-				List<RayIntersection> intersections = new ArrayList<>();
-
-				for(GraphicalObject graphicalObject : graphicalObjects) {
-					RayIntersection intersection = graphicalObject.findClosestRayIntersection(ray);
-					if(intersection != null) {
-						intersections.add(intersection);
-					}
-				}
-
-				if(intersections.isEmpty()) return null;
-
-				RayIntersection closest = intersections.get(0);
-				double closestDistance = closest.getDistance();
-				for(RayIntersection intersection : intersections) {
-					if(intersection.getDistance() + DELTA < closestDistance) {
-						closest = intersection;
-						closestDistance = intersection.getDistance();
-					}
-				}
-
-				return closest;
-			}
-
 		};
 	}
 	
@@ -2,14 +2,12 @@ package hr.fer.zemris.java.raytracer;
 
 import static java.lang.Math.*;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import hr.fer.zemris.java.raytracer.model.GraphicalObject;
 import hr.fer.zemris.java.raytracer.model.IRayTracerAnimator;
 import hr.fer.zemris.java.raytracer.model.IRayTracerProducer;
 import hr.fer.zemris.java.raytracer.model.IRayTracerResultObserver;
@@ -98,6 +96,21 @@ public class RayCasterParallel2 {
 	 */
 	private static IRayTracerProducer getIRayTracerProducer() {
 		return new IRayTracerProducer() {
+			
+			/**
+			 * Pool on which all frames are calculated.
+			 */
+			private final ForkJoinPool pool = new ForkJoinPool();
+			
+			/**
+			 * The 3D scene we're working with.
+			 */
+			private final Scene scene = RayTracerViewer.createPredefinedScene2();
+			
+			/**
+			 * Bounding volume hierarchy over the scene's objects, built once for all frames.
+			 */
+			private final BoundingVolumeHierarchy bvh = new BoundingVolumeHierarchy(scene.getObjects());
 
 			@Override
 			public void produce(Point3D eye, Point3D view, Point3D viewUp,
@@ -120,11 +133,13 @@ public class RayCasterParallel2 {
 				Point3D screenCorner = view.sub(xAxis.scalarMultiply(horizontal / 2))
 						.add(yAxis.scalarMultiply(vertical / 2));
 
-				Scene scene = RayTracerViewer.createPredefinedScene2();
-
-				ForkJoinPool pool = new ForkJoinPool();
 				pool.invoke(new ColorCalculationJob(horizontal, vertical, width, height, 0, height - 1,
-						red, green, blue, xAxis, yAxis, screenCorner, eye, scene, cancel));
+						red, green, blue, xAxis, yAxis, screenCorner, eye, scene, bvh, cancel));
+
+				// a cancelled frame is only partially rendered, so it must not be shown
+				if(cancel.get()) {
+					return;
+				}
 
 				System.out.println("Izračuni gotovi...");
 				observer.acceptResult(red, green, blue, requestNo);
@@ -159,6 +174,17 @@ public class RayCasterParallel2 {
 		 * on its part of the scene.
 		 */
 		private static final int THRESHOLD = 16;
+		
+		/**
+		 * Flag that tells if primary rays of neighbouring pixels are traced together
+		 * as packets instead of one by one.
+		 */
+		private static final boolean USE_RAY_PACKETS = true;
+		
+		/**
+		 * Number of neighbouring pixels in a row whose primary rays form a packet.
+		 */
+		private static final int PACKET_SIZE = 4;
 
 		/**
 		 * Width of the part of Euclidean plane we want to render.
@@ -230,6 +256,11 @@ public class RayCasterParallel2 {
 		 */
 		private Scene scene;
 		
+		/**
+		 * Bounding volume hierarchy over the scene's objects.
+		 */
+		private BoundingVolumeHierarchy bvh;
+		
 		/**
 		 * Object used to cancel rendering of image.
 		 */
@@ -254,12 +285,13 @@ public class RayCasterParallel2 {
 		 * @param screenCorner - a point that represents the upper left corner of the window
 		 * @param eye - position of the observer
 		 * @param scene - the 3D scene we're working with
+		 * @param bvh - bounding volume hierarchy over the scene's objects
 		 * @param cancel - object used to cancel rendering of image
-		 * @throws NullPointerException if any of: <code>red, green, blue, xAxis, yAxis, screenCorner, eye, scene, cancel</code>
+		 * @throws NullPointerException if any of: <code>red, green, blue, xAxis, yAxis, screenCorner, eye, scene, bvh, cancel</code>
 		 * arguments are <code>null</code>
 		 */
 		public ColorCalculationJob(double horizontal, double vertical, int width, int height, int yMin, int yMax, short[] red,
-				short[] green, short[] blue, Point3D xAxis, Point3D yAxis, Point3D screenCorner, Point3D eye, Scene scene, AtomicBoolean cancel) {
+				short[] green, short[] blue, Point3D xAxis, Point3D yAxis, Point3D screenCorner, Point3D eye, Scene scene, BoundingVolumeHierarchy bvh, AtomicBoolean cancel) {
 			this.horizontal = horizontal;
 			this.vertical = vertical;
 			this.width = width;
@@ -274,6 +306,7 @@ public class RayCasterParallel2 {
 			this.screenCorner = Objects.requireNonNull(screenCorner);
 			this.eye = Objects.requireNonNull(eye);
 			this.scene = Objects.requireNonNull(scene);
+			this.bvh = Objects.requireNonNull(bvh);
 			this.cancel = Objects.requireNonNull(cancel);
 		}
 
@@ -286,9 +319,9 @@ public class RayCasterParallel2 {
 
 			invokeAll(
 					new ColorCalculationJob(horizontal, vertical, width, height, yMin, yMin + (yMax - yMin) / 2,
-							red, green, blue, xAxis, yAxis, screenCorner, eye, scene, cancel),
+							red, green, blue, xAxis, yAxis, screenCorner, eye, scene, bvh, cancel),
 					new ColorCalculationJob(horizontal, vertical, width, height, yMin + (yMax - yMin) / 2 + 1, yMax,
-							red, green, blue, xAxis, yAxis, screenCorner, eye, scene, cancel)
+							red, green, blue, xAxis, yAxis, screenCorner, eye, scene, bvh, cancel)
 					);
 		}
 		
@@ -301,20 +334,41 @@ public class RayCasterParallel2 {
 		 */
 		private void computeDirect() {
 			short[] rgb = new short[3];
+			Ray[] packet = new Ray[PACKET_SIZE];
+			RayIntersection[] closest = new RayIntersection[PACKET_SIZE];
 			int offset = yMin * width;
 			for(int y = yMin; y <= yMax; y++) {
-				for(int x = 0; x < width; x++) {
-					Point3D screenPoint = screenCorner.add(xAxis.scalarMultiply(horizontal * x / (width - 1)))
-							.sub(yAxis.scalarMultiply(vertical * y / (height - 1)));
-					Ray ray = Ray.fromPoints(eye, screenPoint);
-
-					tracer(scene, ray, rgb);
+				if(cancel.get()) {
+					return;
+				}
+				
+				for(int x = 0; x < width; x += PACKET_SIZE) {
+					int packetSize = Math.min(PACKET_SIZE, width - x);
+					Ray[] rays = (packetSize == PACKET_SIZE) ? packet : new Ray[packetSize];
+					
+					for(int i = 0; i < packetSize; i++) {
+						Point3D screenPoint = screenCorner.add(xAxis.scalarMultiply(horizontal * (x + i) / (width - 1)))
+								.sub(yAxis.scalarMultiply(vertical * y / (height - 1)));
+						rays[i] = Ray.fromPoints(eye, screenPoint);
+						
+						if(!USE_RAY_PACKETS) {
+							closest[i] = bvh.findClosestIntersection(rays[i]);
+						}
+					}
+					
+					if(USE_RAY_PACKETS) {
+						bvh.findClosestIntersections(rays, closest);
+					}
+					
+					for(int i = 0; i < packetSize; i++) {
+						tracer(scene, rays[i], closest[i], rgb);
 
-					red[offset] = rgb[0] > 255 ? 255 : rgb[0];
-					green[offset] = rgb[1] > 255 ? 255 : rgb[1];
-					blue[offset] = rgb[2] > 255 ? 255 : rgb[2];
+						red[offset] = rgb[0] > 255 ? 255 : rgb[0];
+						green[offset] = rgb[1] > 255 ? 255 : rgb[1];
+						blue[offset] = rgb[2] > 255 ? 255 : rgb[2];
 
-					offset++;
+						offset++;
+					}
 				}
 			}
 		}
@@ -326,10 +380,11 @@ public class RayCasterParallel2 {
 		 * 
 		 * @param scene - the 3D scene we're working with
 		 * @param ray - ray that's defined by eye position and screen point
+		 * @param closest - closest intersection of <code>ray</code> with the scene or <code>null</code> if there is none
 		 * @param rgb - an array that will contain the final rgb component for this pixel
 		 * @throws NullPointerException if <code>scene</code> or <code>ray</code> is <code>null</code>
 		 */
-		private void tracer(Scene scene, Ray ray, short[] rgb) {
+		private void tracer(Scene scene, Ray ray, RayIntersection closest, short[] rgb) {
 			Objects.requireNonNull(scene);
 			Objects.requireNonNull(ray);
 			Objects.requireNonNull(rgb);
@@ -338,8 +393,6 @@ public class RayCasterParallel2 {
 			rgb[1] = 0;
 			rgb[2] = 0;
 
-			RayIntersection closest = findClosestIntersection(scene, ray);
-
 			if(closest == null) {
 				return;
 			}
@@ -359,25 +412,21 @@ public class RayCasterParallel2 {
 			List<LightSource> lightSources = scene.getLights();
 			for(LightSource lightSource : lightSources) {
 				Ray lightToObject = Ray.fromPoints(lightSource.getPoint(), closest.getPoint());
-				RayIntersection closestLitObject = findClosestIntersection(scene, lightToObject);
+				double distanceToObject = lightSource.getPoint().sub(closest.getPoint()).norm();
 
-				if(closestLitObject != null) {
-					double distanceToClosestLitObject = closestLitObject.getDistance();
-					double distanceToObject = lightSource.getPoint().sub(closest.getPoint()).norm();
-
-					if(distanceToClosestLitObject + DELTA < distanceToObject) {
-						continue;
-					}
-				} else continue;
+				// any object between the light source and the point casts a shadow, so the first one found is enough
+				if(bvh.hasIntersectionCloserThan(lightToObject, distanceToObject - DELTA)) {
+					continue;
+				}
 
-				rgb[0] += calculateDiffuseComponent(lightSource.getR(), closestLitObject.getKdr(), closestLitObject, lightToObject)
-						+ calculateReflectiveComponent(lightSource.getR(), closestLitObject.getKrr(), closestLitObject.getKrn(), closestLitObject, lightToObject, ray);
+				rgb[0] += calculateDiffuseComponent(lightSource.getR(), closest.getKdr(), closest, lightToObject)
+						+ calculateReflectiveComponent(lightSource.getR(), closest.getKrr(), closest.getKrn(), closest, lightToObject, ray);
 
-				rgb[1] += calculateDiffuseComponent(lightSource.getG(), closestLitObject.getKdg(), closestLitObject, lightToObject)
-						+ calculateReflectiveComponent(lightSource.getG(), closestLitObject.getKrg(), closestLitObject.getKrn(), closestLitObject, lightToObject, ray);
+				rgb[1] += calculateDiffuseComponent(lightSource.getG(), closest.getKdg(), closest, lightToObject)
+						+ calculateReflectiveComponent(lightSource.getG(), closest.getKrg(), closest.getKrn(), closest, lightToObject, ray);
 
-				rgb[2] += calculateDiffuseComponent(lightSource.getB(), closestLitObject.getKdb(), closestLitObject, lightToObject)
-						+ calculateReflectiveComponent(lightSource.getB(), closestLitObject.getKrb(), closestLitObject.getKrn(), closestLitObject, lightToObject, ray);
+				rgb[2] += calculateDiffuseComponent(lightSource.getB(), closest.getKdb(), closest, lightToObject)
+						+ calculateReflectiveComponent(lightSource.getB(), closest.getKrb(), closest.getKrn(), closest, lightToObject, ray);
 			}
 		}
 		
@@ -436,50 +485,6 @@ public class RayCasterParallel2 {
 			return (int) Math.round(Is);
 		}
 		
-		/**
-		 * Calculates intersections of <code>ray</code> and every object in
-		 * the <code>scene</code> and then returns the intersection that's
-		 * closest to the starting point of <code>ray</code>.
-		 * <p>
-		 * If <code>ray</code> does not intersect with any object in the scene
-		 * or if all intersections are behind the observer defined by <code>ray</code>
-		 * (which means they are not considered since they cannot be seen in the scene),
-		 * <code>null</code> is returned.
-		 * 
-		 * @param scene - 3D scene we're working with
-		 * @param ray - a ray that defines the position of the observer and its looking direction
-		 * @return closest intersection of <code>ray</code> with any object in the <code>scene</code> or
-		 * <code>null</code> if no such intersection exists
-		 * @throws NullPointerException if any of the arguments are <code>null</code>
-		 */
-		private RayIntersection findClosestIntersection(Scene scene, Ray ray) {
-			Objects.requireNonNull(scene);
-			Objects.requireNonNull(ray);
-			
-			List<GraphicalObject> graphicalObjects = scene.getObjects();
-			List<RayIntersection> intersections = new ArrayList<>();
-
-			for(GraphicalObject graphicalObject : graphicalObjects) {
-				RayIntersection intersection = graphicalObject.findClosestRayIntersection(ray);
-				if(intersection != null) {
-					intersections.add(intersection);
-				}
-			}
-
-			if(intersections.isEmpty()) return null;
-
-			RayIntersection closest = intersections.get(0);
-			double closestDistance = closest.getDistance();
-			for(RayIntersection intersection : intersections) {
-				if(intersection.getDistance() + DELTA < closestDistance) {
-					closest = intersection;
-					closestDistance = intersection.getDistance();
-				}
-			}
-
-			return closest;
-		}
-
 	}
 
 }
@@ -94,6 +94,24 @@ public class Sphere extends GraphicalObject {
 		this.krn = krn;
 	}
 	
+	/**
+	 * Getter for this sphere's center.
+	 * 
+	 * @return center of this sphere
+	 */
+	public Point3D getCenter() {
+		return center;
+	}
+	
+	/**
+	 * Getter for this sphere's radius.
+	 * 
+	 * @return radius of this sphere
+	 */
+	public double getRadius() {
+		return radius;
+	}
+	
 	@Override
 	public RayIntersection findClosestRayIntersection(Ray ray) {
 		Objects.requireNonNull(ray);
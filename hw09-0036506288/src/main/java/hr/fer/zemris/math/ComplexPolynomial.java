@@ -44,6 +44,16 @@ public class ComplexPolynomial {
 		return (short) (factors.length - 1);
 	}
 	
+	/**
+	 * Returns the coefficients of this polynomial, starting with the
+	 * coefficient of the highest power.
+	 * 
+	 * @return a copy of this polynomial's coefficients
+	 */
+	public Complex[] getFactors() {
+		return factors.clone();
+	}
+	
 	/**
 	 * Computes and returns a new polynomial equal to
 	 * <b><code>this</code> * <code>p</code></b>.
@@ -59,6 +59,15 @@ public class ComplexRootedPolynomial {
 		return result;
 	}
 	
+	/**
+	 * Returns the roots of this polynomial.
+	 * 
+	 * @return a copy of this polynomial's roots
+	 */
+	public Complex[] getRoots() {
+		return roots.clone();
+	}
+	
 	/**
 	 * Converts this polynomial representation to
 	 * {@link ComplexPolynomial} type.
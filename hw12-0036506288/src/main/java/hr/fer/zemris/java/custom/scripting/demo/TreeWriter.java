@@ -6,10 +6,15 @@ import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import hr.fer.zemris.java.custom.scripting.elems.ElementString;
+import hr.fer.zemris.java.custom.scripting.nodes.BlockNode;
 import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
 import hr.fer.zemris.java.custom.scripting.nodes.EchoNode;
+import hr.fer.zemris.java.custom.scripting.nodes.ElseNode;
 import hr.fer.zemris.java.custom.scripting.nodes.ForLoopNode;
 import hr.fer.zemris.java.custom.scripting.nodes.INodeVisitor;
+import hr.fer.zemris.java.custom.scripting.nodes.IfNode;
+import hr.fer.zemris.java.custom.scripting.nodes.IncludeNode;
 import hr.fer.zemris.java.custom.scripting.nodes.TextNode;
 import hr.fer.zemris.java.custom.scripting.parser.SmartScriptParser;
 
@@ -84,8 +89,31 @@ public class TreeWriter {
 			System.out.print(node.toString());
 		}
 
+		@Override
+		public void visitIfNode(IfNode node) {
+			System.out.print(node.toString());
+		}
+
+		@Override
+		public void visitElseNode(ElseNode node) {
+			System.out.print(node.toString());
+		}
+
+		@Override
+		public void visitIncludeNode(IncludeNode node) {
+			System.out.print(node.toString());
+		}
+
+		@Override
+		public void visitBlockNode(BlockNode node) {
+			System.out.print(node.toString());
+		}
+
 		@Override
 		public void visitDocumentNode(DocumentNode node) {
+			if(node.getExtendedDocument() != null) {
+				System.out.print("{$EXTENDS " + new ElementString(node.getExtendedDocument()).asText() + " $}");
+			}
 			for(int i = 0; i < node.numberOfChildren(); i++) {
 				node.getChild(i).accept(this);
 			}
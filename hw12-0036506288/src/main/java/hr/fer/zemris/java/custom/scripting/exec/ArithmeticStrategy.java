@@ -0,0 +1,52 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import java.util.function.BiFunction;
+
+/**
+ * Base class of all arithmetic strategies used by {@link ValueWrapper}.
+ * <p>
+ * Every strategy implements its operation twice, once for integral and once
+ * for floating point operands, so that {@link ValueWrapper} can work with
+ * primitive values and never has to box intermediate results. The integral
+ * version must throw an {@link ArithmeticException} if the result doesn't fit
+ * into a <code>long</code>, in which case the operation is repeated on doubles.
+ * <p>
+ * Strategies are stateless, so every subclass offers a single shared instance.
+ * 
+ * @author Ivan Skorupan
+ */
+public abstract class ArithmeticStrategy implements BiFunction<Object, Object, Object> {
+
+	/**
+	 * Applies this operation to two integral operands.
+	 * 
+	 * @param t - first operand
+	 * @param u - second operand
+	 * @return result of the operation
+	 * @throws ArithmeticException if the result can not be represented as a <code>long</code>
+	 */
+	public abstract long applyLong(long t, long u);
+
+	/**
+	 * Applies this operation to two floating point operands.
+	 * 
+	 * @param t - first operand
+	 * @param u - second operand
+	 * @return result of the operation
+	 */
+	public abstract double applyDouble(double t, double u);
+
+	/**
+	 * Applies this operation to two operands using the rules described in
+	 * documentation of {@link ValueWrapper}.
+	 * 
+	 * @throws RuntimeException if one of the operands is not valid
+	 */
+	@Override
+	public Object apply(Object t, Object u) {
+		ValueWrapper result = new ValueWrapper(t);
+		result.operate(this, u);
+		return result.getValue();
+	}
+
+}
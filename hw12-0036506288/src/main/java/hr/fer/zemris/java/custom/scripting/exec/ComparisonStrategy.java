@@ -14,21 +14,14 @@ import java.util.Comparator;
  */
 public class ComparisonStrategy implements Comparator<Object> {
 
+	/**
+	 * A shared instance of this strategy.
+	 */
+	public static final ComparisonStrategy INSTANCE = new ComparisonStrategy();
+
 	@Override
 	public int compare(Object o1, Object o2) {
-		if(o1 instanceof Double && o2 instanceof Double) {
-			return ((Double) o1).compareTo((Double) o2);
-		} else if(o1 instanceof Double && o2 instanceof Integer) {
-			Double o1Val = ((Double) o1).doubleValue();
-			Double o2Val = ((Integer) o2).doubleValue();
-			return o1Val.compareTo(o2Val);
-		} else if(o1 instanceof Integer && o2 instanceof Double) {
-			Double o1Val = ((Integer) o1).doubleValue();
-			Double o2Val = ((Double) o2).doubleValue();
-			return o1Val.compareTo(o2Val);
-		} else {
-			return ((Integer) o1).compareTo((Integer) o2);
-		}
+		return new ValueWrapper(o1).numCompare(o2);
 	}
 	
 }
@@ -12,22 +12,32 @@ import java.util.function.BiFunction;
  * 
  * @author Ivan Skorupan
  */
-public class DivisionStrategy implements BiFunction<Object, Object, Object> {
+public class DivisionStrategy extends ArithmeticStrategy {
 
+	/**
+	 * A shared instance of this strategy.
+	 */
+	public static final DivisionStrategy INSTANCE = new DivisionStrategy();
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws RuntimeException if <code>u</code> is 0
+	 */
 	@Override
-	public Object apply(Object t, Object u) {
-		if(t instanceof Double && u instanceof Double) {
-			return ((Double) t).doubleValue() / ((Double) u).doubleValue();
-		} else if(t instanceof Double && u instanceof Integer) {
-			return ((Double) t).doubleValue() / ((Integer) u).doubleValue();
-		} else if(t instanceof Integer && u instanceof Double) {
-			return ((Integer) t).doubleValue() / ((Double) u).doubleValue();
-		} else {
-			if(((Integer) u).intValue() == 0) {
-				throw new RuntimeException("An integer cannot be divided by 0!");
-			}
-			return ((Integer) t).intValue() / ((Integer) u).intValue();
+	public long applyLong(long t, long u) {
+		if(u == 0) {
+			throw new RuntimeException("An integer cannot be divided by 0!");
+		}
+		if(t == Long.MIN_VALUE && u == -1) {
+			throw new ArithmeticException("long overflow");
 		}
+		return t / u;
+	}
+
+	@Override
+	public double applyDouble(double t, double u) {
+		return t / u;
 	}
 	
 }
@@ -0,0 +1,156 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.Objects;
+
+/**
+ * A stack of {@link ValueWrapper} objects used to evaluate echo tags.
+ * <p>
+ * Unlike {@link java.util.Stack}, this stack is not synchronized and is meant
+ * to be reused: a single {@link SmartScriptEngine} clears and reuses the same
+ * stack for every echo tag it executes, so its backing array is allocated
+ * only once per engine.
+ * <p>
+ * Besides plain stack operations, it offers methods that pop a value already
+ * converted to a <code>double</code> or a {@link String}, which is what most
+ * functions need.
+ * 
+ * @author Ivan Skorupan
+ */
+public class EvaluationStack {
+
+	/**
+	 * Initial capacity of the stack.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Values on the stack, from the bottom to the top.
+	 */
+	private ValueWrapper[] values = new ValueWrapper[INITIAL_CAPACITY];
+
+	/**
+	 * Number of values on the stack.
+	 */
+	private int size;
+
+	/**
+	 * Pushes a value on top of this stack.
+	 * 
+	 * @param value - value to push
+	 * @throws NullPointerException if <code>value</code> is <code>null</code>
+	 */
+	public void push(ValueWrapper value) {
+		Objects.requireNonNull(value);
+
+		if(size == values.length) {
+			values = Arrays.copyOf(values, 2 * values.length);
+		}
+		values[size++] = value;
+	}
+
+	/**
+	 * Wraps the given object and pushes it on top of this stack.
+	 * 
+	 * @param value - object to push, can be <code>null</code>
+	 */
+	public void pushValue(Object value) {
+		push(new ValueWrapper(value));
+	}
+
+	/**
+	 * Removes and returns the value on top of this stack.
+	 * 
+	 * @return removed value
+	 * @throws EmptyStackException if this stack is empty
+	 */
+	public ValueWrapper pop() {
+		if(size == 0) {
+			throw new EmptyStackException();
+		}
+
+		ValueWrapper value = values[--size];
+		values[size] = null;
+		return value;
+	}
+
+	/**
+	 * Removes the value on top of this stack and returns it as a <code>double</code>.
+	 * Numbers are converted directly, other values are parsed from their string
+	 * representation.
+	 * 
+	 * @return removed value as a <code>double</code>
+	 * @throws EmptyStackException if this stack is empty
+	 * @throws NumberFormatException if the value is not a number
+	 */
+	public double popDouble() {
+		Object value = pop().getValue();
+		if(value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+		return Double.parseDouble(String.valueOf(value));
+	}
+
+	/**
+	 * Removes the value on top of this stack and returns its string representation.
+	 * 
+	 * @return removed value as a {@link String}
+	 * @throws EmptyStackException if this stack is empty
+	 */
+	public String popString() {
+		return String.valueOf(pop().getValue());
+	}
+
+	/**
+	 * Returns the value on top of this stack without removing it.
+	 * 
+	 * @return value on top of the stack
+	 * @throws EmptyStackException if this stack is empty
+	 */
+	public ValueWrapper peek() {
+		if(size == 0) {
+			throw new EmptyStackException();
+		}
+		return values[size - 1];
+	}
+
+	/**
+	 * Returns the value at given position, counting from the bottom of this stack.
+	 * 
+	 * @param index - position of the value
+	 * @return value at <code>index</code>
+	 * @throws IndexOutOfBoundsException if <code>index</code> is not smaller than the size of this stack
+	 */
+	public ValueWrapper get(int index) {
+		Objects.checkIndex(index, size);
+		return values[index];
+	}
+
+	/**
+	 * Returns the number of values on this stack.
+	 * 
+	 * @return number of values on this stack
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Tests if this stack is empty.
+	 * 
+	 * @return <code>true</code> if this stack is empty, <code>false</code> otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all values from this stack, keeping its capacity.
+	 */
+	public void clear() {
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+	}
+
+}
@@ -0,0 +1,40 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import java.util.function.BiFunction;
+
+/**
+ * An implementation of {@link BiFunction} that can divide two numbers
+ * and return the remainder of division.
+ * <p>
+ * What's special about it is that this strategy can work with two arguments of type
+ * {@link Object} because it is aware of the rules described in documentation
+ * of {@link ValueWrapper}.
+ * 
+ * @author Ivan Skorupan
+ */
+public class ModuloStrategy extends ArithmeticStrategy {
+
+	/**
+	 * A shared instance of this strategy.
+	 */
+	public static final ModuloStrategy INSTANCE = new ModuloStrategy();
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws RuntimeException if <code>u</code> is 0
+	 */
+	@Override
+	public long applyLong(long t, long u) {
+		if(u == 0) {
+			throw new RuntimeException("An integer cannot be divided by 0!");
+		}
+		return t % u;
+	}
+
+	@Override
+	public double applyDouble(double t, double u) {
+		return t % u;
+	}
+	
+}
@@ -12,19 +12,21 @@ import java.util.function.BiFunction;
  * 
  * @author Ivan Skorupan
  */
-public class MultiplicationStrategy implements BiFunction<Object, Object, Object> {
+public class MultiplicationStrategy extends ArithmeticStrategy {
+
+	/**
+	 * A shared instance of this strategy.
+	 */
+	public static final MultiplicationStrategy INSTANCE = new MultiplicationStrategy();
+
+	@Override
+	public long applyLong(long t, long u) {
+		return Math.multiplyExact(t, u);
+	}
 
 	@Override
-	public Object apply(Object t, Object u) {
-		if(t instanceof Double && u instanceof Double) {
-			return ((Double) t).doubleValue() * ((Double) u).doubleValue();
-		} else if(t instanceof Double && u instanceof Integer) {
-			return ((Double) t).doubleValue() * ((Integer) u).doubleValue();
-		} else if(t instanceof Integer && u instanceof Double) {
-			return ((Integer) t).doubleValue() * ((Double) u).doubleValue();
-		} else {
-			return ((Integer) t).intValue() * ((Integer) u).intValue();
-		}
+	public double applyDouble(double t, double u) {
+		return t * u;
 	}
 	
 }
@@ -0,0 +1,26 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import hr.fer.zemris.java.webserver.RequestContext;
+
+/**
+ * Models a function that can be called from an echo tag of a SmartScript.
+ * <p>
+ * A function takes its arguments from the temporary stack of the echo tag
+ * being executed and pushes its results back onto the same stack. The number
+ * of arguments and results is declared when the function is registered in a
+ * {@link SmartScriptFunctionRegistry}.
+ * 
+ * @author Ivan Skorupan
+ */
+@FunctionalInterface
+public interface SmartScriptFunction {
+
+	/**
+	 * Applies this function.
+	 * 
+	 * @param requestContext - request context of the script being executed
+	 * @param temporaryStack - stack to take the arguments from and push the results to
+	 */
+	void apply(RequestContext requestContext, EvaluationStack temporaryStack);
+
+}
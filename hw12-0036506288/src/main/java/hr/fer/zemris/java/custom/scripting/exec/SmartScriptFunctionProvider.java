@@ -0,0 +1,26 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import java.util.ServiceLoader;
+
+/**
+ * A service provider of additional SmartScript functions.
+ * <p>
+ * Providers are found using {@link ServiceLoader}, so a library which wants
+ * to add its own functions implements this interface and lists the
+ * implementation in a
+ * <code>META-INF/services/hr.fer.zemris.java.custom.scripting.exec.SmartScriptFunctionProvider</code>
+ * file. All found providers register their functions in
+ * {@link SmartScriptFunctionRegistry#getDefault()} when it is first used.
+ * 
+ * @author Ivan Skorupan
+ */
+public interface SmartScriptFunctionProvider {
+
+	/**
+	 * Registers functions of this provider.
+	 * 
+	 * @param registry - registry to register the functions in
+	 */
+	void registerFunctions(SmartScriptFunctionRegistry registry);
+
+}
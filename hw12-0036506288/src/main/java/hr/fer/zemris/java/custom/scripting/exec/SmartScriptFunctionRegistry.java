@@ -0,0 +1,189 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of functions which can be called from echo tags of a SmartScript.
+ * <p>
+ * Every function is registered under a name, together with the number of
+ * arguments it takes from the temporary stack and the number of results
+ * it pushes back. Function names are resolved when a script is compiled
+ * into a {@link SmartScriptProgram}, so executing a script never looks
+ * functions up by their names.
+ * <p>
+ * The default registry contains all functions from {@link SmartScriptFunctions}
+ * and all functions of {@link SmartScriptFunctionProvider}s found on the class path.
+ * 
+ * @author Ivan Skorupan
+ */
+public class SmartScriptFunctionRegistry {
+
+	/**
+	 * Models a function registered in a registry.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	public static class RegisteredFunction {
+
+		/**
+		 * Name of the function.
+		 */
+		private String name;
+
+		/**
+		 * Number of arguments the function takes from the stack.
+		 */
+		private int arity;
+
+		/**
+		 * Number of results the function pushes on the stack.
+		 */
+		private int results;
+
+		/**
+		 * The function itself.
+		 */
+		private SmartScriptFunction function;
+
+		/**
+		 * Constructs a new {@link RegisteredFunction} object.
+		 * 
+		 * @param name - name of the function
+		 * @param arity - number of arguments the function takes from the stack
+		 * @param results - number of results the function pushes on the stack
+		 * @param function - the function itself
+		 */
+		private RegisteredFunction(String name, int arity, int results, SmartScriptFunction function) {
+			this.name = name;
+			this.arity = arity;
+			this.results = results;
+			this.function = function;
+		}
+
+		/**
+		 * Getter for the name of this function.
+		 * 
+		 * @return name of this function
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Getter for the number of arguments this function takes from the stack.
+		 * 
+		 * @return number of arguments
+		 */
+		public int getArity() {
+			return arity;
+		}
+
+		/**
+		 * Getter for the number of results this function pushes on the stack.
+		 * 
+		 * @return number of results
+		 */
+		public int getResults() {
+			return results;
+		}
+
+		/**
+		 * Getter for the function itself.
+		 * 
+		 * @return the function
+		 */
+		public SmartScriptFunction getFunction() {
+			return function;
+		}
+
+	}
+
+	/**
+	 * Holder of the default registry, which is created when it is first used.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	private static class DefaultRegistryHolder {
+
+		/**
+		 * The default registry.
+		 */
+		private static final SmartScriptFunctionRegistry DEFAULT = createDefault();
+
+	}
+
+	/**
+	 * Registered functions mapped by their names.
+	 */
+	private Map<String, RegisteredFunction> functions = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the default registry. It contains all functions from
+	 * {@link SmartScriptFunctions} and all functions of
+	 * {@link SmartScriptFunctionProvider}s found on the class path.
+	 * 
+	 * @return the default registry
+	 */
+	public static SmartScriptFunctionRegistry getDefault() {
+		return DefaultRegistryHolder.DEFAULT;
+	}
+
+	/**
+	 * Registers a new function.
+	 * 
+	 * @param name - name of the function
+	 * @param arity - number of arguments the function takes from the stack
+	 * @param results - number of results the function pushes on the stack
+	 * @param function - the function itself
+	 * @throws NullPointerException if <code>name</code> or <code>function</code> is <code>null</code>
+	 * @throws IllegalArgumentException if <code>arity</code> or <code>results</code> is negative
+	 * or if a function with the same name is already registered
+	 */
+	public void register(String name, int arity, int results, SmartScriptFunction function) {
+		Objects.requireNonNull(name);
+		Objects.requireNonNull(function);
+
+		if(arity < 0 || results < 0) {
+			throw new IllegalArgumentException("Number of arguments and results of a function can not be negative!");
+		}
+
+		RegisteredFunction old = functions.putIfAbsent(name, new RegisteredFunction(name, arity, results, function));
+		if(old != null) {
+			throw new IllegalArgumentException("A function named " + name + " is already registered!");
+		}
+	}
+
+	/**
+	 * Returns the function registered under given <code>name</code>.
+	 * 
+	 * @param name - name of the function
+	 * @return registered function or <code>null</code> if there is no function with given <code>name</code>
+	 */
+	public RegisteredFunction get(String name) {
+		return functions.get(name);
+	}
+
+	/**
+	 * Creates the default registry.
+	 * 
+	 * @return the default registry
+	 */
+	private static SmartScriptFunctionRegistry createDefault() {
+		SmartScriptFunctionRegistry registry = new SmartScriptFunctionRegistry();
+		SmartScriptFunctions.registerFunctions(registry);
+
+		for(SmartScriptFunctionProvider provider : ServiceLoader.load(SmartScriptFunctionProvider.class)) {
+			try {
+				provider.registerFunctions(registry);
+			} catch(RuntimeException ex) {
+				System.out.println("Functions of " + provider.getClass().getName() + " could not be registered: " + ex.getMessage());
+			}
+		}
+
+		return registry;
+	}
+
+}
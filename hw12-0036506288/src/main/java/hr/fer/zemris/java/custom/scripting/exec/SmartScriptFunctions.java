@@ -3,7 +3,6 @@ package hr.fer.zemris.java.custom.scripting.exec;
 import static java.lang.Math.*;
 
 import java.text.DecimalFormat;
-import java.util.Stack;
 
 import hr.fer.zemris.java.webserver.RequestContext;
 
@@ -12,20 +11,41 @@ import hr.fer.zemris.java.webserver.RequestContext;
  * model functions supported in SmartScript.
  * <p>
  * This is used in {@link SmartScriptEngine} to execute
- * the script.
+ * the script. All functions are registered in the default
+ * {@link SmartScriptFunctionRegistry}.
  * 
  * @author Ivan Skorupan
  */
 public class SmartScriptFunctions {
 	
+	/**
+	 * Registers all functions of this class in the given <code>registry</code>.
+	 * 
+	 * @param registry - registry to register the functions in
+	 */
+	static void registerFunctions(SmartScriptFunctionRegistry registry) {
+		registry.register("sin", 1, 1, (rc, stack) -> sine(stack));
+		registry.register("decfmt", 2, 1, (rc, stack) -> decfmt(stack));
+		registry.register("dup", 1, 2, (rc, stack) -> dup(stack));
+		registry.register("swap", 2, 2, (rc, stack) -> swap(stack));
+		registry.register("setMimeType", 1, 0, SmartScriptFunctions::setMimeType);
+		registry.register("paramGet", 2, 1, SmartScriptFunctions::paramGet);
+		registry.register("pparamGet", 2, 1, SmartScriptFunctions::pparamGet);
+		registry.register("pparamSet", 2, 0, SmartScriptFunctions::pparamSet);
+		registry.register("pparamDel", 1, 0, SmartScriptFunctions::pparamDel);
+		registry.register("tparamGet", 2, 1, SmartScriptFunctions::tparamGet);
+		registry.register("tparamSet", 2, 0, SmartScriptFunctions::tparamSet);
+		registry.register("tparamDel", 1, 0, SmartScriptFunctions::tParamDel);
+	}
+	
 	/**
 	 * Takes a value from the top of <code>temporaryStack</code>,
 	 * performs a sine operation and pushed the result back on the stack.
 	 * 
 	 * @param temporaryStack - stack to take the operand from
 	 */
-	public static void sine(Stack<ValueWrapper> temporaryStack) {
-		double value = Double.parseDouble(temporaryStack.pop().getValue().toString());
+	public static void sine(EvaluationStack temporaryStack) {
+		double value = temporaryStack.popDouble();
 		temporaryStack.push(new ValueWrapper(sin(toRadians(value))));
 	}
 	
@@ -36,9 +56,9 @@ public class SmartScriptFunctions {
 	 * 
 	 * @param temporaryStack - stack to take the operands from
 	 */
-	public static void decfmt(Stack<ValueWrapper> temporaryStack) {
-		String f = temporaryStack.pop().getValue().toString();
-		double x = Double.parseDouble(temporaryStack.pop().getValue().toString());
+	public static void decfmt(EvaluationStack temporaryStack) {
+		String f = temporaryStack.popString();
+		double x = temporaryStack.popDouble();
 		DecimalFormat df = new DecimalFormat(f);
 		temporaryStack.push(new ValueWrapper(df.format(x)));
 	}
@@ -49,7 +69,7 @@ public class SmartScriptFunctions {
 	 * 
 	 * @param temporaryStack - stack to take the operand from
 	 */
-	public static void dup(Stack<ValueWrapper> temporaryStack) {
+	public static void dup(EvaluationStack temporaryStack) {
 		ValueWrapper x = temporaryStack.pop();
 		temporaryStack.push(x);
 		temporaryStack.push(new ValueWrapper(x.getValue()));
@@ -61,7 +81,7 @@ public class SmartScriptFunctions {
 	 * 
 	 * @param temporaryStack - stack to take the operands from
 	 */
-	public static void swap(Stack<ValueWrapper> temporaryStack) {
+	public static void swap(EvaluationStack temporaryStack) {
 		ValueWrapper a = temporaryStack.pop();
 		ValueWrapper b = temporaryStack.pop();
 		temporaryStack.push(a);
@@ -75,8 +95,8 @@ public class SmartScriptFunctions {
 	 * @param requestContext - request context object whose mime type should be set
 	 * @param temporaryStack - stack to take the operand from
 	 */
-	public static void setMimeType(RequestContext requestContext, Stack<ValueWrapper> temporaryStack) {
-		String x = temporaryStack.pop().getValue().toString();
+	public static void setMimeType(RequestContext requestContext, EvaluationStack temporaryStack) {
+		String x = temporaryStack.popString();
 		requestContext.setMimeType(x);
 	}
 	
@@ -93,9 +113,9 @@ public class SmartScriptFunctions {
 	 * @param requestContext - request context object whose parameter value should be fetched
 	 * @param temporaryStack - stack to take the operands from
 	 */
-	public static void paramGet(RequestContext requestContext, Stack<ValueWrapper> temporaryStack) {
+	public static void paramGet(RequestContext requestContext, EvaluationStack temporaryStack) {
 		ValueWrapper defaultValue = temporaryStack.pop();
-		String name = temporaryStack.pop().getValue().toString();
+		String name = temporaryStack.popString();
 		String value = requestContext.getParameter(name);
 		temporaryStack.push((value == null) ? defaultValue : new ValueWrapper(value));
 	}
@@ -113,9 +133,9 @@ public class SmartScriptFunctions {
 	 * @param requestContext - request context object whose persistent parameter value should be fetched
 	 * @param temporaryStack - stack to take the operands from
 	 */
-	public static void pparamGet(RequestContext requestContext, Stack<ValueWrapper> temporaryStack) {
+	public static void pparamGet(RequestContext requestContext, EvaluationStack temporaryStack) {
 		ValueWrapper defaultValue = temporaryStack.pop();
-		String name = temporaryStack.pop().getValue().toString();
+		String name = temporaryStack.popString();
 		String value = requestContext.getPersistentParameter(name);
 		temporaryStack.push((value == null) ? defaultValue : new ValueWrapper(value));
 	}
@@ -130,9 +150,9 @@ public class SmartScriptFunctions {
 	 * @param requestContext - request context object whose persistent parameter value should be set
 	 * @param temporaryStack - stack to take the operands from
 	 */
-	public static void pparamSet(RequestContext requestContext, Stack<ValueWrapper> temporaryStack) {
-		String name = temporaryStack.pop().getValue().toString();
-		String value = temporaryStack.pop().getValue().toString();
+	public static void pparamSet(RequestContext requestContext, EvaluationStack temporaryStack) {
+		String name = temporaryStack.popString();
+		String value = temporaryStack.popString();
 		requestContext.setPersistentParameter(name, value);
 	}
 	
@@ -144,8 +164,8 @@ public class SmartScriptFunctions {
 	 * @param requestContext - request context object whose persistent parameter entry should be deleted
 	 * @param temporaryStack - stack to take the operand from
 	 */
-	public static void pparamDel(RequestContext requestContext, Stack<ValueWrapper> temporaryStack) {
-		String name = temporaryStack.pop().getValue().toString();
+	public static void pparamDel(RequestContext requestContext, EvaluationStack temporaryStack) {
+		String name = temporaryStack.popString();
 		requestContext.removePersistentParameter(name);
 	}
 	
@@ -162,9 +182,9 @@ public class SmartScriptFunctions {
 	 * @param requestContext - request context object whose temporary parameter value should be fetched
 	 * @param temporaryStack - stack to take the operands from
 	 */
-	public static void tparamGet(RequestContext requestContext, Stack<ValueWrapper> temporaryStack) {
+	public static void tparamGet(RequestContext requestContext, EvaluationStack temporaryStack) {
 		ValueWrapper defaultValue = temporaryStack.pop();
-		String name = temporaryStack.pop().getValue().toString();
+		String name = temporaryStack.popString();
 		String value = requestContext.getTemporaryParameter(name);
 		temporaryStack.push((value == null) ? defaultValue : new ValueWrapper(value));
 	}
@@ -179,9 +199,9 @@ public class SmartScriptFunctions {
 	 * @param requestContext - request context object whose temporary parameter entry should be set
 	 * @param temporaryStack - stack to take the operands from
 	 */
-	public static void tparamSet(RequestContext requestContext, Stack<ValueWrapper> temporaryStack) {
-		String name = temporaryStack.pop().getValue().toString();
-		String value = temporaryStack.pop().getValue().toString();
+	public static void tparamSet(RequestContext requestContext, EvaluationStack temporaryStack) {
+		String name = temporaryStack.popString();
+		String value = temporaryStack.popString();
 		requestContext.setTemporaryParameter(name, value);
 	}
 	
@@ -193,8 +213,8 @@ public class SmartScriptFunctions {
 	 * @param requestContext - request context object whose temporary parameter entry should be deleted
 	 * @param temporaryStack - stack to take the operand from
 	 */
-	public static void tParamDel(RequestContext requestContext, Stack<ValueWrapper> temporaryStack) {
-		String name = temporaryStack.pop().getValue().toString();
+	public static void tParamDel(RequestContext requestContext, EvaluationStack temporaryStack) {
+		String name = temporaryStack.popString();
 		requestContext.removeTemporaryParameter(name);
 	}
 	
@@ -0,0 +1,31 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import java.io.IOException;
+
+import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
+import hr.fer.zemris.java.custom.scripting.nodes.IncludeNode;
+
+/**
+ * Loads scripts which are included or extended by a script being compiled
+ * into a {@link SmartScriptProgram}.
+ * <p>
+ * Scripts are loaded only once, during compilation, and their contents become
+ * a part of the compiled program, so a loader is free to cache parsed documents.
+ * 
+ * @author Ivan Skorupan
+ * @see IncludeNode
+ * @see DocumentNode#getExtendedDocument()
+ */
+@FunctionalInterface
+public interface SmartScriptLoader {
+
+	/**
+	 * Loads and parses the script with given <code>name</code>.
+	 * 
+	 * @param name - name of the script, as written in the including or extending script
+	 * @return top node of the parsed script
+	 * @throws IOException if the script could not be loaded
+	 */
+	DocumentNode load(String name) throws IOException;
+
+}
@@ -0,0 +1,685 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.IntPredicate;
+
+import hr.fer.zemris.java.custom.scripting.elems.Element;
+import hr.fer.zemris.java.custom.scripting.elems.ElementConstantDouble;
+import hr.fer.zemris.java.custom.scripting.elems.ElementConstantInteger;
+import hr.fer.zemris.java.custom.scripting.elems.ElementFunction;
+import hr.fer.zemris.java.custom.scripting.elems.ElementOperator;
+import hr.fer.zemris.java.custom.scripting.elems.ElementString;
+import hr.fer.zemris.java.custom.scripting.elems.ElementVariable;
+import hr.fer.zemris.java.custom.scripting.nodes.BlockNode;
+import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
+import hr.fer.zemris.java.custom.scripting.nodes.EchoNode;
+import hr.fer.zemris.java.custom.scripting.nodes.ElseNode;
+import hr.fer.zemris.java.custom.scripting.nodes.ForLoopNode;
+import hr.fer.zemris.java.custom.scripting.nodes.INodeVisitor;
+import hr.fer.zemris.java.custom.scripting.nodes.IfNode;
+import hr.fer.zemris.java.custom.scripting.nodes.IncludeNode;
+import hr.fer.zemris.java.custom.scripting.nodes.Node;
+import hr.fer.zemris.java.custom.scripting.nodes.TextNode;
+
+/**
+ * Models a compiled SmartScript.
+ * <p>
+ * A program is a flat array of instructions made from a document tree.
+ * All constants, operators and functions used in echo tags are resolved
+ * during compilation, so executing a program doesn't need to walk the tree
+ * or compare any names.
+ * <p>
+ * Objects of this class are immutable, so a single program can be executed
+ * by any number of {@link SmartScriptEngine} objects at the same time.
+ * 
+ * @author Ivan Skorupan
+ */
+public class SmartScriptProgram {
+
+	/**
+	 * Operators supported in echo tags mapped by their symbols.
+	 */
+	private static final Map<String, BiConsumer<ValueWrapper, Object>> OPERATORS = new HashMap<>();
+
+	static {
+		OPERATORS.put("+", ValueWrapper::add);
+		OPERATORS.put("-", ValueWrapper::subtract);
+		OPERATORS.put("*", ValueWrapper::multiply);
+		OPERATORS.put("/", ValueWrapper::divide);
+		OPERATORS.put("%", ValueWrapper::modulo);
+		OPERATORS.put("^", ValueWrapper::power);
+		OPERATORS.put("<", comparison(result -> result < 0));
+		OPERATORS.put("<=", comparison(result -> result <= 0));
+		OPERATORS.put(">", comparison(result -> result > 0));
+		OPERATORS.put(">=", comparison(result -> result >= 0));
+		OPERATORS.put("==", comparison(result -> result == 0));
+		OPERATORS.put("!=", comparison(result -> result != 0));
+	}
+
+	/**
+	 * Creates a comparison operator. The operator compares its operands using
+	 * {@link ValueWrapper#numCompare(Object)} and replaces the first one with
+	 * 1 if the comparison holds or 0 otherwise, so that the result can be used
+	 * as a condition of an IF tag.
+	 * 
+	 * @param holds - tests if the comparison holds for the result of <code>numCompare</code>
+	 * @return the comparison operator
+	 */
+	private static BiConsumer<ValueWrapper, Object> comparison(IntPredicate holds) {
+		return (first, second) -> first.setValue(holds.test(first.numCompare(second)) ? 1 : 0);
+	}
+
+	/**
+	 * A function that does nothing, used for unknown function names.
+	 */
+	private static final SmartScriptFunction NO_OPERATION = (rc, stack) -> {};
+
+	/**
+	 * A loader used when no loader is given, which can not load any script.
+	 */
+	private static final SmartScriptLoader NO_LOADER = name -> {
+		throw new UnsupportedOperationException("Script " + name + " can not be loaded because no script loader was given!");
+	};
+
+	/**
+	 * Instructions of this program.
+	 */
+	private Instruction[] instructions;
+
+	/**
+	 * Constructs a new {@link SmartScriptProgram} object.
+	 * 
+	 * @param instructions - instructions of this program
+	 */
+	private SmartScriptProgram(Instruction[] instructions) {
+		this.instructions = instructions;
+	}
+
+	/**
+	 * Compiles the document tree starting at <code>documentNode</code>
+	 * into a new program, using functions from the default
+	 * {@link SmartScriptFunctionRegistry}.
+	 * 
+	 * @param documentNode - top node of the document tree to compile
+	 * @return compiled program
+	 * @throws NullPointerException if <code>documentNode</code> is <code>null</code>
+	 * @throws UnsupportedOperationException if the document uses an unsupported operator
+	 * @throws IllegalArgumentException if an operator or a function in the document
+	 * doesn't get enough arguments
+	 */
+	public static SmartScriptProgram compile(DocumentNode documentNode) {
+		return compile(documentNode, SmartScriptFunctionRegistry.getDefault());
+	}
+
+	/**
+	 * Compiles the document tree starting at <code>documentNode</code>
+	 * into a new program, using functions from the given <code>registry</code>.
+	 * <p>
+	 * Functions which are not registered in the <code>registry</code> do nothing.
+	 * 
+	 * @param documentNode - top node of the document tree to compile
+	 * @param registry - registry of functions the document can use
+	 * @return compiled program
+	 * @throws NullPointerException if any of the arguments is <code>null</code>
+	 * @throws UnsupportedOperationException if the document uses an unsupported operator
+	 * @throws IllegalArgumentException if an operator or a function in the document
+	 * doesn't get enough arguments
+	 */
+	public static SmartScriptProgram compile(DocumentNode documentNode, SmartScriptFunctionRegistry registry) {
+		return compile(documentNode, registry, NO_LOADER);
+	}
+
+	/**
+	 * Compiles the document tree starting at <code>documentNode</code>
+	 * into a new program, using functions from the given <code>registry</code>
+	 * and loading included and extended scripts using the given <code>loader</code>.
+	 * <p>
+	 * Included and extended scripts are compiled into the program itself, so
+	 * executing the program never loads them again.
+	 * 
+	 * @param documentNode - top node of the document tree to compile
+	 * @param registry - registry of functions the document can use
+	 * @param loader - loader of included and extended scripts
+	 * @return compiled program
+	 * @throws NullPointerException if any of the arguments is <code>null</code>
+	 * @throws UnsupportedOperationException if the document uses an unsupported operator
+	 * @throws IllegalArgumentException if an operator or a function in the document
+	 * doesn't get enough arguments, if a condition doesn't produce a value or if a
+	 * script includes or extends itself
+	 * @throws UncheckedIOException if an included or extended script could not be loaded
+	 */
+	public static SmartScriptProgram compile(DocumentNode documentNode, SmartScriptFunctionRegistry registry,
+			SmartScriptLoader loader) {
+		Compiler compiler = new Compiler(Objects.requireNonNull(registry), Objects.requireNonNull(loader));
+		Objects.requireNonNull(documentNode).accept(compiler);
+		return new SmartScriptProgram(compiler.instructions.toArray(new Instruction[0]));
+	}
+
+	/**
+	 * Getter for the instructions of this program.
+	 * 
+	 * @return instructions of this program
+	 */
+	Instruction[] getInstructions() {
+		return instructions;
+	}
+
+	/**
+	 * Enumerates all instruction types.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	enum Opcode {
+		/**
+		 * Writes text to the output.
+		 */
+		TEXT,
+
+		/**
+		 * Evaluates an echo tag and writes its results to the output.
+		 */
+		ECHO,
+
+		/**
+		 * Starts a for-loop.
+		 */
+		FOR_BEGIN,
+
+		/**
+		 * Ends a single iteration of a for-loop.
+		 */
+		FOR_END,
+
+		/**
+		 * Evaluates a condition and jumps if it is false.
+		 */
+		IF,
+
+		/**
+		 * Jumps unconditionally.
+		 */
+		JUMP
+	}
+
+	/**
+	 * Enumerates all operation types inside an echo tag.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	enum EchoOpcode {
+		/**
+		 * Pushes a constant onto the temporary stack.
+		 */
+		PUSH_CONSTANT,
+
+		/**
+		 * Pushes the current value of a variable onto the temporary stack.
+		 */
+		PUSH_VARIABLE,
+
+		/**
+		 * Applies an operator to the two values on top of the temporary stack.
+		 */
+		OPERATOR,
+
+		/**
+		 * Applies a function to the temporary stack.
+		 */
+		FUNCTION
+	}
+
+	/**
+	 * Models a single instruction of a program.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	static class Instruction {
+
+		/**
+		 * Type of this instruction.
+		 */
+		final Opcode opcode;
+
+		/**
+		 * Text to write for {@link Opcode#TEXT} instructions.
+		 */
+		String text;
+
+		/**
+		 * Operations of an {@link Opcode#ECHO} instruction, or the condition
+		 * of an {@link Opcode#IF} instruction.
+		 */
+		EchoOperation[] operations;
+
+		/**
+		 * Name of the loop variable for for-loop instructions.
+		 */
+		String variable;
+
+		/**
+		 * Start, end and step value of a {@link Opcode#FOR_BEGIN} instruction.
+		 */
+		Operand start, end, step;
+
+		/**
+		 * Index of the instruction to jump to. For {@link Opcode#FOR_BEGIN} it is the
+		 * instruction after the loop, for {@link Opcode#FOR_END} the first
+		 * instruction of the loop body, and for {@link Opcode#IF} the first instruction
+		 * of the else branch or the instruction after the conditional.
+		 */
+		int jump;
+
+		/**
+		 * Constructs a new {@link Instruction} object.
+		 * 
+		 * @param opcode - type of this instruction
+		 */
+		Instruction(Opcode opcode) {
+			this.opcode = opcode;
+		}
+
+	}
+
+	/**
+	 * Models a single operation inside an echo tag.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	static class EchoOperation {
+
+		/**
+		 * Type of this operation.
+		 */
+		final EchoOpcode opcode;
+
+		/**
+		 * Constant value or variable name of push operations.
+		 */
+		final Object value;
+
+		/**
+		 * Resolved operator of {@link EchoOpcode#OPERATOR} operations.
+		 */
+		final BiConsumer<ValueWrapper, Object> operator;
+
+		/**
+		 * Resolved function of {@link EchoOpcode#FUNCTION} operations.
+		 */
+		final SmartScriptFunction function;
+
+		/**
+		 * Constructs a new {@link EchoOperation} object.
+		 * 
+		 * @param opcode - type of this operation
+		 * @param value - constant value or variable name
+		 * @param operator - resolved operator
+		 * @param function - resolved function
+		 */
+		EchoOperation(EchoOpcode opcode, Object value, BiConsumer<ValueWrapper, Object> operator,
+				SmartScriptFunction function) {
+			this.opcode = opcode;
+			this.value = value;
+			this.operator = operator;
+			this.function = function;
+		}
+
+	}
+
+	/**
+	 * Models a for-loop bound which is either a constant or a variable.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	static class Operand {
+
+		/**
+		 * Constant value, or variable name if {@link #variable} is set.
+		 */
+		final Object value;
+
+		/**
+		 * Flag that indicates if this operand is a variable.
+		 */
+		final boolean variable;
+
+		/**
+		 * Constructs a new {@link Operand} object.
+		 * 
+		 * @param value - constant value or variable name
+		 * @param variable - flag that indicates if this operand is a variable
+		 */
+		Operand(Object value, boolean variable) {
+			this.value = value;
+			this.variable = variable;
+		}
+
+	}
+
+	/**
+	 * A visitor which flattens a document tree into a list of instructions.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	private static class Compiler implements INodeVisitor {
+
+		/**
+		 * Instructions generated so far.
+		 */
+		private List<Instruction> instructions = new ArrayList<>();
+
+		/**
+		 * Registry used to resolve function names.
+		 */
+		private SmartScriptFunctionRegistry registry;
+
+		/**
+		 * Loader of included and extended scripts.
+		 */
+		private SmartScriptLoader loader;
+
+		/**
+		 * Blocks which replace blocks of extended documents, mapped by their names.
+		 */
+		private Map<String, BlockNode> blocks = new HashMap<>();
+
+		/**
+		 * Names of blocks which are being compiled.
+		 */
+		private Set<String> activeBlocks = new HashSet<>();
+
+		/**
+		 * Names of scripts which are being compiled.
+		 */
+		private Set<String> activeScripts = new HashSet<>();
+
+		/**
+		 * Index of the most recent jump target. Text can not be appended to
+		 * an instruction which is before a jump target.
+		 */
+		private int lastJumpTarget;
+
+		/**
+		 * Constructs a new {@link Compiler} object.
+		 * 
+		 * @param registry - registry used to resolve function names
+		 * @param loader - loader of included and extended scripts
+		 */
+		Compiler(SmartScriptFunctionRegistry registry, SmartScriptLoader loader) {
+			this.registry = registry;
+			this.loader = loader;
+		}
+
+		@Override
+		public void visitTextNode(TextNode node) {
+			// consecutive text, for example around included scripts, is written at once
+			int last = instructions.size() - 1;
+			if(last >= lastJumpTarget && last >= 0 && instructions.get(last).opcode == Opcode.TEXT) {
+				instructions.get(last).text += node.getText();
+				return;
+			}
+
+			Instruction instruction = new Instruction(Opcode.TEXT);
+			instruction.text = node.getText();
+			instructions.add(instruction);
+		}
+
+		@Override
+		public void visitForLoopNode(ForLoopNode node) {
+			Instruction begin = new Instruction(Opcode.FOR_BEGIN);
+			begin.variable = node.getVariable().getName();
+			begin.start = toOperand(node.getStartExpression());
+			begin.end = toOperand(node.getEndExpression());
+			begin.step = (node.getStepExpression() == null) ?
+					new Operand(1, false) : toOperand(node.getStepExpression());
+			instructions.add(begin);
+
+			int bodyStart = markJumpTarget();
+			visitChildren(node);
+
+			Instruction end = new Instruction(Opcode.FOR_END);
+			end.variable = begin.variable;
+			end.jump = bodyStart;
+			instructions.add(end);
+			begin.jump = markJumpTarget();
+		}
+
+		@Override
+		public void visitIfNode(IfNode node) {
+			Instruction branch = new Instruction(Opcode.IF);
+			branch.operations = compileOperations(node.getCondition(), true);
+			instructions.add(branch);
+
+			visitChildren(node);
+
+			if(node.getElseNode() == null) {
+				branch.jump = markJumpTarget();
+				return;
+			}
+
+			Instruction jump = new Instruction(Opcode.JUMP);
+			instructions.add(jump);
+			branch.jump = markJumpTarget();
+			node.getElseNode().accept(this);
+			jump.jump = markJumpTarget();
+		}
+
+		@Override
+		public void visitElseNode(ElseNode node) {
+			visitChildren(node);
+		}
+
+		@Override
+		public void visitIncludeNode(IncludeNode node) {
+			// blocks of the including document don't replace blocks of included scripts,
+			// so the included script's blocks are also independent of the active ones
+			Map<String, BlockNode> outerBlocks = blocks;
+			Set<String> outerActiveBlocks = activeBlocks;
+			blocks = new HashMap<>();
+			activeBlocks = new HashSet<>();
+			compileScript(node.getName());
+			blocks = outerBlocks;
+			activeBlocks = outerActiveBlocks;
+		}
+
+		@Override
+		public void visitBlockNode(BlockNode node) {
+			String name = node.getName();
+			if(!activeBlocks.add(name)) {
+				throw new IllegalArgumentException("Block " + name + " contains itself!");
+			}
+
+			BlockNode replacement = blocks.get(name);
+			visitChildren((replacement == null) ? node : replacement);
+
+			activeBlocks.remove(name);
+		}
+
+		@Override
+		public void visitEchoNode(EchoNode node) {
+			Instruction instruction = new Instruction(Opcode.ECHO);
+			instruction.operations = compileOperations(node.getElements(), false);
+			instructions.add(instruction);
+		}
+
+		@Override
+		public void visitDocumentNode(DocumentNode node) {
+			if(node.getExtendedDocument() == null) {
+				visitChildren(node);
+				return;
+			}
+
+			// blocks of a more specific document take precedence, so blocks already known are kept
+			collectBlocks(node);
+			compileScript(node.getExtendedDocument());
+		}
+
+		/**
+		 * Compiles the operations of an echo tag or a condition.
+		 * 
+		 * @param elements - elements to compile
+		 * @param condition - <code>true</code> if the elements are a condition, which must produce a value
+		 * @return compiled operations
+		 * @throws UnsupportedOperationException if an unsupported operator is used
+		 * @throws IllegalArgumentException if an operator or a function doesn't get enough arguments
+		 * or if a condition doesn't produce a value
+		 */
+		private EchoOperation[] compileOperations(Element[] elements, boolean condition) {
+			List<EchoOperation> operations = new ArrayList<>(elements.length);
+			// number of values on the temporary stack, known for every operation in advance
+			int depth = 0;
+
+			for(Element element : elements) {
+				if(element instanceof ElementConstantInteger) {
+					operations.add(new EchoOperation(EchoOpcode.PUSH_CONSTANT,
+							((ElementConstantInteger) element).getValue(), null, null));
+					depth++;
+				} else if(element instanceof ElementConstantDouble) {
+					operations.add(new EchoOperation(EchoOpcode.PUSH_CONSTANT,
+							((ElementConstantDouble) element).getValue(), null, null));
+					depth++;
+				} else if(element instanceof ElementString) {
+					operations.add(new EchoOperation(EchoOpcode.PUSH_CONSTANT,
+							((ElementString) element).getValue(), null, null));
+					depth++;
+				} else if(element instanceof ElementVariable) {
+					operations.add(new EchoOperation(EchoOpcode.PUSH_VARIABLE,
+							((ElementVariable) element).getName(), null, null));
+					depth++;
+				} else if(element instanceof ElementOperator) {
+					String symbol = ((ElementOperator) element).getSymbol();
+					BiConsumer<ValueWrapper, Object> operator = OPERATORS.get(symbol);
+					if(operator == null) {
+						throw new UnsupportedOperationException("The echo node operation " + symbol + " is unsupported!");
+					}
+					checkArguments("Operator " + symbol, 2, depth);
+					operations.add(new EchoOperation(EchoOpcode.OPERATOR, null, operator, null));
+					depth--;
+				} else if(element instanceof ElementFunction) {
+					String name = ((ElementFunction) element).getName();
+					SmartScriptFunctionRegistry.RegisteredFunction function = registry.get(name);
+					if(function == null) {
+						operations.add(new EchoOperation(EchoOpcode.FUNCTION, null, null, NO_OPERATION));
+						continue;
+					}
+					checkArguments("Function @" + name, function.getArity(), depth);
+					operations.add(new EchoOperation(EchoOpcode.FUNCTION, null, null, function.getFunction()));
+					depth += function.getResults() - function.getArity();
+				}
+			}
+
+			if(condition && depth < 1) {
+				throw new IllegalArgumentException("The condition of an IF tag must produce a value!");
+			}
+			return operations.toArray(new EchoOperation[0]);
+		}
+
+		/**
+		 * Visits all children of the given node.
+		 * 
+		 * @param node - node whose children to visit
+		 */
+		private void visitChildren(Node node) {
+			for(int i = 0; i < node.numberOfChildren(); i++) {
+				node.getChild(i).accept(this);
+			}
+		}
+
+		/**
+		 * Marks the position of the next instruction as a jump target.
+		 * 
+		 * @return index of the next instruction
+		 */
+		private int markJumpTarget() {
+			lastJumpTarget = instructions.size();
+			return lastJumpTarget;
+		}
+
+		/**
+		 * Loads the script with given <code>name</code> and compiles it at
+		 * the current position.
+		 * 
+		 * @param name - name of the script
+		 * @throws IllegalArgumentException if the script includes or extends itself
+		 * @throws UncheckedIOException if the script could not be loaded
+		 */
+		private void compileScript(String name) {
+			if(!activeScripts.add(name)) {
+				throw new IllegalArgumentException("Script " + name + " includes or extends itself!");
+			}
+
+			DocumentNode document;
+			try {
+				document = loader.load(name);
+			} catch(IOException ex) {
+				throw new UncheckedIOException("Script " + name + " could not be loaded!", ex);
+			}
+			document.accept(this);
+
+			activeScripts.remove(name);
+		}
+
+		/**
+		 * Remembers all blocks of the given node and its descendants which
+		 * don't have a replacement yet.
+		 * 
+		 * @param node - node whose blocks to remember
+		 */
+		private void collectBlocks(Node node) {
+			for(int i = 0; i < node.numberOfChildren(); i++) {
+				Node child = node.getChild(i);
+				if(child instanceof BlockNode) {
+					blocks.putIfAbsent(((BlockNode) child).getName(), (BlockNode) child);
+				} else if(child instanceof IfNode && ((IfNode) child).getElseNode() != null) {
+					collectBlocks(((IfNode) child).getElseNode());
+				}
+				collectBlocks(child);
+			}
+		}
+
+		/**
+		 * Checks if there are enough values on the temporary stack for an operator
+		 * or a function to take its arguments from.
+		 * 
+		 * @param description - description of the operator or function for the error message
+		 * @param arity - number of arguments the operator or function takes
+		 * @param depth - number of values on the temporary stack
+		 * @throws IllegalArgumentException if there are not enough values on the stack
+		 */
+		private static void checkArguments(String description, int arity, int depth) {
+			if(depth < arity) {
+				throw new IllegalArgumentException(description + " takes " + arity
+						+ " arguments, but only " + depth + " are given!");
+			}
+		}
+
+		/**
+		 * Converts a for-loop expression into an operand. Numerical constants are
+		 * resolved to {@link Integer} and {@link Double} objects here so that they
+		 * don't have to be parsed in every iteration of the loop.
+		 * 
+		 * @param expression - for-loop expression to convert
+		 * @return operand which represents <code>expression</code>
+		 */
+		private Operand toOperand(Element expression) {
+			if(expression instanceof ElementVariable) {
+				return new Operand(((ElementVariable) expression).getName(), true);
+			} else if(expression instanceof ElementConstantInteger) {
+				return new Operand(((ElementConstantInteger) expression).getValue(), false);
+			} else if(expression instanceof ElementConstantDouble) {
+				return new Operand(((ElementConstantDouble) expression).getValue(), false);
+			}
+			return new Operand(expression.asText(), false);
+		}
+
+	}
+
+}
@@ -151,10 +151,27 @@ public class SmartScriptLexer {
 		}
 
 		// if nothing above, we have some symbol
-		token = new SmartScriptToken(SmartScriptTokenType.SYMBOL, String.valueOf(data[currentIndex++]));
+		generateSymbol();
 		return;
 	}
 
+	/**
+	 * Generates a symbol token from the current position of the input text.
+	 * <p>
+	 * A symbol is a single character, except for the comparison operators
+	 * <code>&lt;=</code>, <code>&gt;=</code>, <code>==</code> and <code>!=</code>,
+	 * which are read as a single two character symbol.
+	 */
+	private void generateSymbol() {
+		int start = currentIndex++;
+
+		if("<>=!".indexOf(data[start]) >= 0 && currentIndex < data.length && data[currentIndex] == '=') {
+			currentIndex++;
+		}
+
+		token = new SmartScriptToken(SmartScriptTokenType.SYMBOL, new String(data, start, currentIndex - start));
+	}
+
 	/**
 	 * Check whether the EOF token was already read and then throws an exception if so because
 	 * the current call of {@link #nextToken()} is invalid.
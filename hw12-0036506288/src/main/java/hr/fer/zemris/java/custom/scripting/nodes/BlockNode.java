@@ -0,0 +1,67 @@
+package hr.fer.zemris.java.custom.scripting.nodes;
+
+import java.util.Objects;
+
+/**
+ * A node representing a named block of a layout.
+ * <p>
+ * A document which extends another document (see
+ * {@link DocumentNode#getExtendedDocument()}) is rendered as the extended
+ * document, except that every block of the extended document is replaced
+ * by the block with the same name from the extending document, if there
+ * is one. Children of a block which is not replaced are its default content.
+ * 
+ * @author Ivan Skorupan
+ */
+public class BlockNode extends Node {
+
+	/**
+	 * Name of this block.
+	 */
+	private String name;
+
+	/**
+	 * Constructs a new {@link BlockNode} object.
+	 * 
+	 * @param name - name of this block
+	 * @throws NullPointerException if <code>name</code> is <code>null</code>
+	 */
+	public BlockNode(String name) {
+		this.name = Objects.requireNonNull(name);
+	}
+
+	/**
+	 * Getter for {@link #name} field.
+	 * 
+	 * @return name of this block
+	 */
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void accept(INodeVisitor visitor) {
+		visitor.visitBlockNode(this);
+	}
+
+	@Override
+	public String toString() {
+		return "{$BLOCK " + name + " $}" + super.toString() + "{$END$}";
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(super.hashCode(), name);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof BlockNode))
+			return false;
+		BlockNode other = (BlockNode) obj;
+		return super.equals(other) && Objects.equals(name, other.name);
+	}
+
+}
@@ -1,15 +1,69 @@
 package hr.fer.zemris.java.custom.scripting.nodes;
 
+import java.util.Objects;
+
+import hr.fer.zemris.java.custom.scripting.elems.ElementString;
+
 /**
  * A node representing an entire document.
+ * <p>
+ * A document can extend another document, in which case only its
+ * {@link BlockNode}s are used, to replace the blocks of the extended document.
  * 
  * @author Ivan Skorupan
  */
 public class DocumentNode extends Node {
+	
+	/**
+	 * Name of the document this document extends, can be <code>null</code>.
+	 */
+	private String extendedDocument;
+	
+	/**
+	 * Getter for {@link #extendedDocument} field.
+	 * 
+	 * @return name of the document this document extends or <code>null</code>
+	 * if it doesn't extend another document
+	 */
+	public String getExtendedDocument() {
+		return extendedDocument;
+	}
+	
+	/**
+	 * Setter for {@link #extendedDocument} field.
+	 * 
+	 * @param extendedDocument - name of the document this document extends
+	 */
+	public void setExtendedDocument(String extendedDocument) {
+		this.extendedDocument = extendedDocument;
+	}
 
 	@Override
 	public void accept(INodeVisitor visitor) {
 		visitor.visitDocumentNode(this);
 	}
 	
+	@Override
+	public String toString() {
+		if(extendedDocument == null) {
+			return super.toString();
+		}
+		return "{$EXTENDS " + new ElementString(extendedDocument).asText() + " $}" + super.toString();
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(super.hashCode(), extendedDocument);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof DocumentNode))
+			return false;
+		DocumentNode other = (DocumentNode) obj;
+		return super.equals(other) && Objects.equals(extendedDocument, other.extendedDocument);
+	}
+
 }
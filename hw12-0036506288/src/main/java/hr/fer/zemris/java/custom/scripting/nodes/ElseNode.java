@@ -0,0 +1,32 @@
+package hr.fer.zemris.java.custom.scripting.nodes;
+
+/**
+ * A node representing the else branch of an {@link IfNode}.
+ * Its children are executed if the condition of the {@link IfNode}
+ * is false.
+ * 
+ * @author Ivan Skorupan
+ */
+public class ElseNode extends Node {
+
+	@Override
+	public void accept(INodeVisitor visitor) {
+		visitor.visitElseNode(this);
+	}
+
+	@Override
+	public String toString() {
+		return "{$ELSE$}" + super.toString();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof ElseNode && super.equals(obj);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+
+}
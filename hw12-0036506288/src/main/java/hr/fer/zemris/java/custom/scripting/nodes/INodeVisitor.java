@@ -46,4 +46,36 @@ public interface INodeVisitor {
 	 */
 	public void visitDocumentNode(DocumentNode node);
 	
+	/**
+	 * Action this visitor should perform when it visits a
+	 * {@link IfNode}.
+	 * 
+	 * @param node - {@link IfNode} to perform an action on
+	 */
+	public void visitIfNode(IfNode node);
+	
+	/**
+	 * Action this visitor should perform when it visits a
+	 * {@link ElseNode}.
+	 * 
+	 * @param node - {@link ElseNode} to perform an action on
+	 */
+	public void visitElseNode(ElseNode node);
+	
+	/**
+	 * Action this visitor should perform when it visits a
+	 * {@link IncludeNode}.
+	 * 
+	 * @param node - {@link IncludeNode} to perform an action on
+	 */
+	public void visitIncludeNode(IncludeNode node);
+	
+	/**
+	 * Action this visitor should perform when it visits a
+	 * {@link BlockNode}.
+	 * 
+	 * @param node - {@link BlockNode} to perform an action on
+	 */
+	public void visitBlockNode(BlockNode node);
+	
 }
@@ -0,0 +1,114 @@
+package hr.fer.zemris.java.custom.scripting.nodes;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import hr.fer.zemris.java.custom.scripting.elems.Element;
+
+/**
+ * A node representing a conditional construct.
+ * <p>
+ * The condition is a sequence of elements evaluated just like the elements
+ * of an {@link EchoNode}, and the value left on top of the stack decides
+ * which branch is executed. The value is considered false if it is
+ * <code>null</code>, a number equal to zero, an empty string or one of
+ * the strings "0" and "false"; otherwise it is considered true.
+ * <p>
+ * Children of this node are executed if the condition is true. Children of
+ * its {@link ElseNode}, if there is one, are executed otherwise.
+ * 
+ * @author Ivan Skorupan
+ */
+public class IfNode extends Node {
+
+	/**
+	 * Elements of the condition.
+	 */
+	private Element[] condition;
+
+	/**
+	 * The else branch of this conditional, can be <code>null</code>.
+	 */
+	private ElseNode elseNode;
+
+	/**
+	 * Constructs a new {@link IfNode} object.
+	 * 
+	 * @param condition - elements of the condition
+	 * @throws NullPointerException if <code>condition</code> is <code>null</code>
+	 */
+	public IfNode(Element[] condition) {
+		this.condition = Objects.requireNonNull(condition);
+	}
+
+	/**
+	 * Getter for {@link #condition} field.
+	 * 
+	 * @return elements of the condition
+	 */
+	public Element[] getCondition() {
+		return condition;
+	}
+
+	/**
+	 * Getter for {@link #elseNode} field.
+	 * 
+	 * @return the else branch or <code>null</code> if there is none
+	 */
+	public ElseNode getElseNode() {
+		return elseNode;
+	}
+
+	/**
+	 * Setter for {@link #elseNode} field.
+	 * 
+	 * @param elseNode - the else branch of this conditional
+	 */
+	public void setElseNode(ElseNode elseNode) {
+		this.elseNode = elseNode;
+	}
+
+	@Override
+	public void accept(INodeVisitor visitor) {
+		visitor.visitIfNode(this);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder ifNode = new StringBuilder();
+
+		ifNode.append("{$IF ");
+		for(Element element : condition) {
+			ifNode.append(element.asText() + " ");
+		}
+		ifNode.append("$}");
+		ifNode.append(super.toString());
+
+		if(elseNode != null) {
+			ifNode.append(elseNode.toString());
+		}
+
+		ifNode.append("{$END$}");
+		return ifNode.toString();
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(Arrays.hashCode(condition), elseNode);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (!(obj instanceof IfNode))
+			return false;
+		IfNode other = (IfNode) obj;
+		return super.equals(other)
+				&& Arrays.equals(condition, other.condition)
+				&& Objects.equals(elseNode, other.elseNode);
+	}
+
+}
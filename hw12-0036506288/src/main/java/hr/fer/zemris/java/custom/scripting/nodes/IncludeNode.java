@@ -0,0 +1,67 @@
+package hr.fer.zemris.java.custom.scripting.nodes;
+
+import java.util.Objects;
+
+import hr.fer.zemris.java.custom.scripting.elems.ElementString;
+
+/**
+ * A node representing the inclusion of another script at its place.
+ * <p>
+ * The included script is identified by its name, whose meaning is
+ * up to the one compiling the document (for example, a path of
+ * a script file).
+ * 
+ * @author Ivan Skorupan
+ */
+public class IncludeNode extends Node {
+
+	/**
+	 * Name of the included script.
+	 */
+	private String name;
+
+	/**
+	 * Constructs a new {@link IncludeNode} object.
+	 * 
+	 * @param name - name of the included script
+	 * @throws NullPointerException if <code>name</code> is <code>null</code>
+	 */
+	public IncludeNode(String name) {
+		this.name = Objects.requireNonNull(name);
+	}
+
+	/**
+	 * Getter for {@link #name} field.
+	 * 
+	 * @return name of the included script
+	 */
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void accept(INodeVisitor visitor) {
+		visitor.visitIncludeNode(this);
+	}
+
+	@Override
+	public String toString() {
+		return "{$INCLUDE " + new ElementString(name).asText() + " $}";
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(name);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof IncludeNode))
+			return false;
+		IncludeNode other = (IncludeNode) obj;
+		return Objects.equals(name, other.name);
+	}
+
+}
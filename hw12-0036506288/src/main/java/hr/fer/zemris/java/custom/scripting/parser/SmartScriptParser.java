@@ -1,5 +1,8 @@
 package hr.fer.zemris.java.custom.scripting.parser;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import hr.fer.zemris.java.custom.collections.ArrayIndexedCollection;
 import hr.fer.zemris.java.custom.collections.EmptyStackException;
 import hr.fer.zemris.java.custom.collections.ObjectStack;
@@ -14,19 +17,34 @@ import hr.fer.zemris.java.custom.scripting.lexer.SmartScriptLexer;
 import hr.fer.zemris.java.custom.scripting.lexer.SmartScriptLexerException;
 import hr.fer.zemris.java.custom.scripting.lexer.SmartScriptLexerState;
 import hr.fer.zemris.java.custom.scripting.lexer.SmartScriptTokenType;
+import hr.fer.zemris.java.custom.scripting.nodes.BlockNode;
 import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
 import hr.fer.zemris.java.custom.scripting.nodes.EchoNode;
+import hr.fer.zemris.java.custom.scripting.nodes.ElseNode;
 import hr.fer.zemris.java.custom.scripting.nodes.ForLoopNode;
+import hr.fer.zemris.java.custom.scripting.nodes.IfNode;
+import hr.fer.zemris.java.custom.scripting.nodes.IncludeNode;
 import hr.fer.zemris.java.custom.scripting.nodes.Node;
 import hr.fer.zemris.java.custom.scripting.nodes.TextNode;
 
 /**
  * A parser for structured document format described in problem 3 of the 3rd homework.
+ * <p>
+ * Besides FOR, END and echo tags, the parser supports conditionals
+ * (<code>{$IF condition $}...{$ELSE$}...{$END$}</code>), inclusion of other
+ * scripts (<code>{$INCLUDE "name" $}</code>) and layout inheritance
+ * (<code>{$EXTENDS "name" $}</code> together with named
+ * <code>{$BLOCK name $}...{$END$}</code> tags).
  * 
  * @author Ivan Skorupan
  */
 public class SmartScriptParser {
 
+	/**
+	 * Symbols of the operators supported in echo and IF tags.
+	 */
+	private static final Set<String> SUPPORTED_OPERATORS = Set.of("+", "-", "*", "/", "%", "^", "<", "<=", ">", ">=", "==", "!=");
+
 	/**
 	 * An internal {@link SmartScriptLexer} instance to use for generating tokens.
 	 * 
@@ -47,6 +65,11 @@ public class SmartScriptParser {
 	 * @see ObjectStack
 	 */
 	private ObjectStack stack;
+	
+	/**
+	 * Names of all blocks defined in the document.
+	 */
+	private Set<String> blockNames = new HashSet<>();
 
 	/**
 	 * Constructs a new {@link SmartScriptParser} object initialized with given
@@ -129,6 +152,26 @@ public class SmartScriptParser {
 						stack.push(forLoop);
 					} else if(tagName.equals("END")) { // check if we have an end tag
 						parseEndTag();
+					} else if(tagName.equals("IF")) {
+						IfNode ifNode = new IfNode(parseTagElements("IF"));
+						addChild(ifNode);
+						stack.push(ifNode);
+					} else if(tagName.equals("ELSE")) {
+						parseElseTag();
+					} else if(tagName.equals("INCLUDE")) {
+						addChild(new IncludeNode(parseNameArgument("INCLUDE", SmartScriptTokenType.TEXT)));
+					} else if(tagName.equals("BLOCK")) {
+						BlockNode block = new BlockNode(parseNameArgument("BLOCK", SmartScriptTokenType.IDENT));
+						if(!blockNames.add(block.getName())) {
+							throw new SmartScriptParserException("Block " + block.getName() + " is defined more than once!");
+						}
+						addChild(block);
+						stack.push(block);
+					} else if(tagName.equals("EXTENDS")) {
+						if(stack.size() != 1 || documentNode.getExtendedDocument() != null) {
+							throw new SmartScriptParserException("A document can extend only one document and the EXTENDS tag can not be nested!");
+						}
+						documentNode.setExtendedDocument(parseNameArgument("EXTENDS", SmartScriptTokenType.TEXT));
 					} else {
 						// no supported tag names were found
 						throw new SmartScriptParserException("Tag with name: " + tagName + " is unsupported!");
@@ -195,6 +238,74 @@ public class SmartScriptParser {
 		lexer.setState(SmartScriptLexerState.BODY);
 	}
 	
+	/**
+	 * Parses the ELSE tag. The ELSE tag ends the first branch of the {@link IfNode}
+	 * on top of the internal stack, so that node is replaced on the stack by its
+	 * new {@link ElseNode}.
+	 * 
+	 * @throws SmartScriptParserException if the tag is not directly inside an IF tag
+	 * or if the tag has any arguments
+	 */
+	private void parseElseTag() {
+		askForNextToken();
+		
+		if(!isTokenOfType(SmartScriptTokenType.TAG_CLOSE)) {
+			throw new SmartScriptParserException("The ELSE tag should have no additional tokens after it's name and should be closed immediately!");
+		}
+		
+		Object top = stack.peek();
+		if(!(top instanceof IfNode) || ((IfNode) top).getElseNode() != null) {
+			throw new SmartScriptParserException("An ELSE tag must be directly inside an IF tag and can only appear once!");
+		}
+		
+		ElseNode elseNode = new ElseNode();
+		((IfNode) top).setElseNode(elseNode);
+		stack.pop();
+		stack.push(elseNode);
+		
+		lexer.setState(SmartScriptLexerState.BODY);
+	}
+	
+	/**
+	 * Parses a tag which has a single name as its argument.
+	 * 
+	 * @param tagName - name of the tag, used in error messages
+	 * @param type - expected type of the name token
+	 * @return the name
+	 * @throws SmartScriptParserException if the tag doesn't have exactly one argument
+	 * of the given type
+	 */
+	private String parseNameArgument(String tagName, SmartScriptTokenType type) {
+		askForNextToken();
+		
+		if(!isTokenOfType(type)) {
+			throw new SmartScriptParserException("The " + tagName + " tag expects a name as its only argument!");
+		}
+		String name = lexer.getToken().getValue().toString();
+		
+		askForNextToken();
+		if(!isTokenOfType(SmartScriptTokenType.TAG_CLOSE)) {
+			throw new SmartScriptParserException("There are too many arguments for a " + tagName + " tag!");
+		}
+		
+		lexer.setState(SmartScriptLexerState.BODY);
+		return name;
+	}
+	
+	/**
+	 * Adds the given node as a child of the node on top of the internal stack.
+	 * 
+	 * @param child - node to add
+	 * @throws SmartScriptParserException if the stack is empty
+	 */
+	private void addChild(Node child) {
+		try {
+			((Node)stack.peek()).addChildNode(child);
+		} catch(EmptyStackException ex) {
+			throw new SmartScriptParserException("Cannot peek an element because the stack is empty!");
+		}
+	}
+	
 	/**
 	 * Parses the echo tag.
 	 * 
@@ -203,6 +314,18 @@ public class SmartScriptParser {
 	 * or if there was an error reading the elements of this echo node
 	 */
 	private EchoNode parseEchoNode() {
+		return new EchoNode(parseTagElements("echo"));
+	}
+	
+	/**
+	 * Parses elements of an echo or IF tag, up to the closing of the tag.
+	 * 
+	 * @param tagName - name of the tag, used in error messages
+	 * @return parsed elements
+	 * @throws SmartScriptParserException if EOF was reached before tag closing or if there is another tag opening inside this tag
+	 * or if there was an error reading the elements
+	 */
+	private Element[] parseTagElements(String tagName) {
 		ArrayIndexedCollection elementsArray = new ArrayIndexedCollection();
 		Element[] elements;
 		
@@ -210,11 +333,11 @@ public class SmartScriptParser {
 			askForNextToken();
 			
 			if(isTokenOfType(SmartScriptTokenType.EOF)) {
-				throw new SmartScriptParserException("The end of file was reached before the echo tag was closed!");
+				throw new SmartScriptParserException("The end of file was reached before the " + tagName + " tag was closed!");
 			}
 			
 			if(isTokenOfType(SmartScriptTokenType.TAG_OPEN)) {
-				throw new SmartScriptParserException("Another tag cannot be opened inside an echo tag!");
+				throw new SmartScriptParserException("Another tag cannot be opened inside an " + tagName + " tag!");
 			}
 			
 			if(isTokenOfType(SmartScriptTokenType.TAG_CLOSE)) {
@@ -225,13 +348,17 @@ public class SmartScriptParser {
 				
 				for(int i = 0; i < tempArray.length; i++) {
 					if(!(tempArray[i] instanceof Element)) {
-						throw new SmartScriptParserException("There was an error reading the elements of an echo tag, because an invalid object type was found!");
+						throw new SmartScriptParserException("There was an error reading the elements of an " + tagName + " tag, because an invalid object type was found!");
 					}
 					
 					elements[i] = (Element)tempArray[i];
 				}
 				
-				return new EchoNode(elements);
+				if(elements.length == 0 && tagName.equals("IF")) {
+					throw new SmartScriptParserException("The IF tag must have a condition!");
+				}
+				
+				return elements;
 			}
 			
 			elementsArray.add(parseEchoNodeElement());
@@ -270,16 +397,11 @@ public class SmartScriptParser {
 	/**
 	 * Checks if given symbol is a supported operator.
 	 * 
+	 * @param operator - the symbol to check
 	 * @return <code>true</code> if symbol is a supported operator, <code>false</code> otherwise
 	 */
 	private boolean isSupportedOperator(String operator) {
-		String supportedOperators = "+-*/^";
-		
-		if(supportedOperators.contains(operator)) {
-			return true;
-		}
-		
-		return false;
+		return SUPPORTED_OPERATORS.contains(operator);
 	}
 
 	/**
@@ -0,0 +1,54 @@
+package hr.fer.zemris.java.webserver;
+
+/**
+ * Thrown when a client's request can not be served because it is malformed,
+ * too large or uses a feature the server doesn't support. The exception carries
+ * the status the server should answer with.
+ *
+ * @author Ivan Skorupan
+ */
+public class HttpRequestException extends RuntimeException {
+
+	private static final long serialVersionUID = 2914638057207394133L;
+
+	/**
+	 * Status code the server should answer with.
+	 */
+	private int statusCode;
+
+	/**
+	 * Status text the server should answer with.
+	 */
+	private String statusText;
+
+	/**
+	 * Initializes a new {@link HttpRequestException} object.
+	 *
+	 * @param statusCode - status code the server should answer with
+	 * @param statusText - status text the server should answer with
+	 */
+	public HttpRequestException(int statusCode, String statusText) {
+		super(statusCode + " " + statusText);
+		this.statusCode = statusCode;
+		this.statusText = statusText;
+	}
+
+	/**
+	 * Getter for the status code the server should answer with.
+	 *
+	 * @return status code
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * Getter for the status text the server should answer with.
+	 *
+	 * @return status text
+	 */
+	public String getStatusText() {
+		return statusText;
+	}
+
+}
@@ -0,0 +1,886 @@
+package hr.fer.zemris.java.webserver;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import hr.fer.zemris.java.webserver.RequestContext.UploadedFile;
+
+/**
+ * An incremental parser of HTTP requests sent through a single connection.
+ * <p>
+ * The parser reads the connection's input into a buffer which is reused for all
+ * requests of the connection. Bytes of pipelined requests which were read along
+ * with the current request stay in the buffer and are parsed next. The request
+ * line and headers are not copied out of the buffer; the parser only remembers
+ * where they are, and a header value is turned into a {@link String} only when
+ * it is asked for.
+ * <p>
+ * The size of the request head, the number of headers and the size of the body
+ * are limited. A request exceeding a limit, or a malformed request, causes an
+ * {@link HttpRequestException} with the status the server should answer with.
+ * <p>
+ * Request bodies are read on demand with {@link #readBody()}. Query strings and
+ * bodies of type <code>application/x-www-form-urlencoded</code> and
+ * <code>multipart/form-data</code> can be decoded into parameters.
+ *
+ * @author Ivan Skorupan
+ */
+public class HttpRequestParser {
+
+	/**
+	 * Initial size of the buffer.
+	 */
+	private static final int INITIAL_BUFFER_SIZE = 4096;
+
+	/**
+	 * Maximum number of headers in a request.
+	 */
+	private static final int MAX_HEADERS = 100;
+
+	/**
+	 * The stream requests are read from.
+	 */
+	private InputStream is;
+
+	/**
+	 * Maximum size of a request head in bytes.
+	 */
+	private int maxHeadSize;
+
+	/**
+	 * Maximum size of a request body in bytes.
+	 */
+	private long maxBodySize;
+
+	/**
+	 * Buffer holding the received bytes.
+	 */
+	private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+	/**
+	 * Position of the first byte in the buffer which was not consumed yet.
+	 */
+	private int position;
+
+	/**
+	 * Position after the last received byte in the buffer.
+	 */
+	private int limit;
+
+	/**
+	 * Position at which the search for the end of the current head continues.
+	 */
+	private int scan;
+
+	/**
+	 * Flag that marks if the line being scanned is empty so far.
+	 */
+	private boolean lineEmpty;
+
+	/**
+	 * Start and end of the method in the buffer.
+	 */
+	private int methodStart, methodEnd;
+
+	/**
+	 * Start and end of the request target in the buffer.
+	 */
+	private int targetStart, targetEnd;
+
+	/**
+	 * Start and end of the protocol version in the buffer.
+	 */
+	private int versionStart, versionEnd;
+
+	/**
+	 * Starts and ends of header names and values in the buffer, four numbers per header.
+	 */
+	private int[] headers = new int[4 * 16];
+
+	/**
+	 * Number of headers of the current request.
+	 */
+	private int headerCount;
+
+	/**
+	 * Length of the current request's body.
+	 */
+	private long contentLength;
+
+	/**
+	 * Number of bytes of the current request's body which were not consumed yet.
+	 */
+	private long bodyRemaining;
+
+	/**
+	 * Constructs a new {@link HttpRequestParser} object.
+	 *
+	 * @param is - stream to read requests from
+	 * @param maxHeadSize - maximum size of a request head in bytes
+	 * @param maxBodySize - maximum size of a request body in bytes
+	 */
+	public HttpRequestParser(InputStream is, int maxHeadSize, long maxBodySize) {
+		this.is = is;
+		this.maxHeadSize = maxHeadSize;
+		this.maxBodySize = maxBodySize;
+	}
+
+	/**
+	 * Reads and parses the head of the next request. The unconsumed body of the
+	 * previous request, if any, is skipped first.
+	 *
+	 * @return <code>true</code> if a request was read, <code>false</code> if the client
+	 * closed the connection before sending a complete request head
+	 * @throws IOException if an IO error occurs while reading
+	 * @throws HttpRequestException if the request is malformed or too large
+	 */
+	public boolean next() throws IOException {
+		skipBody();
+		compact();
+
+		int headEnd = findHeadEnd();
+		if(headEnd < 0) {
+			return false;
+		}
+
+		parseHead(headEnd);
+		position = headEnd;
+		scan = headEnd;
+		lineEmpty = false;
+
+		if(findHeader("Transfer-Encoding") >= 0) {
+			throw new HttpRequestException(501, "Not Implemented");
+		}
+
+		contentLength = parseContentLength();
+		if(contentLength > maxBodySize) {
+			throw new HttpRequestException(413, "Payload Too Large");
+		}
+		bodyRemaining = contentLength;
+
+		return true;
+	}
+
+	/**
+	 * Checks if there are bytes of a following request which were already
+	 * received, either into this parser's buffer or by the underlying stream.
+	 *
+	 * @return <code>true</code> if input of a following request is available, <code>false</code> otherwise
+	 * @throws IOException if an IO error occurs while checking the stream
+	 */
+	public boolean hasPendingInput() throws IOException {
+		int buffered = limit - position;
+		return buffered > bodyRemaining || is.available() > bodyRemaining - buffered;
+	}
+
+	/**
+	 * Returns the method of the current request.
+	 *
+	 * @return request method
+	 */
+	public String getMethod() {
+		return string(methodStart, methodEnd);
+	}
+
+	/**
+	 * Returns the protocol version of the current request.
+	 *
+	 * @return protocol version
+	 */
+	public String getVersion() {
+		return string(versionStart, versionEnd);
+	}
+
+	/**
+	 * Returns the path of the current request, which is the request target
+	 * without the query string.
+	 *
+	 * @return request path
+	 */
+	public String getPath() {
+		int query = queryStart();
+		return string(targetStart, query < 0 ? targetEnd : query - 1);
+	}
+
+	/**
+	 * Returns the value of the first header with the given name.
+	 *
+	 * @param name - name of the header, compared ignoring case
+	 * @return value of the header or <code>null</code> if the request has no such header
+	 */
+	public String getHeader(String name) {
+		int index = findHeader(name);
+		return index < 0 ? null : string(headers[index + 2], headers[index + 3]);
+	}
+
+	/**
+	 * Returns the value of the cookie with the given name, read from the
+	 * <code>Cookie</code> headers of the current request.
+	 *
+	 * @param name - name of the cookie
+	 * @return value of the cookie without quotes or <code>null</code> if there is no such cookie
+	 */
+	public String getCookie(String name) {
+		String value = null;
+		for(int index = 0; index < 4 * headerCount; index += 4) {
+			if(!nameEquals(index, "Cookie")) continue;
+
+			int end = headers[index + 3];
+			int start = headers[index + 2];
+			while(start < end) {
+				int next = indexOf((byte) ';', start, end);
+				int pairEnd = next < 0 ? end : next;
+				int nameStart = skipWhitespace(start, pairEnd);
+				int equals = indexOf((byte) '=', nameStart, pairEnd);
+
+				if(equals >= 0 && regionEquals(nameStart, trimEnd(nameStart, equals), name)) {
+					int valueStart = skipWhitespace(equals + 1, pairEnd);
+					int valueEnd = trimEnd(valueStart, pairEnd);
+					if(valueEnd - valueStart >= 2 && buffer[valueStart] == '"' && buffer[valueEnd - 1] == '"') {
+						valueStart++;
+						valueEnd--;
+					}
+					value = string(valueStart, valueEnd);
+				}
+				start = pairEnd + 1;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the length of the current request's body.
+	 *
+	 * @return body length in bytes
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	/**
+	 * Decodes parameters from the query string of the current request and puts
+	 * them into the given map.
+	 *
+	 * @param params - map to put parameters into
+	 */
+	public void parseQueryParameters(Map<String, String> params) {
+		int start = queryStart();
+		if(start >= 0) {
+			parseParameters(buffer, start, targetEnd, params);
+		}
+	}
+
+	/**
+	 * Reads the whole body of the current request.
+	 *
+	 * @return the body
+	 * @throws IOException if an IO error occurs or the client closed the connection before sending the whole body
+	 */
+	public byte[] readBody() throws IOException {
+		byte[] body = new byte[(int) bodyRemaining];
+
+		int offset = Math.min(limit - position, body.length);
+		System.arraycopy(buffer, position, body, 0, offset);
+		position += offset;
+
+		while(offset < body.length) {
+			int read = is.read(body, offset, body.length - offset);
+			if(read < 0) {
+				throw new EOFException("The client closed the connection before sending the whole request body!");
+			}
+			offset += read;
+		}
+
+		bodyRemaining = 0;
+		return body;
+	}
+
+	/**
+	 * Skips the unconsumed part of the current request's body.
+	 *
+	 * @throws IOException if an IO error occurs or the client closed the connection before sending the whole body
+	 */
+	public void skipBody() throws IOException {
+		int buffered = (int) Math.min(limit - position, bodyRemaining);
+		position += buffered;
+		bodyRemaining -= buffered;
+
+		while(bodyRemaining > 0) {
+			int read = is.read(buffer, 0, (int) Math.min(buffer.length, bodyRemaining));
+			if(read < 0) {
+				throw new EOFException("The client closed the connection before sending the whole request body!");
+			}
+			bodyRemaining -= read;
+		}
+		if(position == limit) {
+			position = limit = scan = 0;
+		}
+	}
+
+	/**
+	 * Decodes parameters of the form <code>name=value&amp;name=value</code> from the
+	 * given part of an array and puts them into the given map.
+	 * <p>
+	 * Names and values are URL decoded. A parameter with only its name given,
+	 * without the value, is put into the map with an empty value.
+	 *
+	 * @param data - array containing the parameters
+	 * @param start - index of the first byte of the parameters
+	 * @param end - index after the last byte of the parameters
+	 * @param params - map to put parameters into
+	 */
+	public static void parseParameters(byte[] data, int start, int end, Map<String, String> params) {
+		byte[] scratch = null;
+		while(start < end) {
+			int next = start;
+			int equals = -1;
+			while(next < end && data[next] != '&') {
+				if(data[next] == '=' && equals < 0) {
+					equals = next;
+				}
+				next++;
+			}
+
+			if(next > start) {
+				if(scratch == null) {
+					scratch = new byte[end - start];
+				}
+				if(equals < 0) {
+					params.put(decode(data, start, next, scratch), "");
+				} else {
+					params.put(decode(data, start, equals, scratch), decode(data, equals + 1, next, scratch));
+				}
+			}
+			start = next + 1;
+		}
+	}
+
+	/**
+	 * Parses a body of type <code>multipart/form-data</code>. Parts without a file
+	 * name are put into the given parameters map, and parts with a file name into
+	 * the given files map.
+	 *
+	 * @param body - the request body
+	 * @param contentType - value of the request's <code>Content-Type</code> header
+	 * @param params - map to put parameters into
+	 * @param files - map to put uploaded files into
+	 * @throws HttpRequestException if the body is malformed
+	 */
+	public static void parseMultipart(byte[] body, String contentType, Map<String, String> params,
+			Map<String, UploadedFile> files) {
+		String boundary = headerParameter(contentType, "boundary");
+		if(boundary == null || boundary.isEmpty()) {
+			throw new HttpRequestException(400, "Bad request");
+		}
+
+		byte[] delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+
+		// the first delimiter may be at the very start of the body, without the preceding line break
+		int position;
+		if(startsWith(body, 0, delimiter, 2)) {
+			position = delimiter.length - 2;
+		} else {
+			position = find(body, delimiter, 0);
+			if(position < 0) {
+				throw new HttpRequestException(400, "Bad request");
+			}
+			position += delimiter.length;
+		}
+
+		while(true) {
+			if(position + 2 > body.length) {
+				throw new HttpRequestException(400, "Bad request");
+			}
+			if(body[position] == '-' && body[position + 1] == '-') {
+				return;
+			}
+
+			int headersStart = skipLine(body, position);
+			int headersEnd = find(body, new byte[] {'\r', '\n', '\r', '\n'}, headersStart - 2);
+			int contentEnd = headersEnd < 0 ? -1 : find(body, delimiter, headersEnd + 4);
+			if(headersStart < 0 || headersEnd < 0 || contentEnd < 0) {
+				throw new HttpRequestException(400, "Bad request");
+			}
+
+			String disposition = null;
+			String partType = null;
+			String partHeaders = new String(body, headersStart, Math.max(0, headersEnd - headersStart), StandardCharsets.UTF_8);
+			for(String line : partHeaders.split("\r\n")) {
+				int colon = line.indexOf(':');
+				if(colon < 0) continue;
+				String name = line.substring(0, colon).trim();
+				if(name.equalsIgnoreCase("Content-Disposition")) {
+					disposition = line.substring(colon + 1).trim();
+				} else if(name.equalsIgnoreCase("Content-Type")) {
+					partType = line.substring(colon + 1).trim();
+				}
+			}
+
+			String name = headerParameter(disposition, "name");
+			if(name == null) {
+				throw new HttpRequestException(400, "Bad request");
+			}
+
+			byte[] content = Arrays.copyOfRange(body, headersEnd + 4, contentEnd);
+			String fileName = headerParameter(disposition, "filename");
+			if(fileName == null) {
+				params.put(name, new String(content, StandardCharsets.UTF_8));
+			} else {
+				files.put(name, new UploadedFile(fileName,
+						partType == null ? "application/octet-stream" : partType, content));
+			}
+
+			position = contentEnd + delimiter.length;
+		}
+	}
+
+	/**
+	 * Reads input until the end of a request head is received.
+	 * <p>
+	 * Empty lines before the request line are skipped.
+	 *
+	 * @return position after the empty line which ends the head, or -1 if the stream ended first
+	 * @throws IOException if an IO error occurs while reading
+	 * @throws HttpRequestException if the head is larger than allowed
+	 */
+	private int findHeadEnd() throws IOException {
+		while(true) {
+			for(; scan < limit; scan++) {
+				byte b = buffer[scan];
+				if(scan == position && (b == '\r' || b == '\n')) {
+					position++;
+				} else if(b == '\n') {
+					if(lineEmpty) {
+						if(scan + 1 - position > maxHeadSize) {
+							throw new HttpRequestException(431, "Request Header Fields Too Large");
+						}
+						return ++scan;
+					}
+					lineEmpty = true;
+				} else if(b != '\r') {
+					lineEmpty = false;
+				}
+			}
+
+			if(limit - position >= maxHeadSize) {
+				throw new HttpRequestException(431, "Request Header Fields Too Large");
+			}
+			// skipped empty lines leave free space at the start of the buffer, which
+			// must be reclaimed because the buffer can't grow past the head limit
+			if(limit == buffer.length) {
+				compact();
+			}
+			if(limit == buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.min(2 * buffer.length, Math.max(maxHeadSize, INITIAL_BUFFER_SIZE)));
+			}
+
+			int read = is.read(buffer, limit, buffer.length - limit);
+			if(read < 0) {
+				return -1;
+			}
+			limit += read;
+		}
+	}
+
+	/**
+	 * Finds the request line and headers in the given head.
+	 *
+	 * @param headEnd - position after the end of the head
+	 * @throws HttpRequestException if the head is malformed
+	 */
+	private void parseHead(int headEnd) {
+		headerCount = 0;
+		methodEnd = -1;
+
+		int lineStart = position;
+		while(lineStart < headEnd) {
+			int newline = indexOf((byte) '\n', lineStart, headEnd);
+			int lineEnd = newline > lineStart && buffer[newline - 1] == '\r' ? newline - 1 : newline;
+
+			if(lineEnd == lineStart) {
+				// empty lines before the request line are allowed, the one after the headers ends the head
+				if(methodEnd >= 0) break;
+			} else if(methodEnd < 0) {
+				parseRequestLine(lineStart, lineEnd);
+			} else if(buffer[lineStart] == ' ' || buffer[lineStart] == '\t') {
+				if(headerCount == 0) {
+					throw new HttpRequestException(400, "Bad request");
+				}
+				// an obsolete folded line continues the previous value, line break becomes a space
+				int previous = 4 * (headerCount - 1);
+				Arrays.fill(buffer, headers[previous + 3], lineStart, (byte) ' ');
+				headers[previous + 3] = trimEnd(headers[previous + 2], lineEnd);
+			} else {
+				addHeader(lineStart, lineEnd);
+			}
+
+			lineStart = newline + 1;
+		}
+
+		if(methodEnd < 0) {
+			throw new HttpRequestException(400, "Bad request");
+		}
+	}
+
+	/**
+	 * Finds the method, target and version in the given request line.
+	 *
+	 * @param start - start of the line
+	 * @param end - end of the line, without the line break
+	 * @throws HttpRequestException if the line does not consist of exactly three parts
+	 */
+	private void parseRequestLine(int start, int end) {
+		int firstSpace = indexOf((byte) ' ', start, end);
+		int secondSpace = firstSpace < 0 ? -1 : indexOf((byte) ' ', firstSpace + 1, end);
+		if(firstSpace <= start || secondSpace <= firstSpace + 1 || secondSpace == end - 1
+				|| indexOf((byte) ' ', secondSpace + 1, end) >= 0) {
+			throw new HttpRequestException(400, "Bad request");
+		}
+
+		methodStart = start;
+		methodEnd = firstSpace;
+		targetStart = firstSpace + 1;
+		targetEnd = secondSpace;
+		versionStart = secondSpace + 1;
+		versionEnd = end;
+	}
+
+	/**
+	 * Remembers the header in the given line.
+	 *
+	 * @param start - start of the line
+	 * @param end - end of the line, without the line break
+	 * @throws HttpRequestException if the line is not a valid header or there are too many headers
+	 */
+	private void addHeader(int start, int end) {
+		int colon = indexOf((byte) ':', start, end);
+		if(colon <= start || buffer[colon - 1] == ' ' || buffer[colon - 1] == '\t') {
+			throw new HttpRequestException(400, "Bad request");
+		}
+		if(headerCount == MAX_HEADERS) {
+			throw new HttpRequestException(431, "Request Header Fields Too Large");
+		}
+
+		int index = 4 * headerCount++;
+		if(index == headers.length) {
+			headers = Arrays.copyOf(headers, 2 * headers.length);
+		}
+
+		int valueStart = skipWhitespace(colon + 1, end);
+		headers[index] = start;
+		headers[index + 1] = colon;
+		headers[index + 2] = valueStart;
+		headers[index + 3] = trimEnd(valueStart, end);
+	}
+
+	/**
+	 * Finds the first header with the given name.
+	 *
+	 * @param name - name of the header, compared ignoring case
+	 * @return index of the header in {@link #headers} or -1 if there is no such header
+	 */
+	private int findHeader(String name) {
+		for(int index = 0; index < 4 * headerCount; index += 4) {
+			if(nameEquals(index, name)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks if the header at the given index has the given name.
+	 *
+	 * @param index - index of the header in {@link #headers}
+	 * @param name - name to compare with, ignoring case
+	 * @return <code>true</code> if the names are equal, <code>false</code> otherwise
+	 */
+	private boolean nameEquals(int index, String name) {
+		int start = headers[index];
+		if(headers[index + 1] - start != name.length()) {
+			return false;
+		}
+
+		for(int i = 0; i < name.length(); i++) {
+			int c = buffer[start + i];
+			int d = name.charAt(i);
+			if(c == d) continue;
+
+			// ASCII letters differ only in the case bit
+			int lower = c | 0x20;
+			if(lower != (d | 0x20) || lower < 'a' || lower > 'z') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if the given part of the buffer equals the given string.
+	 *
+	 * @param start - start of the part
+	 * @param end - end of the part
+	 * @param text - string to compare with
+	 * @return <code>true</code> if they are equal, <code>false</code> otherwise
+	 */
+	private boolean regionEquals(int start, int end, String text) {
+		if(end - start != text.length()) {
+			return false;
+		}
+		for(int i = 0; i < text.length(); i++) {
+			if(buffer[start + i] != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses a non-negative decimal number from the given part of the buffer.
+	 *
+	 * @param start - start of the number
+	 * @param end - end of the number
+	 * @return the number
+	 * @throws HttpRequestException if the part is not a valid number
+	 */
+	private long parseLength(int start, int end) {
+		if(start == end || end - start > 18) {
+			throw new HttpRequestException(400, "Bad request");
+		}
+
+		long value = 0;
+		for(int i = start; i < end; i++) {
+			if(buffer[i] < '0' || buffer[i] > '9') {
+				throw new HttpRequestException(400, "Bad request");
+			}
+			value = 10 * value + (buffer[i] - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Parses the body length from the <code>Content-Length</code> headers of the
+	 * current request. A request may repeat the header, but only with the same
+	 * value, since the length would otherwise be ambiguous.
+	 *
+	 * @return the body length, or 0 if there is no <code>Content-Length</code> header
+	 * @throws HttpRequestException if a value is not a valid number or the values differ
+	 */
+	private long parseContentLength() {
+		long length = -1;
+		for(int index = 0; index < 4 * headerCount; index += 4) {
+			if(!nameEquals(index, "Content-Length")) continue;
+
+			long value = parseLength(headers[index + 2], headers[index + 3]);
+			if(length >= 0 && value != length) {
+				throw new HttpRequestException(400, "Bad request");
+			}
+			length = value;
+		}
+		return length < 0 ? 0 : length;
+	}
+
+	/**
+	 * Returns the start of the query string in the request target.
+	 *
+	 * @return position of the first byte after '?' or -1 if there is no query string
+	 */
+	private int queryStart() {
+		int question = indexOf((byte) '?', targetStart, targetEnd);
+		return question < 0 ? -1 : question + 1;
+	}
+
+	/**
+	 * Moves the unconsumed bytes to the start of the buffer.
+	 */
+	private void compact() {
+		if(position == 0) return;
+
+		System.arraycopy(buffer, position, buffer, 0, limit - position);
+		limit -= position;
+		scan -= position;
+		position = 0;
+		if(scan < 0) {
+			scan = 0;
+		}
+	}
+
+	/**
+	 * Returns the first position of the given byte in the given part of the buffer.
+	 *
+	 * @param b - byte to find
+	 * @param start - start of the part
+	 * @param end - end of the part
+	 * @return position of the byte or -1 if it is not in the part
+	 */
+	private int indexOf(byte b, int start, int end) {
+		for(int i = start; i < end; i++) {
+			if(buffer[i] == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Skips spaces and tabs at the start of the given part of the buffer.
+	 *
+	 * @param start - start of the part
+	 * @param end - end of the part
+	 * @return position of the first other byte or <code>end</code>
+	 */
+	private int skipWhitespace(int start, int end) {
+		while(start < end && (buffer[start] == ' ' || buffer[start] == '\t')) {
+			start++;
+		}
+		return start;
+	}
+
+	/**
+	 * Skips spaces and tabs at the end of the given part of the buffer.
+	 *
+	 * @param start - start of the part
+	 * @param end - end of the part
+	 * @return position after the last other byte or <code>start</code>
+	 */
+	private int trimEnd(int start, int end) {
+		while(end > start && (buffer[end - 1] == ' ' || buffer[end - 1] == '\t')) {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * Creates a string from the given part of the buffer.
+	 *
+	 * @param start - start of the part
+	 * @param end - end of the part
+	 * @return the string
+	 */
+	private String string(int start, int end) {
+		return new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * URL decodes the given part of an array as UTF-8 text.
+	 *
+	 * @param data - array containing the text
+	 * @param start - start of the text
+	 * @param end - end of the text
+	 * @param scratch - array to decode into, at least as large as the text
+	 * @return the decoded text
+	 */
+	private static String decode(byte[] data, int start, int end, byte[] scratch) {
+		int length = 0;
+		for(int i = start; i < end; i++) {
+			byte b = data[i];
+			if(b == '+') {
+				b = ' ';
+			} else if(b == '%' && i + 2 < end && hex(data[i + 1]) >= 0 && hex(data[i + 2]) >= 0) {
+				b = (byte) (16 * hex(data[i + 1]) + hex(data[i + 2]));
+				i += 2;
+			}
+			scratch[length++] = b;
+		}
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the value of the given hexadecimal digit.
+	 *
+	 * @param b - the digit
+	 * @return value of the digit or -1 if it is not a hexadecimal digit
+	 */
+	private static int hex(byte b) {
+		if(b >= '0' && b <= '9') return b - '0';
+		if(b >= 'a' && b <= 'f') return b - 'a' + 10;
+		if(b >= 'A' && b <= 'F') return b - 'A' + 10;
+		return -1;
+	}
+
+	/**
+	 * Returns the value of a parameter of a header value such as
+	 * <code>form-data; name="field"</code>.
+	 *
+	 * @param header - the header value, can be <code>null</code>
+	 * @param name - name of the parameter
+	 * @return value of the parameter without quotes or <code>null</code> if there is no such parameter
+	 */
+	private static String headerParameter(String header, String name) {
+		if(header == null) {
+			return null;
+		}
+
+		for(String parameter : header.split(";")) {
+			int equals = parameter.indexOf('=');
+			if(equals < 0 || !parameter.substring(0, equals).trim().equalsIgnoreCase(name)) continue;
+
+			String value = parameter.substring(equals + 1).trim();
+			if(value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+				value = value.substring(1, value.length() - 1);
+			}
+			return value;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the position of the first occurrence of the given pattern in the given data.
+	 *
+	 * @param data - data to search
+	 * @param pattern - pattern to find
+	 * @param from - position at which to start the search
+	 * @return position of the pattern or -1 if it does not occur
+	 */
+	private static int find(byte[] data, byte[] pattern, int from) {
+		for(int i = Math.max(from, 0); i <= data.length - pattern.length; i++) {
+			if(data[i] == pattern[0] && startsWith(data, i, pattern, 0)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks if the given data contains the given part of the pattern at the given position.
+	 *
+	 * @param data - data to check
+	 * @param position - position in the data
+	 * @param pattern - the pattern
+	 * @param patternStart - index of the first byte of the pattern to compare
+	 * @return <code>true</code> if the data contains the part of the pattern at the position, <code>false</code> otherwise
+	 */
+	private static boolean startsWith(byte[] data, int position, byte[] pattern, int patternStart) {
+		int length = pattern.length - patternStart;
+		if(position + length > data.length) {
+			return false;
+		}
+		for(int i = 0; i < length; i++) {
+			if(data[position + i] != pattern[patternStart + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the position after the line break ending the line at the given position.
+	 *
+	 * @param data - data to search
+	 * @param position - position in the line
+	 * @return position of the next line or -1 if there is no line break
+	 */
+	private static int skipLine(byte[] data, int position) {
+		for(int i = position; i < data.length; i++) {
+			if(data[i] == '\n') {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -5,6 +5,10 @@ package hr.fer.zemris.java.webserver;
  * <p>
  * A web worker gets the current request and is expected to create content
  * for the client.
+ * <p>
+ * How many instances of a worker exist and how long they live is decided by the
+ * {@link WorkerRegistry}, which calls {@link #init()} and {@link #destroy()}
+ * around the worker's lifetime.
  * 
  * @author Ivan Skorupan
  */
@@ -18,4 +22,24 @@ public interface IWebWorker {
 	 */
 	public void processRequest(RequestContext context) throws Exception;
 	
+	/**
+	 * Prepares this worker for processing requests. The server calls this method
+	 * once, after it creates the worker and before the first request is processed.
+	 * <p>
+	 * The default implementation does nothing.
+	 * 
+	 * @throws Exception if the worker could not be prepared, in which case it is not used
+	 */
+	public default void init() throws Exception {
+	}
+	
+	/**
+	 * Releases resources held by this worker. The server calls this method once,
+	 * when the worker will not process any more requests.
+	 * <p>
+	 * The default implementation does nothing.
+	 */
+	public default void destroy() {
+	}
+	
 }
@@ -2,10 +2,17 @@ package hr.fer.zemris.java.webserver;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -22,11 +29,27 @@ import java.util.stream.Collectors;
  * @author Ivan Skorupan
  */
 public class RequestContext {
+	
+	/**
+	 * Line terminator used in HTTP.
+	 */
+	private static final byte[] CRLF = {'\r', '\n'};
+	
+	/**
+	 * The chunk which terminates a response sent using chunked transfer encoding.
+	 */
+	private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
 
 	/**
 	 * Output stream through which request content is written.
 	 */
 	private OutputStream outputStream;
+	
+	/**
+	 * Channel beneath {@link #outputStream} used for sending files, <code>null</code>
+	 * if files are sent through the output stream.
+	 */
+	private WritableByteChannel outputChannel;
 
 	/**
 	 * Charset used for this request's content.
@@ -90,12 +113,35 @@ public class RequestContext {
 	 * List of this request's cookies that will be sent to the client.
 	 */
 	private List<RCCookie> outputCookies;
+	
+	/**
+	 * Files uploaded with this request mapped by names of their form fields.
+	 */
+	private Map<String, UploadedFile> uploadedFiles = new HashMap<>();
+	
+	/**
+	 * Additional headers of this request's response mapped by their names.
+	 */
+	private Map<String, String> headers = new LinkedHashMap<>();
 
 	/**
 	 * Flag that marks if the request header was generated or not.
 	 */
 	private boolean headerGenerated;
 	
+	/**
+	 * Flag that marks if the connection this response is sent through
+	 * stays open after the response has been written.
+	 */
+	private boolean keepAlive;
+	
+	/**
+	 * Flag that marks if the content is being sent using chunked transfer
+	 * encoding. This happens when the connection is kept alive and the
+	 * content length is unknown at header generation time.
+	 */
+	private boolean chunked;
+	
 	/**
 	 * Constructs a new {@link RequestContext} object.
 	 * 
@@ -168,6 +214,58 @@ public class RequestContext {
 		outputCookies.add(Objects.requireNonNull(cookie));
 	}
 	
+	/**
+	 * Sets an additional header of this request's response, replacing
+	 * the previously set value of the header with the same name.
+	 * 
+	 * @param name - name of the header
+	 * @param value - value of the header
+	 * @throws RuntimeException if the request header was already generated
+	 * upon this method call
+	 */
+	public void setHeader(String name, String value) {
+		checkHeaderGenerated();
+		headers.put(Objects.requireNonNull(name), Objects.requireNonNull(value));
+	}
+	
+	/**
+	 * Returns the file uploaded with this request through the form field with the given name.
+	 * 
+	 * @param name - name of the form field
+	 * @return the uploaded file or <code>null</code> if there is no such file
+	 */
+	public UploadedFile getUploadedFile(String name) {
+		return uploadedFiles.get(name);
+	}
+	
+	/**
+	 * Returns names of all form fields through which files were uploaded with this request.
+	 * 
+	 * @return an unmodifiable set of form field names
+	 */
+	public Set<String> getUploadedFileNames() {
+		return createUnmodifiableSetFromCollection(uploadedFiles.keySet());
+	}
+	
+	/**
+	 * Sets the files uploaded with this request.
+	 * 
+	 * @param uploadedFiles - uploaded files mapped by names of their form fields
+	 */
+	void setUploadedFiles(Map<String, UploadedFile> uploadedFiles) {
+		this.uploadedFiles = Objects.requireNonNull(uploadedFiles);
+	}
+	
+	/**
+	 * Sets the channel beneath the output stream of this request context which
+	 * will be used for sending files with {@link #write(Path, long, long)}.
+	 * 
+	 * @param outputChannel - channel the output stream writes to
+	 */
+	void setOutputChannel(WritableByteChannel outputChannel) {
+		this.outputChannel = outputChannel;
+	}
+	
 	/**
 	 * Gets the {@link IDispatcher} object associated with this
 	 * request context.
@@ -344,6 +442,7 @@ public class RequestContext {
 	 */
 	public RequestContext write(byte[] data, int offset, int len) throws IOException {
 		if(!headerGenerated) {
+			chunked = keepAlive && contentLength == null && !isBodyless();
 			String header = generateHeader();
 			byte[] headerBytes = header.getBytes();
 			outputStream.write(headerBytes);
@@ -351,10 +450,88 @@ public class RequestContext {
 			headerGenerated = true;
 		}
 		
-		outputStream.write(data, offset, len);
+		if(chunked) {
+			if(len == 0) return this;
+			outputStream.write((Integer.toHexString(len) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+			outputStream.write(data, offset, len);
+			outputStream.write(CRLF);
+		} else {
+			outputStream.write(data, offset, len);
+		}
+		return this;
+	}
+	
+	/**
+	 * Writes a part of the given file to the output stream of this {@link RequestContext}.
+	 * <p>
+	 * The header is generated first if it wasn't already, just like in
+	 * {@link #write(byte[], int, int)}. The file is then handed over with
+	 * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which
+	 * lets the operating system copy it directly to the socket when the output
+	 * channel is set.
+	 * 
+	 * @param file - file to write
+	 * @param position - position in the file at which to start writing
+	 * @param count - number of bytes to write
+	 * @return the {@link RequestContext} object upon which this method was called
+	 * @throws IOException if the file could not be read or there is an error while writing to the output stream
+	 */
+	public RequestContext write(Path file, long position, long count) throws IOException {
+		write(new byte[0], 0, 0);
+		if(count == 0) return this;
+		
+		if(chunked) {
+			outputStream.write((Long.toHexString(count) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+		}
+		outputStream.flush();
+		
+		WritableByteChannel target = (outputChannel == null) ? Channels.newChannel(outputStream) : outputChannel;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long end = position + count;
+			while(position < end) {
+				long transferred = channel.transferTo(position, end - position, target);
+				if(transferred <= 0) {
+					throw new IOException("The file " + file + " is shorter than expected!");
+				}
+				position += transferred;
+			}
+		}
+		
+		if(chunked) {
+			outputStream.write(CRLF);
+		}
 		return this;
 	}
 	
+	/**
+	 * Completes the response sent through this request context.
+	 * <p>
+	 * If nothing was written so far, an empty response with content length
+	 * 0 is sent, except for statuses which never have a body (204 and 304),
+	 * which are sent without a <code>Content-Length</code> header. If chunked transfer encoding was used, the terminating
+	 * chunk is written so that the client knows where the response ends
+	 * on a persistent connection.
+	 * <p>
+	 * This method is meant to be called by the server once a worker is done
+	 * with the request, and not by the workers themselves.
+	 * 
+	 * @throws IOException if there is an error while writing to the output stream
+	 */
+	void finish() throws IOException {
+		if(!headerGenerated) {
+			if(contentLength == null && !isBodyless()) {
+				contentLength = 0L;
+			}
+			write(new byte[0]);
+		}
+		
+		if(chunked) {
+			outputStream.write(LAST_CHUNK);
+			chunked = false;
+		}
+		outputStream.flush();
+	}
+	
 	/**
 	 * Converts the given <code>text</code> to bytes and then
 	 * calls the {@link #write(byte[], int, int)} method with
@@ -385,9 +562,15 @@ public class RequestContext {
 		StringBuilder header = new StringBuilder();
 		header.append("HTTP/1.1 " + statusCode + " " + statusText + "\r\n"
 			+ "Content-Type: " + mimeType + (mimeType.startsWith("text/") ? "; charset=" + encoding : "") + "\r\n"
-			+ (contentLength == null ? "" : "Content-Length: " + contentLength + "\r\n")
+			+ (contentLength == null || isBodyless() ? "" : "Content-Length: " + contentLength + "\r\n")
+			+ (chunked ? "Transfer-Encoding: chunked\r\n" : "")
+			+ (keepAlive ? "Connection: keep-alive\r\n" : "")
 		);
 		
+		for(Map.Entry<String, String> entry : headers.entrySet()) {
+			header.append(entry.getKey() + ": " + entry.getValue() + "\r\n");
+		}
+		
 		if(!outputCookies.isEmpty()) {
 			for(RCCookie cookie : outputCookies) {
 				header.append("Set-Cookie: " + cookie.name + "=\"" + cookie.value + "\"");
@@ -403,6 +586,25 @@ public class RequestContext {
 		return header.toString();
 	}
 	
+	/**
+	 * Checks if the status of this response is one which never has a body,
+	 * 204 (No Content) or 304 (Not Modified).
+	 * 
+	 * @return <code>true</code> if the response never has a body, <code>false</code> otherwise
+	 */
+	private boolean isBodyless() {
+		return statusCode == 204 || statusCode == 304;
+	}
+	
+	/**
+	 * Checks if the response header was already written to the output stream.
+	 * 
+	 * @return <code>true</code> if the header was generated, <code>false</code> otherwise
+	 */
+	boolean isHeaderGenerated() {
+		return headerGenerated;
+	}
+	
 	/**
 	 * Helper method that checks if the request header was already generated and
 	 * if so, throws a {@link RuntimeException}.
@@ -430,6 +632,29 @@ public class RequestContext {
 		this.encoding = encoding;
 	}
 	
+	/**
+	 * Sets whether the connection this response is sent through stays open
+	 * after the response. A kept alive connection requires the response to be
+	 * delimited, so if the content length is not set, the content will be sent
+	 * using chunked transfer encoding.
+	 * 
+	 * @param keepAlive - <code>true</code> if the connection is persistent, <code>false</code> otherwise
+	 * @throws RuntimeException if the request header was already generated
+	 */
+	public void setKeepAlive(boolean keepAlive) {
+		checkHeaderGenerated();
+		this.keepAlive = keepAlive;
+	}
+	
+	/**
+	 * Checks whether the connection this response is sent through stays open.
+	 * 
+	 * @return <code>true</code> if the connection is persistent, <code>false</code> otherwise
+	 */
+	public boolean isKeepAlive() {
+		return keepAlive;
+	}
+	
 	/**
 	 * Sets this request's status code.
 	 * 
@@ -633,4 +858,68 @@ public class RequestContext {
 		}
 	}
 	
+	/**
+	 * This class models a file uploaded through a <code>multipart/form-data</code> form.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	public static class UploadedFile {
+		
+		/**
+		 * Name of the file on the client's computer.
+		 */
+		private String fileName;
+		
+		/**
+		 * Mime type of the file.
+		 */
+		private String mimeType;
+		
+		/**
+		 * Content of the file.
+		 */
+		private byte[] content;
+		
+		/**
+		 * Constructs a new {@link UploadedFile} object.
+		 * 
+		 * @param fileName - name of the file on the client's computer
+		 * @param mimeType - mime type of the file
+		 * @param content - content of the file
+		 * @throws NullPointerException if any of the arguments is <code>null</code>
+		 */
+		public UploadedFile(String fileName, String mimeType, byte[] content) {
+			this.fileName = Objects.requireNonNull(fileName);
+			this.mimeType = Objects.requireNonNull(mimeType);
+			this.content = Objects.requireNonNull(content);
+		}
+		
+		/**
+		 * Getter for the name of the file on the client's computer.
+		 * 
+		 * @return name of the file
+		 */
+		public String getFileName() {
+			return fileName;
+		}
+		
+		/**
+		 * Getter for the mime type of the file.
+		 * 
+		 * @return mime type of the file
+		 */
+		public String getMimeType() {
+			return mimeType;
+		}
+		
+		/**
+		 * Getter for the content of the file.
+		 * 
+		 * @return content of the file
+		 */
+		public byte[] getContent() {
+			return content;
+		}
+	}
+	
 }
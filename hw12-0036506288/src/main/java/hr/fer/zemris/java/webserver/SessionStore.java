@@ -0,0 +1,534 @@
+package hr.fer.zemris.java.webserver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe store of sessions of {@link SmartHttpServer} clients.
+ * <p>
+ * Sessions are looked up in a concurrent map, so requests of different clients
+ * never block each other. Every session is also scheduled in a hierarchical timing
+ * wheel by the time it expires. Using a session only moves its expiry time forward;
+ * the session is moved to a later slot of the wheel lazily, when its old slot is
+ * reached. Expiring sessions therefore costs time proportional to the number of
+ * expired sessions, not to the number of all sessions.
+ * <p>
+ * Since all sessions last equally long, the session which expires first is also the
+ * least recently used one. When the store is full, the session found first by going
+ * through the wheel in time order is evicted to make room for a new one.
+ * <p>
+ * Session IDs are generated with a {@link SecureRandom}, so they can not be guessed
+ * from IDs given out earlier.
+ *
+ * @author Ivan Skorupan
+ */
+public class SessionStore {
+
+	/**
+	 * Number of bytes of randomness in a session ID.
+	 */
+	private static final int SID_BYTES = 20;
+
+	/**
+	 * Duration of one tick of the timing wheel in milliseconds.
+	 */
+	private static final long TICK = 1000;
+
+	/**
+	 * Number of bits used for indexing slots of one level of the timing wheel.
+	 */
+	private static final int SLOT_BITS = 6;
+
+	/**
+	 * Number of slots in one level of the timing wheel.
+	 */
+	private static final int SLOTS = 1 << SLOT_BITS;
+
+	/**
+	 * Mask extracting a slot index from a tick.
+	 */
+	private static final long SLOT_MASK = SLOTS - 1;
+
+	/**
+	 * Number of levels of the timing wheel. Four levels of 64 slots cover
+	 * more than six months of one-second ticks.
+	 */
+	private static final int LEVELS = 4;
+
+	/**
+	 * Models a single session.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	public static class Session {
+
+		/**
+		 * This session's id.
+		 */
+		private String sid;
+
+		/**
+		 * The host that this session belongs to.
+		 */
+		private String host;
+
+		/**
+		 * Time until this session becomes invalid.
+		 */
+		private volatile long validUntil;
+
+		/**
+		 * This map contains parameters that will later become
+		 * persistent parameters of the server's response request.
+		 */
+		private Map<String, String> map = new ConcurrentHashMap<>();
+
+		/**
+		 * Flag indicating that this session was removed from the store.
+		 */
+		private volatile boolean removed;
+
+		/**
+		 * Tick for which this session is scheduled in the timing wheel.
+		 */
+		private long scheduledTick;
+
+		/**
+		 * Previous session in the same slot of the timing wheel.
+		 */
+		private Session previous;
+
+		/**
+		 * Next session in the same slot of the timing wheel.
+		 */
+		private Session next;
+
+		/**
+		 * Slot of the timing wheel this session is in, <code>null</code> if it is not scheduled.
+		 */
+		private Slot slot;
+
+		/**
+		 * Constructs a new {@link Session} object.
+		 *
+		 * @param sid - this session's id
+		 * @param host - host this session belongs to
+		 * @param validUntil - time until this session becomes invalid
+		 */
+		private Session(String sid, String host, long validUntil) {
+			this.sid = sid;
+			this.host = host;
+			this.validUntil = validUntil;
+		}
+
+		/**
+		 * Getter for this session's id.
+		 *
+		 * @return session id
+		 */
+		public String getSid() {
+			return sid;
+		}
+
+		/**
+		 * Getter for the host this session belongs to.
+		 *
+		 * @return host of the session
+		 */
+		public String getHost() {
+			return host;
+		}
+
+		/**
+		 * Getter for persistent parameters of this session.
+		 *
+		 * @return map of persistent parameters
+		 */
+		public Map<String, String> getMap() {
+			return map;
+		}
+
+	}
+
+	/**
+	 * Models one slot of the timing wheel, a doubly linked list of sessions.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	private static class Slot {
+
+		/**
+		 * First session in this slot.
+		 */
+		private Session head;
+
+		/**
+		 * Adds the given session to this slot.
+		 *
+		 * @param session - session to add
+		 */
+		private void add(Session session) {
+			session.slot = this;
+			session.previous = null;
+			session.next = head;
+			if(head != null) {
+				head.previous = session;
+			}
+			head = session;
+		}
+
+		/**
+		 * Removes the given session from this slot.
+		 *
+		 * @param session - session to remove, which must be in this slot
+		 */
+		private void remove(Session session) {
+			if(session.previous != null) {
+				session.previous.next = session.next;
+			} else {
+				head = session.next;
+			}
+			if(session.next != null) {
+				session.next.previous = session.previous;
+			}
+			session.slot = null;
+			session.previous = null;
+			session.next = null;
+		}
+
+		/**
+		 * Removes all sessions from this slot.
+		 *
+		 * @return the first of removed sessions, still linked to the others
+		 */
+		private Session clear() {
+			Session first = head;
+			head = null;
+			return first;
+		}
+
+	}
+
+	/**
+	 * Sessions mapped by their ids.
+	 */
+	private Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+	/**
+	 * Slots of the timing wheel, by levels.
+	 */
+	private Slot[][] wheel = new Slot[LEVELS][SLOTS];
+
+	/**
+	 * The last tick the timing wheel was advanced to.
+	 */
+	private long currentTick;
+
+	/**
+	 * Number of milliseconds a session lasts after it was last used.
+	 */
+	private long timeout;
+
+	/**
+	 * Maximum number of sessions kept in this store.
+	 */
+	private int capacity;
+
+	/**
+	 * Generator of session IDs.
+	 */
+	private SecureRandom random = new SecureRandom();
+
+	/**
+	 * Constructs a new {@link SessionStore} object.
+	 *
+	 * @param timeout - number of seconds a session lasts after it was last used
+	 * @param capacity - maximum number of sessions kept in the store
+	 * @throws IllegalArgumentException if <code>timeout</code> or <code>capacity</code> is less than 1
+	 */
+	public SessionStore(int timeout, int capacity) {
+		if(timeout < 1 || capacity < 1) {
+			throw new IllegalArgumentException("Session timeout and capacity must be positive!");
+		}
+
+		this.timeout = 1000L * timeout;
+		this.capacity = capacity;
+		this.currentTick = System.currentTimeMillis() / TICK;
+
+		for(Slot[] level : wheel) {
+			for(int i = 0; i < SLOTS; i++) {
+				level[i] = new Slot();
+			}
+		}
+	}
+
+	/**
+	 * Returns the valid session with the given id which belongs to the given host,
+	 * and extends its lifetime.
+	 *
+	 * @param sid - id of the session, can be <code>null</code>
+	 * @param host - host the session must belong to
+	 * @return the session or <code>null</code> if there is no such valid session
+	 */
+	public Session get(String sid, String host) {
+		Session session = sid == null ? null : sessions.get(sid);
+		if(session == null || !session.host.equals(host)) {
+			return null;
+		}
+
+		long now = System.currentTimeMillis();
+		if(session.validUntil < now) {
+			remove(session);
+			return null;
+		}
+
+		session.validUntil = now + timeout;
+		return session.removed ? null : session;
+	}
+
+	/**
+	 * Creates a new session for the given host, evicting the least recently
+	 * used session if the store is full.
+	 *
+	 * @param host - host the session belongs to
+	 * @return the new session
+	 */
+	public Session create(String host) {
+		Session session;
+		do {
+			session = new Session(generateSID(), Objects.requireNonNull(host), System.currentTimeMillis() + timeout);
+		} while(sessions.putIfAbsent(session.sid, session) != null);
+
+		synchronized(wheel) {
+			schedule(session);
+			while(sessions.size() > capacity && evictOne()) {
+			}
+		}
+
+		return session;
+	}
+
+	/**
+	 * Removes all sessions which expired by now.
+	 */
+	public void expire() {
+		long tick = System.currentTimeMillis() / TICK;
+
+		synchronized(wheel) {
+			while(currentTick < tick) {
+				currentTick++;
+
+				// sessions from higher levels are moved down before the lowest level fires
+				for(int level = LEVELS - 1; level > 0; level--) {
+					if((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+						reschedule(wheel[level][(int)((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)].clear());
+					}
+				}
+
+				Session session = wheel[0][(int)(currentTick & SLOT_MASK)].clear();
+				while(session != null) {
+					Session next = session.next;
+					session.slot = null;
+					if(tickOf(session.validUntil) > currentTick) {
+						schedule(session);
+					} else {
+						session.removed = true;
+						sessions.remove(session.sid, session);
+					}
+					session = next;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of sessions in this store.
+	 *
+	 * @return number of sessions
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+	/**
+	 * Writes all valid sessions to the given file, replacing it atomically.
+	 *
+	 * @param file - file to write the sessions to
+	 * @throws IOException if the file could not be written
+	 */
+	public void save(Path file) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		long now = System.currentTimeMillis();
+
+		try(DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+			for(Session session : sessions.values()) {
+				if(session.removed || session.validUntil < now) continue;
+
+				os.writeBoolean(true);
+				os.writeUTF(session.sid);
+				os.writeUTF(session.host);
+				os.writeLong(session.validUntil);
+				Map<String, String> map = Map.copyOf(session.map);
+				os.writeInt(map.size());
+				for(Map.Entry<String, String> entry : map.entrySet()) {
+					os.writeUTF(entry.getKey());
+					os.writeUTF(entry.getValue());
+				}
+			}
+			os.writeBoolean(false);
+		}
+
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Adds valid sessions from the given file, written by {@link #save(Path)}, to this store.
+	 * Nothing is done if the file does not exist.
+	 *
+	 * @param file - file to read the sessions from
+	 * @throws IOException if the file could not be read
+	 */
+	public void load(Path file) throws IOException {
+		if(!Files.exists(file)) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		try(DataInputStream is = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			while(is.readBoolean()) {
+				Session session = new Session(is.readUTF(), is.readUTF(), is.readLong());
+				int size = is.readInt();
+				for(int i = 0; i < size; i++) {
+					session.map.put(is.readUTF(), is.readUTF());
+				}
+
+				if(session.validUntil >= now && sessions.putIfAbsent(session.sid, session) == null) {
+					synchronized(wheel) {
+						schedule(session);
+						while(sessions.size() > capacity && evictOne()) {
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Generates a new random session ID.
+	 *
+	 * @return a new session ID, safe for use in a cookie
+	 */
+	private String generateSID() {
+		byte[] bytes = new byte[SID_BYTES];
+		random.nextBytes(bytes);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	/**
+	 * Removes the given session from this store.
+	 *
+	 * @param session - session to remove
+	 */
+	private void remove(Session session) {
+		session.removed = true;
+		sessions.remove(session.sid, session);
+		synchronized(wheel) {
+			if(session.slot != null) {
+				session.slot.remove(session);
+			}
+		}
+	}
+
+	/**
+	 * Evicts the session which is scheduled to expire first, skipping sessions
+	 * which were used since they were scheduled.
+	 * <p>
+	 * Must be called while holding the lock of {@link #wheel}.
+	 *
+	 * @return <code>true</code> if a session was evicted, <code>false</code> if the wheel is empty
+	 */
+	private boolean evictOne() {
+		for(int level = 0; level < LEVELS; level++) {
+			long position = currentTick >>> (SLOT_BITS * level);
+			for(int i = 0; i <= SLOTS; i++) {
+				Slot slot = wheel[level][(int)((position + i) & SLOT_MASK)];
+				while(slot.head != null) {
+					Session session = slot.head;
+					slot.remove(session);
+					if(tickOf(session.validUntil) > session.scheduledTick) {
+						schedule(session);
+						continue;
+					}
+
+					session.removed = true;
+					sessions.remove(session.sid, session);
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Schedules all sessions of a linked list taken out of a slot again.
+	 * <p>
+	 * Must be called while holding the lock of {@link #wheel}.
+	 *
+	 * @param session - first session of the list
+	 */
+	private void reschedule(Session session) {
+		while(session != null) {
+			Session next = session.next;
+			session.slot = null;
+			schedule(session);
+			session = next;
+		}
+	}
+
+	/**
+	 * Puts the given session into the slot of the timing wheel matching its expiry time.
+	 * <p>
+	 * Must be called while holding the lock of {@link #wheel}.
+	 *
+	 * @param session - session to schedule
+	 */
+	private void schedule(Session session) {
+		long tick = Math.max(tickOf(session.validUntil), currentTick + 1);
+		long delta = tick - currentTick;
+
+		int level = 0;
+		while(level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+			level++;
+		}
+		if(level == LEVELS - 1 && delta >= (1L << (SLOT_BITS * LEVELS))) {
+			// too far in the future, rescheduled again once this slot is reached
+			tick = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+		}
+
+		session.scheduledTick = tick;
+		wheel[level][(int)((tick >>> (SLOT_BITS * level)) & SLOT_MASK)].add(session);
+	}
+
+	/**
+	 * Returns the tick of the timing wheel in which the given time falls.
+	 *
+	 * @param time - time in milliseconds
+	 * @return tick of the given time
+	 */
+	private static long tickOf(long time) {
+		return (time + TICK - 1) / TICK;
+	}
+
+}
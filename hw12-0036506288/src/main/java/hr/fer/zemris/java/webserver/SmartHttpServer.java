@@ -1,25 +1,29 @@
 package hr.fer.zemris.java.webserver;
 
-import java.awt.image.BufferedImage;
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
 import java.net.Socket;
-import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -27,16 +31,18 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Map.Entry;
 import java.util.Properties;
-import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-
-import javax.imageio.ImageIO;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import hr.fer.zemris.java.custom.scripting.exec.SmartScriptEngine;
+import hr.fer.zemris.java.custom.scripting.exec.SmartScriptFunctionRegistry;
+import hr.fer.zemris.java.custom.scripting.exec.SmartScriptProgram;
+import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
 import hr.fer.zemris.java.custom.scripting.parser.SmartScriptParser;
 import hr.fer.zemris.java.webserver.RequestContext.RCCookie;
 
@@ -46,6 +52,10 @@ import hr.fer.zemris.java.webserver.RequestContext.RCCookie;
  * <p>
  * The server also supports the execution of SmartScripts and also
  * web workers modeled by {@link IWebWorker} interface.
+ * <p>
+ * Connections are persistent (HTTP/1.1 keep-alive) and pipelined requests
+ * are supported. Idle connections wait in a selector and occupy a thread
+ * from the threadpool only while their requests are being processed.
  * 
  * @author Ivan Skorupan
  */
@@ -81,15 +91,35 @@ public class SmartHttpServer {
 	 */
 	private int sessionTimeout;
 	
+	/**
+	 * Number of milliseconds an idle persistent connection is kept open.
+	 */
+	private int keepAliveTimeout;
+	
+	/**
+	 * Maximum number of requests served through a single persistent connection.
+	 */
+	private int maxKeepAliveRequests;
+	
+	/**
+	 * Maximum size of a request head in bytes.
+	 */
+	private int maxHeadSize;
+	
+	/**
+	 * Maximum size of a request body in bytes.
+	 */
+	private int maxBodySize;
+	
 	/**
 	 * Map of all mime types this server supports.
 	 */
 	private Map<String,String> mimeTypes = new HashMap<>();
 	
 	/**
-	 * Map of workers this server supports.
+	 * Registry of workers this server supports.
 	 */
-	private Map<String,IWebWorker> workersMap = new HashMap<>();
+	private WorkerRegistry workers;
 	
 	/**
 	 * A reference to this server's thread object.
@@ -108,14 +138,35 @@ public class SmartHttpServer {
 	private Path documentRoot;
 	
 	/**
-	 * Map of sessions that exist in this server.
+	 * Store of sessions that exist in this server.
+	 */
+	private SessionStore sessions;
+	
+	/**
+	 * File the sessions are saved to so they survive a restart, <code>null</code> if they are not saved.
+	 */
+	private Path sessionSnapshot;
+	
+	/**
+	 * Executor which periodically removes expired sessions and saves the session snapshot.
+	 */
+	private ScheduledExecutorService sessionMaintenance;
+	
+	/**
+	 * Cache of static files served by this server.
+	 */
+	private StaticFileCache fileCache;
+	
+	/**
+	 * Cache of compiled SmartScripts mapped by their paths.
 	 */
-	private Map<String, SessionMapEntry> sessions = new HashMap<>();
+	private Map<Path, CachedScript> scripts = new ConcurrentHashMap<>();
 	
 	/**
-	 * A reference to a {@link Random} object used for generating new session IDs.
+	 * Cache of parsed SmartScripts mapped by their paths, used for
+	 * scripts which are included or extended by other scripts.
 	 */
-	private Random sessionRandom = new Random();
+	private Map<Path, CachedDocument> documents = new ConcurrentHashMap<>();
 
 	/**
 	 * Constructs a new {@link SmartHttpServer} object.
@@ -124,10 +175,10 @@ public class SmartHttpServer {
 	 * set this class's fields.
 	 * <p>
 	 * Mostly it parses information about the server from .properties
-	 * configuration files but it also makes a session cleaning thread
-	 * which makes sure that every 5 minutes all inactive sessions are
-	 * deleted from the <code>sessions</code> map in order to reduce
-	 * memory leakage.
+	 * configuration files but it also creates the session store, loads
+	 * sessions saved by a previous run if a session snapshot file is
+	 * configured and starts a thread which removes expired sessions
+	 * every second in order to reduce memory leakage.
 	 * 
 	 * @param configFileName - path to server.properties file
 	 * @throws IOException if there is an IO error while reading from configuration files
@@ -149,7 +200,14 @@ public class SmartHttpServer {
 		this.port = Integer.parseInt(serverProperties.getProperty("server.port"));
 		this.workerThreads = Integer.parseInt(serverProperties.getProperty("server.workerThreads"));
 		this.sessionTimeout = Integer.parseInt(serverProperties.getProperty("session.timeout"));
+		this.keepAliveTimeout = 1000 * Integer.parseInt(serverProperties.getProperty("server.keepAliveTimeout", "5"));
+		this.maxKeepAliveRequests = Integer.parseInt(serverProperties.getProperty("server.maxKeepAliveRequests", "100"));
+		this.maxHeadSize = Integer.parseInt(serverProperties.getProperty("server.maxHeaderSize", "16384"));
+		this.maxBodySize = Integer.parseInt(serverProperties.getProperty("server.maxBodySize", "10485760"));
 		this.documentRoot = Paths.get(serverProperties.getProperty("server.documentRoot"));
+		this.fileCache = new StaticFileCache(
+				Long.parseLong(serverProperties.getProperty("server.fileCache.maxFileSize", "65536")),
+				Long.parseLong(serverProperties.getProperty("server.fileCache.capacity", "16777216")));
 
 		Path mimeConfig = Paths.get(serverProperties.getProperty("server.mimeConfig"));
 		Properties mimeProperties = new Properties();
@@ -160,41 +218,91 @@ public class SmartHttpServer {
 		}
 		
 		Path workerConfig = Paths.get(serverProperties.getProperty("server.workers"));
-		Properties workerProperties = new Properties();
-		workerProperties.load(Files.newInputStream(workerConfig));
+		workers = new WorkerRegistry(WORKERS_PATH, workerThreads);
+		try {
+			workers.load(workerConfig);
+		} catch(IllegalArgumentException ex) {
+			System.out.println("An error occured while processing workers!");
+			System.out.println("The error message is: " + ex.getMessage());
+			System.exit(-1);
+		}
+		if(Boolean.parseBoolean(serverProperties.getProperty("server.workers.reload", "true"))) {
+			workers.watch(workerConfig);
+		}
 		
-		for(Entry<Object, Object> entry : workerProperties.entrySet()) {
-			if(workersMap.containsKey(entry.getKey())) {
-				throw new IllegalStateException("There cannot be two identical paths in workers.properties file!");
+		int maxSessions = Integer.parseInt(serverProperties.getProperty("session.maxSessions", "10000"));
+		this.sessions = new SessionStore(sessionTimeout, maxSessions);
+		
+		String snapshot = serverProperties.getProperty("session.snapshot");
+		if(snapshot != null && !snapshot.isBlank()) {
+			this.sessionSnapshot = Paths.get(snapshot.trim());
+			try {
+				sessions.load(sessionSnapshot);
+			} catch(IOException e) {
+				System.out.println("Saved sessions could not be loaded: " + e.getMessage());
 			}
-			
-			String path = (String) entry.getKey();
-			String fqcn = (String) entry.getValue();
-			workersMap.put(path, getWorkerInstance(fqcn));
 		}
 		
 		startSessionCleaningThread();
 	}
 	
 	/**
-	 * Instantiates and starts a daemon thread which cleans inactive sessions
-	 * every 5 minutes in order to reduce memory usage of this server. 
+	 * Instantiates and starts a daemon thread which removes expired sessions
+	 * every second and, if a session snapshot file is configured, saves the
+	 * sessions to it every minute.
 	 */
 	private void startSessionCleaningThread() {
-		Timer timer = new Timer(true);
-		TimerTask task = new TimerTask() {
-			@Override
-			public void run() {
-				Iterator<Entry<String, SessionMapEntry>> it = sessions.entrySet().iterator();
-				while(it.hasNext()) {
-					Entry<String, SessionMapEntry> entry = it.next();
-					if(entry.getValue().validUntil < Calendar.getInstance().getTimeInMillis()) {
-						it.remove();
-					}
-				}
-			}
-		};
-		timer.schedule(task, 300 * 1000);
+		sessionMaintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "session-cleaner");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		sessionMaintenance.scheduleWithFixedDelay(sessions::expire, 1, 1, TimeUnit.SECONDS);
+		if(sessionSnapshot != null) {
+			sessionMaintenance.scheduleWithFixedDelay(this::saveSessions, 60, 60, TimeUnit.SECONDS);
+		}
+	}
+	
+	/**
+	 * Saves all valid sessions to the session snapshot file, if one is configured.
+	 */
+	private void saveSessions() {
+		if(sessionSnapshot == null) return;
+		
+		try {
+			sessions.save(sessionSnapshot);
+		} catch(IOException e) {
+			System.out.println("Sessions could not be saved: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Formats the given time as an HTTP date.
+	 * 
+	 * @param millis - time in milliseconds
+	 * @return the time formatted as specified by RFC 1123
+	 */
+	private static String formatDate(long millis) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+	}
+	
+	/**
+	 * Parses the given HTTP date.
+	 * 
+	 * @param date - date formatted as specified by RFC 1123, can be <code>null</code>
+	 * @return the time in milliseconds or -1 if the date is missing or invalid
+	 */
+	private static long parseDate(String date) {
+		if(date == null) {
+			return -1;
+		}
+		
+		try {
+			return ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+		} catch(DateTimeParseException ex) {
+			return -1;
+		}
 	}
 	
 	/**
@@ -222,105 +330,259 @@ public class SmartHttpServer {
 	}
 	
 	/**
-	 * Uses Java Reflection API in order to instantiate an {@link IWebWorker}
-	 * object using the given fully qualified class name <code>fqcn</code> as a
-	 * path to the class that should be instantiated.
+	 * Instantiates a new threadpool using {@link Executors} class to
+	 * parallelize the server and starts the {@link #serverThread} if it
+	 * hasn't already been started.
+	 */
+	protected synchronized void start() {
+		if(threadPool == null || threadPool.isShutdown()) {
+			threadPool = Executors.newFixedThreadPool(workerThreads);
+		}
+		if(!serverThread.isAlive()) {
+			serverThread.start();
+		}
+	}
+
+	/**
+	 * Signals the {@link #serverThread} to stop, shuts
+	 * down the threadpool, destroys the workers and saves the sessions.
+	 */
+	protected synchronized void stop() {
+		serverThread.shutdown();
+		threadPool.shutdown();
+		workers.close();
+		saveSessions();
+	}
+	
+	/**
+	 * Returns a compiled version of the SmartScript at the given <code>path</code>.
+	 * <p>
+	 * Compiled scripts are cached and a script is read and compiled again only
+	 * if its file, or the file of any script it includes or extends, was modified
+	 * since it was last compiled. Included and extended scripts are named by their
+	 * paths relative to the document root and are parsed only once, no matter how
+	 * many scripts use them.
 	 * 
-	 * @param fqcn - fully qualified class name of a web worker to be instantiated
-	 * @return an instance of {@link IWebWorker} object whose instance is of class type defined by <code>fqcn</code>
+	 * @param path - path to the SmartScript
+	 * @return compiled SmartScript
+	 * @throws IOException if the script file or any script it uses could not be read
 	 */
-	private IWebWorker getWorkerInstance(String fqcn) {
-		Class<?> referenceToClass = null;
-		Object newObject = null;
+	private SmartScriptProgram getScript(Path path) throws IOException {
+		CachedScript cached = scripts.get(path);
+		if(cached != null && cached.isUpToDate()) {
+			return cached.program;
+		}
 		
+		Map<Path, FileTime> dependencies = new HashMap<>();
+		DocumentNode document = getDocument(path, dependencies);
+		SmartScriptProgram program;
 		try {
-			referenceToClass = this.getClass().getClassLoader().loadClass(fqcn);
-			newObject = referenceToClass.getDeclaredConstructor().newInstance();
-		} catch (Exception e) {
-			System.out.println("An error occured while processing workers using Java Reflection API!");
-			System.out.println("The fqcn was: " + fqcn);
-			System.out.println("The error message is: " + e.getMessage());
-			System.exit(-1);
+			program = SmartScriptProgram.compile(document, SmartScriptFunctionRegistry.getDefault(),
+					name -> getDocument(resolveScript(name), dependencies));
+		} catch(UncheckedIOException ex) {
+			throw ex.getCause();
 		}
 		
-		return (IWebWorker) newObject;
+		scripts.put(path, new CachedScript(dependencies, program));
+		return program;
 	}
 	
 	/**
-	 * Generates a new random session ID as a sequence of 20 randomly generated
-	 * and concatenated English uppercase letters.
+	 * Returns the parsed SmartScript at the given <code>path</code>, parsing it
+	 * only if it was not parsed before or it was modified since.
 	 * 
-	 * @return a new randomly generated session ID as a {@link String} object
+	 * @param path - path to the SmartScript
+	 * @param dependencies - map to record the script's path and last modification time to
+	 * @return top node of the parsed script
+	 * @throws IOException if the script file could not be read
 	 */
-	private String generateRandomSID() {
-		StringBuilder sb = new StringBuilder();
-		for(int i = 0; i < 20; i++) {
-			sb.append(Character.toChars(sessionRandom.nextInt(25) + 65));
+	private DocumentNode getDocument(Path path, Map<Path, FileTime> dependencies) throws IOException {
+		FileTime lastModified = Files.getLastModifiedTime(path);
+		dependencies.put(path, lastModified);
+		
+		CachedDocument cached = documents.get(path);
+		if(cached != null && cached.lastModified.equals(lastModified)) {
+			return cached.document;
 		}
 		
-		return sb.toString();
+		DocumentNode document = new SmartScriptParser(Files.readString(path)).getDocumentNode();
+		documents.put(path, new CachedDocument(lastModified, document));
+		return document;
 	}
-
+	
 	/**
-	 * Starts the {@link #serverThread} if it hasn't already been started and
-	 * also instantiates a new threadpool using {@link Executors} class to
-	 * parallelize the server.
+	 * Resolves the name of an included or extended script against the document root.
+	 * 
+	 * @param name - name of the script, a path relative to the document root
+	 * @return path to the script
+	 * @throws IOException if the name is not a valid path inside the document root
 	 */
-	protected synchronized void start() {
-		if(!serverThread.isAlive()) {
-			serverThread.start();
+	private Path resolveScript(String name) throws IOException {
+		Path root = documentRoot.toAbsolutePath().normalize();
+		try {
+			Path path = root.resolve(name.startsWith("/") ? name.substring(1) : name).normalize();
+			if(path.startsWith(root)) {
+				return path;
+			}
+		} catch(InvalidPathException ignorable) {
 		}
-		threadPool = Executors.newFixedThreadPool(workerThreads);
+		throw new IOException("Script " + name + " is not a valid path inside the document root!");
 	}
-
+	
 	/**
-	 * Signals the {@link #serverThread} to stop and shuts
-	 * down the threadpool.
+	 * Models a compiled SmartScript stored in the scripts cache.
+	 * 
+	 * @author Ivan Skorupan
 	 */
-	protected synchronized void stop() {
-		serverThread.stop = true;
-		threadPool.shutdown();
+	private static class CachedScript {
+		
+		/**
+		 * Paths of the script file and all files it includes or extends, mapped to
+		 * their last modification times when the script was compiled.
+		 */
+		private Map<Path, FileTime> dependencies;
+		
+		/**
+		 * The compiled script.
+		 */
+		private SmartScriptProgram program;
+		
+		/**
+		 * Constructs a new {@link CachedScript} object.
+		 * 
+		 * @param dependencies - paths of all files the script was compiled from, mapped
+		 * to their last modification times
+		 * @param program - the compiled script
+		 */
+		public CachedScript(Map<Path, FileTime> dependencies, SmartScriptProgram program) {
+			this.dependencies = dependencies;
+			this.program = program;
+		}
+		
+		/**
+		 * Checks if none of the files this script was compiled from was
+		 * modified since it was compiled.
+		 * 
+		 * @return <code>true</code> if the compiled script is up to date, <code>false</code> otherwise
+		 */
+		public boolean isUpToDate() {
+			try {
+				for(Entry<Path, FileTime> dependency : dependencies.entrySet()) {
+					if(!Files.getLastModifiedTime(dependency.getKey()).equals(dependency.getValue())) {
+						return false;
+					}
+				}
+			} catch(IOException ex) {
+				return false;
+			}
+			return true;
+		}
+		
 	}
 	
 	/**
-	 * Models a single session.
+	 * Models a parsed SmartScript stored in the documents cache.
 	 * 
 	 * @author Ivan Skorupan
 	 */
-	private static class SessionMapEntry {
+	private static class CachedDocument {
 		
 		/**
-		 * This session's id.
+		 * Last modification time of the script file when it was parsed.
 		 */
-		private String sid;
+		private FileTime lastModified;
 		
 		/**
-		 * The host that this session belongs to.
+		 * The parsed script.
 		 */
-		private String host;
+		private DocumentNode document;
 		
 		/**
-		 * Time until this session becomes invalid.
+		 * Constructs a new {@link CachedDocument} object.
+		 * 
+		 * @param lastModified - last modification time of the script file when it was parsed
+		 * @param document - the parsed script
 		 */
-		private long validUntil;
+		public CachedDocument(FileTime lastModified, DocumentNode document) {
+			this.lastModified = lastModified;
+			this.document = document;
+		}
+		
+	}
+	
+	/**
+	 * Models a single client connection.
+	 * <p>
+	 * A connection is either parked in the selector of the {@link ServerThread}
+	 * while it waits for the client to send a request, or it is in blocking mode
+	 * and owned by a single {@link ClientWorker} which serves its requests.
+	 * 
+	 * @author Ivan Skorupan
+	 */
+	private static class Connection {
 		
 		/**
-		 * This map contains parameters that will later become
-		 * persistent parameters of the server's response request.
+		 * The channel of this connection.
 		 */
-		private Map<String, String> map = new ConcurrentHashMap<>();
+		private SocketChannel channel;
 		
 		/**
-		 * Constructs a new {@link SessionMapEntry} object.
+		 * The parser used to read client requests. It is kept for the whole
+		 * lifetime of the connection since it may contain buffered bytes of
+		 * pipelined requests.
+		 */
+		private HttpRequestParser parser;
+		
+		/**
+		 * The output stream used to write responses to the client.
+		 */
+		private OutputStream ostream;
+		
+		/**
+		 * Number of requests served through this connection so far.
+		 */
+		private int requests;
+		
+		/**
+		 * Time of the last activity on this connection in milliseconds.
+		 */
+		private long lastActive = System.currentTimeMillis();
+		
+		/**
+		 * Constructs a new {@link Connection} object.
 		 * 
-		 * @param sid - this session's id
-		 * @param host - host this session belongs to
-		 * @param validUntil - time until this session becomes invalid
+		 * @param channel - channel of this connection
+		 * @throws NullPointerException if <code>channel</code> is <code>null</code>
 		 */
-		public SessionMapEntry(String sid, String host, long validUntil) {
-			this.sid = sid;
-			this.host = host;
-			this.validUntil = validUntil;
+		public Connection(SocketChannel channel) {
+			this.channel = Objects.requireNonNull(channel);
+		}
+		
+		/**
+		 * Opens the streams of this connection if they are not already open.
+		 * The channel must be in blocking mode when this method is called.
+		 * 
+		 * @param maxHeadSize - maximum size of a request head in bytes
+		 * @param maxBodySize - maximum size of a request body in bytes
+		 * @throws IOException if the streams could not be opened
+		 */
+		private void openStreams(int maxHeadSize, long maxBodySize) throws IOException {
+			if(parser == null) {
+				Socket socket = channel.socket();
+				parser = new HttpRequestParser(socket.getInputStream(), maxHeadSize, maxBodySize);
+				ostream = new BufferedOutputStream(socket.getOutputStream());
+			}
+		}
+		
+		/**
+		 * Closes this connection.
+		 */
+		private void close() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				System.out.println("The client socket could not properly close because of an IO error!");
+			}
 		}
 		
 	}
@@ -329,9 +591,16 @@ public class SmartHttpServer {
 	 * Models a server thread that runs in a while loop until it is signaled to
 	 * stop.
 	 * <p>
-	 * In the while loop, the thread listens for new connections and when it gets one,
-	 * it delegates the client request processing to a new {@link ClientWorker} that
-	 * is submitted to the threadpool.
+	 * The thread uses a {@link Selector} to accept new connections and to wait
+	 * on them and on idle persistent connections. Once a connection has data to read, it is
+	 * switched to blocking mode and handed over to a new {@link ClientWorker} that
+	 * is submitted to the threadpool. When the worker is done and the connection
+	 * should be kept alive, the connection is returned to this thread through
+	 * {@link #park(Connection)}.
+	 * <p>
+	 * This way no worker thread is occupied by a connection that is waiting for
+	 * its first or next request, and the client doesn't have to establish a new connection
+	 * for every request.
 	 * 
 	 * @author Ivan Skorupan
 	 */
@@ -342,47 +611,181 @@ public class SmartHttpServer {
 		 */
 		private volatile boolean stop;
 		
+		/**
+		 * Selector used to wait for new connections and client requests.
+		 */
+		private volatile Selector selector;
+		
+		/**
+		 * Connections returned by workers which should be registered with the selector.
+		 */
+		private Queue<Connection> parked = new ConcurrentLinkedQueue<>();
+		
 		@Override
 		public void run() {
-			ServerSocket serverSocket = null;
-			try {
-				serverSocket = new ServerSocket();
-				serverSocket.bind(new InetSocketAddress(InetAddress.getByName(address), port));
-				serverSocket.setSoTimeout(1000);
+			try(ServerSocketChannel serverChannel = ServerSocketChannel.open();
+					Selector selector = Selector.open()) {
+				serverChannel.bind(new InetSocketAddress(InetAddress.getByName(address), port));
+				serverChannel.configureBlocking(false);
+				serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+				this.selector = selector;
+				
+				long lastSweep = System.currentTimeMillis();
+				List<Connection> ready = new ArrayList<>();
+				while(!stop) {
+					selector.select(1000);
+					registerParked(selector);
+					
+					while(!selector.selectedKeys().isEmpty()) {
+						Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+						while(it.hasNext()) {
+							SelectionKey key = it.next();
+							it.remove();
+							if(!key.isValid()) continue;
+							
+							if(key.isAcceptable()) {
+								SocketChannel channel = serverChannel.accept();
+								if(channel != null) {
+									register(selector, new Connection(channel));
+								}
+							} else if(key.isReadable()) {
+								key.cancel();
+								ready.add((Connection) key.attachment());
+							}
+						}
+						
+						// cancelled keys are deregistered only during the next selection
+						selector.selectNow();
+						for(Connection connection : ready) {
+							dispatch(connection);
+						}
+						ready.clear();
+					}
+					
+					long now = System.currentTimeMillis();
+					if(now - lastSweep >= 1000) {
+						closeIdle(selector, now);
+						lastSweep = now;
+					}
+				}
+				
+				for(SelectionKey key : selector.keys()) {
+					if(key.attachment() instanceof Connection) {
+						((Connection) key.attachment()).close();
+					}
+				}
 			} catch (IOException e) {
-				System.out.println("There was a problem while opening a server socket on port: " + port + "!");
+				System.out.println("There was a problem while serving connections on port: " + port + "!");
 				System.out.println("The error message is: " + e.getMessage());
 				SmartHttpServer.this.stop();
 			}
-
-			Socket client = null;
-			while(!stop) {
-				try {
-					client = serverSocket.accept();
-				} catch(SocketTimeoutException ex) {
-					continue;
-				} catch(IOException e) {
-					System.out.println("An IO error occurred while waiting for a connection!");
-					System.out.println("The error message is: " + e.getMessage());
-					SmartHttpServer.this.stop();
-					continue;
-				}
-				ClientWorker cw = new ClientWorker(client);
-				threadPool.submit(cw);
+			
+			Connection connection;
+			while((connection = parked.poll()) != null) {
+				connection.close();
 			}
-
-			if(client != null) {
+		}
+		
+		/**
+		 * Registers a newly accepted connection with the given <code>selector</code>,
+		 * so that it is dispatched only once the client sends its first request.
+		 * 
+		 * @param selector - selector to register the connection with
+		 * @param connection - the accepted connection
+		 */
+		private void register(Selector selector, Connection connection) {
+			try {
+				connection.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				connection.channel.configureBlocking(false);
+				connection.channel.register(selector, SelectionKey.OP_READ, connection);
+			} catch (IOException e) {
+				connection.close();
+			}
+		}
+		
+		/**
+		 * Switches the given connection to blocking mode and submits a new
+		 * {@link ClientWorker} which will serve it to the threadpool.
+		 * 
+		 * @param connection - connection with a pending request
+		 */
+		private void dispatch(Connection connection) {
+			try {
+				connection.channel.configureBlocking(true);
+				connection.channel.socket().setSoTimeout(keepAliveTimeout);
+				threadPool.submit(new ClientWorker(connection));
+			} catch (Exception e) {
+				connection.close();
+			}
+		}
+		
+		/**
+		 * Registers all connections returned by workers with the given <code>selector</code>.
+		 * 
+		 * @param selector - selector to register the connections with
+		 */
+		private void registerParked(Selector selector) {
+			Connection connection;
+			while((connection = parked.poll()) != null) {
 				try {
-					client.close();
+					connection.channel.register(selector, SelectionKey.OP_READ, connection);
 				} catch (IOException e) {
-					System.out.println("The client socket could not properly close because of an IO error!");
+					connection.close();
+				}
+			}
+		}
+		
+		/**
+		 * Closes all persistent connections which were idle for longer than the
+		 * keep alive timeout.
+		 * 
+		 * @param selector - selector the connections are registered with
+		 * @param now - current time in milliseconds
+		 */
+		private void closeIdle(Selector selector, long now) {
+			for(SelectionKey key : selector.keys()) {
+				if(!(key.attachment() instanceof Connection)) continue;
+				
+				Connection connection = (Connection) key.attachment();
+				if(now - connection.lastActive > keepAliveTimeout) {
+					key.cancel();
+					connection.close();
 				}
 			}
+		}
+		
+		/**
+		 * Returns a persistent connection to this thread so that it waits for the
+		 * client's next request without occupying a worker thread.
+		 * 
+		 * @param connection - connection to be returned
+		 */
+		private void park(Connection connection) {
+			Selector selector = this.selector;
+			if(stop || selector == null) {
+				connection.close();
+				return;
+			}
 			
 			try {
-				serverSocket.close();
+				connection.channel.configureBlocking(false);
 			} catch (IOException e) {
-				System.out.println("The server socket could not properly close because of an IO error!");
+				connection.close();
+				return;
+			}
+			connection.lastActive = System.currentTimeMillis();
+			parked.add(connection);
+			selector.wakeup();
+		}
+		
+		/**
+		 * Signals this thread to stop.
+		 */
+		private void shutdown() {
+			stop = true;
+			Selector selector = this.selector;
+			if(selector != null) {
+				selector.wakeup();
 			}
 		}
 	}
@@ -395,14 +798,9 @@ public class SmartHttpServer {
 	private class ClientWorker implements Runnable, IDispatcher {
 		
 		/**
-		 * Client socket that this client worker uses.
-		 */
-		private Socket csocket;
-		
-		/**
-		 * The input stream used to read client request data.
+		 * Client connection that this client worker uses.
 		 */
-		private PushbackInputStream istream;
+		private Connection connection;
 		
 		/**
 		 * The output stream used to make a response request context and through
@@ -426,7 +824,7 @@ public class SmartHttpServer {
 		private String host;
 		
 		/**
-		 * Map of parameters given to us by the client through the URL.
+		 * Map of parameters given to us by the client through the URL or a form post.
 		 */
 		private Map<String,String> params = new HashMap<String, String>();
 		
@@ -450,164 +848,229 @@ public class SmartHttpServer {
 		 */
 		private RequestContext context;
 		
+		/**
+		 * Map of files uploaded by the client through a form post.
+		 */
+		private Map<String,RequestContext.UploadedFile> uploadedFiles = new HashMap<>();
+		
 		/**
 		 * The session ID of currently processed user request.
 		 */
 		private String SID;
 
+		/**
+		 * Flag that indicates if the connection can be reused for the next request.
+		 */
+		private boolean keepAlive;
+
+		/**
+		 * Flag that indicates if an error response was already sent for the current request.
+		 */
+		private boolean errorSent;
+
 		/**
 		 * Constructs a new {@link ClientWorker} object.
 		 * 
-		 * @param csocket - client socket that this client worker uses
-		 * @throws NullPointerException if <code>csocket</code> is <code>null</code>s
+		 * @param connection - client connection that this client worker uses
+		 * @throws NullPointerException if <code>connection</code> is <code>null</code>
 		 */
-		public ClientWorker(Socket csocket) {
-			this.csocket = Objects.requireNonNull(csocket);
+		public ClientWorker(Connection connection) {
+			this.connection = Objects.requireNonNull(connection);
 		}
 
+		/**
+		 * Serves requests of this worker's connection.
+		 * <p>
+		 * If the connection should be kept alive, requests which were already
+		 * received (pipelined requests) are served right away. Once there are no
+		 * more received requests, the connection is returned to the server thread
+		 * which waits for the next one.
+		 * <p>
+		 * If serving a request fails with an unexpected exception, the client gets
+		 * a "500 Internal Server Error" response if nothing was sent yet, and the
+		 * connection is closed.
+		 */
 		@Override
 		public void run() {
+			ClientWorker worker = this;
 			try {
-				serveClient();
-				ostream.flush();
-				csocket.close();
+				connection.openStreams(maxHeadSize, maxBodySize);
+				while(true) {
+					worker.serveClient();
+					connection.ostream.flush();
+					connection.requests++;
+					
+					if(!worker.keepAlive) {
+						connection.close();
+						return;
+					}
+					if(!connection.parser.hasPendingInput()) {
+						serverThread.park(connection);
+						return;
+					}
+					worker = new ClientWorker(connection);
+				}
 			} catch(IOException e) {
 				System.out.println("There was a problem while performing an IO operation!");
 				System.out.println("The error message is: " + e.getMessage());
+				connection.close();
+			} catch(RuntimeException e) {
+				System.out.println("An error occurred while serving a request!");
+				System.out.println("The error message is: " + e.getMessage());
+				worker.sendInternalError();
+				connection.close();
+			}
+		}
+		
+		/**
+		 * Sends a "500 Internal Server Error" response to the client if no part of
+		 * the response to the current request was sent yet. Errors while sending it
+		 * are ignored since the connection is closed afterwards anyway.
+		 */
+		private void sendInternalError() {
+			if(connection.ostream == null || errorSent || (context != null && context.isHeaderGenerated())) {
 				return;
 			}
+			
+			try {
+				sendError(connection.ostream, 500, "Internal Server Error");
+				connection.ostream.flush();
+			} catch (IOException ignorable) {
+			}
 		}
 		
 		/**
 		 * Serves the client by processing its request. 
 		 * <p>
-		 * The method first reads all headers of gotten client request
-		 * and tests its validity.
+		 * The method first reads the head of the client request using the
+		 * connection's {@link HttpRequestParser} and tests its validity. The body
+		 * of a POST request is read and decoded into parameters if it is a form.
 		 * <p>
 		 * Afterwards, it delegates work to other methods in order to decide how
 		 * to actually serve the client.
+		 * <p>
+		 * The {@link #keepAlive} flag is set if the response was completely
+		 * delimited and the client didn't ask for the connection to be closed.
 		 * 
 		 * @throws IOException is there is an IO error while reading from an input stream
 		 * or writing to an output stream (to the client)
 		 */
 		private void serveClient() throws IOException {
-			istream = new PushbackInputStream(new BufferedInputStream(csocket.getInputStream()));
-			ostream = new BufferedOutputStream(csocket.getOutputStream());
-
-			byte[] request = readRequest(istream);
-			if(request==null) {
-				sendError(ostream, 400, "Bad request");
-				return;
-			}
-
-			String requestStr = new String(
-					request,
-					StandardCharsets.US_ASCII
-					);
-
-			List<String> headers = extractHeaders(requestStr);
-			String[] firstLine = headers.isEmpty() ? 
-					null : headers.get(0).split(" ");
-			if(firstLine==null || firstLine.length != 3) {
-				sendError(ostream, 400, "Bad request");
-				return;
-			}
+			ostream = connection.ostream;
+			HttpRequestParser parser = connection.parser;
 
-			method = firstLine[0].toUpperCase();
-			if(!method.equals("GET")) {
-				sendError(ostream, 405, "Method Not Allowed");
-				return;
-			}
-
-			version = firstLine[2].toUpperCase();
-			if(!version.equals("HTTP/1.1") && !version.equals("HTTP/1.0")) {
-				sendError(ostream, 505, "HTTP Version Not Supported");
+			try {
+				if(!parser.next()) {
+					// the client closed the connection
+					return;
+				}
+				
+				method = parser.getMethod();
+				if(!method.equals("GET") && !method.equals("POST")) {
+					throw new HttpRequestException(405, "Method Not Allowed");
+				}
+				
+				version = parser.getVersion();
+				if(!version.equals("HTTP/1.1") && !version.equals("HTTP/1.0")) {
+					throw new HttpRequestException(505, "HTTP Version Not Supported");
+				}
+				
+				if(method.equals("POST") && parser.getHeader("Content-Length") == null) {
+					throw new HttpRequestException(411, "Length Required");
+				}
+				
+				parser.parseQueryParameters(params);
+				readForm(parser);
+			} catch(HttpRequestException ex) {
+				sendError(ostream, ex.getStatusCode(), ex.getStatusText());
 				return;
 			}
-
-			for(String line : headers) {
-				if(line.startsWith("Host:")) {
-					String value = line.substring(5).trim();
-					if(value.contains(":")) {
-						host = value.substring(0, value.indexOf(":"));
-					} else {
-						host = value;
-					}
-				}
+			
+			String value = parser.getHeader("Host");
+			if(value != null) {
+				host = value.contains(":") ? value.substring(0, value.indexOf(":")) : value;
 			}
+			
+			String connectionHeader = parser.getHeader("Connection");
+			boolean closeRequested = connectionHeader != null && connectionHeader.equalsIgnoreCase("close");
+			boolean persistent = version.equals("HTTP/1.1") && !closeRequested
+					&& connection.requests + 1 < maxKeepAliveRequests;
 
 			host = (host == null) ? domainName : host;
-
-			String pathTokens[] = firstLine[1].split("\\?");
-			String urlPath = pathTokens[0];
-			String paramString = (pathTokens.length == 2) ? pathTokens[1] : null;
 			
-			checkSession(headers);
-			permParams = sessions.get(SID).map;
+			permParams = checkSession(parser.getCookie("sid")).getMap();
+			
+			context = new RequestContext(ostream, params, permParams, outputCookies, tempParams, this, SID);
+			context.setKeepAlive(persistent);
+			context.setOutputChannel(connection.channel);
+			context.setUploadedFiles(uploadedFiles);
+			context.addRCCookie(new RCCookie("sid", SID, null, host, "/", true));
 			
-			if(paramString != null) {
-				parseParameters(paramString);
+			if(!internalDispatchRequest(parser.getPath(), true)) {
+				return;
 			}
 			
-			internalDispatchRequest(urlPath, true);
+			context.finish();
+			keepAlive = persistent;
 		}
 		
 		/**
-		 * Checks if given user request's headers match a session
-		 * that has already been saved into internal sessions map.
+		 * Reads the body of the current request. If the body is a form, its fields
+		 * are put into the parameters map and its files into the uploaded files map.
+		 * Other bodies are skipped.
 		 * <p>
-		 * If so, the session's lifetime is reset
-		 * <p>
-		 * Otherwise, a new session is created and saved.
+		 * A client which expects a "100 Continue" response before sending the body
+		 * gets it here.
 		 * 
-		 * @param headers - client request headers
+		 * @param parser - parser of the current request
+		 * @throws IOException if an IO error occurs while reading the body
+		 * @throws HttpRequestException if the form is malformed
 		 */
-		private synchronized void checkSession(List<String> headers) {
-			String sidCandidate = null;
-			for(String header : headers) {
-				if(!header.startsWith("Cookie:")) continue;
-				
-				String cookies = header.substring(7).trim();
-				String[] distinctCookies = cookies.split(";");
-				for(String cookie : distinctCookies) {
-					String[] nameValuePair = cookie.split("=");
-					if(nameValuePair[0].equals("sid")) {
-						sidCandidate = nameValuePair[1].substring(1, nameValuePair[1].length() - 1);
-					}
-				}
+		private void readForm(HttpRequestParser parser) throws IOException {
+			String contentType = parser.getHeader("Content-Type");
+			String type = contentType == null ? "" : contentType.split(";")[0].trim().toLowerCase();
+			boolean form = type.equals("application/x-www-form-urlencoded") || type.equals("multipart/form-data");
+			
+			if(!method.equals("POST") || !form || parser.getContentLength() == 0) {
+				parser.skipBody();
+				return;
 			}
 			
-			Calendar calendar = Calendar.getInstance();
-			if(sidCandidate == null) {
-				createNewSession(calendar);
+			String expect = parser.getHeader("Expect");
+			if(expect != null && expect.equalsIgnoreCase("100-continue") && parser.getVersion().equals("HTTP/1.1")) {
+				ostream.write("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+				ostream.flush();
+			}
+			
+			byte[] body = parser.readBody();
+			if(type.equals("multipart/form-data")) {
+				HttpRequestParser.parseMultipart(body, contentType, params, uploadedFiles);
 			} else {
-				SessionMapEntry session = sessions.get(sidCandidate);
-				
-				if(session == null || !host.equals(session.host)) {
-					createNewSession(calendar);
-				} else if(session.validUntil < Calendar.getInstance().getTimeInMillis()) {
-					sessions.remove(session.sid);
-					createNewSession(calendar);
-				} else {
-					SID = session.sid;
-					session.validUntil = calendar.getTimeInMillis() + 1000 * sessionTimeout;
-				}
+				HttpRequestParser.parseParameters(body, 0, body.length, params);
 			}
 		}
 		
 		/**
-		 * Creates a new session and puts it in the sessions map.
+		 * Checks if the session ID sent by the client matches a session
+		 * that has already been saved into internal sessions store.
+		 * <p>
+		 * If so, the session's lifetime is reset
+		 * <p>
+		 * Otherwise, a new session is created and saved.
 		 * 
-		 * @param calendar - an instance of a calendar to use for setting the lifetime of this new session
+		 * @param sidCandidate - session ID from the client's cookie, can be <code>null</code>
+		 * @return the session of this request
 		 */
-		private void createNewSession(Calendar calendar) {
-			SID = generateRandomSID();
-			SessionMapEntry entry = new SessionMapEntry(SID, host,
-					calendar.getTimeInMillis() + 1000 * sessionTimeout);
+		private SessionStore.Session checkSession(String sidCandidate) {
+			SessionStore.Session session = sessions.get(sidCandidate, host);
+			if(session == null) {
+				session = sessions.create(host);
+			}
 			
-			sessions.put(SID, entry);
+			SID = session.getSid();
+			return session;
 		}
-
+		
 		/**
 		 * This method contains the most important logic for deciding how to process a client request.
 		 * <p>
@@ -618,66 +1081,52 @@ public class SmartHttpServer {
 		 * 
 		 * @param urlPath - user typed path in the URL part of address bar
 		 * @param directCall - indicator if this method was called from the outside (by the client through a request)
+		 * @return <code>true</code> if the response was written through the request context, <code>false</code>
+		 * if an error was sent (a 500 if the worker failed), in which case the connection must not be reused
 		 * @throws IOException if an IO error occurs while writing data to the client
 		 */
-		private void internalDispatchRequest(String urlPath, boolean directCall) throws IOException {
+		private boolean internalDispatchRequest(String urlPath, boolean directCall) throws IOException {
 			Path path = Paths.get(urlPath.startsWith("/") ? urlPath.substring(1) : urlPath);
 			Path requestedFile = documentRoot.resolve(path);
 			
 			if(directCall == true && urlPath.startsWith("/private/")) {
 				sendError(ostream, 404, "File not found");
-				return;
+				return false;
 			}
 			
-			RequestContext rc = (context == null) ? new RequestContext(ostream, params, permParams,
-					outputCookies, tempParams, this, SID) : context;
-			
-			RCCookie sessionCookie = new RCCookie("sid", SID, null, host, "/", true);
-			rc.addRCCookie(sessionCookie);
-			
-			IWebWorker worker = null;
-			if(urlPath.startsWith("/ext/")) {
-				worker = getWorkerInstance(WORKERS_PATH + "." + urlPath.substring(urlPath.lastIndexOf("/") + 1));
-			} else {
-				worker = workersMap.get(urlPath);
-			}
+			RequestContext rc = context;
 			
-			if(worker != null) {
-				try {
-					worker.processRequest(rc);
-				} catch (Exception e) {
-					System.out.println("An error occurred during workers processing!");
-					System.out.println("The error message is: " + e.getMessage());
+			try {
+				if(workers.process(urlPath, rc)) {
+					return true;
 				}
-				return;
+			} catch (Exception e) {
+				System.out.println("An error occurred during workers processing!");
+				System.out.println("The error message is: " + e.getMessage());
+				// a failed dispatch from inside the worker may have already sent its own error
+				sendInternalError();
+				return false;
 			}
 			
 			if(!requestedFile.normalize().startsWith(documentRoot)) {
 				sendError(ostream, 403, "Forbidden");
+				return false;
 			}
 
 			if(!Files.isReadable(requestedFile)) {
 				sendError(ostream, 404, "File not found");
-				return;
+				return false;
 			}
 			
 			if(isSmartScript(requestedFile)) {
-				String document = Files.readString(requestedFile);
-				SmartScriptParser parser = new SmartScriptParser(document);
-				SmartScriptEngine engine = new SmartScriptEngine(parser.getDocumentNode(), rc);
+				SmartScriptEngine engine = new SmartScriptEngine(getScript(requestedFile.normalize()), rc);
 				engine.execute();
-				return;
+				return true;
 			}
 			
 			String mimeType = determineMimeType(requestedFile.getFileName().toString());
-			rc.setMimeType(mimeType);
-
-			if(mimeType.startsWith("image/")) {
-				serveImage(rc, requestedFile, mimeType.substring(mimeType.indexOf("/") + 1));
-			} else {
-				rc.setContentLength(Files.size(requestedFile));
-				serveFile(rc, requestedFile);
-			}
+			serveFile(rc, requestedFile.normalize(), mimeType, directCall);
+			return true;
 		}
 
 		/**
@@ -694,148 +1143,262 @@ public class SmartHttpServer {
 
 		@Override
 		public void dispatchRequest(String urlPath) throws Exception {
-			internalDispatchRequest(urlPath, false);
-		}
-
-		/**
-		 * Serves an image to the client in case the requested URL path led to an image.
-		 * 
-		 * @param requestContext - server response request to use for serving the image to client
-		 * @param image - image path
-		 * @param format - format in which to serve the image
-		 * @throws IOException if an IO error occurs while writing the image to a buffer or to to output stream
-		 * of <code>requestContext</code>
-		 */
-		private void serveImage(RequestContext requestContext, Path image, String format) throws IOException {
-			BufferedImage bim = ImageIO.read(image.toFile());
-			ByteArrayOutputStream bos = new ByteArrayOutputStream();
-			ImageIO.write(bim, format, bos);
-			byte[] podatci = bos.toByteArray();
-			requestContext.write(podatci);
+			if(!internalDispatchRequest(urlPath, false)) {
+				throw new IOException("Request dispatching to " + urlPath + " failed!");
+			}
 		}
 
 		/**
 		 * Serves a file to the client in case the requested URL path led to a file.
+		 * <p>
+		 * The response carries the file's entity tag and modification time. If the
+		 * request was sent directly by the client, the response also honors
+		 * conditional headers (<code>If-None-Match</code> and <code>If-Modified-Since</code>),
+		 * a single byte range (<code>Range</code> and <code>If-Range</code>) and
+		 * <code>Accept-Encoding</code>, in which case the file's gzip variant is sent
+		 * if it has one and no range was requested. The two variants have different
+		 * entity tags, and conditional headers are compared with the tag of the variant
+		 * being sent.
+		 * <p>
+		 * Files are sent from memory if {@link #fileCache} keeps them, and otherwise
+		 * directly from disk using {@link RequestContext#write(Path, long, long)}.
 		 * 
-		 * @param requestContext - server response request to use for serving the image to client
+		 * @param requestContext - server response request to use for serving the file to client
 		 * @param requestedFile - requested file path
-		 * @throws IOException if an IO error occurs while while writing the file into a buffer or to an output
+		 * @param mimeType - mime type of the requested file
+		 * @param directCall - indicator if the file was requested by the client
+		 * @throws IOException if an IO error occurs while reading the file or writing to an output
 		 * stream of <code>requestContext</code>
 		 */
-		private void serveFile(RequestContext requestContext, Path requestedFile) throws IOException {
-			try(InputStream is = new BufferedInputStream(Files.newInputStream(requestedFile))){
-				byte[] buf = new byte[1024];
-				while(true) {
-					int r = is.read(buf);
-					if(r < 1) break;
-					requestContext.write(buf, 0, r);
+		private void serveFile(RequestContext requestContext, Path requestedFile, String mimeType, boolean directCall) throws IOException {
+			StaticFileCache.StaticFile file = fileCache.get(requestedFile, isCompressible(mimeType));
+			
+			// ranges are always served from the identity variant
+			boolean gzip = directCall && file.hasGzipVariant() && acceptsGzip() && getHeader("Range") == null;
+			String eTag = gzip ? file.getGzipETag() : file.getETag();
+			
+			requestContext.setMimeType(mimeType);
+			requestContext.setHeader("Last-Modified", formatDate(file.getLastModified()));
+			requestContext.setHeader("ETag", eTag);
+			requestContext.setHeader("Accept-Ranges", "bytes");
+			if(file.hasGzipVariant()) {
+				requestContext.setHeader("Vary", "Accept-Encoding");
+			}
+			
+			if(!directCall) {
+				sendFile(requestContext, file, 0, file.getSize());
+				return;
+			}
+			
+			if(isNotModified(file, eTag)) {
+				requestContext.setStatusCode(304);
+				requestContext.setStatusText("Not Modified");
+				return;
+			}
+			
+			if(gzip) {
+				requestContext.setHeader("Content-Encoding", "gzip");
+				requestContext.setContentLength(file.getGzipSize());
+				if(file.getGzipContent() != null) {
+					requestContext.write(file.getGzipContent());
+				} else {
+					requestContext.write(file.getGzipPath(), 0, file.getGzipSize());
+				}
+				return;
+			}
+			
+			String range = getHeader("Range");
+			if(range != null && matchesIfRange(file)) {
+				long[] bounds = parseRange(range, file.getSize());
+				if(bounds != null && bounds.length == 0) {
+					requestContext.setStatusCode(416);
+					requestContext.setStatusText("Range Not Satisfiable");
+					requestContext.setHeader("Content-Range", "bytes */" + file.getSize());
+					return;
+				}
+				if(bounds != null) {
+					requestContext.setStatusCode(206);
+					requestContext.setStatusText("Partial Content");
+					requestContext.setHeader("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + file.getSize());
+					sendFile(requestContext, file, bounds[0], bounds[1] - bounds[0] + 1);
+					return;
 				}
 			}
+			
+			sendFile(requestContext, file, 0, file.getSize());
 		}
-
+		
 		/**
-		 * Returns the appropriate mime type for given <code>fileName</code>.
+		 * Sends a part of the given file as the response body.
 		 * 
-		 * @param fileName - name of file to derive a mime type from
-		 * @return an appropriate mime type fetched from mime.properties
-		 * file
+		 * @param requestContext - server response request to use for sending the file
+		 * @param file - file to send
+		 * @param position - position in the file at which to start
+		 * @param count - number of bytes to send
+		 * @throws IOException if an IO error occurs while reading the file or writing to the client
 		 */
-		private String determineMimeType(String fileName) {
-			fileName = fileName.toLowerCase();
-			String mimeType = mimeTypes.get(fileName.substring(fileName.lastIndexOf(".") + 1));
-			return (mimeType == null) ? "application/octet-stream" : mimeType;
+		private void sendFile(RequestContext requestContext, StaticFileCache.StaticFile file, long position, long count) throws IOException {
+			requestContext.setContentLength(count);
+			if(file.getContent() != null) {
+				requestContext.write(file.getContent(), (int) position, (int) count);
+			} else {
+				requestContext.write(file.getPath(), position, count);
+			}
 		}
-
+		
 		/**
-		 * Parses parameters from given <code>paramString</code> and puts them in
-		 * the parameters map of this client worker.
-		 * <p>
-		 * The parameters must be separated by a "&" sign and the key-value pair
-		 * of a single parameter must be separated by an "=" sign.
-		 * <p>
-		 * A parameter with only its name given, without the value, is also valid.
-		 * In that case, it will also be put into parameters map, but with a value
-		 * <code>null</code>
+		 * Checks if the client already has the current version of the given file,
+		 * according to the <code>If-None-Match</code> or, if that header is not
+		 * present, the <code>If-Modified-Since</code> header.
 		 * 
-		 * @param paramString - string which contains parameters to be parsed
-		 */
-		private void parseParameters(String paramString) {
-			String[] parameters = paramString.split("&");
-			for(String parameter : parameters) {
-				String[] keyValue = parameter.split("=");
-				if(keyValue.length == 1) {
-					params.put(keyValue[0], null);
-					continue;
+		 * @param file - requested file
+		 * @param eTag - entity tag of the variant of the file being sent
+		 * @return <code>true</code> if the client's copy of the file is current, <code>false</code> otherwise
+		 */
+		private boolean isNotModified(StaticFileCache.StaticFile file, String eTag) {
+			String ifNoneMatch = getHeader("If-None-Match");
+			if(ifNoneMatch != null) {
+				for(String tag : ifNoneMatch.split(",")) {
+					tag = tag.trim();
+					if(tag.startsWith("W/")) {
+						tag = tag.substring(2);
+					}
+					if(tag.equals("*") || tag.equals(eTag)) {
+						return true;
+					}
 				}
-				
-				params.put(keyValue[0], keyValue[1]);
+				return false;
 			}
+			
+			long ifModifiedSince = parseDate(getHeader("If-Modified-Since"));
+			return ifModifiedSince >= 0 && file.getLastModified() / 1000 <= ifModifiedSince / 1000;
 		}
-
+		
 		/**
-		 * Reads a client request from the input stream <code>is</code> using
-		 * a simple Moore state machine.
+		 * Checks if the <code>If-Range</code> header allows sending a part of the
+		 * given file. That is the case if the header is not present or if it
+		 * matches the current version of the file.
 		 * 
-		 * @param is - client input stream
-		 * @return bytes array of the client's request
-		 * @throws IOException if an IO error occurs while reading or writing the client request
-		 */
-		private byte[] readRequest(InputStream is) throws IOException {
-			ByteArrayOutputStream bos = new ByteArrayOutputStream();
-			int state = 0;
-			l:		while(true) {
-				int b = is.read();
-				if(b==-1) return null;
-				if(b!=13) {
-					bos.write(b);
-				}
-				switch(state) {
-				case 0: 
-					if(b==13) { state=1; } else if(b==10) state=4;
-					break;
-				case 1: 
-					if(b==10) { state=2; } else state=0;
-					break;
-				case 2: 
-					if(b==13) { state=3; } else state=0;
-					break;
-				case 3: 
-					if(b==10) { break l; } else state=0;
-					break;
-				case 4: 
-					if(b==10) { break l; } else state=0;
-					break;
-				}
+		 * @param file - requested file
+		 * @return <code>true</code> if a range of the file may be sent, <code>false</code> otherwise
+		 */
+		private boolean matchesIfRange(StaticFileCache.StaticFile file) {
+			String ifRange = getHeader("If-Range");
+			if(ifRange == null) {
+				return true;
+			}
+			if(ifRange.startsWith("\"")) {
+				return ifRange.equals(file.getETag());
 			}
-			return bos.toByteArray();
+			return parseDate(ifRange) / 1000 == file.getLastModified() / 1000;
 		}
-
+		
 		/**
-		 * Extracts request headers from a given <code>requestHeader</code>
-		 * and returns them in a list of strings.
+		 * Parses the value of a <code>Range</code> header for a file of the given size.
+		 * <p>
+		 * Only a single byte range is supported. Other ranges are ignored, which makes
+		 * the whole file be sent, as allowed by the HTTP specification.
 		 * 
-		 * @param requestHeader - string that contains the request headers
-		 * @return a list of request headers
-		 */
-		private List<String> extractHeaders(String requestHeader) {
-			List<String> headers = new ArrayList<String>();
-			String currentLine = null;
-			for(String s : requestHeader.split("\n")) {
-				if(s.isEmpty()) break;
-				char c = s.charAt(0);
-				if(c==9 || c==32) {
-					currentLine += s;
+		 * @param range - value of the <code>Range</code> header
+		 * @param size - size of the file in bytes
+		 * @return an array with the first and the last byte of the range, an empty array if the
+		 * range can not be satisfied or <code>null</code> if the range should be ignored
+		 */
+		private long[] parseRange(String range, long size) {
+			range = range.trim();
+			if(!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+				return null;
+			}
+			
+			String spec = range.substring(6).trim();
+			int dash = spec.indexOf('-');
+			if(dash < 0) {
+				return null;
+			}
+			
+			try {
+				String first = spec.substring(0, dash).trim();
+				String last = spec.substring(dash + 1).trim();
+				
+				long start;
+				long end;
+				if(first.isEmpty()) {
+					long suffix = Long.parseLong(last);
+					if(suffix <= 0) {
+						return new long[0];
+					}
+					start = Math.max(0, size - suffix);
+					end = size - 1;
 				} else {
-					if(currentLine != null) {
-						headers.add(currentLine);
+					start = Long.parseLong(first);
+					end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+					if(start < 0 || end < start) {
+						return null;
+					}
+					if(start >= size) {
+						return new long[0];
 					}
-					currentLine = s;
+					end = Math.min(end, size - 1);
 				}
+				
+				return new long[] {start, end};
+			} catch(NumberFormatException ex) {
+				return null;
+			}
+		}
+		
+		/**
+		 * Checks if the client accepts gzip compressed responses.
+		 * 
+		 * @return <code>true</code> if the client accepts gzip, <code>false</code> otherwise
+		 */
+		private boolean acceptsGzip() {
+			String acceptEncoding = getHeader("Accept-Encoding");
+			if(acceptEncoding == null) {
+				return false;
 			}
-			if(!currentLine.isEmpty()) {
-				headers.add(currentLine);
+			
+			for(String coding : acceptEncoding.split(",")) {
+				String[] parts = coding.split(";");
+				if(parts[0].trim().equalsIgnoreCase("gzip")) {
+					return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+				}
 			}
-			return headers;
+			return false;
+		}
+		
+		/**
+		 * Checks if files of the given mime type are worth compressing.
+		 * 
+		 * @param mimeType - mime type to check
+		 * @return <code>true</code> if the content is compressible, <code>false</code> otherwise
+		 */
+		private boolean isCompressible(String mimeType) {
+			return mimeType.startsWith("text/") || mimeType.endsWith("javascript")
+					|| mimeType.endsWith("json") || mimeType.endsWith("xml");
+		}
+		
+		/**
+		 * Returns the value of the first header of the current request with the given name.
+		 * 
+		 * @param name - name of the header, compared ignoring case
+		 * @return value of the header or <code>null</code> if the request has no such header
+		 */
+		private String getHeader(String name) {
+			return connection.parser.getHeader(name);
+		}
+		
+		/**
+		 * Returns the appropriate mime type for given <code>fileName</code>.
+		 * 
+		 * @param fileName - name of file to derive a mime type from
+		 * @return an appropriate mime type fetched from mime.properties
+		 * file
+		 */
+		private String determineMimeType(String fileName) {
+			fileName = fileName.toLowerCase();
+			String mimeType = mimeTypes.get(fileName.substring(fileName.lastIndexOf(".") + 1));
+			return (mimeType == null) ? "application/octet-stream" : mimeType;
 		}
 
 		/**
@@ -851,6 +1414,7 @@ public class SmartHttpServer {
 		 * @throws IOException if an IO error occurs while writing the error message to the output stream <code>ostream</code>
 		 */
 		private void sendError(OutputStream ostream, int statusCode, String statusText) throws IOException {
+			errorSent = true;
 			ostream.write(
 					("HTTP/1.1 " + statusCode + " " + statusText + "\r\n" +
 						"Server: simple java server\r\n" +
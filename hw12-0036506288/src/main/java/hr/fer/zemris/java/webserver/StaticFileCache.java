@@ -0,0 +1,334 @@
+package hr.fer.zemris.java.webserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A cache of static files served by {@link SmartHttpServer}.
+ * <p>
+ * For every requested file the cache remembers its size, modification time and
+ * entity tag, so conditional requests can be answered without reading the file.
+ * Files not larger than a configured limit are also kept in memory, until the
+ * total size of cached content exceeds a configured budget, at which point the
+ * least recently used files are dropped.
+ * <p>
+ * Every file can also have a gzip variant. If a file named like the requested
+ * one with an additional ".gz" extension exists and is not older than it, that
+ * file is used. Otherwise, compressible files kept in memory are compressed
+ * once and the compressed content is kept if it is smaller.
+ * <p>
+ * Cached entries are checked against the file's attributes on every lookup,
+ * so a changed file is never served from the cache.
+ *
+ * @author Ivan Skorupan
+ */
+public class StaticFileCache {
+
+	/**
+	 * Files smaller than this are not worth compressing.
+	 */
+	private static final int MIN_COMPRESSED_SIZE = 256;
+
+	/**
+	 * Models a cached static file.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	public static class StaticFile {
+
+		/**
+		 * Path of the file.
+		 */
+		private Path path;
+
+		/**
+		 * Size of the file in bytes.
+		 */
+		private long size;
+
+		/**
+		 * Last modification time of the file in milliseconds.
+		 */
+		private long lastModified;
+
+		/**
+		 * Entity tag of the file, including quotes.
+		 */
+		private String eTag;
+
+		/**
+		 * Content of the file, <code>null</code> if it is not kept in memory.
+		 */
+		private byte[] content;
+
+		/**
+		 * Precompressed gzip variant of the file, <code>null</code> if there is none.
+		 */
+		private Path gzipPath;
+
+		/**
+		 * Size of the gzip variant in bytes.
+		 */
+		private long gzipSize;
+
+		/**
+		 * Content of the gzip variant, <code>null</code> if it is not kept in memory.
+		 */
+		private byte[] gzipContent;
+
+		/**
+		 * Constructs a new {@link StaticFile} object.
+		 *
+		 * @param path - path of the file
+		 * @param size - size of the file in bytes
+		 * @param lastModified - last modification time of the file in milliseconds
+		 */
+		private StaticFile(Path path, long size, long lastModified) {
+			this.path = path;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.eTag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+		}
+
+		/**
+		 * Getter for the path of this file.
+		 *
+		 * @return path of the file
+		 */
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * Getter for the size of this file.
+		 *
+		 * @return size of the file in bytes
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * Getter for the last modification time of this file.
+		 *
+		 * @return last modification time in milliseconds
+		 */
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * Getter for the entity tag of this file.
+		 *
+		 * @return entity tag, including quotes
+		 */
+		public String getETag() {
+			return eTag;
+		}
+
+		/**
+		 * Getter for the entity tag of the gzip variant of this file. It differs from
+		 * {@link #getETag()} since the two variants have different bytes.
+		 *
+		 * @return entity tag of the gzip variant, including quotes
+		 */
+		public String getGzipETag() {
+			return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+		}
+
+		/**
+		 * Getter for the content of this file.
+		 *
+		 * @return content of the file or <code>null</code> if it is not kept in memory
+		 */
+		public byte[] getContent() {
+			return content;
+		}
+
+		/**
+		 * Checks if this file has a gzip variant.
+		 *
+		 * @return <code>true</code> if there is a gzip variant, <code>false</code> otherwise
+		 */
+		public boolean hasGzipVariant() {
+			return gzipPath != null || gzipContent != null;
+		}
+
+		/**
+		 * Getter for the path of the precompressed gzip variant of this file.
+		 *
+		 * @return path of the gzip variant or <code>null</code> if it only exists in memory
+		 */
+		public Path getGzipPath() {
+			return gzipPath;
+		}
+
+		/**
+		 * Getter for the size of the gzip variant of this file.
+		 *
+		 * @return size of the gzip variant in bytes
+		 */
+		public long getGzipSize() {
+			return gzipSize;
+		}
+
+		/**
+		 * Getter for the content of the gzip variant of this file.
+		 *
+		 * @return content of the gzip variant or <code>null</code> if it is not kept in memory
+		 */
+		public byte[] getGzipContent() {
+			return gzipContent;
+		}
+
+		/**
+		 * Returns the number of bytes of memory this file's cached content takes.
+		 *
+		 * @return size of the cached content
+		 */
+		private long weight() {
+			return (content == null ? 0 : content.length) + (gzipContent == null ? 0 : gzipContent.length);
+		}
+
+	}
+
+	/**
+	 * Cached files mapped by their paths, in order from the least to the most recently used.
+	 */
+	private Map<Path, StaticFile> files = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Maximum size of a file which is kept in memory.
+	 */
+	private long maxFileSize;
+
+	/**
+	 * Maximum total size of content kept in memory.
+	 */
+	private long capacity;
+
+	/**
+	 * Total size of content currently kept in memory.
+	 */
+	private long size;
+
+	/**
+	 * Constructs a new {@link StaticFileCache} object.
+	 *
+	 * @param maxFileSize - maximum size of a file which is kept in memory
+	 * @param capacity - maximum total size of content kept in memory
+	 */
+	public StaticFileCache(long maxFileSize, long capacity) {
+		this.maxFileSize = maxFileSize;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Returns the cached version of the given file, caching it first if it
+	 * was not cached or it changed since it was cached.
+	 *
+	 * @param path - path of the file
+	 * @param compressible - <code>true</code> if the file's content is worth compressing
+	 * @return the cached file
+	 * @throws IOException if the file does not exist or could not be read
+	 */
+	public StaticFile get(Path path, boolean compressible) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		long lastModified = attributes.lastModifiedTime().toMillis();
+
+		StaticFile file;
+		synchronized(files) {
+			file = files.get(path);
+		}
+		if(file != null && file.size == attributes.size() && file.lastModified == lastModified) {
+			return file;
+		}
+
+		file = load(path, attributes.size(), lastModified, compressible);
+
+		synchronized(files) {
+			StaticFile old = files.put(path, file);
+			if(old != null) {
+				size -= old.weight();
+			}
+			size += file.weight();
+
+			Iterator<StaticFile> it = files.values().iterator();
+			while(size > capacity && it.hasNext()) {
+				StaticFile eldest = it.next();
+				if(eldest == file) continue;
+				it.remove();
+				size -= eldest.weight();
+			}
+		}
+
+		return file;
+	}
+
+	/**
+	 * Reads the given file and finds or creates its gzip variant.
+	 *
+	 * @param path - path of the file
+	 * @param fileSize - size of the file in bytes
+	 * @param lastModified - last modification time of the file in milliseconds
+	 * @param compressible - <code>true</code> if the file's content is worth compressing
+	 * @return the loaded file
+	 * @throws IOException if the file could not be read
+	 */
+	private StaticFile load(Path path, long fileSize, long lastModified, boolean compressible) throws IOException {
+		byte[] content = fileSize <= maxFileSize ? Files.readAllBytes(path) : null;
+
+		// the size of read content is used in case the file changed while it was being read
+		StaticFile file = new StaticFile(path, content == null ? fileSize : content.length, lastModified);
+		file.content = content;
+
+		Path gzipPath = path.resolveSibling(path.getFileName() + ".gz");
+		try {
+			BasicFileAttributes gzipAttributes = Files.readAttributes(gzipPath, BasicFileAttributes.class);
+			if(gzipAttributes.isRegularFile() && gzipAttributes.lastModifiedTime().toMillis() >= lastModified) {
+				file.gzipPath = gzipPath;
+				file.gzipSize = gzipAttributes.size();
+				if(file.gzipSize <= maxFileSize) {
+					file.gzipContent = Files.readAllBytes(gzipPath);
+					file.gzipSize = file.gzipContent.length;
+				}
+				return file;
+			}
+		} catch(NoSuchFileException ignorable) {
+		}
+
+		if(compressible && file.content != null && file.content.length >= MIN_COMPRESSED_SIZE) {
+			byte[] compressed = gzip(file.content);
+			if(compressed.length < file.content.length) {
+				file.gzipContent = compressed;
+				file.gzipSize = compressed.length;
+			}
+		}
+
+		return file;
+	}
+
+	/**
+	 * Compresses the given data using gzip.
+	 *
+	 * @param data - data to compress
+	 * @return compressed data
+	 * @throws IOException if the data could not be compressed
+	 */
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length / 2);
+		try(GZIPOutputStream gos = new GZIPOutputStream(bos)) {
+			gos.write(data);
+		}
+		return bos.toByteArray();
+	}
+
+}
@@ -0,0 +1,557 @@
+package hr.fer.zemris.java.webserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A registry of web workers used by {@link SmartHttpServer}.
+ * <p>
+ * Workers are mapped to URL paths by the workers configuration file, where every
+ * line has the form <code>/path = fully.qualified.ClassName</code>, optionally
+ * followed by options such as <code>; scope=pooled; size=4</code>. Paths starting
+ * with <code>/ext/</code> which are not mapped lead to the worker class with the
+ * path's last segment as its simple name in the package of convention workers.
+ * <p>
+ * A worker has one of three scopes:
+ * <ul>
+ * <li><code>singleton</code>, the default, where a single instance processes all
+ * requests,</li>
+ * <li><code>pooled</code>, where at most <code>size</code> instances exist and each
+ * processes one request at a time,</li>
+ * <li><code>prototype</code>, where a new instance processes every request.</li>
+ * </ul>
+ * The constructor of every worker class is looked up only once and is invoked
+ * through a {@link MethodHandle}. Every instance is initialized with
+ * {@link IWebWorker#init()} before its first request and destroyed with
+ * {@link IWebWorker#destroy()} when it will not be used anymore.
+ * <p>
+ * The configuration file can be watched for changes. When it changes, mappings
+ * whose configuration stayed the same keep their workers, and workers of other
+ * mappings are destroyed as soon as the requests they are processing are done.
+ *
+ * @author Ivan Skorupan
+ */
+public class WorkerRegistry {
+
+	/**
+	 * Lookup used for finding worker constructors.
+	 */
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+	/**
+	 * Type of a worker constructor handle.
+	 */
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(IWebWorker.class);
+
+	/**
+	 * Scopes of web workers.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	public static enum Scope {
+		/**
+		 * A single instance processes all requests.
+		 */
+		SINGLETON,
+
+		/**
+		 * A bounded number of instances process one request at a time each.
+		 */
+		POOLED,
+
+		/**
+		 * A new instance processes every request.
+		 */
+		PROTOTYPE
+	}
+
+	/**
+	 * Models a worker class bound to a path, together with the instances of it.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	private static class Binding {
+
+		/**
+		 * Configuration this binding was made from.
+		 */
+		private String specification;
+
+		/**
+		 * Handle of the worker class's constructor.
+		 */
+		private MethodHandle constructor;
+
+		/**
+		 * Scope of the worker.
+		 */
+		private Scope scope;
+
+		/**
+		 * The instance of a singleton worker.
+		 */
+		private volatile IWebWorker singleton;
+
+		/**
+		 * Idle instances of a pooled worker.
+		 */
+		private Queue<IWebWorker> idle = new ConcurrentLinkedQueue<>();
+
+		/**
+		 * Permits for using instances of a pooled worker.
+		 */
+		private Semaphore permits;
+
+		/**
+		 * Number of requests being processed by this binding's workers.
+		 */
+		private AtomicInteger inUse = new AtomicInteger();
+
+		/**
+		 * Flag that marks if this binding was replaced or the registry was closed.
+		 */
+		private volatile boolean closed;
+
+		/**
+		 * Flag that marks if this binding's workers were destroyed.
+		 */
+		private AtomicBoolean destroyed = new AtomicBoolean();
+
+		/**
+		 * Constructs a new {@link Binding} object.
+		 *
+		 * @param specification - configuration the binding was made from
+		 * @param constructor - handle of the worker class's constructor
+		 * @param scope - scope of the worker
+		 * @param size - maximum number of instances of a pooled worker
+		 */
+		private Binding(String specification, MethodHandle constructor, Scope scope, int size) {
+			this.specification = specification;
+			this.constructor = constructor;
+			this.scope = scope;
+			this.permits = new Semaphore(size);
+		}
+
+		/**
+		 * Creates and initializes a new instance of the worker.
+		 *
+		 * @return the new instance
+		 * @throws Exception if the instance could not be created or initialized
+		 */
+		private IWebWorker create() throws Exception {
+			IWebWorker worker;
+			try {
+				worker = (IWebWorker) constructor.invokeExact();
+			} catch(Exception | Error e) {
+				throw e;
+			} catch(Throwable t) {
+				throw new IllegalStateException(t);
+			}
+
+			worker.init();
+			return worker;
+		}
+
+		/**
+		 * Returns the singleton instance, creating it if it doesn't exist yet.
+		 *
+		 * @return the singleton instance
+		 * @throws Exception if the instance could not be created or initialized
+		 */
+		private IWebWorker singleton() throws Exception {
+			IWebWorker worker = singleton;
+			if(worker == null) {
+				synchronized(this) {
+					worker = singleton;
+					if(worker == null) {
+						worker = create();
+						singleton = worker;
+					}
+				}
+			}
+			return worker;
+		}
+
+		/**
+		 * Takes an instance of the worker for processing a single request.
+		 *
+		 * @return an instance or <code>null</code> if this binding was closed
+		 * @throws Exception if an instance could not be created or initialized
+		 */
+		private IWebWorker acquire() throws Exception {
+			inUse.incrementAndGet();
+			if(closed) {
+				finish();
+				return null;
+			}
+
+			try {
+				switch(scope) {
+				case SINGLETON:
+					return singleton();
+				case PROTOTYPE:
+					return create();
+				default:
+					permits.acquire();
+					IWebWorker worker = idle.poll();
+					try {
+						return worker == null ? create() : worker;
+					} catch(Exception e) {
+						permits.release();
+						throw e;
+					}
+				}
+			} catch(Exception e) {
+				finish();
+				throw e;
+			}
+		}
+
+		/**
+		 * Returns an instance taken by {@link #acquire()} once its request was processed.
+		 *
+		 * @param worker - the instance
+		 */
+		private void release(IWebWorker worker) {
+			if(scope == Scope.PROTOTYPE) {
+				worker.destroy();
+			} else if(scope == Scope.POOLED) {
+				idle.offer(worker);
+				permits.release();
+			}
+			finish();
+		}
+
+		/**
+		 * Marks that a request is no longer being processed, destroying the
+		 * workers if this binding was closed and it was the last request.
+		 */
+		private void finish() {
+			if(inUse.decrementAndGet() == 0 && closed) {
+				destroy();
+			}
+		}
+
+		/**
+		 * Closes this binding. Its workers are destroyed as soon as no request is
+		 * being processed by them.
+		 */
+		private void close() {
+			closed = true;
+			if(inUse.get() == 0) {
+				destroy();
+			}
+		}
+
+		/**
+		 * Destroys all instances of this binding's worker, only the first time it is called.
+		 */
+		private void destroy() {
+			if(!destroyed.compareAndSet(false, true)) return;
+
+			synchronized(this) {
+				if(singleton != null) {
+					singleton.destroy();
+					singleton = null;
+				}
+			}
+			IWebWorker worker;
+			while((worker = idle.poll()) != null) {
+				worker.destroy();
+			}
+		}
+
+	}
+
+	/**
+	 * Package of workers reachable through <code>/ext/</code> paths.
+	 */
+	private String extPackage;
+
+	/**
+	 * Default maximum number of instances of a pooled worker.
+	 */
+	private int defaultPoolSize;
+
+	/**
+	 * Bindings of configured paths.
+	 */
+	private volatile Map<String, Binding> bindings = new HashMap<>();
+
+	/**
+	 * Bindings of <code>/ext/</code> workers mapped by their class names.
+	 */
+	private Map<String, Binding> extBindings = new ConcurrentHashMap<>();
+
+	/**
+	 * Watcher of the configuration file, <code>null</code> if it is not watched.
+	 */
+	private WatchService watcher;
+
+	/**
+	 * Constructs a new {@link WorkerRegistry} object.
+	 *
+	 * @param extPackage - package of workers reachable through <code>/ext/</code> paths
+	 * @param defaultPoolSize - default maximum number of instances of a pooled worker
+	 */
+	public WorkerRegistry(String extPackage, int defaultPoolSize) {
+		this.extPackage = extPackage;
+		this.defaultPoolSize = defaultPoolSize;
+	}
+
+	/**
+	 * Loads the given configuration file, replacing the current mappings.
+	 * <p>
+	 * Singleton workers are created right away, so a configuration with a
+	 * broken worker is rejected as a whole and the current mappings stay in use.
+	 *
+	 * @param config - path of the workers configuration file
+	 * @throws IOException if the file could not be read
+	 * @throws IllegalArgumentException if the configuration is invalid or a worker could not be created
+	 */
+	public synchronized void load(Path config) throws IOException {
+		Properties properties = new Properties();
+		try(InputStream is = Files.newInputStream(config)) {
+			properties.load(is);
+		}
+
+		Map<String, Binding> current = bindings;
+		Map<String, Binding> loaded = new HashMap<>();
+		for(Entry<Object, Object> entry : properties.entrySet()) {
+			String path = ((String) entry.getKey()).trim();
+			String specification = ((String) entry.getValue()).trim();
+
+			Binding binding = current.get(path);
+			if(binding == null || !binding.specification.equals(specification)) {
+				try {
+					binding = bind(specification);
+				} catch(IllegalArgumentException ex) {
+					loaded.values().stream().filter(b -> !current.containsValue(b)).forEach(Binding::close);
+					throw new IllegalArgumentException("Invalid worker for path " + path + ": " + ex.getMessage(), ex);
+				}
+			}
+			loaded.put(path, binding);
+		}
+
+		bindings = loaded;
+		for(Binding binding : current.values()) {
+			if(!loaded.containsValue(binding)) {
+				binding.close();
+			}
+		}
+	}
+
+	/**
+	 * Starts a background thread which loads the given configuration file again
+	 * whenever it changes.
+	 *
+	 * @param config - path of the workers configuration file
+	 * @throws IOException if the file's directory could not be watched
+	 */
+	public synchronized void watch(Path config) throws IOException {
+		Path absolute = config.toAbsolutePath();
+		watcher = absolute.getFileSystem().newWatchService();
+		absolute.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		WatchService service = watcher;
+
+		Thread thread = new Thread(() -> {
+			try {
+				while(true) {
+					WatchKey key = service.take();
+					boolean changed = false;
+					for(WatchEvent<?> event : key.pollEvents()) {
+						if(absolute.getFileName().equals(event.context())) {
+							changed = true;
+						}
+					}
+					key.reset();
+
+					if(changed) {
+						try {
+							load(absolute);
+							System.out.println("Workers configuration reloaded.");
+						} catch(IOException | IllegalArgumentException e) {
+							System.out.println("Workers configuration could not be reloaded: " + e.getMessage());
+						}
+					}
+				}
+			} catch(InterruptedException | ClosedWatchServiceException ignorable) {
+			}
+		}, "workers-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Processes the given request with the worker bound to the given path.
+	 *
+	 * @param urlPath - requested path
+	 * @param context - context of the request
+	 * @return <code>true</code> if a worker processed the request, <code>false</code> if no worker is bound to the path
+	 * @throws Exception if the worker could not be created or it failed to process the request
+	 */
+	public boolean process(String urlPath, RequestContext context) throws Exception {
+		while(true) {
+			Binding binding = find(urlPath);
+			if(binding == null) {
+				return false;
+			}
+
+			IWebWorker worker = binding.acquire();
+			if(worker == null) {
+				// the binding was replaced in the meantime, the new one is used
+				continue;
+			}
+
+			try {
+				worker.processRequest(context);
+			} finally {
+				binding.release(worker);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Stops watching the configuration file and destroys all workers once they
+	 * finish processing their requests.
+	 */
+	public synchronized void close() {
+		if(watcher != null) {
+			try {
+				watcher.close();
+			} catch(IOException ignorable) {
+			}
+		}
+
+		bindings.values().forEach(Binding::close);
+		bindings = new HashMap<>();
+		extBindings.values().forEach(Binding::close);
+		extBindings.clear();
+	}
+
+	/**
+	 * Finds the binding of the given path.
+	 *
+	 * @param urlPath - requested path
+	 * @return the binding or <code>null</code> if no worker is bound to the path
+	 */
+	private Binding find(String urlPath) {
+		Binding binding = bindings.get(urlPath);
+		if(binding != null || !urlPath.startsWith("/ext/")) {
+			return binding;
+		}
+
+		String name = urlPath.substring(urlPath.lastIndexOf("/") + 1);
+		binding = extBindings.get(name);
+		if(binding != null) {
+			return binding;
+		}
+
+		if(!isIdentifier(name)) {
+			return null;
+		}
+		try {
+			return extBindings.computeIfAbsent(name, n -> bind(extPackage + "." + n));
+		} catch(IllegalArgumentException ex) {
+			// unknown names are not remembered, so clients can't fill the map with them
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a binding from the given worker configuration.
+	 *
+	 * @param specification - fully qualified class name of the worker, optionally followed by options
+	 * @return the new binding
+	 * @throws IllegalArgumentException if the configuration is invalid or a singleton worker could not be created
+	 */
+	private Binding bind(String specification) {
+		String[] parts = specification.split(";");
+		String fqcn = parts[0].trim();
+		Scope scope = Scope.SINGLETON;
+		int size = defaultPoolSize;
+
+		for(int i = 1; i < parts.length; i++) {
+			String[] option = parts[i].split("=", 2);
+			if(option.length != 2) {
+				throw new IllegalArgumentException("Invalid option " + parts[i].trim() + "!");
+			}
+
+			String name = option[0].trim();
+			String value = option[1].trim();
+			try {
+				if(name.equals("scope")) {
+					scope = Scope.valueOf(value.toUpperCase());
+				} else if(name.equals("size")) {
+					size = Integer.parseInt(value);
+					if(size < 1) throw new NumberFormatException();
+				} else {
+					throw new IllegalArgumentException("Unknown option " + name + "!");
+				}
+			} catch(NumberFormatException ex) {
+				throw new IllegalArgumentException("Invalid value of option " + name + ": " + value + "!");
+			}
+		}
+
+		MethodHandle constructor;
+		try {
+			Class<?> workerClass = getClass().getClassLoader().loadClass(fqcn);
+			if(!IWebWorker.class.isAssignableFrom(workerClass)) {
+				throw new IllegalArgumentException(fqcn + " is not a web worker!");
+			}
+			constructor = LOOKUP.findConstructor(workerClass, MethodType.methodType(void.class)).asType(CONSTRUCTOR_TYPE);
+		} catch(ReflectiveOperationException ex) {
+			throw new IllegalArgumentException("The worker class " + fqcn + " could not be loaded: " + ex.getMessage(), ex);
+		}
+
+		Binding binding = new Binding(specification, constructor, scope, size);
+		if(scope == Scope.SINGLETON) {
+			try {
+				binding.singleton();
+			} catch(Exception ex) {
+				throw new IllegalArgumentException("The worker " + fqcn + " could not be initialized: " + ex.getMessage(), ex);
+			}
+		}
+		return binding;
+	}
+
+	/**
+	 * Checks if the given name is a valid Java identifier.
+	 *
+	 * @param name - name to check
+	 * @return <code>true</code> if the name is an identifier, <code>false</code> otherwise
+	 */
+	private static boolean isIdentifier(String name) {
+		if(name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+			return false;
+		}
+		for(int i = 1; i < name.length(); i++) {
+			if(!Character.isJavaIdentifierPart(name.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,109 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
+import hr.fer.zemris.java.custom.scripting.parser.SmartScriptParser;
+
+class SmartScriptFunctionRegistryTest {
+
+	private static final SmartScriptFunction NOTHING = (rc, stack) -> {};
+
+	private static DocumentNode parse(String script) {
+		return new SmartScriptParser(script).getDocumentNode();
+	}
+
+	@Test
+	void testRegisterAndGet() {
+		SmartScriptFunctionRegistry registry = new SmartScriptFunctionRegistry();
+		registry.register("f", 2, 1, NOTHING);
+
+		SmartScriptFunctionRegistry.RegisteredFunction function = registry.get("f");
+		assertEquals("f", function.getName());
+		assertEquals(2, function.getArity());
+		assertEquals(1, function.getResults());
+		assertSame(NOTHING, function.getFunction());
+		assertNull(registry.get("g"));
+	}
+
+	@Test
+	void testRegisterDuplicateName() {
+		SmartScriptFunctionRegistry registry = new SmartScriptFunctionRegistry();
+		SmartScriptFunction first = (rc, stack) -> {};
+		registry.register("f", 1, 1, first);
+
+		assertThrows(IllegalArgumentException.class, () -> registry.register("f", 0, 0, NOTHING));
+		assertSame(first, registry.get("f").getFunction());
+		assertEquals(1, registry.get("f").getArity());
+	}
+
+	@Test
+	void testRegisterInvalidArguments() {
+		SmartScriptFunctionRegistry registry = new SmartScriptFunctionRegistry();
+
+		assertThrows(NullPointerException.class, () -> registry.register(null, 0, 0, NOTHING));
+		assertThrows(NullPointerException.class, () -> registry.register("f", 0, 0, null));
+		assertThrows(IllegalArgumentException.class, () -> registry.register("f", -1, 0, NOTHING));
+		assertThrows(IllegalArgumentException.class, () -> registry.register("f", 0, -1, NOTHING));
+		assertNull(registry.get("f"));
+	}
+
+	@Test
+	void testDefaultRegistry() {
+		SmartScriptFunctionRegistry registry = SmartScriptFunctionRegistry.getDefault();
+
+		assertSame(registry, SmartScriptFunctionRegistry.getDefault());
+		assertEquals(2, registry.get("decfmt").getArity());
+		assertEquals(2, registry.get("dup").getResults());
+		assertThrows(IllegalArgumentException.class, () -> registry.register("sin", 1, 1, NOTHING));
+	}
+
+	@Test
+	void testCompileChecksArity() {
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+				() -> SmartScriptProgram.compile(parse("{$= 1.5 @decfmt $}")));
+		assertEquals("Function @decfmt takes 2 arguments, but only 1 are given!", ex.getMessage());
+
+		ex = assertThrows(IllegalArgumentException.class, () -> SmartScriptProgram.compile(parse("{$= 1 + $}")));
+		assertEquals("Operator + takes 2 arguments, but only 1 are given!", ex.getMessage());
+	}
+
+	@Test
+	void testCompileTracksResults() {
+		// @dup leaves two values, so the operator after it has enough arguments
+		assertEquals("4", SmartScriptProgramTest.execute(SmartScriptProgram.compile(parse("{$= 2 @dup + $}"))));
+
+		// @pparamDel leaves no value, so the operator after it doesn't
+		assertThrows(IllegalArgumentException.class,
+				() -> SmartScriptProgram.compile(parse("{$= 1 \"name\" @pparamDel + $}")));
+	}
+
+	@Test
+	void testCustomRegistry() {
+		SmartScriptFunctionRegistry registry = new SmartScriptFunctionRegistry();
+		registry.register("twice", 1, 1, (rc, stack) -> {
+			String value = stack.popString();
+			stack.pushValue(value + value);
+		});
+
+		SmartScriptProgram program = SmartScriptProgram.compile(parse("{$= \"ab\" @twice \"c\" @sin $}"), registry);
+		assertEquals("ababc", SmartScriptProgramTest.execute(program));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> SmartScriptProgram.compile(parse("{$= @twice $}"), registry));
+	}
+
+	@Test
+	void testFunctionsResolvedAtCompileTime() {
+		SmartScriptFunctionRegistry registry = new SmartScriptFunctionRegistry();
+		SmartScriptProgram program = SmartScriptProgram.compile(parse("{$= \"a\" @later $}"), registry);
+
+		registry.register("later", 1, 1, (rc, stack) -> stack.pushValue(stack.popString() + "!"));
+
+		assertEquals("a", SmartScriptProgramTest.execute(program));
+		assertEquals("a!", SmartScriptProgramTest.execute(SmartScriptProgram.compile(parse("{$= \"a\" @later $}"), registry)));
+	}
+
+}
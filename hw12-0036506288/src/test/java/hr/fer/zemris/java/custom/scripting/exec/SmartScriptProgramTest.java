@@ -0,0 +1,172 @@
+package hr.fer.zemris.java.custom.scripting.exec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
+import hr.fer.zemris.java.custom.scripting.parser.SmartScriptParser;
+import hr.fer.zemris.java.webserver.RequestContext;
+
+class SmartScriptProgramTest {
+
+	private Map<String, String> scripts = new HashMap<>();
+
+	private int loads;
+
+	private DocumentNode load(String name) throws IOException {
+		String script = scripts.get(name);
+		if(script == null) {
+			throw new IOException("No script named " + name);
+		}
+		loads++;
+		return new SmartScriptParser(script).getDocumentNode();
+	}
+
+	private SmartScriptProgram compile(String script) {
+		return SmartScriptProgram.compile(new SmartScriptParser(script).getDocumentNode(),
+				SmartScriptFunctionRegistry.getDefault(), this::load);
+	}
+
+	static String execute(SmartScriptProgram program) {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		RequestContext context = new RequestContext(os, new HashMap<>(), new HashMap<>(), new ArrayList<>(), null);
+		new SmartScriptEngine(program, context).execute();
+
+		String response = new String(os.toByteArray(), StandardCharsets.UTF_8);
+		return response.substring(response.indexOf("\r\n\r\n") + 4);
+	}
+
+	private String execute(String script) {
+		return execute(compile(script));
+	}
+
+	@Test
+	void testIfWithoutElseInsideFor() {
+		assertEquals("1[two]23", execute("{$FOR i 1 3 1 $}{$IF i 2 == $}[two]{$END$}{$= i $}{$END$}"));
+	}
+
+	@Test
+	void testIfWithElseInsideFor() {
+		assertEquals("odd even odd even ", execute("{$FOR i 1 4 1 $}{$IF i 2 % $}odd{$ELSE$}even{$END$} {$END$}"));
+	}
+
+	@Test
+	void testNestedIf() {
+		String script = "{$IF 1 $}a{$IF 0 $}b{$ELSE$}c{$IF \"x\" $}d{$END$}{$END$}e{$ELSE$}f{$END$}!";
+
+		assertEquals("acde!", execute(script));
+	}
+
+	@Test
+	void testConditionValues() {
+		String script = "{$IF 0.0 $}a{$END$}{$IF \"\" $}b{$END$}{$IF \"false\" $}c{$END$}{$IF \"0\" $}d{$END$}"
+				+ "{$IF 2 $}e{$END$}{$IF \"text\" $}f{$END$}";
+
+		assertEquals("ef", execute(script));
+	}
+
+	@Test
+	void testConditionWithoutValue() {
+		assertThrows(IllegalArgumentException.class, () -> compile("{$IF \"name\" @pparamDel $}a{$END$}"));
+	}
+
+	@Test
+	void testTextAroundInclude() {
+		scripts.put("inner", "in{$= 1 $}");
+
+		assertEquals("<in1>", execute("<{$INCLUDE \"inner\" $}>"));
+	}
+
+	@Test
+	void testIncludeInsideFor() {
+		scripts.put("inner", "in");
+
+		assertEquals("[in][in]", execute("{$FOR i 1 2 1 $}[{$INCLUDE \"inner\" $}]{$END$}"));
+		assertEquals(1, loads);
+	}
+
+	@Test
+	void testIncludeInsideIf() {
+		scripts.put("inner", "in");
+
+		assertEquals("a[]b", execute("a[{$IF 0 $}{$INCLUDE \"inner\" $}{$END$}]b"));
+	}
+
+	@Test
+	void testExtends() {
+		scripts.put("base", "<{$BLOCK title $}Base{$END$}|{$BLOCK body $}base body{$END$}>");
+
+		assertEquals("<Base|page body>", execute("{$EXTENDS \"base\" $}ignored{$BLOCK body $}page body{$END$}"));
+	}
+
+	@Test
+	void testMultiLevelExtends() {
+		scripts.put("base", "<{$BLOCK title $}Base{$END$}|{$BLOCK body $}base body{$END$}>");
+		scripts.put("layout", "{$EXTENDS \"base\" $}{$BLOCK body $}layout body{$END$}");
+
+		assertEquals("<Base|layout body>", execute("{$INCLUDE \"layout\" $}"));
+		assertEquals("<Page|page body>",
+				execute("{$EXTENDS \"layout\" $}{$BLOCK body $}page body{$END$}{$BLOCK title $}Page{$END$}"));
+		assertEquals("<Page|layout body>", execute("{$EXTENDS \"layout\" $}{$BLOCK title $}Page{$END$}"));
+	}
+
+	@Test
+	void testBlocksDontReplaceBlocksOfIncludedScripts() {
+		scripts.put("base", "<{$BLOCK title $}Base{$END$}>");
+		scripts.put("part", "({$BLOCK title $}Part{$END$})");
+
+		assertEquals("<Page (Part)>", execute("{$EXTENDS \"base\" $}{$BLOCK title $}Page {$INCLUDE \"part\" $}{$END$}"));
+	}
+
+	@Test
+	void testSelfInclude() {
+		scripts.put("self", "a{$INCLUDE \"self\" $}");
+
+		assertThrows(IllegalArgumentException.class, () -> compile("{$INCLUDE \"self\" $}"));
+	}
+
+	@Test
+	void testIndirectInclude() {
+		scripts.put("a", "{$INCLUDE \"b\" $}");
+		scripts.put("b", "{$IF 1 $}{$INCLUDE \"a\" $}{$END$}");
+
+		assertThrows(IllegalArgumentException.class, () -> compile("{$INCLUDE \"a\" $}"));
+	}
+
+	@Test
+	void testSelfExtends() {
+		scripts.put("a", "{$EXTENDS \"b\" $}");
+		scripts.put("b", "{$EXTENDS \"a\" $}");
+
+		assertThrows(IllegalArgumentException.class, () -> compile("{$EXTENDS \"a\" $}"));
+	}
+
+	@Test
+	void testSameScriptIncludedTwice() {
+		scripts.put("inner", "in");
+
+		assertEquals("in,in", execute("{$INCLUDE \"inner\" $},{$INCLUDE \"inner\" $}"));
+	}
+
+	@Test
+	void testMissingScript() {
+		assertThrows(UncheckedIOException.class, () -> compile("{$INCLUDE \"missing\" $}"));
+	}
+
+	@Test
+	void testIncludeWithoutLoader() {
+		DocumentNode document = new SmartScriptParser("{$INCLUDE \"inner\" $}").getDocumentNode();
+
+		assertThrows(UnsupportedOperationException.class, () -> SmartScriptProgram.compile(document));
+	}
+
+}
@@ -0,0 +1,130 @@
+package hr.fer.zemris.java.custom.scripting.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import hr.fer.zemris.java.custom.scripting.elems.ElementOperator;
+import hr.fer.zemris.java.custom.scripting.nodes.BlockNode;
+import hr.fer.zemris.java.custom.scripting.nodes.DocumentNode;
+import hr.fer.zemris.java.custom.scripting.nodes.EchoNode;
+import hr.fer.zemris.java.custom.scripting.nodes.ForLoopNode;
+import hr.fer.zemris.java.custom.scripting.nodes.IfNode;
+import hr.fer.zemris.java.custom.scripting.nodes.IncludeNode;
+import hr.fer.zemris.java.custom.scripting.nodes.TextNode;
+
+class SmartScriptParserTest {
+
+	private static DocumentNode parse(String docBody) {
+		return new SmartScriptParser(docBody).getDocumentNode();
+	}
+
+	@Test
+	void testIfWithoutElse() {
+		DocumentNode document = parse("{$IF a $}yes{$END$}");
+
+		assertEquals(1, document.numberOfChildren());
+		IfNode ifNode = (IfNode) document.getChild(0);
+		assertEquals(1, ifNode.getCondition().length);
+		assertEquals(1, ifNode.numberOfChildren());
+		assertEquals("yes", ((TextNode) ifNode.getChild(0)).getText());
+		assertNull(ifNode.getElseNode());
+	}
+
+	@Test
+	void testIfWithElse() {
+		DocumentNode document = parse("{$IF a 1 > $}yes{$= a $}{$ELSE$}no{$END$}after");
+
+		assertEquals(2, document.numberOfChildren());
+		IfNode ifNode = (IfNode) document.getChild(0);
+		assertEquals(3, ifNode.getCondition().length);
+		assertEquals(2, ifNode.numberOfChildren());
+		assertTrue(ifNode.getChild(1) instanceof EchoNode);
+		assertEquals(1, ifNode.getElseNode().numberOfChildren());
+		assertEquals("no", ((TextNode) ifNode.getElseNode().getChild(0)).getText());
+		assertEquals("after", ((TextNode) document.getChild(1)).getText());
+	}
+
+	@Test
+	void testNestedIfInsideFor() {
+		DocumentNode document = parse("{$FOR i 1 3 1 $}{$IF i $}{$IF i $}a{$ELSE$}b{$END$}{$ELSE$}c{$END$}{$END$}");
+
+		ForLoopNode loop = (ForLoopNode) document.getChild(0);
+		IfNode outer = (IfNode) loop.getChild(0);
+		IfNode inner = (IfNode) outer.getChild(0);
+		assertEquals(1, outer.numberOfChildren());
+		assertEquals("c", ((TextNode) outer.getElseNode().getChild(0)).getText());
+		assertEquals("a", ((TextNode) inner.getChild(0)).getText());
+		assertEquals("b", ((TextNode) inner.getElseNode().getChild(0)).getText());
+	}
+
+	@Test
+	void testComparisonOperators() {
+		DocumentNode document = parse("{$= 1 2 < 1 2 <= 1 2 > 1 2 >= 1 2 == 1 2 != $}");
+
+		EchoNode echo = (EchoNode) document.getChild(0);
+		String[] symbols = {"<", "<=", ">", ">=", "==", "!="};
+		for(int i = 0; i < symbols.length; i++) {
+			assertEquals(symbols[i], ((ElementOperator) echo.getElements()[3 * i + 2]).getSymbol());
+		}
+	}
+
+	@Test
+	void testIncludeAndBlocks() {
+		DocumentNode document = parse("{$EXTENDS \"base\" $}{$BLOCK title $}Title {$INCLUDE \"header\" $}{$END$}{$BLOCK body $}{$END$}");
+
+		assertEquals("base", document.getExtendedDocument());
+		assertEquals(2, document.numberOfChildren());
+		BlockNode title = (BlockNode) document.getChild(0);
+		assertEquals("title", title.getName());
+		assertEquals("header", ((IncludeNode) title.getChild(1)).getName());
+		assertEquals("body", ((BlockNode) document.getChild(1)).getName());
+	}
+
+	@Test
+	void testIfWithoutCondition() {
+		assertThrows(SmartScriptParserException.class, () -> parse("{$IF $}yes{$END$}"));
+	}
+
+	@Test
+	void testUnclosedIf() {
+		assertThrows(SmartScriptParserException.class, () -> parse("{$IF a $}yes"));
+	}
+
+	@Test
+	void testDuplicateElse() {
+		assertThrows(SmartScriptParserException.class, () -> parse("{$IF a $}a{$ELSE$}b{$ELSE$}c{$END$}"));
+	}
+
+	@Test
+	void testElseOutsideIf() {
+		assertThrows(SmartScriptParserException.class, () -> parse("text{$ELSE$}"));
+		assertThrows(SmartScriptParserException.class, () -> parse("{$FOR i 1 2 1 $}{$ELSE$}{$END$}"));
+		assertThrows(SmartScriptParserException.class, () -> parse("{$IF a $}{$FOR i 1 2 1 $}{$ELSE$}{$END$}{$END$}"));
+	}
+
+	@Test
+	void testElseWithArguments() {
+		assertThrows(SmartScriptParserException.class, () -> parse("{$IF a $}a{$ELSE b $}b{$END$}"));
+	}
+
+	@Test
+	void testDuplicateBlock() {
+		assertThrows(SmartScriptParserException.class, () -> parse("{$BLOCK a $}{$END$}{$BLOCK a $}{$END$}"));
+		assertThrows(SmartScriptParserException.class, () -> parse("{$BLOCK a $}{$IF x $}{$BLOCK a $}{$END$}{$END$}{$END$}"));
+	}
+
+	@Test
+	void testInvalidIncludeAndBlockArguments() {
+		assertThrows(SmartScriptParserException.class, () -> parse("{$INCLUDE name $}"));
+		assertThrows(SmartScriptParserException.class, () -> parse("{$INCLUDE \"a\" \"b\" $}"));
+		assertThrows(SmartScriptParserException.class, () -> parse("{$BLOCK \"name\" $}{$END$}"));
+	}
+
+	@Test
+	void testInvalidExtends() {
+		assertThrows(SmartScriptParserException.class, () -> parse("{$EXTENDS \"a\" $}{$EXTENDS \"b\" $}"));
+		assertThrows(SmartScriptParserException.class, () -> parse("{$BLOCK a $}{$EXTENDS \"b\" $}{$END$}"));
+	}
+
+}
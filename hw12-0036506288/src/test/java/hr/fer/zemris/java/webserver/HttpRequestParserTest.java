@@ -0,0 +1,340 @@
+package hr.fer.zemris.java.webserver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import hr.fer.zemris.java.webserver.RequestContext.UploadedFile;
+
+class HttpRequestParserTest {
+
+	private static final int MAX_HEAD_SIZE = 1024;
+
+	private static final long MAX_BODY_SIZE = 100;
+
+	/**
+	 * A stream which returns at most a few bytes per read, like a slow client.
+	 */
+	private static class TrickleInputStream extends ByteArrayInputStream {
+
+		private int chunk;
+
+		public TrickleInputStream(byte[] data, int chunk) {
+			super(data);
+			this.chunk = chunk;
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) {
+			return super.read(b, off, Math.min(len, chunk));
+		}
+
+		@Override
+		public synchronized int available() {
+			return Math.min(super.available(), chunk);
+		}
+
+	}
+
+	private static HttpRequestParser parser(String input) {
+		return new HttpRequestParser(new ByteArrayInputStream(input.getBytes(StandardCharsets.ISO_8859_1)),
+				MAX_HEAD_SIZE, MAX_BODY_SIZE);
+	}
+
+	private static int statusOf(HttpRequestParser parser) {
+		return assertThrows(HttpRequestException.class, () -> parser.next()).getStatusCode();
+	}
+
+	@Test
+	void testSimpleRequest() throws IOException {
+		HttpRequestParser parser = parser("GET /index.html?a=1&b=x%20y HTTP/1.1\r\n"
+				+ "Host: www.example.com:5721\r\n"
+				+ "X-Empty:\r\n"
+				+ "Accept:   text/html  \r\n"
+				+ "\r\n");
+
+		assertTrue(parser.next());
+		assertEquals("GET", parser.getMethod());
+		assertEquals("/index.html", parser.getPath());
+		assertEquals("HTTP/1.1", parser.getVersion());
+		assertEquals("www.example.com:5721", parser.getHeader("host"));
+		assertEquals("text/html", parser.getHeader("ACCEPT"));
+		assertEquals("", parser.getHeader("X-Empty"));
+		assertNull(parser.getHeader("Cookie"));
+		assertEquals(0, parser.getContentLength());
+
+		Map<String, String> params = new HashMap<>();
+		parser.parseQueryParameters(params);
+		assertEquals(Map.of("a", "1", "b", "x y"), params);
+
+		assertFalse(parser.hasPendingInput());
+		assertFalse(parser.next());
+	}
+
+	@Test
+	void testLineFeedsAndLeadingEmptyLines() throws IOException {
+		HttpRequestParser parser = parser("\r\n\nGET / HTTP/1.0\nHost: a\n\n");
+
+		assertTrue(parser.next());
+		assertEquals("/", parser.getPath());
+		assertEquals("HTTP/1.0", parser.getVersion());
+		assertEquals("a", parser.getHeader("Host"));
+	}
+
+	@Test
+	void testEmptyLinesBetweenRequests() throws IOException {
+		HttpRequestParser parser = parser("POST / HTTP/1.1\r\nContent-Length: 2\r\n\r\nok\r\n\r\nGET /next HTTP/1.1\r\n\r\n");
+
+		assertTrue(parser.next());
+		assertTrue(parser.next());
+		assertEquals("/next", parser.getPath());
+		assertFalse(parser.next());
+	}
+
+	@Test
+	void testFoldedHeader() throws IOException {
+		HttpRequestParser parser = parser("GET / HTTP/1.1\r\nX-Long: first\r\n  second\r\n\r\n");
+
+		assertTrue(parser.next());
+		// the line break and the indentation all become spaces
+		assertEquals("first    second", parser.getHeader("X-Long"));
+	}
+
+	@Test
+	void testCookies() throws IOException {
+		HttpRequestParser parser = parser("GET / HTTP/1.1\r\n"
+				+ "Cookie: a=1; sid=\"abc\"\r\n"
+				+ "Cookie: b = 2\r\n"
+				+ "\r\n");
+
+		assertTrue(parser.next());
+		assertEquals("abc", parser.getCookie("sid"));
+		assertEquals("1", parser.getCookie("a"));
+		assertEquals("2", parser.getCookie("b"));
+		assertNull(parser.getCookie("c"));
+	}
+
+	@Test
+	void testIncompleteHead() throws IOException {
+		assertFalse(parser("").next());
+		assertFalse(parser("GET / HTTP/1.1\r\nHost: a\r\n").next());
+	}
+
+	@Test
+	void testMalformedRequests() {
+		assertEquals(400, statusOf(parser("GET /\r\n\r\n")));
+		assertEquals(400, statusOf(parser("GET  / HTTP/1.1\r\n\r\n")));
+		assertEquals(400, statusOf(parser("GET / HTTP/1.1 x\r\n\r\n")));
+		assertEquals(400, statusOf(parser("GET / HTTP/1.1\r\nNoColon\r\n\r\n")));
+		assertEquals(400, statusOf(parser("GET / HTTP/1.1\r\nHost : a\r\n\r\n")));
+		assertEquals(400, statusOf(parser("GET / HTTP/1.1\r\n folded\r\n\r\n")));
+		assertEquals(400, statusOf(parser("POST / HTTP/1.1\r\nContent-Length: -1\r\n\r\n")));
+		assertEquals(400, statusOf(parser("POST / HTTP/1.1\r\nContent-Length: 1x\r\n\r\n")));
+	}
+
+	@Test
+	void testHeadTooLarge() {
+		String longHeader = "X-Long: " + "a".repeat(MAX_HEAD_SIZE) + "\r\n";
+		assertEquals(431, statusOf(parser("GET / HTTP/1.1\r\n" + longHeader + "\r\n")));
+
+		HttpRequestParser slow = new HttpRequestParser(new TrickleInputStream(
+				("GET / HTTP/1.1\r\n" + longHeader + "\r\n").getBytes(StandardCharsets.ISO_8859_1), 7),
+				MAX_HEAD_SIZE, MAX_BODY_SIZE);
+		assertEquals(431, statusOf(slow));
+
+		String fitting = "GET / HTTP/1.1\r\nX: " + "a".repeat(MAX_HEAD_SIZE - 23) + "\r\n\r\n";
+		assertEquals(MAX_HEAD_SIZE, fitting.length());
+		assertDoesNotThrow(() -> parser(fitting).next());
+	}
+
+	@Test
+	void testHeadTooLargeAfterEmptyLines() {
+		String request = "\r\n\r\nGET / HTTP/1.1\r\nX: " + "a".repeat(20 * 1024) + "\r\n\r\n";
+		HttpRequestParser parser = new HttpRequestParser(
+				new ByteArrayInputStream(request.getBytes(StandardCharsets.ISO_8859_1)), 16 * 1024, MAX_BODY_SIZE);
+
+		assertEquals(431, assertTimeoutPreemptively(Duration.ofSeconds(5), () -> statusOf(parser)));
+	}
+
+	@Test
+	void testFittingHeadAfterEmptyLines() throws IOException {
+		String head = "GET / HTTP/1.1\r\nX: " + "a".repeat(16 * 1024 - 23) + "\r\n\r\n";
+		HttpRequestParser parser = new HttpRequestParser(
+				new ByteArrayInputStream(("\r\n\r\n" + head).getBytes(StandardCharsets.ISO_8859_1)), 16 * 1024, MAX_BODY_SIZE);
+
+		assertTrue(assertTimeoutPreemptively(Duration.ofSeconds(5), () -> parser.next()));
+		assertEquals("/", parser.getPath());
+	}
+
+	@Test
+	void testTooManyHeaders() {
+		StringBuilder request = new StringBuilder("GET / HTTP/1.1\r\n");
+		for(int i = 0; i < 101; i++) {
+			request.append("X").append(i).append(": ").append(i).append("\r\n");
+		}
+		request.append("\r\n");
+
+		HttpRequestParser parser = new HttpRequestParser(
+				new ByteArrayInputStream(request.toString().getBytes(StandardCharsets.ISO_8859_1)), 64 * 1024, MAX_BODY_SIZE);
+		assertEquals(431, statusOf(parser));
+	}
+
+	@Test
+	void testBodyTooLarge() {
+		assertEquals(413, statusOf(parser("POST / HTTP/1.1\r\nContent-Length: " + (MAX_BODY_SIZE + 1) + "\r\n\r\n")));
+	}
+
+	@Test
+	void testTransferEncodingNotImplemented() {
+		assertEquals(501, statusOf(parser("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n")));
+	}
+
+	@Test
+	void testDuplicateContentLength() throws IOException {
+		HttpRequestParser same = parser("POST / HTTP/1.1\r\nContent-Length: 3\r\ncontent-length: 3\r\n\r\nabc");
+		assertTrue(same.next());
+		assertEquals(3, same.getContentLength());
+
+		assertEquals(400, statusOf(parser("POST / HTTP/1.1\r\nContent-Length: 3\r\nContent-Length: 30\r\n\r\nabc")));
+	}
+
+	@Test
+	void testReadBody() throws IOException {
+		HttpRequestParser parser = parser("POST /form HTTP/1.1\r\nContent-Length: 11\r\n\r\nhello world");
+
+		assertTrue(parser.next());
+		assertEquals(11, parser.getContentLength());
+		assertEquals("hello world", new String(parser.readBody(), StandardCharsets.ISO_8859_1));
+		assertFalse(parser.hasPendingInput());
+		assertFalse(parser.next());
+	}
+
+	@Test
+	void testTruncatedBody() throws IOException {
+		HttpRequestParser parser = parser("POST / HTTP/1.1\r\nContent-Length: 10\r\n\r\nabc");
+
+		assertTrue(parser.next());
+		assertThrows(EOFException.class, () -> parser.readBody());
+	}
+
+	@Test
+	void testPipelinedRequests() throws IOException {
+		HttpRequestParser parser = parser("GET /first HTTP/1.1\r\n\r\n"
+				+ "POST /second HTTP/1.1\r\nContent-Length: 5\r\n\r\nhello"
+				+ "GET /third HTTP/1.1\r\n\r\n");
+
+		assertTrue(parser.next());
+		assertEquals("/first", parser.getPath());
+		assertTrue(parser.hasPendingInput());
+
+		assertTrue(parser.next());
+		assertEquals("/second", parser.getPath());
+		assertTrue(parser.hasPendingInput());
+
+		// the unread body of the second request is skipped
+		assertTrue(parser.next());
+		assertEquals("/third", parser.getPath());
+		assertFalse(parser.hasPendingInput());
+		assertFalse(parser.next());
+	}
+
+	@Test
+	void testPendingInputIgnoresOwnBody() throws IOException {
+		HttpRequestParser parser = parser("POST / HTTP/1.1\r\nContent-Length: 5\r\n\r\nhello");
+
+		assertTrue(parser.next());
+		assertFalse(parser.hasPendingInput());
+	}
+
+	@Test
+	void testSlowClient() throws IOException {
+		String request = "POST /a?x=1 HTTP/1.1\r\nHost: h\r\nContent-Length: 4\r\n\r\nbody"
+				+ "GET /b HTTP/1.1\r\nHost: h\r\n\r\n";
+		HttpRequestParser parser = new HttpRequestParser(
+				new TrickleInputStream(request.getBytes(StandardCharsets.ISO_8859_1), 3), MAX_HEAD_SIZE, MAX_BODY_SIZE);
+
+		assertTrue(parser.next());
+		assertEquals("/a", parser.getPath());
+		assertEquals("h", parser.getHeader("Host"));
+		assertEquals("body", new String(parser.readBody(), StandardCharsets.ISO_8859_1));
+
+		assertTrue(parser.next());
+		assertEquals("/b", parser.getPath());
+		assertFalse(parser.next());
+	}
+
+	@Test
+	void testParseParameters() {
+		byte[] data = "a=1&b=x+y%21&c&&d=e=f&%C5%A1=%C4%8D&=empty".getBytes(StandardCharsets.ISO_8859_1);
+		Map<String, String> params = new HashMap<>();
+
+		HttpRequestParser.parseParameters(data, 0, data.length, params);
+
+		assertEquals("1", params.get("a"));
+		assertEquals("x y!", params.get("b"));
+		assertEquals("", params.get("c"));
+		assertEquals("e=f", params.get("d"));
+		assertEquals("č", params.get("š"));
+		assertEquals("empty", params.get(""));
+		assertEquals(6, params.size());
+	}
+
+	@Test
+	void testParseParametersPart() {
+		byte[] data = "skip=1&a=%2&b=%zz".getBytes(StandardCharsets.ISO_8859_1);
+		Map<String, String> params = new HashMap<>();
+
+		HttpRequestParser.parseParameters(data, 7, data.length, params);
+
+		assertEquals(Map.of("a", "%2", "b", "%zz"), params);
+	}
+
+	@Test
+	void testParseMultipart() {
+		String body = "--XyZ\r\n"
+				+ "Content-Disposition: form-data; name=\"title\"\r\n"
+				+ "\r\n"
+				+ "My file\r\n"
+				+ "--XyZ\r\n"
+				+ "Content-Disposition: form-data; name=\"upload\"; filename=\"a.txt\"\r\n"
+				+ "Content-Type: text/plain\r\n"
+				+ "\r\n"
+				+ "line 1\r\nline 2\r\n"
+				+ "--XyZ--\r\n";
+		Map<String, String> params = new HashMap<>();
+		Map<String, UploadedFile> files = new HashMap<>();
+
+		HttpRequestParser.parseMultipart(body.getBytes(StandardCharsets.ISO_8859_1),
+				"multipart/form-data; boundary=XyZ", params, files);
+
+		assertEquals(Map.of("title", "My file"), params);
+		UploadedFile file = files.get("upload");
+		assertEquals("a.txt", file.getFileName());
+		assertEquals("text/plain", file.getMimeType());
+		assertEquals("line 1\r\nline 2", new String(file.getContent(), StandardCharsets.ISO_8859_1));
+	}
+
+	@Test
+	void testMalformedMultipart() {
+		Map<String, String> params = new HashMap<>();
+		Map<String, UploadedFile> files = new HashMap<>();
+		byte[] truncated = "--XyZ\r\nContent-Disposition: form-data; name=\"a\"\r\n\r\nvalue".getBytes(StandardCharsets.ISO_8859_1);
+		byte[] unnamed = "--XyZ\r\nContent-Disposition: form-data\r\n\r\nvalue\r\n--XyZ--".getBytes(StandardCharsets.ISO_8859_1);
+
+		assertEquals(400, assertThrows(HttpRequestException.class,
+				() -> HttpRequestParser.parseMultipart(truncated, "multipart/form-data", params, files)).getStatusCode());
+		assertThrows(HttpRequestException.class,
+				() -> HttpRequestParser.parseMultipart(truncated, "multipart/form-data; boundary=XyZ", params, files));
+		assertThrows(HttpRequestException.class,
+				() -> HttpRequestParser.parseMultipart(unnamed, "multipart/form-data; boundary=XyZ", params, files));
+	}
+
+}
@@ -1,8 +1,6 @@
 package hr.fer.zemris.java.hw14;
 
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.SQLException;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -21,6 +19,8 @@ import hr.fer.zemris.java.hw14.dao.sql.SQLConnectionProvider;
  * connection pool.
  * <p>
  * The filter inserts itself in between the request and servlet execution.
+ * A connection is taken from the pool only if the servlet actually uses
+ * the database, so requests served from memory do not occupy the pool.
  * 
  * @author Ivan Skorupan
  */
@@ -40,18 +40,11 @@ public class ConnectionSetterFilter implements Filter {
 			FilterChain chain) throws IOException, ServletException {
 		
 		DataSource ds = (DataSource)request.getServletContext().getAttribute("hr.fer.zemris.dbpool");
-		Connection con = null;
-		try {
-			con = ds.getConnection();
-		} catch (SQLException e) {
-			throw new IOException("Database is not available.", e);
-		}
-		SQLConnectionProvider.setConnection(con);
+		SQLConnectionProvider.setDataSource(ds);
 		try {
 			chain.doFilter(request, response);
 		} finally {
-			SQLConnectionProvider.setConnection(null);
-			try { con.close(); } catch(SQLException ignorable) {}
+			SQLConnectionProvider.release();
 		}
 	}
 	
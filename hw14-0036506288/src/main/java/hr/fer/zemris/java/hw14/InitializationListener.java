@@ -21,6 +21,8 @@ import javax.servlet.annotation.WebListener;
 import com.mchange.v2.c3p0.ComboPooledDataSource;
 import com.mchange.v2.c3p0.DataSources;
 
+import hr.fer.zemris.java.hw14.dao.DAOException;
+
 /**
  * This listener makes sure that upon the application start a databse connection
  * is established and a connection pool is created.
@@ -28,8 +30,9 @@ import com.mchange.v2.c3p0.DataSources;
  * Also, the listener tests if the database has necessary tables. If that is not
  * the case, the tables are created and filled with initial data.
  * <p>
- * Upon application exit, the connection pool is destroyed and all resources
- * appropriately released.
+ * A {@link VoteCounter} is created on top of the pool. Upon application exit,
+ * its remaining votes are written to the database, after which the connection
+ * pool is destroyed and all resources appropriately released.
  * 
  * @author Ivan Skorupan
  */
@@ -76,6 +79,7 @@ public class InitializationListener implements ServletContextListener {
 		}
 
 		sce.getServletContext().setAttribute("hr.fer.zemris.dbpool", cpds);
+		sce.getServletContext().setAttribute("hr.fer.zemris.votecounter", new VoteCounter(cpds));
 	}
 
 	/**
@@ -246,6 +250,15 @@ public class InitializationListener implements ServletContextListener {
 
 	@Override
 	public void contextDestroyed(ServletContextEvent sce) {
+		VoteCounter voteCounter = (VoteCounter)sce.getServletContext().getAttribute("hr.fer.zemris.votecounter");
+		if(voteCounter!=null) {
+			try {
+				voteCounter.shutdown();
+			} catch(DAOException e) {
+				e.printStackTrace();
+			}
+		}
+		
 		ComboPooledDataSource cpds = (ComboPooledDataSource)sce.getServletContext().getAttribute("hr.fer.zemris.dbpool");
 		if(cpds!=null) {
 			try {
@@ -0,0 +1,128 @@
+package hr.fer.zemris.java.hw14;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * An immutable snapshot of a poll's voting results.
+ * <p>
+ * Every snapshot is stamped with the version of the poll's votes it was made
+ * from. The version changes with every vote, so a snapshot whose version is
+ * still current is up to date and can be reused by all renderers, and its
+ * version can be handed to clients for caching.
+ *
+ * @author Ivan Skorupan
+ */
+public class PollResults {
+
+	/**
+	 * Id of the poll these results belong to.
+	 */
+	private long pollID;
+
+	/**
+	 * Version of the poll's votes these results were made from.
+	 */
+	private long version;
+
+	/**
+	 * Poll options sorted by descending number of votes.
+	 */
+	private List<PollOptionsEntry> options;
+
+	/**
+	 * Poll options with the largest number of votes.
+	 */
+	private List<PollOptionsEntry> winners;
+
+	/**
+	 * Renderings of these results mapped by their names.
+	 */
+	private Map<String, byte[]> renderings = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a new {@link PollResults} object.
+	 *
+	 * @param pollID - id of the poll
+	 * @param version - version of the poll's votes
+	 * @param options - poll options with their current numbers of votes, in any order
+	 */
+	public PollResults(long pollID, long version, List<PollOptionsEntry> options) {
+		this.pollID = pollID;
+		this.version = version;
+
+		List<PollOptionsEntry> sorted = new ArrayList<>(options);
+		sorted.sort((poe1, poe2) -> Long.compare(poe2.getVotesCount(), poe1.getVotesCount()));
+		this.options = Collections.unmodifiableList(sorted);
+
+		List<PollOptionsEntry> winners = new ArrayList<>();
+		for(PollOptionsEntry entry : sorted) {
+			if(entry.getVotesCount() == sorted.get(0).getVotesCount()) {
+				winners.add(entry);
+			}
+		}
+		this.winners = Collections.unmodifiableList(winners);
+	}
+
+	/**
+	 * Getter for the id of the poll these results belong to.
+	 *
+	 * @return poll id
+	 */
+	public long getPollID() {
+		return pollID;
+	}
+
+	/**
+	 * Getter for the version of the poll's votes these results were made from.
+	 *
+	 * @return version of the results
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns a tag which identifies these results, usable as an HTTP entity tag.
+	 *
+	 * @return entity tag of these results
+	 */
+	public String getETag() {
+		return "\"" + pollID + "-" + version + "\"";
+	}
+
+	/**
+	 * Getter for poll options sorted by descending number of votes.
+	 *
+	 * @return unmodifiable list of poll options
+	 */
+	public List<PollOptionsEntry> getOptions() {
+		return options;
+	}
+
+	/**
+	 * Getter for poll options with the largest number of votes.
+	 *
+	 * @return unmodifiable list of winning poll options
+	 */
+	public List<PollOptionsEntry> getWinners() {
+		return winners;
+	}
+
+	/**
+	 * Returns a rendering of these results, rendering them only the first time
+	 * a rendering with the given name is asked for.
+	 *
+	 * @param name - name of the rendering, such as its format
+	 * @param renderer - function rendering these results
+	 * @return the rendering of these results
+	 */
+	public byte[] getRendering(String name, Function<PollResults, byte[]> renderer) {
+		return renderings.computeIfAbsent(name, n -> renderer.apply(this));
+	}
+
+}
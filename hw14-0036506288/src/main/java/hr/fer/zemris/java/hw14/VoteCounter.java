@@ -0,0 +1,310 @@
+package hr.fer.zemris.java.hw14;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import hr.fer.zemris.java.hw14.dao.DAOException;
+import hr.fer.zemris.java.hw14.dao.DAOProvider;
+import hr.fer.zemris.java.hw14.dao.sql.SQLConnectionProvider;
+
+/**
+ * Counts votes in memory and writes them to the database in batches.
+ * <p>
+ * Options of a poll are loaded from the database the first time the poll is
+ * used. From then on every vote only increments atomic counters, so concurrent
+ * votes never overwrite each other and voting does not touch the database at all.
+ * Votes not yet written are periodically added to the stored counts with a single
+ * batch of relative updates. Flushing also starts early once enough votes pile up.
+ * <p>
+ * Results are served from a {@link PollResults} snapshot which is rebuilt from the
+ * counters only after the poll received new votes.
+ * <p>
+ * The counter assumes it is the only one changing the number of votes in the
+ * database while the application runs.
+ *
+ * @author Ivan Skorupan
+ */
+public class VoteCounter {
+
+	/**
+	 * Time between two periodic flushes, in milliseconds.
+	 */
+	private static final long FLUSH_INTERVAL = 2000;
+
+	/**
+	 * Number of unwritten votes which triggers a flush before the periodic one.
+	 */
+	private static final long FLUSH_THRESHOLD = 500;
+
+	/**
+	 * Models vote counters of one poll option.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	private static class OptionCounter {
+
+		/**
+		 * Poll option as it was loaded from the database.
+		 */
+		private PollOptionsEntry option;
+
+		/**
+		 * Total number of votes for the option.
+		 */
+		private AtomicLong total;
+
+		/**
+		 * Number of votes not yet written to the database.
+		 */
+		private AtomicLong pending = new AtomicLong();
+
+		/**
+		 * Constructs a new {@link OptionCounter} object.
+		 *
+		 * @param option - poll option loaded from the database
+		 */
+		private OptionCounter(PollOptionsEntry option) {
+			this.option = option;
+			this.total = new AtomicLong(option.getVotesCount());
+		}
+
+	}
+
+	/**
+	 * Models vote counters of one poll.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	private static class PollCounter {
+
+		/**
+		 * Counters of the poll's options mapped by option ids.
+		 */
+		private Map<Long, OptionCounter> options = new HashMap<>();
+
+		/**
+		 * Version of the poll's votes, incremented after every vote.
+		 */
+		private AtomicLong version = new AtomicLong();
+
+		/**
+		 * The last results snapshot made for this poll.
+		 */
+		private volatile PollResults snapshot;
+
+	}
+
+	/**
+	 * Data source used for writing votes to the database.
+	 */
+	private DataSource dataSource;
+
+	/**
+	 * Counters of loaded polls mapped by poll ids.
+	 */
+	private Map<Long, PollCounter> polls = new ConcurrentHashMap<>();
+
+	/**
+	 * Counters of options of all loaded polls mapped by option ids.
+	 */
+	private Map<Long, OptionCounter> options = new ConcurrentHashMap<>();
+
+	/**
+	 * Number of votes not yet written to the database.
+	 */
+	private AtomicLong pendingVotes = new AtomicLong();
+
+	/**
+	 * Executor running flushes in the background.
+	 */
+	private ScheduledExecutorService flusher;
+
+	/**
+	 * Constructs a new {@link VoteCounter} object and starts periodic flushing.
+	 *
+	 * @param dataSource - data source used for writing votes to the database
+	 * @throws NullPointerException if <code>dataSource</code> is <code>null</code>
+	 */
+	public VoteCounter(DataSource dataSource) {
+		this.dataSource = Objects.requireNonNull(dataSource);
+
+		flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "vote-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Adds one vote to the given option of the given poll.
+	 * <p>
+	 * The calling thread must be able to get a database connection through
+	 * {@link SQLConnectionProvider} in case the poll is not loaded yet.
+	 *
+	 * @param pollID - id of the poll
+	 * @param optionID - id of the option to vote for
+	 * @return <code>true</code> if the vote was counted, <code>false</code> if the
+	 *         poll has no option with the given id
+	 * @throws DAOException if the poll could not be loaded
+	 */
+	public boolean vote(long pollID, long optionID) {
+		PollCounter poll = getPoll(pollID);
+		OptionCounter option = poll == null ? null : poll.options.get(optionID);
+		if(option == null) {
+			return false;
+		}
+
+		option.total.incrementAndGet();
+		option.pending.incrementAndGet();
+		poll.version.incrementAndGet();
+
+		if(pendingVotes.incrementAndGet() == FLUSH_THRESHOLD) {
+			flusher.execute(this::flushQuietly);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns current results of the given poll.
+	 * <p>
+	 * The calling thread must be able to get a database connection through
+	 * {@link SQLConnectionProvider} in case the poll is not loaded yet.
+	 *
+	 * @param pollID - id of the poll
+	 * @return results of the poll, empty if the poll has no options
+	 * @throws DAOException if the poll could not be loaded
+	 */
+	public PollResults getResults(long pollID) {
+		PollCounter poll = getPoll(pollID);
+		if(poll == null) {
+			return new PollResults(pollID, 0, new ArrayList<>());
+		}
+
+		// the version is read before the counters, so a snapshot never claims newer votes than it has
+		long version = poll.version.get();
+		PollResults snapshot = poll.snapshot;
+		if(snapshot != null && snapshot.getVersion() == version) {
+			return snapshot;
+		}
+
+		List<PollOptionsEntry> entries = new ArrayList<>();
+		for(OptionCounter counter : poll.options.values()) {
+			PollOptionsEntry entry = new PollOptionsEntry();
+			entry.setId(counter.option.getId());
+			entry.setOptionTitle(counter.option.getOptionTitle());
+			entry.setOptionLink(counter.option.getOptionLink());
+			entry.setPollID(counter.option.getPollID());
+			entry.setVotesCount(counter.total.get());
+			entries.add(entry);
+		}
+		entries.sort((poe1, poe2) -> Long.compare(poe1.getId(), poe2.getId()));
+
+		snapshot = new PollResults(pollID, version, entries);
+		poll.snapshot = snapshot;
+		return snapshot;
+	}
+
+	/**
+	 * Writes all votes counted so far to the database.
+	 * <p>
+	 * If writing fails, the votes stay in memory and are written by a later flush.
+	 *
+	 * @throws DAOException if the votes could not be written
+	 */
+	public synchronized void flush() {
+		Map<Long, Long> votes = new HashMap<>();
+		long drained = 0;
+		for(Map.Entry<Long, OptionCounter> entry : options.entrySet()) {
+			long count = entry.getValue().pending.getAndSet(0);
+			if(count > 0) {
+				votes.put(entry.getKey(), count);
+				drained += count;
+			}
+		}
+
+		if(votes.isEmpty()) {
+			return;
+		}
+
+		pendingVotes.addAndGet(-drained);
+		SQLConnectionProvider.setDataSource(dataSource);
+		try {
+			DAOProvider.getDao().addVotesForOptions(votes);
+		} catch(DAOException e) {
+			for(Map.Entry<Long, Long> entry : votes.entrySet()) {
+				options.get(entry.getKey()).pending.addAndGet(entry.getValue());
+			}
+			pendingVotes.addAndGet(drained);
+			throw e;
+		} finally {
+			SQLConnectionProvider.release();
+		}
+	}
+
+	/**
+	 * Stops periodic flushing and writes the remaining votes to the database.
+	 *
+	 * @throws DAOException if the remaining votes could not be written
+	 */
+	public void shutdown() {
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+		} catch(InterruptedException ignorable) {
+		}
+		flush();
+	}
+
+	/**
+	 * Flushes votes, reporting failures instead of throwing them, so that
+	 * periodic flushing keeps running.
+	 */
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch(DAOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns counters of the given poll, loading them from the database if needed.
+	 *
+	 * @param pollID - id of the poll
+	 * @return counters of the poll or <code>null</code> if the poll has no options
+	 */
+	private PollCounter getPoll(long pollID) {
+		PollCounter poll = polls.get(pollID);
+		if(poll != null) {
+			return poll;
+		}
+
+		List<PollOptionsEntry> entries = DAOProvider.getDao().fetchPollOptionsByPollID(pollID);
+		if(entries.isEmpty()) {
+			return null;
+		}
+
+		return polls.computeIfAbsent(pollID, id -> {
+			PollCounter loaded = new PollCounter();
+			for(PollOptionsEntry entry : entries) {
+				OptionCounter counter = new OptionCounter(entry);
+				loaded.options.put(entry.getId(), counter);
+				options.put(entry.getId(), counter);
+			}
+			return loaded;
+		});
+	}
+
+}
@@ -1,6 +1,7 @@
 package hr.fer.zemris.java.hw14.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import hr.fer.zemris.java.hw14.PollEntry;
 import hr.fer.zemris.java.hw14.PollOptionsEntry;
@@ -57,4 +58,15 @@ public interface DAO {
 	 */
 	public void setVotesCountForOption(long id, long votesCount);
 	
-}
\ No newline at end of file
+	/**
+	 * This method adds the given numbers of votes to the given poll options.
+	 * <p>
+	 * The votes are added on top of whatever is currently stored, so concurrent
+	 * callers never overwrite each other's votes. Either all of the given votes
+	 * are stored or none of them are.
+	 * 
+	 * @param votes - a map of poll option ids to number of votes to add to them
+	 */
+	public void addVotesForOptions(Map<Long, Long> votes);
+	
+}
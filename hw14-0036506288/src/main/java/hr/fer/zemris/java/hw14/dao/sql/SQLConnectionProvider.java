@@ -1,12 +1,21 @@
 package hr.fer.zemris.java.hw14.dao.sql;
 
 import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import hr.fer.zemris.java.hw14.dao.DAOException;
 
 /**
  * Storage of database connections into a {@link ThreadLocal} object. ThreadLocal
  * is actually a map whose keys are id's of threads that are performing operations
  * upon the map.
- * 
+ * <p>
+ * Instead of a connection, a thread may be given a {@link DataSource}. A connection
+ * is then borrowed from it only when the thread first asks for one, so requests that
+ * never touch the database never occupy a pooled connection.
+ *
  * @author Ivan Skorupan
  */
 public class SQLConnectionProvider {
@@ -15,10 +24,15 @@ public class SQLConnectionProvider {
 	 * A {@link ThreadLocal} object for storing database connections.
 	 */
 	private static ThreadLocal<Connection> connections = new ThreadLocal<>();
-	
+
+	/**
+	 * A {@link ThreadLocal} object for storing data sources connections are borrowed from.
+	 */
+	private static ThreadLocal<DataSource> dataSources = new ThreadLocal<>();
+
 	/**
 	 * Set the connection for current thread (or delete an entry from the map if argument is <code>null</code>).
-	 * 
+	 *
 	 * @param con - database connection
 	 */
 	public static void setConnection(Connection con) {
@@ -28,14 +42,58 @@ public class SQLConnectionProvider {
 			connections.set(con);
 		}
 	}
-	
+
+	/**
+	 * Set the data source the current thread borrows its connection from when it first
+	 * needs one (or delete an entry from the map if argument is <code>null</code>).
+	 *
+	 * @param ds - data source to borrow a connection from
+	 */
+	public static void setDataSource(DataSource ds) {
+		if(ds==null) {
+			dataSources.remove();
+		} else {
+			dataSources.set(ds);
+		}
+	}
+
 	/**
 	 * Fetch a connection that current thread (the caller) may use.
-	 * 
+	 * <p>
+	 * If the thread has no connection yet, but has a data source, a connection is
+	 * borrowed from the data source.
+	 *
 	 * @return a database connection for current thread
+	 * @throws DAOException if a connection could not be borrowed from the data source
 	 */
 	public static Connection getConnection() {
-		return connections.get();
+		Connection con = connections.get();
+		DataSource ds = dataSources.get();
+
+		if(con==null && ds!=null) {
+			try {
+				con = ds.getConnection();
+			} catch(SQLException e) {
+				throw new DAOException("Database is not available.", e);
+			}
+			connections.set(con);
+		}
+
+		return con;
+	}
+
+	/**
+	 * Closes the connection borrowed by the current thread, if any, and removes
+	 * both the connection and the data source of the current thread.
+	 */
+	public static void release() {
+		Connection con = connections.get();
+		connections.remove();
+		dataSources.remove();
+
+		if(con!=null) {
+			try { con.close(); } catch(SQLException ignorable) {}
+		}
 	}
-	
-}
\ No newline at end of file
+
+}
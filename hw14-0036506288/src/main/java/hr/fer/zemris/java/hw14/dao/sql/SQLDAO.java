@@ -5,6 +5,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import hr.fer.zemris.java.hw14.PollEntry;
 import hr.fer.zemris.java.hw14.PollOptionsEntry;
@@ -167,5 +168,36 @@ public class SQLDAO implements DAO {
 			throw new DAOException("Failure while fetching the list of poll entries!", e);
 		}
 	}
+
+	@Override
+	public void addVotesForOptions(Map<Long, Long> votes) {
+		Connection con = SQLConnectionProvider.getConnection();
+		PreparedStatement pst = null;
+		try {
+			boolean autoCommit = con.getAutoCommit();
+			con.setAutoCommit(false);
+			try {
+				pst = con.prepareStatement("UPDATE polloptions SET votesCount=votesCount+? WHERE id=?");
+				try {
+					for(Map.Entry<Long, Long> entry : votes.entrySet()) {
+						pst.setLong(1, entry.getValue());
+						pst.setLong(2, entry.getKey());
+						pst.addBatch();
+					}
+					pst.executeBatch();
+					con.commit();
+				} finally {
+					try { pst.close(); } catch(Exception ignorable) {}
+				}
+			} catch(Exception e) {
+				try { con.rollback(); } catch(Exception ignorable) {}
+				throw e;
+			} finally {
+				try { con.setAutoCommit(autoCommit); } catch(Exception ignorable) {}
+			}
+		} catch(Exception e) {
+			throw new DAOException("Failure while adding votes to poll options!", e);
+		}
+	}
 	
-}
\ No newline at end of file
+}
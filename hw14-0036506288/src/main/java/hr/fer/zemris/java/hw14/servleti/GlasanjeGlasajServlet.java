@@ -8,13 +8,13 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import hr.fer.zemris.java.hw14.PollOptionsEntry;
-import hr.fer.zemris.java.hw14.dao.DAOProvider;
+import hr.fer.zemris.java.hw14.VoteCounter;
 
 /**
  * This servlet processes a vote request sent by the client. The processing is
- * simply done by updating the appropriate number of votes entry in the
- * appropriate file and then further action is delegated to a .jsp file.
+ * simply done by counting the vote in the application's {@link VoteCounter},
+ * which writes it to the database later, and then further action is delegated
+ * to the results servlet.
  * 
  * @author Ivan Skorupan
  */
@@ -27,9 +27,13 @@ public class GlasanjeGlasajServlet extends HttpServlet {
 	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 		long pollID = Long.parseLong(req.getParameter("id"));
 		long optionID = Long.parseLong(req.getParameter("optionID"));
-		PollOptionsEntry pollOption = DAOProvider.getDao().fetchPollOptionByID(optionID);
-		long votesCount = pollOption.getVotesCount();
-		DAOProvider.getDao().setVotesCountForOption(optionID, votesCount + 1);
+		VoteCounter voteCounter = (VoteCounter)req.getServletContext().getAttribute("hr.fer.zemris.votecounter");
+		
+		if(!voteCounter.vote(pollID, optionID)) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Poll has no such option.");
+			return;
+		}
+		
 		resp.sendRedirect(resp.encodeRedirectURL(req.getContextPath() + "/servleti/glasanje-rezultati?id=" + pollID));
 	}
 	
@@ -1,7 +1,8 @@
 package hr.fer.zemris.java.hw14.servleti;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import javax.servlet.ServletException;
@@ -18,10 +19,14 @@ import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.data.category.DefaultCategoryDataset;
 
 import hr.fer.zemris.java.hw14.PollOptionsEntry;
-import hr.fer.zemris.java.hw14.dao.DAOProvider;
+import hr.fer.zemris.java.hw14.PollResults;
+import hr.fer.zemris.java.hw14.VoteCounter;
 
 /**
  * This servlet creates and writes a bar chart showing voting results to the user.
+ * <p>
+ * The chart is rendered once per {@link PollResults} snapshot and tagged with the
+ * snapshot's version, so clients which already have it get a "not modified" response.
  * 
  * @author Ivan Skorupan
  */
@@ -33,22 +38,55 @@ public class VotingGraphicsServlet extends HttpServlet {
 	@Override
 	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 		long pollID = Long.parseLong(req.getParameter("id"));
-		List<PollOptionsEntry> pollOptions = DAOProvider.getDao().fetchPollOptionsByPollID(pollID);
-		pollOptions.sort((poe1, poe2) -> Long.compare(poe2.getVotesCount(), poe1.getVotesCount()));
+		VoteCounter voteCounter = (VoteCounter)req.getServletContext().getAttribute("hr.fer.zemris.votecounter");
+		PollResults results = voteCounter.getResults(pollID);
+		
+		resp.setHeader("Cache-Control", "no-cache");
+		resp.setHeader("ETag", results.getETag());
+		if(results.getETag().equals(req.getHeader("If-None-Match"))) {
+			resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		
+		byte[] png;
+		try {
+			png = results.getRendering("png", r -> renderChart(r.getOptions()));
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
 		
 		resp.setContentType("image/png");
-		OutputStream outputStream = resp.getOutputStream();
+		resp.setContentLength(png.length);
+		resp.getOutputStream().write(png);
+	}
+	
+	/**
+	 * Renders the bar chart of the given poll options as a PNG image.
+	 * 
+	 * @param pollOptions - poll options to show in the chart
+	 * @return bytes of the PNG image
+	 * @throws UncheckedIOException if the chart could not be encoded
+	 */
+	private byte[] renderChart(List<PollOptionsEntry> pollOptions) {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 		
 		JFreeChart chart = getChart(pollOptions);
 		int width = 640;
 		int height = 480;
-		ChartUtils.writeChartAsPNG(outputStream, chart, width, height);
+		try {
+			ChartUtils.writeChartAsPNG(outputStream, chart, width, height);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		return outputStream.toByteArray();
 	}
 	
 	/**
 	 * Helper method which generates the necessary chart and fills it with data and
 	 * also sets some design properties of the chart.
 	 * 
+	 * @param pollOptions - poll options to show in the chart
 	 * @return the bar chart as a {@link JFreeChart} object
 	 */
 	private JFreeChart getChart(List<PollOptionsEntry> pollOptions) {
@@ -1,6 +1,8 @@
 package hr.fer.zemris.java.hw14.servleti;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import javax.servlet.ServletException;
@@ -21,11 +23,15 @@ import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 
 import hr.fer.zemris.java.hw14.PollOptionsEntry;
-import hr.fer.zemris.java.hw14.dao.DAOProvider;
+import hr.fer.zemris.java.hw14.PollResults;
+import hr.fer.zemris.java.hw14.VoteCounter;
 
 /**
  * This servlet generates and writes to client an Excel file containing
  * the voting results.
+ * <p>
+ * The file is rendered once per {@link PollResults} snapshot and tagged with the
+ * snapshot's version, so clients which already have it get a "not modified" response.
  * 
  * @author Ivan Skorupan
  */
@@ -34,21 +40,42 @@ public class VotingXlsServlet extends HttpServlet {
 	
 	private static final long serialVersionUID = 1L;
 	
-	/**
-	 * Cell style that will be used when creating new cells.
-	 */
-	private HSSFCellStyle style;
-	
 	@Override
 	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 		long pollID = Long.parseLong(req.getParameter("id"));
-		List<PollOptionsEntry> pollOptions = DAOProvider.getDao().fetchPollOptionsByPollID(pollID);
-		pollOptions.sort((poe1, poe2) -> Long.compare(poe2.getVotesCount(), poe1.getVotesCount()));
+		VoteCounter voteCounter = (VoteCounter)req.getServletContext().getAttribute("hr.fer.zemris.votecounter");
+		PollResults results = voteCounter.getResults(pollID);
+		
+		resp.setHeader("Cache-Control", "no-cache");
+		resp.setHeader("ETag", results.getETag());
+		if(results.getETag().equals(req.getHeader("If-None-Match"))) {
+			resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		
+		byte[] xls;
+		try {
+			xls = results.getRendering("xls", r -> renderWorkbook(r.getOptions()));
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
 		
 		resp.setContentType("application/ms-excel");
 		resp.setHeader("Content-Disposition", "attachment; filename=rezultati-glasanja.xls");
-		
+		resp.setContentLength(xls.length);
+		resp.getOutputStream().write(xls);
+	}
+	
+	/**
+	 * Renders an Excel workbook listing the given poll options and their votes.
+	 * 
+	 * @param pollOptions - poll options to list in the workbook
+	 * @return bytes of the workbook
+	 * @throws UncheckedIOException if the workbook could not be written
+	 */
+	private byte[] renderWorkbook(List<PollOptionsEntry> pollOptions) {
 		HSSFWorkbook wb = createWorkbook();
+		HSSFCellStyle style = createCellStyle(wb);
 		HSSFRow row = wb.getSheetAt(0).createRow(0);
 		HSSFCell bandNameCell = row.createCell(0);
 		HSSFCell votesCell = row.createCell(1);
@@ -68,8 +95,15 @@ public class VotingXlsServlet extends HttpServlet {
 			votes.setCellValue(entry.getVotesCount());
 		}
 		
-		wb.write(resp.getOutputStream());
-		wb.close();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try {
+			wb.write(outputStream);
+			wb.close();
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		return outputStream.toByteArray();
 	}
 	
 	/**
@@ -83,7 +117,17 @@ public class VotingXlsServlet extends HttpServlet {
 		sheet.setColumnWidth(0, 5120);
 		sheet.setColumnWidth(1, 1792);
 		
-		style = wb.createCellStyle();
+		return wb;
+	}
+	
+	/**
+	 * Creates the cell style used for all cells of the given workbook.
+	 * 
+	 * @param wb - workbook the style belongs to
+	 * @return a new cell style as a {@link HSSFCellStyle} object
+	 */
+	private HSSFCellStyle createCellStyle(HSSFWorkbook wb) {
+		HSSFCellStyle style = wb.createCellStyle();
 		style.setAlignment(HorizontalAlignment.CENTER);
 		style.setVerticalAlignment(VerticalAlignment.CENTER);
 		style.setFillForegroundColor(HSSFColor.HSSFColorPredefined.GREY_25_PERCENT.getIndex());
@@ -93,7 +137,7 @@ public class VotingXlsServlet extends HttpServlet {
 		style.setBorderLeft(BorderStyle.THIN);
 		style.setBorderRight(BorderStyle.THIN);
 		
-		return wb;
+		return style;
 	}
 	
 }
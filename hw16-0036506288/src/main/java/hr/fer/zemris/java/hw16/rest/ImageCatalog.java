@@ -0,0 +1,336 @@
+package hr.fer.zemris.java.hw16.rest;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.ServletContext;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.Response.Status;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * An in-memory catalog of gallery images, loaded from the image descriptor file.
+ * <p>
+ * The catalog keeps an index from every tag to the images having it, and all JSON
+ * payloads the REST API can return are built once, when the descriptor is loaded.
+ * Answering a request is therefore a single map lookup, independent of the number
+ * of images and without any disk access.
+ * <p>
+ * The descriptor's directory is watched, and whenever the descriptor changes the
+ * catalog is loaded again and swapped in as a whole. If loading fails, the previous
+ * catalog stays in use.
+ *
+ * @author Ivan Skorupan
+ */
+public class ImageCatalog {
+
+	/**
+	 * Name of the servlet context attribute under which the catalog is stored.
+	 */
+	private static final String CONTEXT_ATTRIBUTE = "hr.fer.zemris.catalog";
+
+	/**
+	 * Models a JSON payload together with its entity tag.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	public static class Payload {
+
+		/**
+		 * The JSON text.
+		 */
+		private String json;
+
+		/**
+		 * Entity tag of the JSON text, without quotes.
+		 */
+		private String eTag;
+
+		/**
+		 * Constructs a new {@link Payload} object.
+		 *
+		 * @param json - JSON object to send
+		 * @param version - version of the catalog the object was built from
+		 */
+		private Payload(JSONObject json, long version) {
+			this.json = json.toString();
+			this.eTag = Long.toHexString(version) + "-" + Integer.toHexString(this.json.hashCode());
+		}
+
+		/**
+		 * Getter for the JSON text.
+		 *
+		 * @return JSON text
+		 */
+		public String getJson() {
+			return json;
+		}
+
+		/**
+		 * Getter for the entity tag of the JSON text.
+		 *
+		 * @return entity tag without quotes
+		 */
+		public String getETag() {
+			return eTag;
+		}
+
+		/**
+		 * Builds a response sending this payload, or a "not modified" response
+		 * if the client's copy of this payload is still current.
+		 *
+		 * @param request - the request being answered
+		 * @return a {@link Response} object
+		 */
+		public Response toResponse(Request request) {
+			EntityTag tag = new EntityTag(eTag);
+			ResponseBuilder builder = request.evaluatePreconditions(tag);
+			if(builder == null) {
+				builder = Response.status(Status.OK).entity(json);
+			}
+			return builder.tag(tag).build();
+		}
+
+	}
+
+	/**
+	 * Models all payloads of one loaded version of the descriptor.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	private static class Snapshot {
+
+		/**
+		 * Payload listing all distinct tags.
+		 */
+		private Payload tagList;
+
+		/**
+		 * Payloads listing images of a tag, mapped by tags.
+		 */
+		private Map<String, Payload> imageLists = new HashMap<>();
+
+		/**
+		 * Payloads describing an image, mapped by image names.
+		 */
+		private Map<String, Payload> photoInfos = new HashMap<>();
+
+		/**
+		 * Payload listing no images.
+		 */
+		private Payload emptyImageList;
+
+		/**
+		 * Payload describing an unknown image.
+		 */
+		private Payload emptyPhotoInfo;
+
+	}
+
+	/**
+	 * Path of the image descriptor file.
+	 */
+	private Path descriptor;
+
+	/**
+	 * Currently used version of the catalog.
+	 */
+	private volatile Snapshot snapshot;
+
+	/**
+	 * Constructs a new {@link ImageCatalog} object and loads the descriptor.
+	 *
+	 * @param descriptor - path of the image descriptor file
+	 * @throws IOException if the descriptor could not be read
+	 */
+	public ImageCatalog(Path descriptor) throws IOException {
+		this.descriptor = descriptor;
+		this.snapshot = load();
+	}
+
+	/**
+	 * Returns the image catalog of the given web application, creating it and
+	 * starting to watch its descriptor if it does not exist yet.
+	 *
+	 * @param context - servlet context of the web application
+	 * @return image catalog of the web application
+	 * @throws IOException if the catalog could not be created
+	 */
+	public static synchronized ImageCatalog forContext(ServletContext context) throws IOException {
+		ImageCatalog catalog = (ImageCatalog)context.getAttribute(CONTEXT_ATTRIBUTE);
+
+		if(catalog == null) {
+			catalog = new ImageCatalog(Paths.get(context.getRealPath("/WEB-INF/opisnik.txt")));
+			catalog.watch();
+			context.setAttribute(CONTEXT_ATTRIBUTE, catalog);
+		}
+
+		return catalog;
+	}
+
+	/**
+	 * Returns the payload listing all distinct tags, sorted by Croatian collation.
+	 *
+	 * @return payload listing all tags
+	 */
+	public Payload getTagList() {
+		return snapshot.tagList;
+	}
+
+	/**
+	 * Returns the payload listing names of all images having the given tag.
+	 *
+	 * @param tag - tag to list images of
+	 * @return payload listing images of the tag
+	 */
+	public Payload getImageList(String tag) {
+		Snapshot current = snapshot;
+		Payload payload = tag == null ? null : current.imageLists.get(tag.trim());
+		return payload == null ? current.emptyImageList : payload;
+	}
+
+	/**
+	 * Returns the payload describing the image with the given name.
+	 *
+	 * @param imageName - name of the image
+	 * @return payload with the image's description and tags
+	 */
+	public Payload getPhotoInfo(String imageName) {
+		Snapshot current = snapshot;
+		Payload payload = imageName == null ? null : current.photoInfos.get(imageName);
+		return payload == null ? current.emptyPhotoInfo : payload;
+	}
+
+	/**
+	 * Loads the descriptor again and starts using the new version of the catalog.
+	 *
+	 * @throws IOException if the descriptor could not be read
+	 */
+	public void reload() throws IOException {
+		snapshot = load();
+	}
+
+	/**
+	 * Reads the descriptor and builds all payloads from it.
+	 * <p>
+	 * The descriptor consists of four-line records: image name, description,
+	 * comma separated tags and an empty line.
+	 *
+	 * @return the loaded version of the catalog
+	 * @throws IOException if the descriptor could not be read
+	 */
+	private Snapshot load() throws IOException {
+		long version = Files.getLastModifiedTime(descriptor).toMillis();
+		List<String> descriptorLines = Files.readAllLines(descriptor);
+
+		Snapshot loaded = new Snapshot();
+		Map<String, List<String>> imagesByTag = new HashMap<>();
+
+		for(int i = 0; i + 2 < descriptorLines.size(); i += 4) {
+			String name = descriptorLines.get(i).trim();
+			String description = descriptorLines.get(i + 1);
+			String tags = descriptorLines.get(i + 2);
+
+			Set<String> imageTags = new LinkedHashSet<>();
+			for(String tag : tags.split(",")) {
+				if(!tag.isBlank()) {
+					imageTags.add(tag.trim());
+				}
+			}
+			for(String tag : imageTags) {
+				imagesByTag.computeIfAbsent(tag, t -> new ArrayList<>()).add(name);
+			}
+
+			JSONObject info = new JSONObject();
+			info.put("desc", description);
+			info.put("tags", tags);
+			loaded.photoInfos.put(name, new Payload(info, version));
+		}
+
+		for(Map.Entry<String, List<String>> entry : imagesByTag.entrySet()) {
+			loaded.imageLists.put(entry.getKey(), new Payload(imageList(entry.getValue()), version));
+		}
+
+		List<String> tagsList = new ArrayList<>(imagesByTag.keySet());
+		tagsList.sort(Collator.getInstance(Locale.forLanguageTag("hr")));
+		JSONObject tagList = new JSONObject();
+		tagList.put("tags", new JSONArray(tagsList));
+		loaded.tagList = new Payload(tagList, version);
+
+		loaded.emptyImageList = new Payload(imageList(Collections.emptyList()), version);
+		loaded.emptyPhotoInfo = new Payload(new JSONObject(), version);
+
+		return loaded;
+	}
+
+	/**
+	 * Builds a JSON object listing the given image names.
+	 *
+	 * @param images - image names to list
+	 * @return JSON object with an array of image names
+	 */
+	private static JSONObject imageList(List<String> images) {
+		JSONObject result = new JSONObject();
+		result.put("images", new JSONArray(images));
+		return result;
+	}
+
+	/**
+	 * Starts a background thread which reloads the catalog whenever the
+	 * descriptor changes.
+	 *
+	 * @throws IOException if the descriptor's directory could not be watched
+	 */
+	private void watch() throws IOException {
+		WatchService watcher = descriptor.getFileSystem().newWatchService();
+		descriptor.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+		Thread thread = new Thread(() -> {
+			try {
+				while(true) {
+					WatchKey key = watcher.take();
+					boolean changed = false;
+					for(WatchEvent<?> event : key.pollEvents()) {
+						if(descriptor.getFileName().equals(event.context())) {
+							changed = true;
+						}
+					}
+					key.reset();
+
+					if(changed) {
+						try {
+							reload();
+						} catch(IOException e) {
+							e.printStackTrace();
+						}
+					}
+				}
+			} catch(InterruptedException | ClosedWatchServiceException ignorable) {
+			}
+		}, "catalog-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+}
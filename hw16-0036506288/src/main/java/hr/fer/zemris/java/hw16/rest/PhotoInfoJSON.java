@@ -1,9 +1,6 @@
 package hr.fer.zemris.java.hw16.rest;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.List;
 
 import javax.servlet.ServletContext;
 import javax.ws.rs.GET;
@@ -11,10 +8,8 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
-import javax.ws.rs.core.Response.Status;
-
-import org.json.JSONObject;
 
 /**
  * This class uses RESTful API in order to fetch information
@@ -34,45 +29,29 @@ public class PhotoInfoJSON {
 	@Context
 	private ServletContext context;
 	
+	/**
+	 * The request being served, used for checking if the client's copy is current.
+	 */
+	@Context
+	private Request request;
+	
 	/**
 	 * This method takes a query parameter which represents a photo name
 	 * and then based on that parameter fetches information (description
-	 * and tags) about the given photo.
+	 * and tags) about the given photo from the application's {@link ImageCatalog}.
 	 * <p>
-	 * Afterwards, the collected information is put in a JSON object and
-	 * returned inside a {@link Response} object.
+	 * The catalog holds the information as a ready JSON object, which is
+	 * returned inside a {@link Response} object together with its entity tag.
 	 * 
 	 * @param photoName - name of the photo whose information to fetch
 	 * @return a {@link Response} object that contains a JSON object
 	 * containing our result (photo information)
+	 * @throws IOException if the catalog could not be loaded
 	 */
 	@GET
 	@Produces("application/json")
-	public Response getPhotoInfo(@QueryParam("photoName") String photoName) {
-		String descriptorPath = context.getRealPath("/WEB-INF/opisnik.txt");
-
-		List<String> descriptorLines = null;
-		try {
-			descriptorLines = Files.readAllLines(Paths.get(descriptorPath));
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		
-		String description = null;
-		String tags = null;
-		for(int i = 0; i < descriptorLines.size(); i += 4) {
-			if(photoName.equals(descriptorLines.get(i))) {
-				description = descriptorLines.get(i + 1);
-				tags = descriptorLines.get(i + 2);
-				break;
-			}
-		}
-		
-		JSONObject result = new JSONObject();
-		result.put("desc", description);
-		result.put("tags", tags);
-		
-		return Response.status(Status.OK).entity(result.toString()).build();
+	public Response getPhotoInfo(@QueryParam("photoName") String photoName) throws IOException {
+		return ImageCatalog.forContext(context).getPhotoInfo(photoName).toResponse(request);
 	}
 	
 }
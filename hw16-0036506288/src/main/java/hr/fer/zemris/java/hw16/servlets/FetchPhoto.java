@@ -1,9 +1,6 @@
 package hr.fer.zemris.java.hw16.servlets;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -18,6 +15,9 @@ import javax.servlet.http.HttpServletResponse;
 /**
  * This servlet provides the client with a big version of a photo
  * given by its name.
+ * <p>
+ * The photo is sent straight from its file, and clients which already
+ * have its current version get a "not modified" response instead.
  * 
  * @author Ivan Skorupan
  */
@@ -31,22 +31,25 @@ public class FetchPhoto extends HttpServlet {
 		ServletContext context = req.getServletContext();
 		String photoName = req.getParameter("name");
 		
-		String imagePath = context.getRealPath("WEB-INF/slike/" + photoName);
-		Path image = Paths.get(imagePath);
-		
-		resp.setContentType("image/jpg");
+		if(!FileResponses.isPlainFileName(photoName)) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
 		
-		InputStream imageInputStream = new BufferedInputStream(Files.newInputStream(image));
-		OutputStream os = resp.getOutputStream();
+		Path image = Paths.get(context.getRealPath("/WEB-INF/slike")).resolve(photoName);
+		if(!Files.isRegularFile(image)) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
 		
-		while(true) {
-			byte[] buffer = new byte[128];
-			int r = imageInputStream.read(buffer);
-			if(r < 1) break;
-			os.write(buffer, 0, r);
+		long lastModified = Files.getLastModifiedTime(image).toMillis();
+		String eTag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(Files.size(image)) + "\"";
+		if(FileResponses.isNotModified(req, resp, eTag, lastModified)) {
+			return;
 		}
 		
-		imageInputStream.close();
+		resp.setContentType("image/jpg");
+		FileResponses.transfer(image, resp);
 	}
 	
 }
@@ -0,0 +1,99 @@
+package hr.fer.zemris.java.hw16.servlets;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Helper methods shared by servlets which send files to the client.
+ *
+ * @author Ivan Skorupan
+ */
+class FileResponses {
+
+	/**
+	 * Time for which clients may use a sent file without asking again, in seconds.
+	 */
+	private static final int MAX_AGE = 3600;
+
+	/**
+	 * Checks that the given name is a plain file name which can not point
+	 * outside of the directory it is resolved against.
+	 *
+	 * @param name - name to check
+	 * @return <code>true</code> if the name is a plain file name, <code>false</code> otherwise
+	 */
+	static boolean isPlainFileName(String name) {
+		return name != null && !name.isEmpty() && !name.equals(".") && !name.equals("..")
+				&& name.indexOf('/') < 0 && name.indexOf('\\') < 0;
+	}
+
+	/**
+	 * Sets the validation headers of a response and checks if the client already
+	 * has the current version of the resource. If it does, the response is turned
+	 * into a "not modified" response with no body.
+	 *
+	 * @param req - client's request
+	 * @param resp - response to the client
+	 * @param eTag - entity tag of the resource or <code>null</code> if it has none
+	 * @param lastModified - last modification time of the resource in milliseconds
+	 * @return <code>true</code> if the client has the current version, <code>false</code> otherwise
+	 */
+	static boolean isNotModified(HttpServletRequest req, HttpServletResponse resp, String eTag, long lastModified) {
+		resp.setHeader("Cache-Control", "max-age=" + MAX_AGE);
+		resp.setDateHeader("Last-Modified", lastModified);
+		if(eTag != null) {
+			resp.setHeader("ETag", eTag);
+		}
+
+		boolean notModified;
+		String ifNoneMatch = req.getHeader("If-None-Match");
+		if(ifNoneMatch != null) {
+			notModified = eTag != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(eTag));
+		} else {
+			long ifModifiedSince = req.getDateHeader("If-Modified-Since");
+			notModified = ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+		}
+
+		if(notModified) {
+			resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		}
+		return notModified;
+	}
+
+	/**
+	 * Sends the whole content of the given file as the response body.
+	 * <p>
+	 * The file is handed over with {@link FileChannel#transferTo}, which lets the
+	 * operating system copy it directly when the container's output allows it and
+	 * otherwise avoids copying through buffers of our own.
+	 *
+	 * @param file - file to send
+	 * @param resp - response to write to
+	 * @throws IOException if the file could not be read or sent, or if it was
+	 *         truncated while being sent
+	 */
+	static void transfer(Path file, HttpServletResponse resp) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			resp.setContentLengthLong(size);
+
+			WritableByteChannel out = Channels.newChannel(resp.getOutputStream());
+			long position = 0;
+			while(position < size) {
+				long transferred = channel.transferTo(position, size - position, out);
+				if(transferred <= 0) {
+					throw new IOException("The file " + file + " is shorter than expected!");
+				}
+				position += transferred;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,415 @@
+package hr.fer.zemris.java.hw16.servlets;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.servlet.ServletContext;
+
+/**
+ * A cache of encoded thumbnails, ready to be sent to clients.
+ * <p>
+ * Thumbnails are content-addressed: each one is stored in the thumbnail directory
+ * under the hash of the original image's bytes, and that hash is also used as the
+ * thumbnail's HTTP entity tag. Once a thumbnail is loaded, it is kept in memory as
+ * encoded bytes, so serving it needs no image decoding or encoding at all. If the
+ * original image changes, its thumbnail is made again.
+ * <p>
+ * Thumbnails are made on a background thread pool. When the cache is created, the
+ * thumbnails of all images in the descriptor file are scheduled, so they are usually
+ * ready before the first gallery page asks for them.
+ *
+ * @author Ivan Skorupan
+ */
+public class ThumbnailCache {
+
+	/**
+	 * Name of the servlet context attribute under which the cache is stored.
+	 */
+	private static final String CONTEXT_ATTRIBUTE = "hr.fer.zemris.thumbnails";
+
+	/**
+	 * Width and height of thumbnails in pixels.
+	 */
+	private static final int THUMBNAIL_SIZE = 150;
+
+	/**
+	 * Quality of encoded thumbnails, between 0 and 1.
+	 */
+	private static final float JPEG_QUALITY = 0.9f;
+
+	/**
+	 * Models one encoded thumbnail.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	public static class Thumbnail {
+
+		/**
+		 * Encoded bytes of the thumbnail.
+		 */
+		private byte[] bytes;
+
+		/**
+		 * Entity tag of the thumbnail.
+		 */
+		private String eTag;
+
+		/**
+		 * Last modification time of the original image, in milliseconds.
+		 */
+		private long lastModified;
+
+		/**
+		 * Size of the original image in bytes.
+		 */
+		private long sourceSize;
+
+		/**
+		 * Constructs a new {@link Thumbnail} object.
+		 *
+		 * @param bytes - encoded bytes of the thumbnail
+		 * @param hash - hash of the original image's bytes
+		 * @param attributes - attributes of the original image
+		 */
+		private Thumbnail(byte[] bytes, String hash, BasicFileAttributes attributes) {
+			this.bytes = bytes;
+			this.eTag = "\"" + hash + "\"";
+			this.lastModified = attributes.lastModifiedTime().toMillis();
+			this.sourceSize = attributes.size();
+		}
+
+		/**
+		 * Checks if this thumbnail was made from the original image with the given attributes.
+		 *
+		 * @param attributes - current attributes of the original image
+		 * @return <code>true</code> if this thumbnail is up to date, <code>false</code> otherwise
+		 */
+		private boolean isFresh(BasicFileAttributes attributes) {
+			return lastModified == attributes.lastModifiedTime().toMillis() && sourceSize == attributes.size();
+		}
+
+		/**
+		 * Getter for encoded bytes of the thumbnail.
+		 *
+		 * @return encoded bytes of the thumbnail, which must not be modified
+		 */
+		public byte[] getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * Getter for the entity tag of the thumbnail.
+		 *
+		 * @return entity tag of the thumbnail
+		 */
+		public String getETag() {
+			return eTag;
+		}
+
+		/**
+		 * Getter for the last modification time of the original image.
+		 *
+		 * @return last modification time in milliseconds
+		 */
+		public long getLastModified() {
+			return lastModified;
+		}
+
+	}
+
+	/**
+	 * Directory containing original images.
+	 */
+	private Path imagesDirectory;
+
+	/**
+	 * Directory containing encoded thumbnails.
+	 */
+	private Path thumbnailsDirectory;
+
+	/**
+	 * Loaded or pending thumbnails mapped by image names.
+	 */
+	private Map<String, CompletableFuture<Thumbnail>> thumbnails = new ConcurrentHashMap<>();
+
+	/**
+	 * Thread pool on which thumbnails are made.
+	 */
+	private ExecutorService generator;
+
+	/**
+	 * Constructs a new {@link ThumbnailCache} object.
+	 *
+	 * @param imagesDirectory - directory containing original images
+	 * @param thumbnailsDirectory - directory containing encoded thumbnails
+	 * @throws IOException if the thumbnail directory could not be created
+	 */
+	public ThumbnailCache(Path imagesDirectory, Path thumbnailsDirectory) throws IOException {
+		this.imagesDirectory = imagesDirectory;
+		this.thumbnailsDirectory = Files.createDirectories(thumbnailsDirectory);
+
+		generator = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+			Thread thread = new Thread(r, "thumbnail-generator");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Returns the thumbnail cache of the given web application, creating it and
+	 * scheduling thumbnails of all described images if it does not exist yet.
+	 *
+	 * @param context - servlet context of the web application
+	 * @return thumbnail cache of the web application
+	 * @throws IOException if the cache could not be created
+	 */
+	public static synchronized ThumbnailCache forContext(ServletContext context) throws IOException {
+		ThumbnailCache cache = (ThumbnailCache)context.getAttribute(CONTEXT_ATTRIBUTE);
+
+		if(cache == null) {
+			cache = new ThumbnailCache(Paths.get(context.getRealPath("/WEB-INF/slike")),
+					Paths.get(context.getRealPath("/WEB-INF/thumbnails")));
+
+			List<String> descriptorLines = Files.readAllLines(Paths.get(context.getRealPath("/WEB-INF/opisnik.txt")));
+			for(int i = 0; i < descriptorLines.size(); i += 4) {
+				cache.prefetch(descriptorLines.get(i).trim());
+			}
+
+			context.setAttribute(CONTEXT_ATTRIBUTE, cache);
+		}
+
+		return cache;
+	}
+
+	/**
+	 * Returns the thumbnail of the image with the given name, waiting for it to be
+	 * made if needed.
+	 *
+	 * @param imageName - name of the image
+	 * @return thumbnail of the image or <code>null</code> if there is no such image
+	 * @throws IOException if the thumbnail could not be made
+	 */
+	public Thumbnail get(String imageName) throws IOException {
+		CompletableFuture<Thumbnail> future = schedule(imageName);
+		if(future == null) {
+			return null;
+		}
+
+		try {
+			return future.get();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for thumbnail.", e);
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof UncheckedIOException ? ((UncheckedIOException)cause).getCause()
+					: new IOException("Thumbnail could not be made.", cause);
+		}
+	}
+
+	/**
+	 * Starts making the thumbnail of the image with the given name in the
+	 * background, unless it is already up to date.
+	 *
+	 * @param imageName - name of the image
+	 */
+	public void prefetch(String imageName) {
+		try {
+			schedule(imageName);
+		} catch(IOException ignorable) {
+		}
+	}
+
+	/**
+	 * Returns the pending or made thumbnail of the image with the given name,
+	 * scheduling it if it is missing, failed or made from an older image.
+	 *
+	 * @param imageName - name of the image
+	 * @return the thumbnail's future or <code>null</code> if there is no such image
+	 * @throws IOException if attributes of the image could not be read
+	 */
+	private CompletableFuture<Thumbnail> schedule(String imageName) throws IOException {
+		if(!FileResponses.isPlainFileName(imageName)) {
+			return null;
+		}
+
+		Path image = imagesDirectory.resolve(imageName);
+		if(!Files.isRegularFile(image)) {
+			return null;
+		}
+
+		BasicFileAttributes attributes = Files.readAttributes(image, BasicFileAttributes.class);
+
+		return thumbnails.compute(imageName, (name, old) -> {
+			if(old != null && (!old.isDone() || (!old.isCompletedExceptionally() && old.join().isFresh(attributes)))) {
+				return old;
+			}
+
+			return CompletableFuture.supplyAsync(() -> load(image, attributes), generator);
+		});
+	}
+
+	/**
+	 * Loads the thumbnail of the given image from the thumbnail directory, making
+	 * and storing it first if it is not there.
+	 *
+	 * @param image - path of the original image
+	 * @param attributes - attributes of the original image
+	 * @return the loaded thumbnail
+	 * @throws UncheckedIOException if the image or the thumbnail could not be read or written
+	 */
+	private Thumbnail load(Path image, BasicFileAttributes attributes) {
+		try {
+			String hash = hash(image);
+			Path thumbnailFile = thumbnailsDirectory.resolve(hash + ".jpg");
+
+			if(!Files.exists(thumbnailFile)) {
+				Path temporary = Files.createTempFile(thumbnailsDirectory, hash, ".tmp");
+				try {
+					writeJpeg(scale(readImage(image)), temporary);
+					Files.move(temporary, thumbnailFile, StandardCopyOption.REPLACE_EXISTING);
+				} finally {
+					Files.deleteIfExists(temporary);
+				}
+			}
+
+			return new Thumbnail(Files.readAllBytes(thumbnailFile), hash, attributes);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads and decodes the given image.
+	 *
+	 * @param image - path of the image
+	 * @return the decoded image
+	 * @throws IOException if the image could not be read or decoded
+	 */
+	private static BufferedImage readImage(Path image) throws IOException {
+		try(InputStream is = Files.newInputStream(image)) {
+			BufferedImage bim = ImageIO.read(is);
+			if(bim == null) {
+				throw new IOException("Unsupported image format: " + image.getFileName());
+			}
+			return bim;
+		}
+	}
+
+	/**
+	 * Scales the given image down to a thumbnail.
+	 * <p>
+	 * The image is halved with bilinear filtering until it is less than twice as large
+	 * as the thumbnail and then scaled to the final size, which looks almost as good as
+	 * area averaging and is much faster.
+	 *
+	 * @param image - image to scale
+	 * @return the thumbnail image
+	 */
+	private static BufferedImage scale(BufferedImage image) {
+		BufferedImage current = image;
+		int width = image.getWidth();
+		int height = image.getHeight();
+
+		while(width >= 2 * THUMBNAIL_SIZE || height >= 2 * THUMBNAIL_SIZE) {
+			width = Math.max(THUMBNAIL_SIZE, width / 2);
+			height = Math.max(THUMBNAIL_SIZE, height / 2);
+			current = draw(current, width, height);
+		}
+
+		return draw(current, THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+	}
+
+	/**
+	 * Draws the given image scaled to the given size with bilinear filtering.
+	 *
+	 * @param image - image to draw
+	 * @param width - width of the result
+	 * @param height - height of the result
+	 * @return the scaled image
+	 */
+	private static BufferedImage draw(BufferedImage image, int width, int height) {
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g2d = scaled.createGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g2d.drawImage(image, 0, 0, width, height, null);
+		g2d.dispose();
+		return scaled;
+	}
+
+	/**
+	 * Encodes the given image as a JPEG file.
+	 *
+	 * @param image - image to encode
+	 * @param file - file to write to
+	 * @throws IOException if the image could not be written
+	 */
+	private static void writeJpeg(BufferedImage image, Path file) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(JPEG_QUALITY);
+
+		try(ImageOutputStream ios = ImageIO.createImageOutputStream(file.toFile())) {
+			writer.setOutput(ios);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+	}
+
+	/**
+	 * Calculates the hash of the given file's content.
+	 *
+	 * @param file - file to hash
+	 * @return the hash as a hexadecimal string
+	 * @throws IOException if the file could not be read
+	 */
+	private static String hash(Path file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		try(InputStream is = Files.newInputStream(file)) {
+			byte[] buffer = new byte[8192];
+			int r;
+			while((r = is.read(buffer)) > 0) {
+				digest.update(buffer, 0, r);
+			}
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for(byte b : digest.digest()) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+}
@@ -12,12 +12,14 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
- * This class models a file visitor which builds TF and TF-IDF vectors for documents
- * in a given directory subtree.
+ * This class models a file visitor which builds sparse TF-IDF vectors for documents
+ * in a given directory subtree and stores them in an {@link InvertedIndex}.
  * <p>
  * It also builds the helping IDF vector.
  * 
@@ -26,30 +28,30 @@ import java.util.Objects;
 public class DocumentVectorBuilder extends SimpleFileVisitor<Path> {
 	
 	/**
-	 * List of words that were already visited in current file.
+	 * Paths of visited documents.
 	 */
-	private List<String> visited = new ArrayList<>();
+	private List<Path> documents = new ArrayList<>();
 	
 	/**
-	 * List of term frequency (TF) vectors.
+	 * Sparse term frequency (TF) vectors of visited documents, mapping vocabulary
+	 * word indexes to the number of times the word appears in the document.
 	 */
-	private List<DocumentVector> tfVectors = new ArrayList<>();
+	private List<Map<Integer, Integer>> tfVectors = new ArrayList<>();
 	
 	/**
-	 * List of term frequency - inverse document frequency (TF-IDF) vectors.
+	 * The inverse document frequency (IDF) vector.
 	 */
-	private List<DocumentVector> tfIdfVectors = new ArrayList<>();
+	private DocumentVector idfVector;
 	
 	/**
-	 * The inverse document frequency (IDF) vector.
+	 * Number of documents that contain a certain word from the vocabulary.
 	 */
-	private DocumentVector idfVector;
+	private int[] docsWithWord;
 	
 	/**
-	 * Vector that holds information on how many documents contain a certain word
-	 * from the vocabulary.
+	 * The inverted index built from the TF-IDF vectors.
 	 */
-	private DocumentVector docsWithWord;
+	private InvertedIndex invertedIndex;
 	
 	/**
 	 * A reference to {@link VocabularyBuilder} object that holds the vocabulary and
@@ -66,15 +68,14 @@ public class DocumentVectorBuilder extends SimpleFileVisitor<Path> {
 	public DocumentVectorBuilder(VocabularyBuilder vocabBuilder) {
 		this.vocabBuilder = Objects.requireNonNull(vocabBuilder);
 		idfVector = new DocumentVector(null, vocabBuilder.getVocabulary().size());
-		docsWithWord = new DocumentVector(null, vocabBuilder.getVocabulary().size());
+		docsWithWord = new int[vocabBuilder.getVocabulary().size()];
 	}
 	
 	@Override
 	public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-		DocumentVector docVector = new DocumentVector(file, vocabBuilder.getVocabulary().size());
-		tfVectors.add(docVector);
-		
-		visited.clear();
+		Map<Integer, Integer> tfVector = new HashMap<>();
+		documents.add(file);
+		tfVectors.add(tfVector);
 		
 		try(BufferedReader br = new BufferedReader(new InputStreamReader(
 				new BufferedInputStream(Files.newInputStream(file)), "UTF-8"))) {
@@ -89,34 +90,35 @@ public class DocumentVectorBuilder extends SimpleFileVisitor<Path> {
 					if(Character.isAlphabetic(character)) {
 						word.append(character);
 					} else {
-						updateVectors(word.toString().toLowerCase());
+						updateVector(tfVector, word.toString().toLowerCase());
 						word = new StringBuilder();
 					}
 				}
 				
 				if(word.length() != 0) {
-					updateVectors(word.toString().toLowerCase());
+					updateVector(tfVector, word.toString().toLowerCase());
 				}
 			}
 		}
 		
+		for(Integer wordIndex : tfVector.keySet()) {
+			docsWithWord[wordIndex]++;
+		}
+		
 		return FileVisitResult.CONTINUE;
 	}
 	
 	/**
-	 * This method updates the vectors that we need to calculate given a
-	 * word that was just parsed from a document.
+	 * This method updates the TF vector of the current document given a
+	 * word that was just parsed from it.
 	 * 
+	 * @param tfVector - sparse TF vector of the current document
 	 * @param word - a word parsed from some document
 	 */
-	private void updateVectors(String word) {
-		int wordIndex = vocabBuilder.getVocabulary().indexOf(word);
+	private void updateVector(Map<Integer, Integer> tfVector, String word) {
+		int wordIndex = vocabBuilder.getWordIndex(word);
 		if(wordIndex != -1) {
-			if(!visited.contains(word)) {
-				docsWithWord.getComponents()[wordIndex]++;
-				visited.add(word);
-			}
-			tfVectors.get(tfVectors.size() - 1).getComponents()[wordIndex]++;
+			tfVector.merge(wordIndex, 1, Integer::sum);
 		}
 	}
 	
@@ -127,49 +129,70 @@ public class DocumentVectorBuilder extends SimpleFileVisitor<Path> {
 	 */
 	public void calculateIdfVector() {
 		for(int i = 0; i < vocabBuilder.getVocabulary().size(); i++) {
-			idfVector.getComponents()[i] = log((double) vocabBuilder.getNumberOfDocuments() / docsWithWord.getComponents()[i]);
+			idfVector.getComponents()[i] = log((double) vocabBuilder.getNumberOfDocuments() / docsWithWord[i]);
 		}
 	}
 	
 	/**
-	 * Calculates the TF-IDF vectors. This method should be called
-	 * after {@link #calculateIdfVector()}.
+	 * Calculates the TF-IDF vectors and their norms and builds the inverted index
+	 * from them. This method should be called after {@link #calculateIdfVector()}.
+	 * <p>
+	 * Once the index is built, the TF vectors are no longer needed and are released.
 	 */
-	public void calculateTfIdfVectors() {
-		for(DocumentVector tfVector : tfVectors) {
-			DocumentVector tfIdfVector = new DocumentVector(tfVector.getDocumentPath(), tfVector.getComponents().length);
-			tfIdfVectors.add(tfIdfVector);
-			for(int i = 0; i < vocabBuilder.getVocabulary().size(); i++) {
-				tfIdfVector.getComponents()[i] = tfVector.getComponents()[i] * idfVector.getComponents()[i];
+	public void buildInvertedIndex() {
+		double[] idf = idfVector.getComponents();
+		PostingList[] postings = new PostingList[idf.length];
+		for(int i = 0; i < postings.length; i++) {
+			postings[i] = new PostingList();
+		}
+		
+		double[] norms = new double[documents.size()];
+		for(int document = 0; document < documents.size(); document++) {
+			Map<Integer, Integer> tfVector = tfVectors.get(document);
+			
+			double squareSum = 0;
+			for(Map.Entry<Integer, Integer> entry : tfVector.entrySet()) {
+				squareSum += pow(entry.getValue() * idf[entry.getKey()], 2);
+			}
+			norms[document] = sqrt(squareSum);
+			
+			if(norms[document] == 0) {
+				continue;
+			}
+			
+			for(Map.Entry<Integer, Integer> entry : tfVector.entrySet()) {
+				double weight = entry.getValue() * idf[entry.getKey()];
+				if(weight != 0) {
+					postings[entry.getKey()].add(document, weight / norms[document]);
+				}
 			}
 		}
+		
+		for(PostingList postingList : postings) {
+			postingList.trimToSize();
+		}
+		
+		tfVectors = null;
+		invertedIndex = new InvertedIndex(documents, norms, idf, postings);
 	}
 
 	/**
-	 * Getter for TF vectors.
-	 * 
-	 * @return TF vectors
-	 */
-	public List<DocumentVector> getTfVectors() {
-		return tfVectors;
-	}
-
-	/**
-	 * Getter for TF-IDF vectors.
+	 * Getter for IDF vector.
 	 * 
-	 * @return TF-IDF vectors
+	 * @return IDF vector
 	 */
-	public List<DocumentVector> getTfIdfVectors() {
-		return tfIdfVectors;
+	public DocumentVector getIdfVector() {
+		return idfVector;
 	}
 
 	/**
-	 * Getter for IDF vector.
+	 * Getter for the inverted index. The index is available only after
+	 * {@link #buildInvertedIndex()} was called.
 	 * 
-	 * @return IDF vector
+	 * @return the inverted index
 	 */
-	public DocumentVector getIdfVector() {
-		return idfVector;
+	public InvertedIndex getInvertedIndex() {
+		return invertedIndex;
 	}
 	
 }
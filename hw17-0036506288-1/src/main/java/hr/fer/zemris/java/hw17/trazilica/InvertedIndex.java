@@ -0,0 +1,301 @@
+package hr.fer.zemris.java.hw17.trazilica;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * This class models an inverted index of a document collection.
+ * <p>
+ * For every vocabulary word the index holds a {@link PostingList} of documents
+ * containing it. Weights in posting lists are TF-IDF components already divided
+ * by the document's norm, so the cosine similarity between a query and a document
+ * is a sum of products over the query's words only.
+ * <p>
+ * Searching visits the posting lists of query words in document order and keeps
+ * only the best results in a bounded heap. Optionally, the WAND strategy is used
+ * to skip documents whose score can not reach the current top results.
+ *
+ * @author Ivan Skorupan
+ */
+public class InvertedIndex {
+
+	/**
+	 * Paths of indexed documents.
+	 */
+	private List<Path> documents;
+
+	/**
+	 * Norms of TF-IDF vectors of indexed documents.
+	 */
+	private double[] norms;
+
+	/**
+	 * The inverse document frequency (IDF) component of every vocabulary word.
+	 */
+	private double[] idf;
+
+	/**
+	 * Posting lists of vocabulary words.
+	 */
+	private PostingList[] postings;
+
+	/**
+	 * Models a document together with its similarity to the query.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	private static class ScoredDocument {
+
+		/**
+		 * Index of the document.
+		 */
+		private int document;
+
+		/**
+		 * Similarity between the query and the document.
+		 */
+		private double similarity;
+
+		/**
+		 * Constructs a new {@link ScoredDocument} object.
+		 *
+		 * @param document - index of the document
+		 * @param similarity - similarity between the query and the document
+		 */
+		private ScoredDocument(int document, double similarity) {
+			this.document = document;
+			this.similarity = similarity;
+		}
+
+	}
+
+	/**
+	 * Models a position in the posting list of one query word.
+	 *
+	 * @author Ivan Skorupan
+	 */
+	private static class PostingCursor {
+
+		/**
+		 * Posting list this cursor walks.
+		 */
+		private PostingList list;
+
+		/**
+		 * Weight of the word in the query, divided by the query's norm.
+		 */
+		private double queryWeight;
+
+		/**
+		 * The largest contribution this word can make to any document's similarity.
+		 */
+		private double upperBound;
+
+		/**
+		 * Current position in the posting list.
+		 */
+		private int position;
+
+		/**
+		 * Constructs a new {@link PostingCursor} object.
+		 *
+		 * @param list - posting list to walk
+		 * @param queryWeight - normalized weight of the word in the query
+		 */
+		private PostingCursor(PostingList list, double queryWeight) {
+			this.list = list;
+			this.queryWeight = queryWeight;
+			this.upperBound = queryWeight * list.getMaxWeight();
+		}
+
+		/**
+		 * Returns the document this cursor is currently at.
+		 *
+		 * @return current document or {@link Integer#MAX_VALUE} if the list is exhausted
+		 */
+		private int document() {
+			return position < list.size() ? list.getDocument(position) : Integer.MAX_VALUE;
+		}
+
+		/**
+		 * Returns the contribution of this word to the current document's similarity.
+		 *
+		 * @return contribution to the current document's similarity
+		 */
+		private double score() {
+			return queryWeight * list.getWeight(position);
+		}
+
+		/**
+		 * Moves this cursor to the first document greater than or equal to <code>document</code>.
+		 *
+		 * @param document - wanted document index
+		 */
+		private void skipTo(int document) {
+			position = list.seek(position, document);
+		}
+
+	}
+
+	/**
+	 * Constructs a new {@link InvertedIndex} object.
+	 *
+	 * @param documents - paths of indexed documents
+	 * @param norms - norms of documents' TF-IDF vectors
+	 * @param idf - IDF component of every vocabulary word
+	 * @param postings - posting list of every vocabulary word, with normalized weights
+	 * @throws NullPointerException if any of the arguments is <code>null</code>
+	 */
+	public InvertedIndex(List<Path> documents, double[] norms, double[] idf, PostingList[] postings) {
+		this.documents = Objects.requireNonNull(documents);
+		this.norms = Objects.requireNonNull(norms);
+		this.idf = Objects.requireNonNull(idf);
+		this.postings = Objects.requireNonNull(postings);
+	}
+
+	/**
+	 * Finds documents most similar to the given query.
+	 * <p>
+	 * The query is given as a map of vocabulary word indexes to number of times the
+	 * word appears in the query. Documents whose similarity is 0 are never returned.
+	 * Using WAND does not change the results, it only skips documents which can not
+	 * make it into the results.
+	 *
+	 * @param query - term frequencies of the query words
+	 * @param maxResults - maximum number of results to return
+	 * @param useWand - <code>true</code> if documents that can not enter the results should be skipped
+	 * @return at most <code>maxResults</code> results sorted by descending similarity
+	 * @throws NullPointerException if <code>query</code> is <code>null</code>
+	 * @throws IllegalArgumentException if <code>maxResults</code> is less than 1
+	 */
+	public List<QueryResult> search(Map<Integer, Integer> query, int maxResults, boolean useWand) {
+		Objects.requireNonNull(query);
+		if(maxResults < 1) {
+			throw new IllegalArgumentException("At least one result must be requested!");
+		}
+
+		double queryNorm = 0;
+		for(Map.Entry<Integer, Integer> entry : query.entrySet()) {
+			double weight = entry.getValue() * idf[entry.getKey()];
+			queryNorm += weight * weight;
+		}
+		queryNorm = Math.sqrt(queryNorm);
+
+		if(queryNorm == 0) {
+			return new ArrayList<>();
+		}
+
+		List<PostingCursor> cursors = new ArrayList<>();
+		for(Map.Entry<Integer, Integer> entry : query.entrySet()) {
+			double weight = entry.getValue() * idf[entry.getKey()];
+			if(weight > 0) {
+				cursors.add(new PostingCursor(postings[entry.getKey()], weight / queryNorm));
+			}
+		}
+
+		// the worst of the current best results is on top, later documents lose ties
+		PriorityQueue<ScoredDocument> heap = new PriorityQueue<>(
+				Comparator.<ScoredDocument>comparingDouble(d -> d.similarity).thenComparingInt(d -> -d.document));
+		PostingCursor[] sorted = cursors.toArray(new PostingCursor[0]);
+		Comparator<PostingCursor> byDocument = Comparator.comparingInt(PostingCursor::document);
+
+		while(true) {
+			Arrays.sort(sorted, byDocument);
+			if(sorted.length == 0 || sorted[0].document() == Integer.MAX_VALUE) {
+				break;
+			}
+
+			double threshold = heap.size() < maxResults ? 0 : heap.peek().similarity;
+			int pivot = 0;
+
+			if(useWand) {
+				// find the first document whose similarity can exceed the threshold
+				double bound = 0;
+				for(pivot = 0; pivot < sorted.length; pivot++) {
+					if(sorted[pivot].document() == Integer.MAX_VALUE) {
+						pivot = sorted.length;
+						break;
+					}
+					bound += sorted[pivot].upperBound;
+					if(bound > threshold) {
+						break;
+					}
+				}
+
+				if(pivot == sorted.length) {
+					break;
+				}
+			}
+
+			int pivotDocument = sorted[pivot].document();
+
+			if(sorted[0].document() == pivotDocument) {
+				double similarity = 0;
+				for(PostingCursor cursor : sorted) {
+					if(cursor.document() != pivotDocument) {
+						break;
+					}
+					similarity += cursor.score();
+					cursor.skipTo(pivotDocument + 1);
+				}
+
+				if(similarity > threshold) {
+					heap.offer(new ScoredDocument(pivotDocument, similarity));
+					if(heap.size() > maxResults) {
+						heap.poll();
+					}
+				}
+			} else {
+				for(int i = 0; i < pivot; i++) {
+					sorted[i].skipTo(pivotDocument);
+				}
+			}
+		}
+
+		List<QueryResult> results = new ArrayList<>();
+		while(!heap.isEmpty()) {
+			ScoredDocument scored = heap.poll();
+			results.add(new QueryResult(scored.similarity, documents.get(scored.document)));
+		}
+		Collections.reverse(results);
+
+		return results;
+	}
+
+	/**
+	 * Returns the number of indexed documents.
+	 *
+	 * @return number of indexed documents
+	 */
+	public int getNumberOfDocuments() {
+		return documents.size();
+	}
+
+	/**
+	 * Returns the norm of the TF-IDF vector of the document with the given index.
+	 *
+	 * @param document - index of the document
+	 * @return norm of the document's TF-IDF vector
+	 */
+	public double getNorm(int document) {
+		return norms[document];
+	}
+
+	/**
+	 * Returns the posting list of the vocabulary word with the given index.
+	 *
+	 * @param word - index of the word in the vocabulary
+	 * @return posting list of the word
+	 */
+	public PostingList getPostingList(int word) {
+		return postings[word];
+	}
+
+}
@@ -72,10 +72,9 @@ public class Konzola {
 		}
 		
 		vectorBuilder.calculateIdfVector();
-		vectorBuilder.calculateTfIdfVectors();
+		vectorBuilder.buildInvertedIndex();
 		env.setSharedData("vocabBuilder", vocabBuilder);
-		env.setSharedData("idfVector", vectorBuilder.getIdfVector());
-		env.setSharedData("tfIdfVectors", vectorBuilder.getTfIdfVectors());
+		env.setSharedData("invertedIndex", vectorBuilder.getInvertedIndex());
 		
 		env.writeln("");
 		env.writeln("Veličina riječnika je " + vocabBuilder.getVocabulary().size() + " riječi.");
@@ -0,0 +1,143 @@
+package hr.fer.zemris.java.hw17.trazilica;
+
+import java.util.Arrays;
+
+/**
+ * This class models a posting list of one vocabulary word.
+ * <p>
+ * A posting list contains indexes of all documents that contain the word,
+ * in ascending order, together with the word's weight in each of those
+ * documents. The largest weight is also remembered so that a search can
+ * estimate how much a word can contribute to any document's score.
+ *
+ * @author Ivan Skorupan
+ */
+public class PostingList {
+
+	/**
+	 * Initial capacity of the internal arrays.
+	 */
+	private static final int INITIAL_CAPACITY = 4;
+
+	/**
+	 * Indexes of documents that contain the word, in ascending order.
+	 */
+	private int[] documents = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Weights of the word in documents from {@link #documents}.
+	 */
+	private double[] weights = new double[INITIAL_CAPACITY];
+
+	/**
+	 * Number of postings in this list.
+	 */
+	private int size;
+
+	/**
+	 * The largest weight in this list.
+	 */
+	private double maxWeight;
+
+	/**
+	 * Appends a new posting to the end of this list.
+	 *
+	 * @param document - index of the document, must be greater than all indexes in this list
+	 * @param weight - weight of the word in the document
+	 * @throws IllegalArgumentException if <code>document</code> is not greater than the last document in this list
+	 */
+	public void add(int document, double weight) {
+		if(size > 0 && documents[size - 1] >= document) {
+			throw new IllegalArgumentException("Postings must be added in ascending document order!");
+		}
+
+		if(size == documents.length) {
+			documents = Arrays.copyOf(documents, size * 2);
+			weights = Arrays.copyOf(weights, size * 2);
+		}
+
+		documents[size] = document;
+		weights[size] = weight;
+		size++;
+		maxWeight = Math.max(maxWeight, weight);
+	}
+
+	/**
+	 * Finds the position of the first posting at or after position <code>from</code>
+	 * whose document index is greater than or equal to <code>document</code>.
+	 *
+	 * @param from - position to start searching from
+	 * @param document - wanted document index
+	 * @return position of the found posting or {@link #size()} if there is no such posting
+	 */
+	public int seek(int from, int document) {
+		// gallop to find a bracket, then binary search inside of it
+		int step = 1;
+		int low = from;
+		int high = from;
+		while(high < size && documents[high] < document) {
+			low = high + 1;
+			high += step;
+			step *= 2;
+		}
+
+		high = Math.min(high, size);
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(documents[middle] < document) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Returns the document index of the posting at the given position.
+	 *
+	 * @param position - position of the posting
+	 * @return document index of the posting
+	 */
+	public int getDocument(int position) {
+		return documents[position];
+	}
+
+	/**
+	 * Returns the weight of the posting at the given position.
+	 *
+	 * @param position - position of the posting
+	 * @return weight of the posting
+	 */
+	public double getWeight(int position) {
+		return weights[position];
+	}
+
+	/**
+	 * Getter for the number of postings in this list.
+	 *
+	 * @return number of postings
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Getter for the largest weight in this list.
+	 *
+	 * @return the largest weight
+	 */
+	public double getMaxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * Trims the internal arrays to this list's size.
+	 */
+	public void trimToSize() {
+		documents = Arrays.copyOf(documents, size);
+		weights = Arrays.copyOf(weights, size);
+	}
+
+}
@@ -11,7 +11,11 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This class models a file visitor that knows how to pull words out of documents and
@@ -29,9 +33,14 @@ public class VocabularyBuilder extends SimpleFileVisitor<Path> {
 	private List<String> vocabulary = new ArrayList<>();
 	
 	/**
-	 * List of words that should not be included in the vocabulary.
+	 * Map of vocabulary words to their indexes in {@link #vocabulary}.
 	 */
-	private List<String> stoppingWords;
+	private Map<String, Integer> wordIndexes = new HashMap<>();
+	
+	/**
+	 * Set of words that should not be included in the vocabulary.
+	 */
+	private Set<String> stoppingWords;
 	
 	/**
 	 * Number of documents that were walked.
@@ -45,7 +54,7 @@ public class VocabularyBuilder extends SimpleFileVisitor<Path> {
 	 */
 	public VocabularyBuilder() throws IOException {
 		Path stoppingWordsPath = Paths.get("./src/main/resources/hrvatski_stoprijeci.txt");
-		stoppingWords = Files.readAllLines(stoppingWordsPath);
+		stoppingWords = new HashSet<>(Files.readAllLines(stoppingWordsPath));
 	}
 	
 	@Override
@@ -86,11 +95,23 @@ public class VocabularyBuilder extends SimpleFileVisitor<Path> {
 	 * @param word - word to possibly add to the vocabulary
 	 */
 	private void updateVocabulary(String word) {
-		if(!stoppingWords.contains(word) && !vocabulary.contains(word)) {
+		if(!stoppingWords.contains(word) && !wordIndexes.containsKey(word)) {
+			wordIndexes.put(word, vocabulary.size());
 			vocabulary.add(word);
 		}
 	}
 	
+	/**
+	 * Returns the index of the given <code>word</code> in the vocabulary.
+	 * 
+	 * @param word - word whose index to return
+	 * @return index of <code>word</code> or -1 if the word is not in the vocabulary
+	 */
+	public int getWordIndex(String word) {
+		Integer index = wordIndexes.get(word);
+		return (index == null) ? -1 : index;
+	}
+	
 	/**
 	 * Getter for the vocabulary.
 	 * 
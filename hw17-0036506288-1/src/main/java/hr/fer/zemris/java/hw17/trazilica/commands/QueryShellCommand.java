@@ -1,11 +1,13 @@
 package hr.fer.zemris.java.hw17.trazilica.commands;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
-import hr.fer.zemris.java.hw17.trazilica.DocumentVector;
 import hr.fer.zemris.java.hw17.trazilica.Environment;
+import hr.fer.zemris.java.hw17.trazilica.InvertedIndex;
 import hr.fer.zemris.java.hw17.trazilica.QueryResult;
 import hr.fer.zemris.java.hw17.trazilica.ShellStatus;
 import hr.fer.zemris.java.hw17.trazilica.ShellUtil;
@@ -15,12 +17,18 @@ import hr.fer.zemris.java.hw17.trazilica.VocabularyBuilder;
  * Command "query" expects a variable number of arguments but at least one.
  * <p>
  * The arguments should be key words for which to search for in the document
- * database.
+ * database. Documents are looked up in the {@link InvertedIndex} and only the
+ * best {@value #NUMBER_OF_RESULTS} of them are kept.
  * 
  * @author Ivan Skorupan
  */
 public class QueryShellCommand extends Command {
 	
+	/**
+	 * Number of best results a query returns.
+	 */
+	private static final int NUMBER_OF_RESULTS = 10;
+	
 	/**
 	 * Constructs a new {@link QueryShellCommand} object.
 	 */
@@ -28,7 +36,6 @@ public class QueryShellCommand extends Command {
 		super("query");
 	}
 	
-	@SuppressWarnings("unchecked")
 	@Override
 	public ShellStatus executeCommand(Environment env, String arguments) {
 		Objects.requireNonNull(env);
@@ -42,39 +49,25 @@ public class QueryShellCommand extends Command {
 		
 		VocabularyBuilder vocabBuilder = ((VocabularyBuilder) env.getSharedData("vocabBuilder"));
 		List<String> finalQuery = new ArrayList<>();
-		DocumentVector queryTfVector = new DocumentVector(null, vocabBuilder.getVocabulary().size());
+		Map<Integer, Integer> queryTfVector = new HashMap<>();
 		for(int i = 0; i < args.length; i++) {
 			String word = args[i];
-			int wordIndex = vocabBuilder.getVocabulary().indexOf(word);
+			int wordIndex = vocabBuilder.getWordIndex(word);
 			
 			if(wordIndex != -1) {
 				finalQuery.add(word);
-				queryTfVector.getComponents()[wordIndex]++;
+				queryTfVector.merge(wordIndex, 1, Integer::sum);
 			}
 		}
 		
 		env.writeln("Query is: " + finalQuery);
 		
-		DocumentVector queryTfIdfVector = new DocumentVector(null, vocabBuilder.getVocabulary().size());
-		DocumentVector idfVector = (DocumentVector) env.getSharedData("idfVector");
-		
-		for(int i = 0; i < queryTfIdfVector.getComponents().length; i++) {
-			queryTfIdfVector.getComponents()[i] = queryTfVector.getComponents()[i] * idfVector.getComponents()[i];
-		}
-		
-		List<DocumentVector> tfIdfVectors = (List<DocumentVector>) env.getSharedData("tfIdfVectors");
-		List<QueryResult> results = new ArrayList<>();
-		for(int i = 0; i < vocabBuilder.getNumberOfDocuments(); i++) {
-			DocumentVector docTfIdfVector = tfIdfVectors.get(i);
-			double similarity = (docTfIdfVector.dotProduct(queryTfIdfVector)) / (docTfIdfVector.norm() * queryTfIdfVector.norm());
-			QueryResult result = new QueryResult(similarity, docTfIdfVector.getDocumentPath());
-			results.add(result);
-		}
+		InvertedIndex invertedIndex = (InvertedIndex) env.getSharedData("invertedIndex");
+		List<QueryResult> results = invertedIndex.search(queryTfVector, NUMBER_OF_RESULTS, true);
 		
 		env.setSharedData("results", results);
 		env.writeln("Najboljih 10 rezultata:");
 		
-		results.sort((r1, r2) -> Double.compare(r2.getSimilarity(), r1.getSimilarity()));
 		ShellUtil.writeResults(env, results);
 		
 		return ShellStatus.CONTINUE;